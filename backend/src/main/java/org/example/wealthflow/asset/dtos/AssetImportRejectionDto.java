@@ -0,0 +1,17 @@
+package org.example.wealthflow.asset.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetImportRejectionDto {
+    private long line;
+    private String reason;
+}
@@ -0,0 +1,24 @@
+package org.example.wealthflow.asset.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetImportResultDto {
+    private long totalRows;
+    private long created;
+    private long updated;
+    private long rejected;
+    private List<AssetImportRejectionDto> rejections;
+    private long durationMillis;
+    private double rowsPerSecond;
+}
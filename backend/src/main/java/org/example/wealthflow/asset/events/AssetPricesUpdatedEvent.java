@@ -0,0 +1,39 @@
+package org.example.wealthflow.asset.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One event per written batch rather than per price, so ingestion adds a single outbox row per batch.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetPricesUpdatedEvent {
+    private List<Long> assetIds;
+    /** oldest price time in the batch; values derived from prices after it may have changed */
+    private Instant earliestAt;
+    /** newest price time in the batch */
+    private Instant latestAt;
+
+    public static AssetPricesUpdatedEvent of(List<PriceHistory> rows) {
+        Set<Long> ids = new LinkedHashSet<>();
+        Instant earliest = null;
+        Instant latest = null;
+        for (PriceHistory row : rows) {
+            ids.add(row.getAsset().getId());
+            Instant at = row.getRecordedAt();
+            if (at == null) continue;
+            if (earliest == null || at.isBefore(earliest)) earliest = at;
+            if (latest == null || at.isAfter(latest)) latest = at;
+        }
+        return new AssetPricesUpdatedEvent(List.copyOf(ids), earliest, latest);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.wealthflow.asset.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class AssetPriceUpdate {
+    private final Long assetId;
+    private final BigDecimal price;
+    private final Instant at;
+}
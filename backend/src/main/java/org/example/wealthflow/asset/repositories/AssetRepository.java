@@ -3,10 +3,12 @@ package org.example.wealthflow.asset.repositories;
 import lombok.RequiredArgsConstructor;
 import org.example.wealthflow.common.dtos.PagedResultDto;
 import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.models.AssetPriceUpdate;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.InsertResultStep;
+import org.jooq.Row3;
 import org.jooq.Result;
 import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
@@ -16,10 +18,17 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
 import static org.jooq.impl.DSL.table;
 
 import org.jooq.Record;
@@ -43,6 +52,8 @@ public class AssetRepository {
     private final Field<Instant> CREATED_AT = field("created_at", Instant.class);
     private final Field<Instant> UPDATED_AT = field("updated_at", Instant.class);
 
+    private static final int PRICE_UPDATE_CHUNK = 5000;
+
     public Optional<Asset> findById(Long id) {
         return dslContext.selectFrom(ASSETS)
                 .where(ID.eq(id))
@@ -67,16 +78,91 @@ public class AssetRepository {
                 .fetchOptional(this::mapRecordToAsset);
     }
 
+    /**
+     * Which of the given ids exist, checked with a single {@code id = ANY(?)} query.
+     */
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return Set.of();
+        return new HashSet<>(dslContext.select(ID)
+                .from(ASSETS)
+                .where(ID.eq(DSL.any(ids.toArray(new Long[0]))))
+                .fetch(ID));
+    }
+
+    /**
+     * Last known price of every priced asset, read in one query.
+     */
+    public Map<Long, BigDecimal> findLastPrices() {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        dslContext.select(ID, LAST_PRICE)
+                .from(ASSETS)
+                .where(LAST_PRICE.isNotNull())
+                .forEach(r -> prices.put(r.value1(), r.value2()));
+        return prices;
+    }
+
+    /**
+     * Quote currency of every asset that has one, read in one query.
+     */
+    public Map<Long, String> findCurrencies() {
+        Map<Long, String> currencies = new HashMap<>();
+        dslContext.select(ID, CURRENCY)
+                .from(ASSETS)
+                .where(CURRENCY.isNotNull())
+                .forEach(r -> currencies.put(r.value1(), r.value2()));
+        return currencies;
+    }
+
+    public Map<Long, String> findCurrenciesByIds(Collection<Long> ids) {
+        Map<Long, String> currencies = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return currencies;
+        dslContext.select(ID, CURRENCY)
+                .from(ASSETS)
+                .where(ID.in(ids).and(CURRENCY.isNotNull()))
+                .forEach(r -> currencies.put(r.value1(), r.value2()));
+        return currencies;
+    }
+
+    public Map<Long, String> findTickersByIds(Collection<Long> ids) {
+        Map<Long, String> tickers = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return tickers;
+        dslContext.select(ID, TICKER)
+                .from(ASSETS)
+                .where(ID.in(ids))
+                .forEach(r -> tickers.put(r.value1(), r.value2()));
+        return tickers;
+    }
+
+    public List<Asset> findAllWithPriceSource() {
+        return dslContext.selectFrom(ASSETS)
+                .where(SOURCE.isNotNull().and(EXTERNAL_ID.isNotNull()))
+                .orderBy(ID.asc())
+                .fetch(this::mapRecordToAsset);
+    }
+
     public PagedResultDto<Asset> searchWithTotal(String q, int limit, int offset) {
+        return searchWithTotal(q, limit, offset, false);
+    }
+
+    /**
+     * @param popularFirst order by follower count from asset_follower_counts before ticker
+     */
+    public PagedResultDto<Asset> searchWithTotal(String q, int limit, int offset, boolean popularFirst) {
         Condition cond = buildSearchCondition(q);
 
         Field<Integer> totalField = DSL.count().over().as("total_count");
 
-        Result<Record> result = dslContext.select(ASSETS.fields())
+        var from = dslContext.select(ASSETS.asterisk())
                 .select(totalField)
-                .from(ASSETS)
-                .where(cond)
-                .orderBy(TICKER.asc())
+                .from(ASSETS);
+        Result<Record> result = (popularFirst
+                ? from.leftJoin(table("asset_follower_counts"))
+                        .on(field(name("asset_follower_counts", "asset_id"), Long.class).eq(qualified(ID)))
+                        .where(cond)
+                        .orderBy(DSL.coalesce(field(name("asset_follower_counts", "follower_count"), Long.class), 0L).desc(),
+                                qualified(TICKER).asc())
+                : from.where(cond)
+                        .orderBy(TICKER.asc()))
                 .limit(limit)
                 .offset(offset)
                 .fetch();
@@ -175,6 +261,50 @@ public class AssetRepository {
                 .execute();
     }
 
+    /**
+     * Upserts a batch of assets keyed by ticker with a single multi-row
+     * {@code INSERT ... ON CONFLICT (ticker_symbol) DO UPDATE}. Existing rows keep their
+     * price columns and created_at; a null externalId/source/currency in the batch does not
+     * overwrite a stored value. Tickers must be unique within the batch.
+     *
+     * @return number of rows that were newly inserted (the rest of the batch were updates)
+     */
+    public int upsertBatchByTicker(List<Asset> assets) {
+        if (assets == null || assets.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        var insert = dslContext.insertInto(ASSETS, TICKER, NAME, TYPE, EXTERNAL_ID, SOURCE, CURRENCY, CREATED_AT, UPDATED_AT);
+        for (Asset a : assets) {
+            insert = insert.values(
+                    a.getTickerSymbol(),
+                    a.getName(),
+                    a.getType() == null ? null : a.getType().name(),
+                    a.getExternalId(),
+                    a.getSource(),
+                    a.getCurrency(),
+                    now,
+                    now);
+        }
+
+        Field<Boolean> inserted = field("(xmax = 0)", Boolean.class).as("inserted");
+        Result<?> result = insert.onConflict(TICKER)
+                .doUpdate()
+                .set(NAME, DSL.excluded(NAME))
+                .set(TYPE, DSL.excluded(TYPE))
+                .set(EXTERNAL_ID, DSL.coalesce(DSL.excluded(EXTERNAL_ID), qualified(EXTERNAL_ID)))
+                .set(SOURCE, DSL.coalesce(DSL.excluded(SOURCE), qualified(SOURCE)))
+                .set(CURRENCY, DSL.coalesce(DSL.excluded(CURRENCY), qualified(CURRENCY)))
+                .set(UPDATED_AT, now)
+                .returningResult(inserted)
+                .fetch();
+
+        int created = 0;
+        for (var r : result) {
+            if (Boolean.TRUE.equals(r.get(0, Boolean.class))) created++;
+        }
+        return created;
+    }
+
     public boolean updateLastPriceById(Long id, BigDecimal price, Instant lastPriceAt) {
         int updatedRows = dslContext.update(ASSETS)
                 .set(LAST_PRICE, price)
@@ -185,6 +315,54 @@ public class AssetRepository {
         return updatedRows > 0;
     }
 
+    /**
+     * Applies many last-price updates with one {@code UPDATE ... FROM (VALUES ...)} per chunk.
+     * Rows whose stored last_price_at is already newer than or equal to the update are left untouched;
+     * when the same asset appears more than once only its latest update is applied.
+     *
+     * @return number of asset rows actually updated
+     */
+    public int updateLastPrices(List<AssetPriceUpdate> updates) {
+        if (updates == null || updates.isEmpty()) return 0;
+
+        Map<Long, AssetPriceUpdate> latest = new LinkedHashMap<>();
+        for (AssetPriceUpdate u : updates) {
+            if (u == null || u.getAssetId() == null || u.getPrice() == null || u.getAt() == null) continue;
+            latest.merge(u.getAssetId(), u, (a, b) -> b.getAt().isAfter(a.getAt()) ? b : a);
+        }
+
+        List<AssetPriceUpdate> deduped = new ArrayList<>(latest.values());
+        int updated = 0;
+        for (int from = 0; from < deduped.size(); from += PRICE_UPDATE_CHUNK) {
+            updated += updateLastPricesChunk(deduped.subList(from, Math.min(deduped.size(), from + PRICE_UPDATE_CHUNK)));
+        }
+        return updated;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int updateLastPricesChunk(List<AssetPriceUpdate> chunk) {
+        Row3<Long, BigDecimal, Instant>[] rows = new Row3[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            AssetPriceUpdate u = chunk.get(i);
+            rows[i] = DSL.row(DSL.val(u.getAssetId()), DSL.val(u.getPrice()), DSL.val(u.getAt()));
+        }
+
+        Table<?> v = DSL.values(rows).as("v", "id", "price", "at");
+        Field<Long> vId = field(name("v", "id"), Long.class);
+        Field<BigDecimal> vPrice = field(name("v", "price"), BigDecimal.class);
+        Field<Instant> vAt = field(name("v", "at"), Instant.class);
+        Field<Instant> currentAt = qualified(LAST_PRICE_AT);
+
+        return dslContext.update(ASSETS)
+                .set(LAST_PRICE, vPrice)
+                .set(LAST_PRICE_AT, vAt)
+                .set(UPDATED_AT, Instant.now())
+                .from(v)
+                .where(qualified(ID).eq(vId))
+                .and(currentAt.isNull().or(currentAt.lt(vAt)))
+                .execute();
+    }
+
     public boolean deleteById(Long id) {
         int deletedRows = dslContext.deleteFrom(ASSETS)
                 .where(ID.eq(id))
@@ -218,6 +396,10 @@ public class AssetRepository {
         return asset;
     }
 
+    private <T> Field<T> qualified(Field<T> column) {
+        return field(name("assets", column.getName()), column.getType());
+    }
+
     private Condition buildSearchCondition(String q) {
         Condition cond = DSL.trueCondition();
         if (q != null && !q.isBlank()) {
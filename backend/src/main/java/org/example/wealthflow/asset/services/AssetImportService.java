@@ -0,0 +1,304 @@
+package org.example.wealthflow.asset.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.dtos.AssetImportRejectionDto;
+import org.example.wealthflow.asset.dtos.AssetImportResultDto;
+import org.example.wealthflow.asset.dtos.AssetRequestDto;
+import org.example.wealthflow.asset.dtos.AssetTypeDto;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming bulk import of assets. Input is read record by record and upserted in batches,
+ * so memory stays bounded by the batch size regardless of file length. CSV follows RFC 4180:
+ * a quoted field may hold commas, doubled quotes and line breaks, so one record can span several lines.
+ * Each batch is its own statement: rows of earlier batches stay committed if a later one fails.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssetImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private final AssetRepository assetRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final int MAX_RECORD_CHARS = 16_384;
+    private static final Pattern CURRENCY_PATTERN = Pattern.compile("[A-Z0-9]{3,10}");
+
+    public AssetImportResultDto importAssets(InputStream in, Format format) {
+        if (in == null) throw new BadRequestException("Import data is required");
+        if (format == null) throw new BadRequestException("Import format is required");
+
+        ImportState state = new ImportState();
+        long started = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            if (format == Format.CSV) {
+                readCsv(reader, state);
+            } else {
+                readNdjson(reader, state);
+            }
+            flush(state);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read asset import stream", ex);
+        }
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        double rowsPerSecond = state.total * 1_000_000_000d / elapsedNanos;
+        log.info("Asset import finished: rows={}, created={}, updated={}, rejected={}, rows/s={}",
+                state.total, state.created, state.updated, state.rejected, Math.round(rowsPerSecond));
+
+        return AssetImportResultDto.builder()
+                .totalRows(state.total)
+                .created(state.created)
+                .updated(state.updated)
+                .rejected(state.rejected)
+                .rejections(state.rejections)
+                .durationMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    /* PARSING */
+
+    private void readNdjson(BufferedReader reader, ImportState state) throws IOException {
+        String line;
+        long lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            state.total++;
+            try {
+                AssetRequestDto dto = objectMapper.readValue(line, AssetRequestDto.class);
+                accept(state, lineNo, dto);
+            } catch (JsonProcessingException ex) {
+                reject(state, lineNo, "Malformed JSON: " + ex.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportState state) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        CsvRecord headerRecord = csv.next();
+        if (headerRecord == null) return;
+        if (headerRecord.error() != null) throw new BadRequestException("Malformed CSV header: " + headerRecord.error());
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = headerRecord.cells();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeHeader(header.get(i)), i);
+        }
+        if (!columns.containsKey("tickersymbol") || !columns.containsKey("name") || !columns.containsKey("type")) {
+            throw new BadRequestException("CSV header must contain ticker_symbol, name and type columns");
+        }
+
+        CsvRecord record;
+        while ((record = csv.next()) != null) {
+            state.total++;
+            if (record.error() != null) {
+                reject(state, record.line(), record.error());
+                continue;
+            }
+
+            List<String> cells = record.cells();
+            String type = cell(cells, columns, "type");
+            AssetTypeDto typeDto;
+            try {
+                typeDto = AssetTypeDto.fromString(type);
+            } catch (IllegalArgumentException ex) {
+                reject(state, record.line(), ex.getMessage());
+                continue;
+            }
+
+            AssetRequestDto dto = AssetRequestDto.builder()
+                    .tickerSymbol(cell(cells, columns, "tickersymbol"))
+                    .name(cell(cells, columns, "name"))
+                    .type(typeDto)
+                    .externalId(cell(cells, columns, "externalid"))
+                    .source(cell(cells, columns, "source"))
+                    .currency(cell(cells, columns, "currency"))
+                    .build();
+            accept(state, record.line(), dto);
+        }
+    }
+
+    private String normalizeHeader(String header) {
+        return header.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private String cell(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer idx = columns.get(column);
+        if (idx == null || idx >= cells.size()) return null;
+        String value = cells.get(idx).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /* VALIDATION */
+
+    private void accept(ImportState state, long lineNo, AssetRequestDto dto) {
+        String error = validate(dto);
+        if (error != null) {
+            reject(state, lineNo, error);
+            return;
+        }
+
+        Asset asset = new Asset();
+        asset.setTickerSymbol(dto.getTickerSymbol().trim());
+        asset.setName(dto.getName().trim());
+        asset.setType(Asset.Type.valueOf(dto.getType().name()));
+        asset.setExternalId(trimToNull(dto.getExternalId()));
+        asset.setSource(trimToNull(dto.getSource()));
+        asset.setCurrency(dto.getCurrency() == null ? null : dto.getCurrency().trim().toUpperCase(Locale.ROOT));
+
+        // ON CONFLICT cannot touch the same row twice in one statement, so later duplicates win
+        if (state.batch.put(asset.getTickerSymbol(), asset) != null) {
+            state.updated++;
+        }
+        if (state.batch.size() >= BATCH_SIZE) {
+            flush(state);
+        }
+    }
+
+    private String validate(AssetRequestDto dto) {
+        if (dto == null) return "Empty row";
+        if (!StringUtils.hasText(dto.getTickerSymbol())) return "Ticker symbol is required";
+        if (dto.getTickerSymbol().trim().length() > 50) return "Ticker symbol is longer than 50 characters";
+        if (!StringUtils.hasText(dto.getName())) return "Name is required";
+        if (dto.getName().trim().length() > 255) return "Name is longer than 255 characters";
+        if (dto.getType() == null) return "Type is required";
+        if (dto.getExternalId() != null && dto.getExternalId().trim().length() > 255) return "External id is longer than 255 characters";
+        if (dto.getSource() != null && dto.getSource().trim().length() > 100) return "Source is longer than 100 characters";
+        if (dto.getCurrency() != null
+                && !CURRENCY_PATTERN.matcher(dto.getCurrency().trim().toUpperCase(Locale.ROOT)).matches()) {
+            return "Currency must be a 3-10 character alphanumeric code";
+        }
+        return null;
+    }
+
+    private String trimToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private void reject(ImportState state, long lineNo, String reason) {
+        state.rejected++;
+        if (state.rejections.size() < MAX_REPORTED_REJECTIONS) {
+            state.rejections.add(AssetImportRejectionDto.builder().line(lineNo).reason(reason).build());
+        }
+    }
+
+    /* WRITE */
+
+    private void flush(ImportState state) {
+        if (state.batch.isEmpty()) return;
+        List<Asset> rows = new ArrayList<>(state.batch.values());
+        int created = assetRepository.upsertBatchByTicker(rows);
+        state.created += created;
+        state.updated += rows.size() - created;
+        state.batch.clear();
+    }
+
+    /**
+     * One CSV record: its cells, or why it could not be read, and the line it starts on.
+     */
+    private record CsvRecord(long line, List<String> cells, String error) {
+    }
+
+    /**
+     * Reads RFC 4180 records off a line reader; line breaks inside a quoted field are kept as {@code \n}.
+     * Blank lines between records are skipped. A quote still open after {@link #MAX_RECORD_CHARS} gives up
+     * the record at the line where the limit was hit, so one stray quote cannot swallow the rest of the file.
+     */
+    private static final class CsvReader {
+        private final BufferedReader reader;
+        private long line;
+
+        private CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        private CsvRecord next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) return null;
+                line++;
+            } while (text.isBlank());
+
+            long start = line;
+            List<String> cells = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            int chars = 0;
+            while (true) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                            current.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            current.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        cells.add(current.toString());
+                        current.setLength(0);
+                    } else {
+                        current.append(c);
+                    }
+                }
+                if (!quoted) {
+                    cells.add(current.toString());
+                    return new CsvRecord(start, cells, null);
+                }
+
+                chars += text.length() + 1;
+                if (chars > MAX_RECORD_CHARS) {
+                    return new CsvRecord(start, null, "Quoted field is not closed within " + MAX_RECORD_CHARS + " characters");
+                }
+                text = reader.readLine();
+                if (text == null) return new CsvRecord(start, null, "Quoted field is not closed before the end of input");
+                line++;
+                current.append('\n');
+            }
+        }
+    }
+
+    private static final class ImportState {
+        private final Map<String, Asset> batch = new LinkedHashMap<>();
+        private final List<AssetImportRejectionDto> rejections = new ArrayList<>();
+        private long total;
+        private long created;
+        private long updated;
+        private long rejected;
+    }
+}
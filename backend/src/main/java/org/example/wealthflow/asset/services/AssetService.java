@@ -156,11 +156,19 @@ public class AssetService {
 
     @Transactional(readOnly = true)
     public PagedResultDto<AssetResponseDto> search(String q, Integer page, Integer size) {
+        return search(q, page, size, false);
+    }
+
+    /**
+     * @param popularFirst rank matches by follower count, most followed first
+     */
+    @Transactional(readOnly = true)
+    public PagedResultDto<AssetResponseDto> search(String q, Integer page, Integer size, boolean popularFirst) {
         int p = (page == null || page < 0) ? DEFAULT_PAGE : page;
         int s = (size == null || size <= 0) ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
         int offset = p * s;
 
-        var paged = assetRepository.searchWithTotal(q, s, offset);
+        var paged = assetRepository.searchWithTotal(q, s, offset, popularFirst);
         List<AssetResponseDto> dtos = paged.getItems().stream()
                 .map(assetMapper::toResponse)
                 .collect(Collectors.toList());
@@ -0,0 +1,19 @@
+package org.example.wealthflow.auth.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityResponseDto {
+    /** null when no login was asked about */
+    private Boolean loginAvailable;
+    /** null when no email was asked about */
+    private Boolean emailAvailable;
+}
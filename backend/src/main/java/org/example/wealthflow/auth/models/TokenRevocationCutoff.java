@@ -0,0 +1,38 @@
+package org.example.wealthflow.auth.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Every token of the user issued before {@code notBefore} is revoked.
+ */
+@Entity
+@Table(name = "token_revocation_cutoffs", indexes = {
+        @Index(columnList = "updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocationCutoff {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "not_before", nullable = false)
+    private Instant notBefore;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,110 @@
+package org.example.wealthflow.auth.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.auth.models.RevokedToken;
+import org.example.wealthflow.auth.models.TokenRevocationCutoff;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Revoked token ids and per-user cutoffs. Change timestamps come from the database clock so that
+ * every node polling for changes compares against the same clock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TokenRevocationRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> REVOKED = table("revoked_tokens");
+    private final Field<String> JTI = field("jti", String.class);
+    private final Field<Long> USER_ID = field("user_id", Long.class);
+    private final Field<Instant> EXPIRES_AT = field("expires_at", Instant.class);
+    private final Field<Instant> REVOKED_AT = field("revoked_at", Instant.class);
+
+    private final Table<?> CUTOFFS = table("token_revocation_cutoffs");
+    private final Field<Instant> NOT_BEFORE = field("not_before", Instant.class);
+    private final Field<Instant> UPDATED_AT = field("updated_at", Instant.class);
+
+    private final Field<Instant> DB_NOW = field("now()", Instant.class);
+
+    public void revokeToken(String jti, Long userId, Instant expiresAt) {
+        dslContext.insertInto(REVOKED)
+                .set(JTI, jti)
+                .set(USER_ID, userId)
+                .set(EXPIRES_AT, expiresAt)
+                .set(REVOKED_AT, DB_NOW)
+                .onConflict(JTI)
+                .doNothing()
+                .execute();
+    }
+
+    /**
+     * Moves the user's cutoff forward to {@code notBefore}; an earlier value never replaces a later one.
+     */
+    public void raiseCutoff(Long userId, Instant notBefore) {
+        dslContext.insertInto(CUTOFFS)
+                .set(USER_ID, userId)
+                .set(NOT_BEFORE, notBefore)
+                .set(UPDATED_AT, DB_NOW)
+                .onConflict(USER_ID)
+                .doUpdate()
+                .set(NOT_BEFORE, DSL.greatest(field(name("token_revocation_cutoffs", "not_before"), Instant.class), DSL.excluded(NOT_BEFORE)))
+                .set(UPDATED_AT, DB_NOW)
+                .execute();
+    }
+
+    /**
+     * Tokens revoked at or after {@code since} that have not expired yet.
+     */
+    public List<RevokedToken> findRevokedSince(Instant since) {
+        return dslContext.select(JTI, USER_ID, EXPIRES_AT, REVOKED_AT)
+                .from(REVOKED)
+                .where(REVOKED_AT.ge(since).and(EXPIRES_AT.gt(DB_NOW)))
+                .fetch(r -> RevokedToken.builder()
+                        .jti(r.value1())
+                        .userId(r.value2())
+                        .expiresAt(r.value3())
+                        .revokedAt(r.value4())
+                        .build());
+    }
+
+    /**
+     * Cutoffs changed at or after {@code since} that can still reject a live token, i.e. later than {@code minNotBefore}.
+     */
+    public List<TokenRevocationCutoff> findCutoffsSince(Instant since, Instant minNotBefore) {
+        return dslContext.select(USER_ID, NOT_BEFORE, UPDATED_AT)
+                .from(CUTOFFS)
+                .where(UPDATED_AT.ge(since).and(NOT_BEFORE.gt(minNotBefore)))
+                .fetch(r -> TokenRevocationCutoff.builder()
+                        .userId(r.value1())
+                        .notBefore(r.value2())
+                        .updatedAt(r.value3())
+                        .build());
+    }
+
+    public Instant now() {
+        return dslContext.select(DB_NOW).fetchOne(DB_NOW);
+    }
+
+    /**
+     * Deletes revocations that can no longer match a live token.
+     *
+     * @return rows deleted
+     */
+    public int deleteObsolete(Instant minNotBefore) {
+        int tokens = dslContext.deleteFrom(REVOKED).where(EXPIRES_AT.le(DB_NOW)).execute();
+        int cutoffs = dslContext.deleteFrom(CUTOFFS).where(NOT_BEFORE.le(minNotBefore)).execute();
+        return tokens + cutoffs;
+    }
+}
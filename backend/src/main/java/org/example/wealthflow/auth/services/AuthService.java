@@ -1,25 +1,30 @@
 package org.example.wealthflow.auth.services;
 
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.example.wealthflow.auth.dtos.AuthRegisterResponseDto;
 import org.example.wealthflow.auth.dtos.AuthResponseDto;
+import org.example.wealthflow.auth.dtos.AvailabilityResponseDto;
 import org.example.wealthflow.auth.dtos.LoginRequestDto;
 import org.example.wealthflow.user.dtos.user.UserRequestDto;
 import org.example.wealthflow.user.dtos.user.UserResponseDto;
 import org.example.wealthflow.user.dtos.user.UserRoleDto;
+import org.example.wealthflow.outbox.services.OutboxService;
 import org.example.wealthflow.user.events.UserRegisteredEvent;
 import org.example.wealthflow.common.exceptions.AlreadyExistsException;
 import org.example.wealthflow.common.exceptions.BadRequestException;
 import org.example.wealthflow.common.exceptions.NotFoundException;
 import org.example.wealthflow.common.exceptions.UnauthorizedException;
 import org.example.wealthflow.user.repositories.UserRepository;
+import org.example.wealthflow.user.services.UserAvailabilityService;
 import org.example.wealthflow.user.services.UserService;
+import org.example.wealthflow.security.RateLimitService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @Service
@@ -30,7 +35,10 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordService passwordService;
     private final JwtTokenService jwtTokenService;
-    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService revocationService;
+    private final RateLimitService rateLimitService;
+    private final UserAvailabilityService availabilityService;
+    private final OutboxService outboxService;
 
     private static final int MIN_PASSWORD_LENGTH = 8;
     private static final String TOKEN_TYPE = "Bearer";
@@ -40,12 +48,18 @@ public class AuthService {
                        UserRepository userRepository,
                        PasswordService passwordService,
                        JwtTokenService jwtTokenService,
-                       ApplicationEventPublisher eventPublisher) {
+                       TokenRevocationService revocationService,
+                       RateLimitService rateLimitService,
+                       UserAvailabilityService availabilityService,
+                       OutboxService outboxService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.passwordService = passwordService;
         this.jwtTokenService = jwtTokenService;
-        this.eventPublisher = eventPublisher;
+        this.revocationService = revocationService;
+        this.rateLimitService = rateLimitService;
+        this.availabilityService = availabilityService;
+        this.outboxService = outboxService;
     }
     @Transactional
     public UserResponseDto register(UserRequestDto dto) {
@@ -58,7 +72,7 @@ public class AuthService {
         try {
             UserResponseDto created = userService.create(dto);
 
-            eventPublisher.publishEvent(new UserRegisteredEvent(created.getId(), created.getEmail()));
+            outboxService.append(new UserRegisteredEvent(created.getId(), created.getEmail()));
 
             log.info("User registered (public) id={}, login={}", created.getId(), created.getLogin());
             return created;
@@ -91,11 +105,15 @@ public class AuthService {
         }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Not transactional on purpose: the user lookup and the optional rehash are single statements,
+     * and a transaction would hold a pooled connection for the whole password check.
+     */
     public AuthResponseDto login(LoginRequestDto dto) {
         if (dto == null) throw new BadRequestException("Login payload required");
         String login = dto.getLogin() == null ? "" : dto.getLogin().trim();
         String password = dto.getPassword();
+        rateLimitService.checkLogin(login);
 
         var userOpt = userRepository.findByLogin(login);
         if (userOpt.isEmpty()) {
@@ -107,15 +125,48 @@ public class AuthService {
             throw new NotFoundException("User not found");
         }
 
-        boolean ok = passwordService.verifyPassword(password, user.getSalt(), user.getPasswordHash());
-        if (!ok) {
+        PasswordService.Verification verification = passwordService.verify(password, user.getSalt(), user.getPasswordHash());
+        if (!verification.matches()) {
+            rateLimitService.recordLoginFailure(login);
             throw new UnauthorizedException("Invalid credentials");
         }
+        if (verification.rehash() != null
+                && userRepository.updatePasswordHashIfUnchanged(user.getId(), user.getPasswordHash(), verification.rehash())) {
+            log.info("Rehashed password of user id={} at cost {}", user.getId(), passwordService.getStrength());
+        }
 
         log.info("User logged in: id={}, login={}", user.getId(), user.getLogin());
         return createAuthResponse(user.getId(),user.getRole().toString());
     }
 
+    /**
+     * Whether a login and/or email could still be registered, normalized the way {@link #register} does.
+     */
+    public AvailabilityResponseDto checkAvailability(String login, String email) {
+        if ((login == null || login.isBlank()) && (email == null || email.isBlank())) {
+            throw new BadRequestException("Login or email required");
+        }
+        return AvailabilityResponseDto.builder()
+                .loginAvailable(login == null || login.isBlank() ? null : availabilityService.isLoginAvailable(login.trim()))
+                .emailAvailable(email == null || email.isBlank() ? null : availabilityService.isEmailAvailable(email.trim().toLowerCase()))
+                .build();
+    }
+
+    /**
+     * Revokes the presented token; other sessions of the user stay valid.
+     */
+    @Transactional
+    public void logout(String token) {
+        JwtTokenService.VerifiedToken verified;
+        try {
+            verified = jwtTokenService.verify(token);
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new UnauthorizedException("Invalid or expired token");
+        }
+        revocationService.revokeToken(verified.tokenId(), verified.userId(), Instant.ofEpochMilli(verified.validUntilMillis()));
+        log.info("User logged out: id={}", verified.userId());
+    }
+
     private void validateRegistrationDto(UserRequestDto dto) {
         if (dto == null) throw new BadRequestException("Payload required");
         if (dto.getLogin() == null || dto.getLogin().isBlank()) throw new BadRequestException("Login is required");
@@ -3,34 +3,68 @@ package org.example.wealthflow.auth.services;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.example.wealthflow.configs.JwtTokenConfig;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies JWTs. Verification uses one parser built at startup (parsers are immutable
+ * and thread-safe). Tokens that verify are remembered by their SHA-256 digest together with the
+ * principal they carry until they expire, so a client sending the same token again costs one hash
+ * and a map lookup instead of a parse and an HMAC check. The token itself is never stored.
+ * Revocation is checked on every use, cached or not, against the in-memory revocation list.
+ */
 @Service
 @Getter
 public class JwtTokenService {
     private final JwtTokenConfig jwtTokenConfig;
+    @Getter(AccessLevel.NONE)
+    private final TokenRevocationService revocationService;
     private Key key;
     private long expirationSeconds;
     private long clockSkewSeconds;
+    private JwtParser parser;
 
-    public JwtTokenService(JwtTokenConfig jwtTokenConfig) {
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<ByteBuffer, VerifiedToken> verified = new ConcurrentHashMap<>();
+    private int verifiedCacheSize;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    public JwtTokenService(JwtTokenConfig jwtTokenConfig, TokenRevocationService revocationService) {
         this.jwtTokenConfig = jwtTokenConfig;
+        this.revocationService = revocationService;
     }
 
     @PostConstruct
@@ -54,6 +88,11 @@ public class JwtTokenService {
         this.key = Keys.hmacShaKeyFor(keyBytes);
         this.expirationSeconds = jwtTokenConfig.getExpirationSeconds();
         this.clockSkewSeconds = jwtTokenConfig.getClockSkewSeconds();
+        this.verifiedCacheSize = Math.max(0, jwtTokenConfig.getVerifiedCacheSize());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .setAllowedClockSkewSeconds(clockSkewSeconds)
+                .build();
     }
 
     public String generateToken(Long userId, String role) {
@@ -72,34 +111,107 @@ public class JwtTokenService {
     }
 
     public Jws<Claims> parseClaims(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .setAllowedClockSkewSeconds(clockSkewSeconds)
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
+    }
+
+    /**
+     * Verifies the token once and returns the authentication it carries.
+     *
+     * @throws JwtException if the token is malformed, badly signed or expired
+     */
+    public Authentication authenticate(String token) throws JwtException {
+        VerifiedToken v = verify(token);
+        return new UsernamePasswordAuthenticationToken(v.userId(), token, v.authorities());
     }
 
     public boolean validateToken(String token) {
         try {
-            parseClaims(token);
+            verify(token);
             return true;
-        } catch (JwtException ex) {
+        } catch (JwtException | IllegalArgumentException ex) {
             return false;
         }
     }
 
     public Long getUserIdFromToken(String token) {
-        Jws<Claims> jws = parseClaims(token);
-        String sub = jws.getBody().getSubject();
-        return Long.valueOf(sub);
+        return verify(token).userId();
     }
 
     public Authentication getAuthentication(String token) {
-        Jws<Claims> jws = parseClaims(token);
-        Claims claims = jws.getBody();
+        return authenticate(token);
+    }
+
+    /**
+     * Drops verified tokens past their expiry; expired entries are also ignored on lookup.
+     */
+    @Scheduled(fixedDelayString = "${jwt.verified-cache-sweep-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(v -> v.validUntilMillis() <= now);
+    }
+
+    /**
+     * Verifies signature, expiry and revocation.
+     *
+     * @throws JwtException if the token is malformed, badly signed, expired or revoked
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken v = verifySignature(token);
+        if (revocationService.isRevoked(v.userId(), v.tokenId(), v.issuedAt())) {
+            throw new JwtException("Token has been revoked");
+        }
+        return v;
+    }
+
+    /* HELPER */
+
+    private VerifiedToken verifySignature(String token) {
+        if (token == null || token.isEmpty()) throw new IllegalArgumentException("token required");
+        if (verifiedCacheSize == 0) return toVerified(parseClaims(token).getBody());
+
+        // UTF-8 keeps distinct strings distinct; US-ASCII would turn every non-ASCII char into '?' and make them share a key
+        ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        VerifiedToken cached = verified.get(digest);
+        long now = System.currentTimeMillis();
+        if (cached != null) {
+            if (cached.validUntilMillis() > now) return cached;
+            verified.remove(digest, cached);
+        }
+
+        VerifiedToken fresh = toVerified(parseClaims(token).getBody());
+        if (verified.size() >= verifiedCacheSize) makeRoom(now);
+        verified.put(digest, fresh);
+        return fresh;
+    }
+
+    private VerifiedToken toVerified(Claims claims) {
         String role = claims.get("role", String.class);
         Long userId = Long.valueOf(claims.getSubject());
-        SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + (role == null ? "USER" : role));
-        return new UsernamePasswordAuthenticationToken(userId, token, List.of(authority));
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + (role == null ? "USER" : role)));
+        Date exp = claims.getExpiration();
+        long validUntil = exp == null ? Long.MAX_VALUE : exp.getTime() + clockSkewSeconds * 1000;
+        return new VerifiedToken(userId, authorities, claims.getId(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(), validUntil);
+    }
+
+    /**
+     * Removes expired entries, and if the cache is still full an arbitrary eighth of it;
+     * an evicted token is simply verified again on its next use.
+     */
+    private void makeRoom(long now) {
+        verified.values().removeIf(v -> v.validUntilMillis() <= now);
+        int excess = verified.size() - verifiedCacheSize + Math.max(1, verifiedCacheSize / 8);
+        Iterator<Map.Entry<ByteBuffer, VerifiedToken>> it = verified.entrySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * What a verified token says about its bearer. {@code validUntilMillis} is the expiry plus the allowed clock skew.
+     */
+    public record VerifiedToken(Long userId, List<GrantedAuthority> authorities, String tokenId,
+                                Instant issuedAt, long validUntilMillis) {
     }
 }
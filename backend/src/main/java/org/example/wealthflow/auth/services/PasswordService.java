@@ -1,5 +1,12 @@
 package org.example.wealthflow.auth.services;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.exceptions.TooManyRequestsException;
+import org.example.wealthflow.configs.PasswordHashingConfig;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -7,17 +14,73 @@ import org.springframework.stereotype.Component;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+/**
+ * Password hashing with BCrypt. Every hash and verification runs on a small dedicated pool with a
+ * bounded queue, so a login burst occupies at most {@code threads} cores and never the request
+ * threads' CPU; when the queue is full a caller is rejected at once with 429 instead of waiting.
+ * The cost factor is pinned in configuration: calibrating on every start would let nodes on different
+ * hardware pick different costs and rehash each other's hashes back and forth. A successful
+ * verification against a hash of a lower cost also returns a rehash at the current one; a higher
+ * cost is left alone.
+ */
 @Component
+@Slf4j
 public class PasswordService {
-    private final PasswordEncoder passwordEncoder;
-    private final SecureRandom secureRandom;
-    private static final int ENCRYPTION_STRENGTH = 12;
     private static final int SALT_LENGTH = 16;
+    private static final String CALIBRATION_INPUT = "calibration-password";
+
+    private final PasswordHashingConfig config;
+    private final SecureRandom secureRandom;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+    private ThreadPoolExecutor executor;
+    private PasswordEncoder passwordEncoder;
+    private int strength;
 
-    public PasswordService() {
-        this.passwordEncoder = new BCryptPasswordEncoder(ENCRYPTION_STRENGTH);
+    public PasswordService(PasswordHashingConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
         this.secureRandom = new SecureRandom();
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("wealthflow.password.rejected");
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = config.getThreads() > 0 ? config.getThreads() : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "password-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        meterRegistry.gauge("wealthflow.password.queue", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("wealthflow.password.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        this.strength = config.getStrength() > 0 ? config.getStrength() : calibrate();
+        this.passwordEncoder = new BCryptPasswordEncoder(strength, secureRandom);
+        log.info("Password hashing: BCrypt cost {}, {} threads, queue {}", strength, threads, config.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getStrength() {
+        return strength;
     }
 
     public String generateSalt() {
@@ -29,14 +92,106 @@ public class PasswordService {
     public String hashPassword(String password, String salt) {
         Objects.requireNonNull(password, "Password must not be null");
         Objects.requireNonNull(salt, "Salt must not be null");
-        return passwordEncoder.encode(password+salt);
+        return await(submit(() -> passwordEncoder.encode(password + salt)));
     }
 
     public boolean verifyPassword(String password, String salt, String storedHash) {
-        if(password == null || storedHash == null || salt == null) {
-            return false;
-        } else {
-            return passwordEncoder.matches(password+salt, storedHash);
+        return verify(password, salt, storedHash).matches();
+    }
+
+    /**
+     * Verifies the password; on a match against a hash of a lower cost also computes its replacement.
+     */
+    public Verification verify(String password, String salt, String storedHash) {
+        return await(verifyAsync(password, salt, storedHash));
+    }
+
+    /**
+     * Same as {@link #verify} without blocking the caller.
+     *
+     * @throws TooManyRequestsException if the hashing queue is full
+     */
+    public CompletableFuture<Verification> verifyAsync(String password, String salt, String storedHash) {
+        if (password == null || storedHash == null || salt == null) {
+            return CompletableFuture.completedFuture(Verification.MISMATCH);
+        }
+        return submit(() -> {
+            if (!passwordEncoder.matches(password + salt, storedHash)) return Verification.MISMATCH;
+            String rehash = costOf(storedHash) < strength ? passwordEncoder.encode(password + salt) : null;
+            return new Verification(true, rehash);
+        });
+    }
+
+    /* HELPER */
+
+    private <T> CompletableFuture<T> submit(Supplier<T> job) {
+        try {
+            return CompletableFuture.supplyAsync(job, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many concurrent sign-ins, please retry shortly");
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(config.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("Too many concurrent sign-ins, please retry shortly");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
         }
     }
+
+    /**
+     * Highest cost whose hash takes at most the target time on this machine. One BCrypt round
+     * doubles the work, so the cost is extrapolated from timing the minimum cost.
+     */
+    private int calibrate() {
+        int min = Math.max(4, config.getMinStrength());
+        int max = Math.max(min, Math.min(31, config.getMaxStrength()));
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(min, secureRandom);
+        probe.encode(CALIBRATION_INPUT);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            probe.encode(CALIBRATION_INPUT);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getTargetMillis()));
+        int cost = min;
+        double estimate = best;
+        while (cost < max && estimate * 2 <= targetNanos) {
+            estimate *= 2;
+            cost++;
+        }
+        log.warn("Calibrated BCrypt cost {} (cost {} took {} ms, estimate {} ms, target {} ms); pin it with auth.password.strength",
+                cost, min, TimeUnit.NANOSECONDS.toMillis(best), Math.round(estimate / 1_000_000), config.getTargetMillis());
+        return cost;
+    }
+
+    /**
+     * Cost encoded in a {@code $2a$NN$...} hash, or -1 if it cannot be read.
+     */
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') return -1;
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Result of a verification. {@code rehash} is set only when the password matched and the stored hash should be replaced.
+     */
+    public record Verification(boolean matches, String rehash) {
+        static final Verification MISMATCH = new Verification(false, null);
+    }
 }
@@ -0,0 +1,185 @@
+package org.example.wealthflow.auth.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.auth.models.RevokedToken;
+import org.example.wealthflow.auth.models.TokenRevocationCutoff;
+import org.example.wealthflow.auth.repositories.TokenRevocationRepository;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.common.utils.BloomFilter;
+import org.example.wealthflow.configs.JwtTokenConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked JWTs: single tokens by {@code jti} and whole users by a "issued before" cutoff. Both are
+ * persisted, and every node mirrors them in memory: cutoffs in a map keyed by user, token ids in an
+ * exact map fronted by a Bloom filter, so checking a token that was not revoked (almost every
+ * request) is one map lookup and a few bit tests without touching the exact set or the database.
+ * Nodes pick up each other's revocations by polling for rows changed since their last poll (with an
+ * overlap to cover transactions that committed late); a revocation made on this node applies locally
+ * as soon as it commits. Entries are dropped once no live token can match them, and the Bloom
+ * filter, which cannot forget keys, is rebuilt from the exact set at the same time.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final TokenRevocationRepository revocationRepository;
+    private final Duration tokenLifetime;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> cutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile Instant watermark;
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepository,
+                                  JwtTokenConfig jwtTokenConfig,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${auth.revocation.expected-tokens:100000}") long expectedTokens,
+                                  @Value("${auth.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revocationRepository = revocationRepository;
+        this.tokenLifetime = Duration.ofSeconds(jwtTokenConfig.getExpirationSeconds() + jwtTokenConfig.getClockSkewSeconds());
+        this.expectedTokens = Math.max(1, expectedTokens);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = BloomFilter.create(this.expectedTokens, falsePositiveRate);
+        meterRegistry.gauge("wealthflow.auth.revoked.tokens", revokedTokens, Map::size);
+        meterRegistry.gauge("wealthflow.auth.revoked.cutoffs", cutoffs, Map::size);
+    }
+
+    /**
+     * Loaded before the web server accepts requests, so a restart never accepts a revoked token;
+     * if the database is unavailable the load is retried by the poller.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (RuntimeException ex) {
+            log.error("Failed to load token revocations, will retry: {}", ex.getMessage());
+        }
+    }
+
+    /* CHECK */
+
+    /**
+     * @param issuedAt token's {@code iat}; a token without one is treated as issued before any cutoff
+     */
+    public boolean isRevoked(Long userId, String jti, Instant issuedAt) {
+        if (userId != null) {
+            Long notBefore = cutoffs.get(userId);
+            if (notBefore != null && (issuedAt == null || issuedAt.getEpochSecond() < notBefore)) return true;
+        }
+        return jti != null && filter.mightContain(jti) && revokedTokens.containsKey(jti);
+    }
+
+    /* REVOKE */
+
+    public void revokeToken(String jti, Long userId, Instant expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) return;
+        revocationRepository.revokeToken(jti, userId, expiresAt);
+        AfterCommit.run(() -> applyToken(jti, expiresAt));
+        log.info("Revoked token jti={} of user id={}", jti, userId);
+    }
+
+    /**
+     * Revokes every token of the user issued before {@code at}. JWT {@code iat} has second precision,
+     * so the cutoff is truncated to the second: a token issued in the same second as the revocation
+     * stays valid, which keeps a token issued right after the revocation (e.g. on re-login) usable.
+     */
+    public void revokeAllIssuedBefore(Long userId, Instant at) {
+        if (userId == null || at == null) return;
+        Instant notBefore = at.truncatedTo(ChronoUnit.SECONDS);
+        revocationRepository.raiseCutoff(userId, notBefore);
+        AfterCommit.run(() -> applyCutoff(userId, notBefore));
+        log.info("Revoked all tokens of user id={} issued before {}", userId, notBefore);
+    }
+
+    /* SYNC */
+
+    @Scheduled(fixedDelayString = "${auth.revocation.poll-interval-ms:5000}",
+            initialDelayString = "${auth.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            if (watermark == null) {
+                reload();
+                return;
+            }
+            Instant dbNow = revocationRepository.now();
+            Instant since = watermark.minus(POLL_OVERLAP);
+            List<RevokedToken> tokens = revocationRepository.findRevokedSince(since);
+            List<TokenRevocationCutoff> changed = revocationRepository.findCutoffsSince(since, dbNow.minus(tokenLifetime));
+            tokens.forEach(t -> applyToken(t.getJti(), t.getExpiresAt()));
+            changed.forEach(c -> applyCutoff(c.getUserId(), c.getNotBefore()));
+            watermark = dbNow;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to poll token revocations: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Forgets revocations no live token can match, locally and in the database, and rebuilds the Bloom filter.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.sweep-interval-ms:3600000}",
+            initialDelayString = "${auth.revocation.sweep-interval-ms:3600000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long minNotBefore = Instant.ofEpochMilli(now).minus(tokenLifetime).getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        cutoffs.values().removeIf(notBefore -> notBefore <= minNotBefore);
+        rebuildFilter();
+        try {
+            int deleted = revocationRepository.deleteObsolete(Instant.ofEpochMilli(now).minus(tokenLifetime));
+            if (deleted > 0) log.info("Deleted {} obsolete token revocations", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to delete obsolete token revocations: {}", ex.getMessage());
+        }
+    }
+
+    /* HELPER */
+
+    private synchronized void reload() {
+        Instant dbNow = revocationRepository.now();
+        List<RevokedToken> tokens = revocationRepository.findRevokedSince(Instant.EPOCH);
+        List<TokenRevocationCutoff> all = revocationRepository.findCutoffsSince(Instant.EPOCH, dbNow.minus(tokenLifetime));
+        tokens.forEach(t -> revokedTokens.put(t.getJti(), t.getExpiresAt().toEpochMilli()));
+        all.forEach(c -> cutoffs.merge(c.getUserId(), c.getNotBefore().getEpochSecond(), Math::max));
+        rebuildFilter();
+        watermark = dbNow;
+        log.info("Token revocations loaded: {} tokens, {} user cutoffs", revokedTokens.size(), cutoffs.size());
+    }
+
+    /**
+     * Builds a filter sized for the current set and swaps it in. Ids are added to the exact map before
+     * the filter, and the new filter is filled before it is published, so no revoked id is ever missed.
+     */
+    private synchronized void rebuildFilter() {
+        BloomFilter next = BloomFilter.create(Math.max(expectedTokens, revokedTokens.size() * 2L), falsePositiveRate);
+        revokedTokens.keySet().forEach(next::add);
+        filter = next;
+        // ids applied while the new filter was being filled may only be in the old one
+        revokedTokens.keySet().forEach(next::add);
+    }
+
+    private void applyToken(String jti, Instant expiresAt) {
+        revokedTokens.put(jti, expiresAt.toEpochMilli());
+        filter.add(jti);
+    }
+
+    private void applyCutoff(Long userId, Instant notBefore) {
+        cutoffs.merge(userId, notBefore.getEpochSecond(), Math::max);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.wealthflow.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with exponential buckets (each 25% wider than the previous, 1 ms to ~2 min).
+ * Once {@code window} samples have been recorded all counts are halved, so percentiles follow recent
+ * behaviour instead of the whole process lifetime.
+ */
+public class LatencyHistogram {
+
+    private static final double GROWTH = 1.25;
+    private static final int BUCKETS = 54;
+    private static final long[] UPPER_BOUNDS_MS = new long[BUCKETS];
+
+    static {
+        double bound = 1;
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS_MS[i] = (long) Math.ceil(bound);
+            bound *= GROWTH;
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final long window;
+
+    public LatencyHistogram(long window) {
+        this.window = Math.max(2, window);
+    }
+
+    public void record(long millis) {
+        counts.incrementAndGet(bucketOf(millis));
+        if (total.incrementAndGet() >= window) {
+            decay();
+        }
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile, or {@code fallbackMs} when nothing was recorded yet.
+     */
+    public long percentile(double quantile, long fallbackMs) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) return fallbackMs;
+
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return UPPER_BOUNDS_MS[i];
+        }
+        return UPPER_BOUNDS_MS[BUCKETS - 1];
+    }
+
+    private void decay() {
+        long current = total.get();
+        if (current < window || !total.compareAndSet(current, current / 2)) return;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c;
+            do {
+                c = counts.get(i);
+            } while (!counts.compareAndSet(i, c, c / 2));
+        }
+    }
+
+    private int bucketOf(long millis) {
+        if (millis <= 1) return 0;
+        int idx = (int) Math.ceil(Math.log(millis) / Math.log(GROWTH));
+        if (idx >= BUCKETS) return BUCKETS - 1;
+        // guard against floating point rounding at bucket edges
+        while (idx > 0 && UPPER_BOUNDS_MS[idx - 1] >= millis) idx--;
+        while (idx < BUCKETS - 1 && UPPER_BOUNDS_MS[idx] < millis) idx++;
+        return idx;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.wealthflow.common.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets with the same limit keyed by an arbitrary string (client IP, login). Keys are spread
+ * over independent stripes, each holding at most {@code maxKeys / stripes} buckets, so memory stays
+ * bounded whatever the key cardinality. When a stripe is full, new keys share the stripe's overflow
+ * bucket until {@link #evictIdle()} frees room; that degrades a flood of distinct keys to a coarse
+ * limit instead of letting it grow the map. A bucket is idle once it has refilled completely, so
+ * evicting it loses no state.
+ * <p>
+ * {@link #tryAcquire} counts every call. {@link #permits} and {@link #charge} split the check from
+ * the charge for limits that only count failures: checking never creates a bucket, so only charged
+ * keys take up room.
+ */
+public class StripedBuckets {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int shift;
+    private final int maxPerStripe;
+    private final ConcurrentHashMap<String, TokenBucket>[] stripes;
+    private final TokenBucket[] overflow;
+
+    @SuppressWarnings("unchecked")
+    public StripedBuckets(double permitsPerSecond, int burst, int stripes, int maxKeys) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.shift = 32 - Integer.numberOfTrailingZeros(n);
+        this.maxPerStripe = Math.max(1, maxKeys / n);
+        this.stripes = new ConcurrentHashMap[n];
+        this.overflow = new TokenBucket[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+            this.overflow[i] = new TokenBucket(permitsPerSecond, burst);
+        }
+    }
+
+    public boolean tryAcquire(String key) {
+        int i = stripeOf(key);
+        ConcurrentHashMap<String, TokenBucket> stripe = stripes[i];
+        TokenBucket bucket = stripe.get(key);
+        if (bucket == null) {
+            bucket = stripe.size() < maxPerStripe
+                    ? stripe.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst))
+                    : overflow[i];
+        }
+        return bucket.tryAcquire();
+    }
+
+    /**
+     * Whether the key has a permit left, without taking it. A key with no bucket has never been
+     * charged and always has one, unless its stripe is full and the overflow bucket is empty.
+     */
+    public boolean permits(String key) {
+        int i = stripeOf(key);
+        ConcurrentHashMap<String, TokenBucket> stripe = stripes[i];
+        TokenBucket bucket = stripe.get(key);
+        if (bucket == null) {
+            return stripe.size() < maxPerStripe || overflow[i].hasPermit();
+        }
+        return bucket.hasPermit();
+    }
+
+    /**
+     * Takes a permit from the key even if none is left, so concurrent charges push it into debt
+     * instead of being lost. A full stripe first drops its idle buckets before falling back to overflow.
+     */
+    public void charge(String key) {
+        int i = stripeOf(key);
+        ConcurrentHashMap<String, TokenBucket> stripe = stripes[i];
+        TokenBucket bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxPerStripe) stripe.values().removeIf(TokenBucket::isFull);
+            bucket = stripe.size() < maxPerStripe
+                    ? stripe.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst))
+                    : overflow[i];
+        }
+        bucket.reserve(1);
+    }
+
+    /**
+     * Drops buckets that have refilled completely.
+     *
+     * @return number of buckets dropped
+     */
+    public int evictIdle() {
+        int evicted = 0;
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) {
+            int before = stripe.size();
+            stripe.values().removeIf(TokenBucket::isFull);
+            evicted += before - stripe.size();
+        }
+        return evicted;
+    }
+
+    private int stripeOf(String key) {
+        // stripe from the high bits; the map inside a stripe indexes by the low ones
+        return shift == 32 ? 0 : (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) size += stripe.size();
+        return size;
+    }
+}
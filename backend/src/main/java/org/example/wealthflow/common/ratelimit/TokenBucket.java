@@ -0,0 +1,78 @@
+package org.example.wealthflow.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state is a single "theoretical arrival time" (GCRA),
+ * so both checks and reservations are one CAS on an {@link AtomicLong}.
+ */
+public class TokenBucket {
+
+    private final long nanosPerPermit;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive");
+        if (burst <= 0) throw new IllegalArgumentException("burst must be positive");
+        this.nanosPerPermit = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacityNanos = nanosPerPermit * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - capacityNanos);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    public boolean tryAcquire(int permits) {
+        long cost = nanosPerPermit * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now - capacityNanos) + cost;
+            if (next - now > 0) return false;
+            if (theoreticalArrival.compareAndSet(tat, next)) return true;
+        }
+    }
+
+    /**
+     * Reserves permits unconditionally and sleeps until they are available.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Reserves permits unconditionally, going into debt if the bucket is short.
+     *
+     * @return nanoseconds until the reserved permits are available, zero or negative if they already are
+     */
+    public long reserve(int permits) {
+        long cost = nanosPerPermit * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now - capacityNanos) + cost;
+            if (theoreticalArrival.compareAndSet(tat, next)) return next - now;
+        }
+    }
+
+    /**
+     * Whether one permit is available now, without taking it.
+     */
+    public boolean hasPermit() {
+        long now = System.nanoTime();
+        return Math.max(theoreticalArrival.get(), now - capacityNanos) + nanosPerPermit - now <= 0;
+    }
+
+    /**
+     * True when the bucket has refilled completely, i.e. dropping it loses no state.
+     */
+    public boolean isFull() {
+        return System.nanoTime() - theoreticalArrival.get() >= capacityNanos;
+    }
+}
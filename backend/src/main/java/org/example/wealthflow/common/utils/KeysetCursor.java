@@ -0,0 +1,49 @@
+package org.example.wealthflow.common.utils;
+
+import org.example.wealthflow.common.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination over {@code (timestamp, id)} ordered results.
+ * Encoded as URL-safe base64 of {@code epochSecond.nano:id} so clients cannot depend on its shape.
+ */
+public record KeysetCursor(Instant at, Long id) {
+
+    public String encode() {
+        String raw = at.getEpochSecond() + "." + at.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            if (dot < 0 || colon < dot) throw new IllegalArgumentException(raw);
+            Instant at = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, colon)));
+            return new KeysetCursor(at, Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Cursor for results ordered by id alone.
+     */
+    public static String encodeId(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "fx")
+@Getter
+@Setter
+public class FxConfig {
+
+    /** currency that pairs not quoted directly are triangulated through */
+    private String pivotCurrency = "USD";
+    /** base currency of users who have not chosen one */
+    private String defaultBaseCurrency = "USD";
+    /** how often the latest-rate matrix is reloaded, picking up rates written by other nodes */
+    private long refreshIntervalMs = 60_000;
+}
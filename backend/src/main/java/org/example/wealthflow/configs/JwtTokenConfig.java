@@ -14,4 +14,6 @@ public class JwtTokenConfig {
     private String secret;
     private long expirationSeconds;
     private long clockSkewSeconds;
+    /** verified tokens kept so repeat requests skip signature checks; 0 disables the cache */
+    private int verifiedCacheSize = 100_000;
 }
@@ -0,0 +1,73 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "marketdata")
+@Getter
+@Setter
+public class MarketDataConfig {
+
+    private boolean enabled = true;
+    private long refreshIntervalMs = 60_000;
+    private int queueCapacity = 64;
+    private int writerBatchSize = 2_000;
+    private long quoteFreshnessMs = 30_000;
+    private int backfillParallelism = 4;
+    /** Runs a backfill job gets; a failed job is retried from its checkpoints until it has used them all. */
+    private int backfillMaxAttempts = 5;
+    /** A running job's claim lapses this long after its last finished chunk, so another node can take over. */
+    private long backfillLeaseMs = 600_000;
+    /** Threads and queue slots for provider calls; attempts beyond both fail fast. */
+    private int callThreads = 16;
+    private int callQueueCapacity = 64;
+    private Map<String, Provider> providers = new HashMap<>();
+    private Cache cache = new Cache();
+
+    public Provider provider(String name) {
+        return providers.getOrDefault(name, new Provider());
+    }
+
+    @Getter
+    @Setter
+    public static class Provider {
+        private boolean enabled;
+        private String baseUrl;
+        private String apiKey;
+        private double requestsPerSecond = 1.0;
+        private int burst = 1;
+        private int maxBatchSize = 100;
+        private long timeoutMs = 5_000;
+        /** Provider that understands the same external ids; a hedge request goes there when the primary is slow. */
+        private String hedgeTo;
+        private long hedgeMinDelayMs = 50;
+        /** Stub provider only: base latency plus a slow tail hit by {@code simulatedTailRatio} of calls. */
+        private long simulatedLatencyMs;
+        private long simulatedTailLatencyMs;
+        private double simulatedTailRatio;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        public enum Mode { OFF, READ_THROUGH, REPLAY }
+
+        private Mode mode = Mode.OFF;
+        private String directory = "marketdata-cache";
+        private long segmentSizeMb = 512;
+        /** A segment older than this is closed for writes even if not full; 0 rolls on size only. */
+        private long segmentMaxAgeHours = 24;
+        /** Read-through segments last written longer ago than this are deleted; 0 keeps everything. */
+        private int retentionDays = 30;
+        /** A history range ending less recently than this may still gain quotes, so it is not cached. */
+        private long historySettleHours = 24;
+        /** A history result leaving a longer gap at either end of its range is taken as cut short and not cached. */
+        private long historyMaxGapHours = 96;
+    }
+}
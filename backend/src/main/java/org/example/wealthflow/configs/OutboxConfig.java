@@ -0,0 +1,34 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "outbox")
+@Getter
+@Setter
+public class OutboxConfig {
+
+    private boolean enabled = true;
+    /** events read and delivered per consumer round trip */
+    private int batchSize = 500;
+    /** fallback poll for events written on other nodes and for retries; local commits wake the dispatcher at once */
+    private long pollIntervalMs = 1_000;
+    /** how long a node owns a consumer before another node may take it over */
+    private long leaseMs = 30_000;
+    /**
+     * How long a missing id may still belong to an open transaction. Delivery waits at a gap for this
+     * long before treating it as a rolled-back insert; it must exceed the longest event-writing transaction.
+     */
+    private long gapTimeoutMs = 5_000;
+    /** deliveries of one event to one consumer before it is dead-lettered (or, for broadcast consumers, skipped) */
+    private int maxAttempts = 5;
+    /** wait before the first retry; doubles with each further failure up to {@code maxRetryBackoffMs} */
+    private long retryBackoffMs = 1_000;
+    private long maxRetryBackoffMs = 60_000;
+    /** delivered events are kept this long */
+    private long retentionMs = 7L * 24 * 60 * 60 * 1000;
+    private long cleanupIntervalMs = 3_600_000;
+}
@@ -0,0 +1,28 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "auth.password")
+@Getter
+@Setter
+public class PasswordHashingConfig {
+
+    /** threads hashing and verifying passwords; 0 uses half the available processors */
+    private int threads = 0;
+    /** hash/verify jobs allowed to wait for a thread; beyond that requests are rejected at once */
+    private int queueCapacity = 64;
+    /** longest a caller waits for its job before giving up */
+    private long maxWaitMs = 5_000;
+    /**
+     * BCrypt cost, pinned so every node hashes alike; 0 calibrates it at startup to {@code targetMillis},
+     * which is meant for measuring the value to pin on new hardware, not for running a cluster
+     */
+    private int strength = 12;
+    private long targetMillis = 250;
+    private int minStrength = 10;
+    private int maxStrength = 14;
+}
@@ -0,0 +1,28 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "portfolio.risk")
+@Getter
+@Setter
+public class PortfolioRiskConfig {
+
+    /** simulated paths per estimate; VaR precision grows with the square root of this */
+    private int paths = 20_000;
+    /** holding period the loss distribution is simulated for, in trading days */
+    private int horizonDays = 1;
+    private List<Double> confidenceLevels = List.of(0.95, 0.99);
+    /** calendar days of daily closes the return distribution is estimated from */
+    private int lookbackDays = 365;
+    /** fewest daily returns an estimate is made from */
+    private int minObservations = 30;
+    /** fork-join workers; 0 uses every available processor */
+    private int parallelism = 0;
+    private int maxCachedUsers = 10_000;
+}
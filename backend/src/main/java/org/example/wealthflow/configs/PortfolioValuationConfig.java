@@ -0,0 +1,21 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "portfolio.valuation")
+@Getter
+@Setter
+public class PortfolioValuationConfig {
+
+    private boolean enabled = true;
+    /** worker threads, each holding one connection while it reads and writes a partition */
+    private int parallelism = 4;
+    /** users per partition; one position query and one snapshot insert per partition */
+    private int partitionSize = 2_000;
+    /** snapshot bucket: runs inside the same bucket overwrite that bucket's snapshot */
+    private long snapshotIntervalMs = 3_600_000;
+}
@@ -0,0 +1,41 @@
+package org.example.wealthflow.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+    private int stripes = 64;
+    /** most buckets kept per limit; beyond that new keys share a per-stripe bucket */
+    private int maxKeys = 100_000;
+    private long sweepIntervalMs = 10_000;
+    /** failed password checks per existing login, enforced before the next check; 0 permits disables it */
+    private Limit login = new Limit();
+    /** per-IP limits by route group; a request belongs to the group with the longest matching path prefix */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private double permitsPerSecond;
+        private int burst = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class Group extends Limit {
+        private List<String> paths = new ArrayList<>();
+    }
+}
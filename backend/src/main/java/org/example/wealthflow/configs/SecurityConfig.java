@@ -2,7 +2,10 @@ package org.example.wealthflow.configs;
 
 import lombok.RequiredArgsConstructor;
 import org.example.wealthflow.security.JwtAuthenticationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.wealthflow.security.JwtAuthenticationEntryPoint;
+import org.example.wealthflow.security.RateLimitFilter;
+import org.example.wealthflow.security.RateLimitService;
 import org.example.wealthflow.auth.services.JwtTokenService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,12 +25,19 @@ public class SecurityConfig {
 
     private final JwtTokenService jwtTokenService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final RateLimitService rateLimitService;
+    private final ObjectMapper objectMapper;
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter(jwtTokenService, jwtAuthenticationEntryPoint);
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(rateLimitService, objectMapper);
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -42,6 +52,7 @@ public class SecurityConfig {
                 )
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .addFilterBefore(jwtAuthenticationFilter(), org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter(), JwtAuthenticationFilter.class)
                 .httpBasic(Customizer.withDefaults());
 
         return http.build();
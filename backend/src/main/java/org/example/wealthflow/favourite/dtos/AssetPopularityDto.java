@@ -0,0 +1,17 @@
+package org.example.wealthflow.favourite.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetPopularityDto {
+    private Long assetId;
+    private long followerCount;
+}
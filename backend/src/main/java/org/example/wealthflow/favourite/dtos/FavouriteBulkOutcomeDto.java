@@ -0,0 +1,19 @@
+package org.example.wealthflow.favourite.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FavouriteBulkOutcomeDto {
+    public enum Status { ADDED, ALREADY_FAVOURITE, REMOVED, NOT_FAVOURITE, ASSET_NOT_FOUND }
+
+    private Long assetId;
+    private Status status;
+}
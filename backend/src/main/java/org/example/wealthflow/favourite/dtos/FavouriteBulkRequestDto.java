@@ -0,0 +1,22 @@
+package org.example.wealthflow.favourite.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FavouriteBulkRequestDto {
+    @NotEmpty(message = "assetIds is required")
+    @Size(max = 1000, message = "At most 1000 assetIds per request")
+    private List<Long> assetIds;
+}
@@ -0,0 +1,20 @@
+package org.example.wealthflow.favourite.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FavouriteBulkResultDto {
+    private int requested;
+    private int changed;
+    private List<FavouriteBulkOutcomeDto> outcomes;
+}
@@ -0,0 +1,21 @@
+package org.example.wealthflow.favourite.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.wealthflow.asset.dtos.AssetResponseDto;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WatchlistItemDto {
+    private Long favouriteId;
+    private Instant addedAt;
+    private AssetResponseDto asset;
+}
@@ -0,0 +1,17 @@
+package org.example.wealthflow.favourite.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavouritesChangedEvent {
+    private Long userId;
+    private List<Long> assetIds;
+    /** true when the assets were added, false when removed */
+    private boolean added;
+}
@@ -0,0 +1,28 @@
+package org.example.wealthflow.favourite.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Counts written by one flush, as absolute values with their row version, so replaying one is harmless.
+ * A rebuild publishes one with no counts and the new generation.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowerCountsChangedEvent {
+    private long generation;
+    private List<Count> counts;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Count {
+        private Long assetId;
+        private long followerCount;
+        private long version;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.wealthflow.favourite.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Denormalized number of users following an asset, maintained from favourite changes in batches.
+ */
+@Entity
+@Table(name = "asset_follower_counts", indexes = {
+        @Index(columnList = "follower_count")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetFollowerCount {
+    @Id
+    @Column(name = "asset_id")
+    private Long assetId;
+
+    @Column(name = "follower_count", nullable = false)
+    private long followerCount;
+
+    /** bumped by every flush that changes the row; orders the counts other nodes receive */
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,31 @@
+package org.example.wealthflow.favourite.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single row numbering the rebuilds of asset_follower_counts. Favourite changes hold it in share mode
+ * and a rebuild bumps it, so deltas are known to belong to the counts before or after a rebuild.
+ */
+@Entity
+@Table(name = "asset_follower_count_generation")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetFollowerCountGeneration {
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "generation", nullable = false)
+    private long generation;
+}
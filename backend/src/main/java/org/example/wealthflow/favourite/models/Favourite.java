@@ -23,7 +23,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "favourites", indexes = {
         @Index(columnList = "user_id"),
-        @Index(columnList = "asset_id")
+        @Index(columnList = "asset_id"),
+        @Index(columnList = "user_id, created_at, id")
 })
 @Getter
 @Setter
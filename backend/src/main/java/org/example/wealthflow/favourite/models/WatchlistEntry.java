@@ -0,0 +1,18 @@
+package org.example.wealthflow.favourite.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.wealthflow.asset.models.Asset;
+
+import java.time.Instant;
+
+/**
+ * A favourite joined with its fully populated asset; last price falls back to the newest price_history row.
+ */
+@Getter
+@AllArgsConstructor
+public class WatchlistEntry {
+    private final Long favouriteId;
+    private final Instant addedAt;
+    private final Asset asset;
+}
@@ -0,0 +1,149 @@
+package org.example.wealthflow.favourite.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.favourite.events.FollowerCountsChangedEvent;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class AssetFollowerCountRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> COUNTS = table("asset_follower_counts");
+    private final Field<Long> ASSET_ID = field("asset_id", Long.class);
+    private final Field<Long> FOLLOWER_COUNT = field("follower_count", Long.class);
+    private final Field<Long> VERSION = field("version", Long.class);
+    private final Field<Instant> UPDATED_AT = field("updated_at", Instant.class);
+
+    private final Table<?> GENERATION = table("asset_follower_count_generation");
+    private final Field<Integer> GENERATION_ID = field("id", Integer.class);
+    private final Field<Long> GENERATION_NO = field("generation", Long.class);
+    private static final int GENERATION_ROW = 1;
+
+    private final Table<?> FAV = table("favourites");
+    private final Field<Long> FAV_ASSET_ID = field("asset_id", Long.class);
+
+    /** arbitrary constant naming the advisory lock held while counts are rebuilt */
+    private static final long REBUILD_LOCK = 0x6173736574666cL;
+
+    /**
+     * Every count with its version, and the generation they belong to, read in one statement.
+     */
+    public Snapshot loadAll() {
+        List<FollowerCountsChangedEvent.Count> counts = new ArrayList<>();
+        long[] generation = {0};
+        dslContext.select(GENERATION_NO, ASSET_ID, FOLLOWER_COUNT, VERSION)
+                .from(GENERATION)
+                .leftJoin(COUNTS).on(DSL.trueCondition())
+                .where(field(name("asset_follower_count_generation", "id"), Integer.class).eq(GENERATION_ROW))
+                .fetch()
+                .forEach(r -> {
+                    generation[0] = r.value1();
+                    if (r.value2() != null) counts.add(new FollowerCountsChangedEvent.Count(r.value2(), r.value3(), r.value4()));
+                });
+        return new Snapshot(generation[0], counts);
+    }
+
+    public boolean isEmpty() {
+        return !dslContext.fetchExists(dslContext.selectOne().from(COUNTS));
+    }
+
+    /**
+     * Takes the rebuild lock for the rest of the current transaction.
+     *
+     * @return false if another transaction holds it
+     */
+    public boolean tryLockRebuild() {
+        return Boolean.TRUE.equals(dslContext.select(field("pg_try_advisory_xact_lock({0})", Boolean.class, inline(REBUILD_LOCK)))
+                .fetchOne()
+                .value1());
+    }
+
+    /* GENERATION */
+
+    public void ensureGeneration() {
+        dslContext.insertInto(GENERATION, GENERATION_ID, GENERATION_NO)
+                .values(GENERATION_ROW, 0L)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    /**
+     * Current generation, held in share mode for the rest of the transaction so a rebuild waits for it.
+     */
+    public long lockGeneration() {
+        Long generation = dslContext.select(GENERATION_NO)
+                .from(GENERATION)
+                .where(GENERATION_ID.eq(GENERATION_ROW))
+                .forShare()
+                .fetchOne(GENERATION_NO);
+        return generation == null ? 0 : generation;
+    }
+
+    /**
+     * Starts a new generation. Waits for the transactions holding the current one, so the favourites
+     * they changed are committed before the counts are rebuilt. Call inside a transaction.
+     */
+    public long nextGeneration() {
+        Long generation = dslContext.update(GENERATION)
+                .set(GENERATION_NO, GENERATION_NO.plus(1L))
+                .where(GENERATION_ID.eq(GENERATION_ROW))
+                .returning(GENERATION_NO)
+                .fetchOne(GENERATION_NO);
+        return generation == null ? 0 : generation;
+    }
+
+    /* WRITE */
+
+    /**
+     * Adds each delta to its asset's count in one multi-row upsert.
+     *
+     * @return the resulting counts with their new versions
+     */
+    public List<FollowerCountsChangedEvent.Count> applyDeltas(Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) return List.of();
+
+        Instant now = Instant.now();
+        var insert = dslContext.insertInto(COUNTS, ASSET_ID, FOLLOWER_COUNT, VERSION, UPDATED_AT);
+        for (Map.Entry<Long, Long> e : deltas.entrySet()) {
+            insert = insert.values(e.getKey(), e.getValue(), 1L, now);
+        }
+        return insert.onConflict(ASSET_ID)
+                .doUpdate()
+                .set(FOLLOWER_COUNT, field(name("asset_follower_counts", "follower_count"), Long.class).plus(DSL.excluded(FOLLOWER_COUNT)))
+                .set(VERSION, field(name("asset_follower_counts", "version"), Long.class).plus(1L))
+                .set(UPDATED_AT, DSL.excluded(UPDATED_AT))
+                .returning(ASSET_ID, FOLLOWER_COUNT, VERSION)
+                .fetch(r -> new FollowerCountsChangedEvent.Count(r.get(ASSET_ID), r.get(FOLLOWER_COUNT), r.get(VERSION)));
+    }
+
+    /**
+     * Replaces every count with {@code count(*)} over favourites. Call inside a transaction.
+     */
+    public int rebuildFromFavourites() {
+        dslContext.deleteFrom(COUNTS).execute();
+        return dslContext.insertInto(COUNTS, ASSET_ID, FOLLOWER_COUNT, VERSION, UPDATED_AT)
+                .select(dslContext.select(FAV_ASSET_ID, DSL.count().cast(Long.class), DSL.inline(0L), DSL.currentInstant())
+                        .from(FAV)
+                        .groupBy(FAV_ASSET_ID))
+                .execute();
+    }
+
+    public record Snapshot(long generation, List<FollowerCountsChangedEvent.Count> counts) {
+    }
+}
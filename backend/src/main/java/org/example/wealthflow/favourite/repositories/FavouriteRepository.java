@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.example.wealthflow.asset.models.Asset;
 import org.example.wealthflow.common.dtos.PagedResultDto;
 import org.example.wealthflow.favourite.models.Favourite;
+import org.example.wealthflow.favourite.models.WatchlistEntry;
 import org.example.wealthflow.user.models.User;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.InsertResultStep;
@@ -15,15 +17,22 @@ import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
 import static org.jooq.impl.DSL.table;
 
 import org.jooq.Record;
+import org.jooq.Record2;
 
 @Repository
 @RequiredArgsConstructor
@@ -53,7 +62,20 @@ public class FavouriteRepository {
         return dslContext.fetchExists(dslContext.selectOne().from(FAV).where(USER_ID.eq(userId).and(ASSET_ID.eq(assetId))));
     }
 
-    public Favourite createIfNotExists(Long userId, Long assetId) {
+    public List<Long> findAssetIdsByUser(Long userId) {
+        return dslContext.select(ASSET_ID)
+                .from(FAV)
+                .where(USER_ID.eq(userId))
+                .orderBy(ASSET_ID.asc())
+                .fetch(ASSET_ID);
+    }
+
+    /**
+     * Inserts the favourite unless it exists. {@code ON CONFLICT DO NOTHING ... RETURNING} yields a
+     * row only when this statement inserted it, so {@code inserted} is exact even when two requests
+     * race on the same pair.
+     */
+    public CreateResult createIfNotExists(Long userId, Long assetId) {
         if (userId == null || assetId == null) throw new IllegalArgumentException("userId and assetId required");
 
         try {
@@ -68,23 +90,60 @@ public class FavouriteRepository {
                 Favourite fav = new Favourite();
                 fav.setId(rec.get(ID));
                 User favUser = new User();
-                favUser.setId(rec.get(USER_ID));
+                favUser.setId(userId);
                 fav.setUser(favUser);
                 Asset favAsset = new Asset();
-                favAsset.setId(rec.get(ASSET_ID));
+                favAsset.setId(assetId);
                 fav.setAsset(favAsset);
                 fav.setCreatedAt(rec.get(CREATED_AT));
-                return fav;
+                return new CreateResult(fav, true);
             } else {
-                return findByUserAndAsset(userId, assetId).orElseThrow(() ->
-                        new DataAccessException("Failed to insert or find favourite for user " + userId + " asset " + assetId) {});
+                return new CreateResult(findByUserAndAsset(userId, assetId).orElseThrow(() ->
+                        new DataAccessException("Failed to insert or find favourite for user " + userId + " asset " + assetId) {}), false);
             }
         } catch (DataAccessException ex) {
-            return findByUserAndAsset(userId, assetId)
-                    .orElseThrow(() -> ex);
+            return new CreateResult(findByUserAndAsset(userId, assetId)
+                    .orElseThrow(() -> ex), false);
         }
     }
 
+    public record CreateResult(Favourite favourite, boolean inserted) {
+    }
+
+    /**
+     * Inserts all (user, asset) pairs in one multi-row statement; existing pairs are skipped.
+     *
+     * @return asset ids that were newly favourited
+     */
+    public Set<Long> createAllIfNotExist(Long userId, Collection<Long> assetIds) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (assetIds == null || assetIds.isEmpty()) return Set.of();
+
+        Instant now = Instant.now();
+        var insert = dslContext.insertInto(FAV, USER_ID, ASSET_ID, CREATED_AT);
+        for (Long assetId : assetIds) {
+            insert = insert.values(userId, assetId, now);
+        }
+        return new HashSet<>(insert.onConflict(USER_ID, ASSET_ID).doNothing()
+                .returningResult(ASSET_ID)
+                .fetch(ASSET_ID));
+    }
+
+    /**
+     * Deletes the user's favourites for all given assets in one statement.
+     *
+     * @return asset ids whose favourite was removed
+     */
+    public Set<Long> deleteAllByUserAndAssets(Long userId, Collection<Long> assetIds) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+        if (assetIds == null || assetIds.isEmpty()) return Set.of();
+
+        return new HashSet<>(dslContext.deleteFrom(FAV)
+                .where(USER_ID.eq(userId).and(ASSET_ID.eq(DSL.any(assetIds.toArray(new Long[0])))))
+                .returningResult(ASSET_ID)
+                .fetch(ASSET_ID));
+    }
+
     public boolean deleteByUserAndAsset(Long userId, Long assetId) {
         int deleted = dslContext.deleteFrom(FAV).where(USER_ID.eq(userId).and(ASSET_ID.eq(assetId))).execute();
         return deleted > 0;
@@ -125,6 +184,96 @@ public class FavouriteRepository {
                 .build();
     }
 
+    /**
+     * Streams every (asset_id, user_id) pair ordered by asset. Rows are fetched through a server-side
+     * cursor, so call it inside a transaction to keep memory flat on large tables.
+     */
+    public void forEachFollow(BiConsumer<Long, Long> assetAndUser) {
+        try (Cursor<Record2<Long, Long>> cursor = dslContext.select(ASSET_ID, USER_ID)
+                .from(FAV)
+                .orderBy(ASSET_ID)
+                .fetchSize(10_000)
+                .fetchLazy()) {
+            for (Record2<Long, Long> r : cursor) {
+                assetAndUser.accept(r.value1(), r.value2());
+            }
+        }
+    }
+
+    /**
+     * One page of a user's watchlist, newest first, with asset columns joined in and the last price
+     * taken from {@code assets.last_price} or, for assets never refreshed, the newest price_history row.
+     * Keyset pagination on {@code (created_at, id)}: pass the last row of the previous page, or nulls
+     * for the first page. Returns up to {@code limit + 1} rows so the caller can tell whether more follow.
+     */
+    public List<WatchlistEntry> findWatchlistPage(Long userId, Instant afterCreatedAt, Long afterId, int limit) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+
+        Table<?> f = FAV.as("f");
+        Table<?> a = table(name("assets")).as("a");
+        Field<Long> fId = field(name("f", "id"), Long.class);
+        Field<Long> fUserId = field(name("f", "user_id"), Long.class);
+        Field<Long> fAssetId = field(name("f", "asset_id"), Long.class);
+        Field<Instant> fCreatedAt = field(name("f", "created_at"), Instant.class);
+        Field<Long> aId = field(name("a", "id"), Long.class);
+        Field<BigDecimal> aLastPrice = field(name("a", "last_price"), BigDecimal.class);
+        Field<Instant> aLastPriceAt = field(name("a", "last_price_at"), Instant.class);
+
+        Field<BigDecimal> pPrice = field(name("p", "price"), BigDecimal.class);
+        Field<Instant> pRecordedAt = field(name("p", "recorded_at"), Instant.class);
+        // the a.last_price IS NULL guard makes the lateral a no-op for every asset the ingester keeps current
+        Table<?> latest = DSL.lateral(dslContext.select(pPrice, pRecordedAt)
+                .from(table(name("price_history")).as("p"))
+                .where(field(name("p", "asset_id"), Long.class).eq(aId).and(aLastPrice.isNull()))
+                .orderBy(pRecordedAt.desc())
+                .limit(1)
+                .asTable("ph"));
+
+        Condition cond = fUserId.eq(userId);
+        if (afterCreatedAt != null && afterId != null) {
+            cond = cond.and(DSL.row(fCreatedAt, fId).lt(afterCreatedAt, afterId));
+        }
+
+        return dslContext.select(
+                        fId.as("favourite_id"),
+                        fCreatedAt.as("added_at"),
+                        aId.as("asset_id"),
+                        field(name("a", "ticker_symbol"), String.class).as("ticker_symbol"),
+                        field(name("a", "name"), String.class).as("name"),
+                        field(name("a", "type"), String.class).as("type"),
+                        field(name("a", "external_id"), String.class).as("external_id"),
+                        field(name("a", "source"), String.class).as("source"),
+                        field(name("a", "currency"), String.class).as("currency"),
+                        DSL.coalesce(aLastPrice, field(name("ph", "price"), BigDecimal.class)).as("last_price"),
+                        DSL.coalesce(aLastPriceAt, field(name("ph", "recorded_at"), Instant.class)).as("last_price_at"),
+                        field(name("a", "created_at"), Instant.class).as("asset_created_at"),
+                        field(name("a", "updated_at"), Instant.class).as("asset_updated_at"))
+                .from(f)
+                .join(a).on(aId.eq(fAssetId))
+                .leftJoin(latest).on(DSL.trueCondition())
+                .where(cond)
+                .orderBy(fCreatedAt.desc(), fId.desc())
+                .limit(limit + 1)
+                .fetch(this::mapRecordToWatchlistEntry);
+    }
+
+    private WatchlistEntry mapRecordToWatchlistEntry(Record r) {
+        Asset asset = new Asset();
+        asset.setId(r.get("asset_id", Long.class));
+        asset.setTickerSymbol(r.get("ticker_symbol", String.class));
+        asset.setName(r.get("name", String.class));
+        String type = r.get("type", String.class);
+        asset.setType(type == null ? null : Asset.Type.valueOf(type));
+        asset.setExternalId(r.get("external_id", String.class));
+        asset.setSource(r.get("source", String.class));
+        asset.setCurrency(r.get("currency", String.class));
+        asset.setLastPrice(r.get("last_price", BigDecimal.class));
+        asset.setLastPriceAt(r.get("last_price_at", Instant.class));
+        asset.setCreatedAt(r.get("asset_created_at", Instant.class));
+        asset.setUpdatedAt(r.get("asset_updated_at", Instant.class));
+        return new WatchlistEntry(r.get("favourite_id", Long.class), r.get("added_at", Instant.class), asset);
+    }
+
     private Favourite mapRecordToFavourite(org.jooq.Record r) {
         if (r == null) return null;
         Favourite f = new Favourite();
@@ -0,0 +1,221 @@
+package org.example.wealthflow.favourite.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.favourite.events.FavouritesChangedEvent;
+import org.example.wealthflow.favourite.repositories.FavouriteRepository;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory reverse index asset id -> ids of users following it, one compressed bitmap per asset.
+ * Each bitmap is edited in place under its own monitor, which readers take too, so a follow costs
+ * one bitmap insert rather than a copy of the asset's followers. Changes made inside a transaction
+ * are applied after it commits. The index is built from favourites at startup; changes that
+ * arrive while it is building are queued and replayed over the loaded state.
+ * <p>
+ * Changes made on other nodes arrive as {@link FavouritesChangedEvent}s through a broadcast outbox
+ * consumer. This node's own changes come back the same way; applying them again is a no-op.
+ */
+@Component
+@Slf4j
+public class AssetFollowersIndex implements OutboxConsumer {
+
+    private static final long[] NONE = new long[0];
+
+    private final FavouriteRepository favouriteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Roaring64Bitmap> followers = new ConcurrentHashMap<>();
+    private final Object buildLock = new Object();
+    private List<Runnable> pendingDuringBuild;
+    private volatile boolean ready;
+
+    public AssetFollowersIndex(FavouriteRepository favouriteRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry) {
+        this.favouriteRepository = favouriteRepository;
+        this.transactionTemplate = transactionTemplate;
+        meterRegistry.gauge("wealthflow.followers.index.assets", followers, Map::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (buildLock) {
+            pendingDuringBuild = new ArrayList<>();
+        }
+        long started = System.nanoTime();
+        Map<Long, Roaring64Bitmap> loaded = new HashMap<>();
+        long[] pairs = new long[1];
+        transactionTemplate.execute(status -> {
+            favouriteRepository.forEachFollow((assetId, userId) -> {
+                loaded.computeIfAbsent(assetId, id -> new Roaring64Bitmap()).addLong(userId);
+                pairs[0]++;
+            });
+            return null;
+        });
+        loaded.values().forEach(Roaring64Bitmap::runOptimize);
+
+        synchronized (buildLock) {
+            followers.clear();
+            followers.putAll(loaded);
+            pendingDuringBuild.forEach(Runnable::run);
+            pendingDuringBuild = null;
+            ready = true;
+        }
+        log.info("Asset followers index built: {} assets, {} follows in {} ms",
+                loaded.size(), pairs[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /* UPDATE */
+
+    public void follow(Long assetId, Long userId) {
+        afterCommit(() -> add(assetId, userId));
+    }
+
+    public void unfollow(Long assetId, Long userId) {
+        afterCommit(() -> remove(assetId, userId));
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "favourites-followers-index";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == FavouritesChangedEvent.class;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        FavouritesChangedEvent event = message.eventAs(FavouritesChangedEvent.class);
+        Runnable change = () -> {
+            for (Long assetId : event.getAssetIds()) {
+                if (event.isAdded()) add(assetId, event.getUserId());
+                else remove(assetId, event.getUserId());
+            }
+        };
+        synchronized (buildLock) {
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(change);
+                return;
+            }
+        }
+        change.run();
+    }
+
+    /* READ */
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long[] followersOf(Long assetId) {
+        Roaring64Bitmap bitmap = followers.get(assetId);
+        if (bitmap == null) return NONE;
+        synchronized (bitmap) {
+            return bitmap.toArray();
+        }
+    }
+
+    public long followerCount(Long assetId) {
+        Roaring64Bitmap bitmap = followers.get(assetId);
+        if (bitmap == null) return 0;
+        synchronized (bitmap) {
+            return bitmap.getLongCardinality();
+        }
+    }
+
+    public boolean isFollowing(Long assetId, Long userId) {
+        Roaring64Bitmap bitmap = followers.get(assetId);
+        if (bitmap == null) return false;
+        synchronized (bitmap) {
+            return bitmap.contains(userId);
+        }
+    }
+
+    /**
+     * Users following every one of the given assets.
+     */
+    public long[] followersOfAll(Collection<Long> assetIds) {
+        Roaring64Bitmap result = null;
+        for (Long assetId : assetIds) {
+            Roaring64Bitmap bitmap = followers.get(assetId);
+            if (bitmap == null) return NONE;
+            synchronized (bitmap) {
+                result = result == null ? bitmap.clone() : Roaring64Bitmap.and(result, bitmap);
+            }
+            if (result.isEmpty()) return NONE;
+        }
+        return result == null ? NONE : result.toArray();
+    }
+
+    /**
+     * Users following at least one of the given assets, each listed once.
+     */
+    public long[] followersOfAny(Collection<Long> assetIds) {
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        for (Long assetId : assetIds) {
+            Roaring64Bitmap bitmap = followers.get(assetId);
+            if (bitmap == null) continue;
+            synchronized (bitmap) {
+                result.or(bitmap);
+            }
+        }
+        return result.toArray();
+    }
+
+    /* HELPER */
+
+    private void add(Long assetId, Long userId) {
+        followers.compute(assetId, (id, current) -> {
+            Roaring64Bitmap bitmap = current == null ? new Roaring64Bitmap() : current;
+            synchronized (bitmap) {
+                bitmap.addLong(userId);
+            }
+            return bitmap;
+        });
+    }
+
+    private void remove(Long assetId, Long userId) {
+        followers.computeIfPresent(assetId, (id, bitmap) -> {
+            synchronized (bitmap) {
+                bitmap.removeLong(userId);
+                return bitmap.isEmpty() ? null : bitmap;
+            }
+        });
+    }
+
+    private void afterCommit(Runnable change) {
+        AfterCommit.run(() -> {
+            synchronized (buildLock) {
+                if (pendingDuringBuild != null) {
+                    pendingDuringBuild.add(change);
+                    return;
+                }
+            }
+            change.run();
+        });
+    }
+}
@@ -0,0 +1,270 @@
+package org.example.wealthflow.favourite.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.favourite.dtos.AssetPopularityDto;
+import org.example.wealthflow.favourite.events.FollowerCountsChangedEvent;
+import org.example.wealthflow.favourite.repositories.AssetFollowerCountRepository;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-asset follower counts in asset_follower_counts, written in batches: favourite changes only
+ * bump a local {@link LongAdder} after commit, and a scheduled flush turns the accumulated deltas
+ * into one multi-row upsert. Each flush publishes the resulting counts through a broadcast outbox
+ * consumer, so every node keeps all counts and a sorted most-followed view in memory and reads
+ * never touch the table. Counts carry a row version, and a node ignores one older than what it holds.
+ * A count also includes this node's deltas that are not flushed yet.
+ * <p>
+ * The table is built from favourites at startup when it is empty, under an advisory lock so
+ * nodes starting together do not rebuild it at the same time. Setting
+ * {@code favourites.popularity.rebuild-on-startup} rebuilds it even when it is not empty, which
+ * repairs deltas lost by a crash before their flush. A rebuild starts a new generation: every
+ * favourite change takes the generation row in share mode and tags its delta with it, and the
+ * rebuild bumps it before counting. Deltas of an older generation are already in the rebuilt
+ * counts and are dropped at their flush rather than applied twice.
+ */
+@Service
+@Slf4j
+public class AssetPopularityService implements OutboxConsumer {
+
+    private static final Comparator<Ranked> MOST_FOLLOWED = Comparator.comparingLong(Ranked::count).reversed()
+            .thenComparingLong(Ranked::assetId);
+
+    private final AssetFollowerCountRepository countRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final int topCapacity;
+    private final boolean rebuildOnStartup;
+
+    private final ConcurrentHashMap<PendingKey, LongAdder> pending = new ConcurrentHashMap<>();
+    /** guards generation, counts and ranking */
+    private final Object view = new Object();
+    private long generation = -1;
+    private final Map<Long, Tally> counts = new HashMap<>();
+    private final TreeSet<Ranked> ranking = new TreeSet<>(MOST_FOLLOWED);
+
+    public AssetPopularityService(AssetFollowerCountRepository countRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  OutboxService outboxService,
+                                  @Value("${favourites.popularity.top-capacity:100}") int topCapacity,
+                                  @Value("${favourites.popularity.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.countRepository = countRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.topCapacity = Math.max(1, topCapacity);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Integer assets = transactionTemplate.execute(status -> {
+            countRepository.ensureGeneration();
+            if (!countRepository.tryLockRebuild()) return null;
+            if (!rebuildOnStartup && !countRepository.isEmpty()) return null;
+            long next = countRepository.nextGeneration();
+            int rebuilt = countRepository.rebuildFromFavourites();
+            outboxService.append(new FollowerCountsChangedEvent(next, List.of()));
+            return rebuilt;
+        });
+        if (assets != null) {
+            log.info("Asset follower counts rebuilt for {} assets in {} ms", assets, (System.nanoTime() - started) / 1_000_000);
+        }
+        reload();
+    }
+
+    /* UPDATE */
+
+    public void followed(Long assetId) {
+        PendingKey key = new PendingKey(transactionGeneration(), assetId);
+        AfterCommit.run(() -> adder(key).add(1));
+    }
+
+    public void unfollowed(Long assetId) {
+        PendingKey key = new PendingKey(transactionGeneration(), assetId);
+        AfterCommit.run(() -> adder(key).add(-1));
+    }
+
+    @Scheduled(fixedDelayString = "${favourites.popularity.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<PendingKey, Long> deltas = new HashMap<>();
+        for (Map.Entry<PendingKey, LongAdder> e : pending.entrySet()) {
+            long delta = e.getValue().sumThenReset();
+            if (delta != 0) deltas.put(e.getKey(), delta);
+        }
+        if (deltas.isEmpty()) return;
+
+        try {
+            List<PendingKey> stale = new ArrayList<>();
+            FollowerCountsChangedEvent written = transactionTemplate.execute(status -> {
+                long current = countRepository.lockGeneration();
+                Map<Long, Long> apply = new HashMap<>();
+                deltas.forEach((key, delta) -> {
+                    if (key.generation == current) apply.merge(key.assetId, delta, Long::sum);
+                    else stale.add(key);
+                });
+                FollowerCountsChangedEvent event = new FollowerCountsChangedEvent(current, countRepository.applyDeltas(apply));
+                if (!event.getCounts().isEmpty()) outboxService.append(event);
+                return event;
+            });
+            // changes of an older generation are already in the rebuilt counts
+            stale.forEach(pending::remove);
+            // take the written counts now rather than when the event comes back, so counts never dip in between
+            if (written != null) onCountsChanged(written);
+            log.debug("Flushed follower count deltas for {} assets, dropped {} from before a rebuild",
+                    written == null ? 0 : written.getCounts().size(), stale.size());
+        } catch (RuntimeException ex) {
+            // keep the deltas for the next flush
+            deltas.forEach((key, delta) -> adder(key).add(delta));
+            log.warn("Failed to flush follower count deltas for {} assets: {}", deltas.size(), ex.getMessage());
+        }
+    }
+
+    /* READ */
+
+    public long followerCount(Long assetId) {
+        long flushed;
+        long current;
+        synchronized (view) {
+            Tally tally = counts.get(assetId);
+            flushed = tally == null ? 0 : tally.count;
+            current = generation;
+        }
+        LongAdder unflushed = pending.get(new PendingKey(current, assetId));
+        return Math.max(0, flushed + (unflushed == null ? 0 : unflushed.sum()));
+    }
+
+    /**
+     * Most-followed assets, highest first, ties broken by lower asset id, as of the last flush received.
+     */
+    public List<AssetPopularityDto> mostFollowed(int limit) {
+        int n = Math.min(Math.max(0, limit), topCapacity);
+        List<AssetPopularityDto> top = new ArrayList<>(n);
+        synchronized (view) {
+            for (Ranked ranked : ranking) {
+                if (top.size() == n) break;
+                top.add(new AssetPopularityDto(ranked.assetId, ranked.count));
+            }
+        }
+        return top;
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "favourites-popularity";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == FollowerCountsChangedEvent.class;
+    }
+
+    /**
+     * This node's own flushes come back here too; their versions are already held, so they change nothing.
+     */
+    @Override
+    public void handle(OutboxMessage message) {
+        onCountsChanged(message.eventAs(FollowerCountsChangedEvent.class));
+    }
+
+    /* HELPER */
+
+    private void onCountsChanged(FollowerCountsChangedEvent event) {
+        synchronized (view) {
+            if (event.getGeneration() < generation) return;
+            if (event.getGeneration() == generation) {
+                event.getCounts().forEach(this::put);
+                return;
+            }
+        }
+        // a rebuild happened since the counts were loaded
+        reload();
+    }
+
+    private void reload() {
+        try {
+            AssetFollowerCountRepository.Snapshot snapshot = countRepository.loadAll();
+            synchronized (view) {
+                if (snapshot.generation() < generation) return;
+                generation = snapshot.generation();
+                counts.clear();
+                ranking.clear();
+                snapshot.counts().forEach(this::put);
+            }
+            log.debug("Loaded {} follower counts of generation {}", snapshot.counts().size(), snapshot.generation());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load follower counts: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Takes a count unless a newer version of it is already held. Call holding {@link #view}.
+     */
+    private void put(FollowerCountsChangedEvent.Count count) {
+        Tally held = counts.get(count.getAssetId());
+        if (held != null) {
+            if (held.version >= count.getVersion()) return;
+            ranking.remove(new Ranked(held.count, count.getAssetId()));
+        }
+        counts.put(count.getAssetId(), new Tally(count.getFollowerCount(), count.getVersion()));
+        if (count.getFollowerCount() > 0) ranking.add(new Ranked(count.getFollowerCount(), count.getAssetId()));
+    }
+
+    /**
+     * The generation the current transaction's favourite changes count towards. Read once per
+     * transaction and held in share mode until it ends, which a rebuild waits for.
+     */
+    private long transactionGeneration() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return countRepository.lockGeneration();
+        Long held = (Long) TransactionSynchronizationManager.getResource(this);
+        if (held != null) return held;
+        long locked = countRepository.lockGeneration();
+        TransactionSynchronizationManager.bindResource(this, locked);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AssetPopularityService.this);
+            }
+        });
+        return locked;
+    }
+
+    private LongAdder adder(PendingKey key) {
+        return pending.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private record PendingKey(long generation, long assetId) {
+    }
+
+    private record Tally(long count, long version) {
+    }
+
+    private record Ranked(long count, long assetId) {
+    }
+}
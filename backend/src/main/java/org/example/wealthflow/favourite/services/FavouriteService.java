@@ -2,20 +2,34 @@ package org.example.wealthflow.favourite.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.mappers.AssetMapper;
 import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.dtos.CursorPageDto;
 import org.example.wealthflow.common.dtos.PagedResultDto;
+import org.example.wealthflow.common.utils.KeysetCursor;
+import org.example.wealthflow.favourite.dtos.FavouriteBulkOutcomeDto;
+import org.example.wealthflow.favourite.dtos.FavouriteBulkRequestDto;
+import org.example.wealthflow.favourite.dtos.FavouriteBulkResultDto;
 import org.example.wealthflow.favourite.dtos.FavouriteRequestDto;
 import org.example.wealthflow.favourite.dtos.FavouriteResponseDto;
+import org.example.wealthflow.favourite.dtos.WatchlistItemDto;
 import org.example.wealthflow.favourite.mappers.FavouriteMapper;
+import org.example.wealthflow.favourite.models.WatchlistEntry;
 import org.example.wealthflow.favourite.repositories.FavouriteRepository;
-import org.example.wealthflow.user.repositories.UserRepository;
+import org.example.wealthflow.favourite.events.FavouritesChangedEvent;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.user.services.UserStatusCache;
 import org.example.wealthflow.common.exceptions.BadRequestException;
 import org.example.wealthflow.common.exceptions.NotFoundException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,13 +38,18 @@ import java.util.stream.Collectors;
 public class FavouriteService {
 
     private final FavouriteRepository favouriteRepository;
-    private final UserRepository userRepository;
     private final AssetRepository assetRepository;
     private final FavouriteMapper favouriteMapper;
+    private final AssetMapper assetMapper;
+    private final AssetFollowersIndex followersIndex;
+    private final UserStatusCache userStatusCache;
+    private final AssetPopularityService popularityService;
+    private final OutboxService outboxService;
 
     private static final int DEFAULT_PAGE = 0;
     private static final int DEFAULT_SIZE = 20;
     private static final int MAX_SIZE = 200;
+    private static final int MAX_BULK = 1000;
 
     /* CREATE */
 
@@ -41,22 +60,57 @@ public class FavouriteService {
         }
         Long assetId = request.getAssetId();
 
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new NotFoundException("User not found");
-        }
+        userStatusCache.requireActive(userId);
         if (assetRepository.findById(assetId).isEmpty()) {
             throw new NotFoundException("Asset not found");
         }
 
         try {
-            var fav = favouriteRepository.createIfNotExists(userId, assetId);
-            return favouriteMapper.toResponse(fav);
+            FavouriteRepository.CreateResult created = favouriteRepository.createIfNotExists(userId, assetId);
+            if (created.inserted()) {
+                followersIndex.follow(assetId, userId);
+                popularityService.followed(assetId);
+                outboxService.append(new FavouritesChangedEvent(userId, List.of(assetId), true));
+            }
+            return favouriteMapper.toResponse(created.favourite());
         } catch (DataAccessException ex) {
             log.error("DB error creating favourite user={} asset={}: {}", userId, assetId, ex.getMessage());
             throw ex;
         }
     }
 
+    /**
+     * Adds many favourites with three statements in total: user check, one {@code = ANY} asset
+     * check and one multi-row insert. Unknown assets are reported per id instead of failing the batch.
+     */
+    @Transactional
+    public FavouriteBulkResultDto addFavourites(Long userId, FavouriteBulkRequestDto request) {
+        Set<Long> assetIds = requireBulkIds(userId, request);
+
+        Set<Long> existing = assetRepository.findExistingIds(assetIds);
+        List<Long> candidates = assetIds.stream().filter(existing::contains).toList();
+        Set<Long> added = favouriteRepository.createAllIfNotExist(userId, candidates);
+        added.forEach(assetId -> {
+            followersIndex.follow(assetId, userId);
+            popularityService.followed(assetId);
+        });
+        if (!added.isEmpty()) outboxService.append(new FavouritesChangedEvent(userId, List.copyOf(added), true));
+
+        List<FavouriteBulkOutcomeDto> outcomes = new ArrayList<>(assetIds.size());
+        for (Long assetId : assetIds) {
+            FavouriteBulkOutcomeDto.Status status = !existing.contains(assetId) ? FavouriteBulkOutcomeDto.Status.ASSET_NOT_FOUND
+                    : added.contains(assetId) ? FavouriteBulkOutcomeDto.Status.ADDED
+                    : FavouriteBulkOutcomeDto.Status.ALREADY_FAVOURITE;
+            outcomes.add(new FavouriteBulkOutcomeDto(assetId, status));
+        }
+        log.debug("Bulk favourite add user={} requested={} added={}", userId, assetIds.size(), added.size());
+        return FavouriteBulkResultDto.builder()
+                .requested(assetIds.size())
+                .changed(added.size())
+                .outcomes(outcomes)
+                .build();
+    }
+
     /* READ */
 
     @Transactional(readOnly = true)
@@ -80,16 +134,98 @@ public class FavouriteService {
                 .build();
     }
 
+    /**
+     * Watchlist page with asset data and last price in one query. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<WatchlistItemDto> getWatchlist(Long userId, String cursor, Integer size) {
+        if (userId == null) throw new BadRequestException("userId required");
+
+        int s = (size == null || size <= 0) ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        List<WatchlistEntry> rows = favouriteRepository.findWatchlistPage(userId,
+                after == null ? null : after.at(), after == null ? null : after.id(), s);
+
+        boolean hasMore = rows.size() > s;
+        List<WatchlistItemDto> items = new ArrayList<>(Math.min(rows.size(), s));
+        for (WatchlistEntry entry : hasMore ? rows.subList(0, s) : rows) {
+            items.add(WatchlistItemDto.builder()
+                    .favouriteId(entry.getFavouriteId())
+                    .addedAt(entry.getAddedAt())
+                    .asset(assetMapper.toResponse(entry.getAsset()))
+                    .build());
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            WatchlistItemDto last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getAddedAt(), last.getFavouriteId()).encode();
+        }
+
+        return CursorPageDto.<WatchlistItemDto>builder()
+                .items(items)
+                .size(s)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     /* DELETE */
 
     @Transactional
     public boolean removeFavourite(Long userId, Long assetId) {
         if (userId == null || assetId == null) throw new BadRequestException("userId and assetId required");
-        return favouriteRepository.deleteByUserAndAsset(userId, assetId);
+        boolean deleted = favouriteRepository.deleteByUserAndAsset(userId, assetId);
+        if (deleted) {
+            followersIndex.unfollow(assetId, userId);
+            popularityService.unfollowed(assetId);
+            outboxService.append(new FavouritesChangedEvent(userId, List.of(assetId), false));
+        }
+        return deleted;
+    }
+
+    @Transactional
+    public FavouriteBulkResultDto removeFavourites(Long userId, FavouriteBulkRequestDto request) {
+        Set<Long> assetIds = requireBulkIds(userId, request);
+
+        Set<Long> removed = favouriteRepository.deleteAllByUserAndAssets(userId, assetIds);
+        removed.forEach(assetId -> {
+            followersIndex.unfollow(assetId, userId);
+            popularityService.unfollowed(assetId);
+        });
+        if (!removed.isEmpty()) outboxService.append(new FavouritesChangedEvent(userId, List.copyOf(removed), false));
+
+        List<FavouriteBulkOutcomeDto> outcomes = new ArrayList<>(assetIds.size());
+        for (Long assetId : assetIds) {
+            outcomes.add(new FavouriteBulkOutcomeDto(assetId, removed.contains(assetId)
+                    ? FavouriteBulkOutcomeDto.Status.REMOVED
+                    : FavouriteBulkOutcomeDto.Status.NOT_FAVOURITE));
+        }
+        return FavouriteBulkResultDto.builder()
+                .requested(assetIds.size())
+                .changed(removed.size())
+                .outcomes(outcomes)
+                .build();
     }
 
     /* HELPER */
 
+    private Set<Long> requireBulkIds(Long userId, FavouriteBulkRequestDto request) {
+        if (userId == null) throw new BadRequestException("userId required");
+        if (request == null || request.getAssetIds() == null || request.getAssetIds().isEmpty()) {
+            throw new BadRequestException("assetIds required");
+        }
+        if (request.getAssetIds().size() > MAX_BULK) {
+            throw new BadRequestException("At most " + MAX_BULK + " assetIds per request");
+        }
+        userStatusCache.requireActive(userId);
+        Set<Long> ids = new LinkedHashSet<>(request.getAssetIds());
+        ids.removeIf(Objects::isNull);
+        if (ids.isEmpty()) throw new BadRequestException("assetIds required");
+        return ids;
+    }
+
     @Transactional(readOnly = true)
     public boolean isFavourite(Long userId, Long assetId) {
         return favouriteRepository.existsByUserAndAsset(userId, assetId);
@@ -0,0 +1,33 @@
+package org.example.wealthflow.fx.dtos;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxRateRequestDto {
+    @NotBlank(message = "Base currency is required")
+    private String baseCurrency;
+
+    @NotBlank(message = "Quote currency is required")
+    private String quoteCurrency;
+
+    @NotNull(message = "Rate is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Rate must be greater than 0")
+    private BigDecimal rate;
+
+    private Instant asOf;
+    private String source;
+}
@@ -0,0 +1,16 @@
+package org.example.wealthflow.fx.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRatesRecordedEvent {
+    private int rates;
+    /** oldest as-of instant among the recorded rates; values derived after it may have changed */
+    private Instant earliestAsOf;
+}
@@ -0,0 +1,50 @@
+package org.example.wealthflow.fx.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One observation of an exchange rate: 1 unit of {@code baseCurrency} is worth {@code rate} units of {@code quoteCurrency}.
+ */
+@Entity
+@Table(name = "fx_rates", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"base_currency", "quote_currency", "as_of"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "base_currency", nullable = false, length = 10)
+    private String baseCurrency;
+
+    @Column(name = "quote_currency", nullable = false, length = 10)
+    private String quoteCurrency;
+
+    @Column(name = "rate", precision = 28, scale = 12, nullable = false)
+    private BigDecimal rate;
+
+    @Column(name = "as_of", nullable = false)
+    private Instant asOf;
+
+    @Column(name = "source", length = 100)
+    private String source;
+}
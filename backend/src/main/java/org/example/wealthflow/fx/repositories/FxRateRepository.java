@@ -0,0 +1,97 @@
+package org.example.wealthflow.fx.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.fx.models.FxRate;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class FxRateRepository {
+
+    private static final int INSERT_CHUNK = 5_000;
+
+    private final DSLContext dslContext;
+
+    private final Table<?> FX_RATES = table("fx_rates");
+    private final Field<Long> ID = field("id", Long.class);
+    private final Field<String> BASE = field("base_currency", String.class);
+    private final Field<String> QUOTE = field("quote_currency", String.class);
+    private final Field<BigDecimal> RATE = field("rate", BigDecimal.class);
+    private final Field<Instant> AS_OF = field("as_of", Instant.class);
+    private final Field<String> SOURCE = field("source", String.class);
+
+    /**
+     * Multi-row upsert on (base, quote, as_of); a corrected observation replaces the earlier one.
+     */
+    public int saveAll(List<FxRate> rates) {
+        if (rates == null || rates.isEmpty()) return 0;
+
+        int written = 0;
+        for (int from = 0; from < rates.size(); from += INSERT_CHUNK) {
+            List<FxRate> chunk = rates.subList(from, Math.min(rates.size(), from + INSERT_CHUNK));
+            var insert = dslContext.insertInto(FX_RATES, BASE, QUOTE, RATE, AS_OF, SOURCE);
+            for (FxRate r : chunk) {
+                insert = insert.values(r.getBaseCurrency(), r.getQuoteCurrency(), r.getRate(), r.getAsOf(), r.getSource());
+            }
+            written += insert.onConflict(BASE, QUOTE, AS_OF)
+                    .doUpdate()
+                    .set(RATE, DSL.excluded(RATE))
+                    .set(SOURCE, DSL.excluded(SOURCE))
+                    .execute();
+        }
+        return written;
+    }
+
+    /**
+     * Newest observation of every pair, via {@code DISTINCT ON (base, quote)}.
+     */
+    public List<FxRate> findLatest() {
+        return dslContext.select(ID, BASE, QUOTE, RATE, AS_OF, SOURCE)
+                .distinctOn(BASE, QUOTE)
+                .from(FX_RATES)
+                .orderBy(BASE, QUOTE, AS_OF.desc())
+                .fetch(this::mapRecordToFxRate);
+    }
+
+    /**
+     * Every observation in [from, to) plus, per pair, the newest one before {@code from},
+     * so a rate is known at every instant of the range. Ordered by pair, then time.
+     */
+    public List<FxRate> findSeries(Instant from, Instant to) {
+        var before = dslContext.select(ID, BASE, QUOTE, RATE, AS_OF, SOURCE)
+                .distinctOn(BASE, QUOTE)
+                .from(FX_RATES)
+                .where(AS_OF.lt(from))
+                .orderBy(BASE, QUOTE, AS_OF.desc());
+        var inside = dslContext.select(ID, BASE, QUOTE, RATE, AS_OF, SOURCE)
+                .from(FX_RATES)
+                .where(AS_OF.ge(from).and(AS_OF.lt(to)));
+        var all = before.unionAll(inside).asTable("s");
+        return dslContext.selectFrom(all)
+                .orderBy(field(DSL.name("s", "base_currency")), field(DSL.name("s", "quote_currency")), field(DSL.name("s", "as_of")))
+                .fetch(this::mapRecordToFxRate);
+    }
+
+    private FxRate mapRecordToFxRate(Record r) {
+        return FxRate.builder()
+                .id(r.get(ID))
+                .baseCurrency(r.get(BASE))
+                .quoteCurrency(r.get(QUOTE))
+                .rate(r.get(RATE))
+                .asOf(r.get(AS_OF))
+                .source(r.get(SOURCE))
+                .build();
+    }
+}
@@ -0,0 +1,323 @@
+package org.example.wealthflow.fx.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.configs.FxConfig;
+import org.example.wealthflow.fx.dtos.FxRateRequestDto;
+import org.example.wealthflow.fx.events.FxRatesRecordedEvent;
+import org.example.wealthflow.fx.models.FxRate;
+import org.example.wealthflow.fx.repositories.FxRateRepository;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exchange rates. Observations are stored as a time series in fx_rates; the newest rate of every
+ * pair is held in memory as a currency x currency matrix (direct quotes, their inverses, and
+ * crosses through the pivot currency) built off to the side and published by swapping one
+ * reference, so a conversion is two map lookups and a multiply with no database access.
+ * Historical conversions load the series of the requested range once into an {@link AsOfRates}.
+ */
+@Service
+@Slf4j
+public class FxRateService {
+
+    private static final MathContext RATE_CONTEXT = new MathContext(20, RoundingMode.HALF_EVEN);
+    private static final int AMOUNT_SCALE = 8;
+
+    private final FxRateRepository fxRateRepository;
+    private final FxConfig fxConfig;
+    private final OutboxService outboxService;
+
+    private final AtomicReference<LatestRates> latest = new AtomicReference<>(LatestRates.EMPTY);
+
+    public FxRateService(FxRateRepository fxRateRepository, FxConfig fxConfig, OutboxService outboxService) {
+        this.fxRateRepository = fxRateRepository;
+        this.fxConfig = fxConfig;
+        this.outboxService = outboxService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${fx.refresh-interval-ms:60000}", fixedDelayString = "${fx.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            List<FxRate> rates = fxRateRepository.findLatest();
+            LatestRates matrix = LatestRates.build(rates, normalize(fxConfig.getPivotCurrency()));
+            latest.set(matrix);
+            log.debug("FX matrix rebuilt: {} quoted pairs, {} currencies", rates.size(), matrix.size());
+        } catch (RuntimeException ex) {
+            // keep serving the previous matrix
+            log.warn("Failed to refresh FX rates: {}", ex.getMessage());
+        }
+    }
+
+    /* CREATE */
+
+    @Transactional
+    public int recordRates(List<FxRateRequestDto> requests) {
+        if (requests == null || requests.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        Instant earliest = now;
+        List<FxRate> rates = new ArrayList<>(requests.size());
+        for (FxRateRequestDto r : requests) {
+            String base = normalize(r.getBaseCurrency());
+            String quote = normalize(r.getQuoteCurrency());
+            if (base == null || quote == null) throw new BadRequestException("Base and quote currency required");
+            if (base.equals(quote)) throw new BadRequestException("Base and quote currency must differ: " + base);
+            if (r.getRate() == null || r.getRate().signum() <= 0) throw new BadRequestException("Rate must be greater than 0");
+            Instant asOf = r.getAsOf() == null ? now : r.getAsOf();
+            if (asOf.isBefore(earliest)) earliest = asOf;
+            rates.add(FxRate.builder()
+                    .baseCurrency(base)
+                    .quoteCurrency(quote)
+                    .rate(r.getRate())
+                    .asOf(asOf)
+                    .source(r.getSource())
+                    .build());
+        }
+
+        int written = fxRateRepository.saveAll(rates);
+        outboxService.append(new FxRatesRecordedEvent(written, earliest));
+        AfterCommit.run(this::refresh);
+        log.info("Recorded {} FX rates", written);
+        return written;
+    }
+
+    /* READ */
+
+    /**
+     * The current latest-rate matrix.
+     */
+    public LatestRates latest() {
+        return latest.get();
+    }
+
+    /**
+     * Latest rate converting 1 unit of {@code from} into {@code to}, if it is known directly, inverted or through the pivot.
+     */
+    public Optional<BigDecimal> rate(String from, String to) {
+        return Optional.ofNullable(latest.get().rate(from, to));
+    }
+
+    /**
+     * Converts {@code amount} at the latest rate; empty when the pair is not known.
+     */
+    public Optional<BigDecimal> convert(BigDecimal amount, String from, String to) {
+        if (amount == null) return Optional.empty();
+        return rate(from, to).map(rate -> scale(amount.multiply(rate)));
+    }
+
+    /**
+     * The base currency a user's values are reported in.
+     */
+    public String baseCurrencyOf(String userBaseCurrency) {
+        String base = normalize(userBaseCurrency);
+        return base == null ? normalize(fxConfig.getDefaultBaseCurrency()) : base;
+    }
+
+    /**
+     * Loads every rate needed to convert at any instant in [from, to) with one query.
+     */
+    @Transactional(readOnly = true)
+    public AsOfRates asOf(Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) throw new BadRequestException("Range start must be before range end");
+        return AsOfRates.build(fxRateRepository.findSeries(from, to), normalize(fxConfig.getPivotCurrency()));
+    }
+
+    /* HELPER */
+
+    static String normalize(String currency) {
+        if (currency == null) return null;
+        String c = currency.trim().toUpperCase(Locale.ROOT);
+        return c.isEmpty() ? null : c;
+    }
+
+    private static BigDecimal scale(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Immutable latest-rate matrix; {@code rates[i][j]} converts currency i into currency j, null when unknown.
+     * A caller converting many amounts should take one instance and use it throughout, so all of them see the same rates.
+     */
+    public static final class LatestRates {
+        private static final LatestRates EMPTY = new LatestRates(Map.of(), new BigDecimal[0][0]);
+
+        private final Map<String, Integer> index;
+        private final BigDecimal[][] rates;
+
+        private LatestRates(Map<String, Integer> index, BigDecimal[][] rates) {
+            this.index = index;
+            this.rates = rates;
+        }
+
+        private static LatestRates build(List<FxRate> quoted, String pivot) {
+            Map<String, Integer> index = new HashMap<>();
+            for (FxRate r : quoted) {
+                index.putIfAbsent(r.getBaseCurrency(), index.size());
+                index.putIfAbsent(r.getQuoteCurrency(), index.size());
+            }
+            int n = index.size();
+            BigDecimal[][] rates = new BigDecimal[n][n];
+            Instant[][] asOf = new Instant[n][n];
+            for (int i = 0; i < n; i++) rates[i][i] = BigDecimal.ONE;
+
+            // a direct quote beats an inverted one of the opposite pair unless the inverse is newer
+            for (FxRate r : quoted) {
+                int b = index.get(r.getBaseCurrency());
+                int q = index.get(r.getQuoteCurrency());
+                if (asOf[b][q] == null || !r.getAsOf().isBefore(asOf[b][q])) {
+                    rates[b][q] = r.getRate();
+                    asOf[b][q] = r.getAsOf();
+                }
+                if (asOf[q][b] == null || r.getAsOf().isAfter(asOf[q][b])) {
+                    rates[q][b] = BigDecimal.ONE.divide(r.getRate(), RATE_CONTEXT);
+                    asOf[q][b] = r.getAsOf();
+                }
+            }
+
+            Integer p = pivot == null ? null : index.get(pivot);
+            if (p != null) {
+                for (int i = 0; i < n; i++) {
+                    if (rates[i][p] == null) continue;
+                    for (int j = 0; j < n; j++) {
+                        if (rates[i][j] == null && rates[p][j] != null) {
+                            rates[i][j] = rates[i][p].multiply(rates[p][j], RATE_CONTEXT);
+                        }
+                    }
+                }
+            }
+            return new LatestRates(Map.copyOf(index), rates);
+        }
+
+        /**
+         * Rate converting 1 unit of {@code from} into {@code to}, or null when the pair is not known.
+         */
+        public BigDecimal rate(String from, String to) {
+            String f = normalize(from);
+            String t = normalize(to);
+            if (f == null || t == null) return null;
+            if (f.equals(t)) return BigDecimal.ONE;
+            Integer i = index.get(f);
+            Integer j = index.get(t);
+            return i == null || j == null ? null : rates[i][j];
+        }
+
+        public BigDecimal convert(BigDecimal amount, String from, String to) {
+            if (amount == null) return null;
+            BigDecimal r = rate(from, to);
+            return r == null ? null : scale(amount.multiply(r));
+        }
+
+        private int size() {
+            return index.size();
+        }
+    }
+
+    /**
+     * Per-pair rate series over a range, answering "what was the rate at instant t" by binary search
+     * over the pair's observations: the direct pair first, then the inverse, then a cross through the pivot.
+     * Instances are immutable and may be shared between threads.
+     */
+    public static final class AsOfRates {
+        private final Map<String, Series> series;
+        private final String pivot;
+
+        private AsOfRates(Map<String, Series> series, String pivot) {
+            this.series = series;
+            this.pivot = pivot;
+        }
+
+        private static AsOfRates build(List<FxRate> ordered, String pivot) {
+            Map<String, List<FxRate>> byPair = new HashMap<>();
+            for (FxRate r : ordered) {
+                byPair.computeIfAbsent(pairKey(r.getBaseCurrency(), r.getQuoteCurrency()), k -> new ArrayList<>()).add(r);
+            }
+            Map<String, Series> series = new HashMap<>(byPair.size() * 2);
+            byPair.forEach((key, rows) -> series.put(key, Series.of(rows)));
+            return new AsOfRates(series, pivot);
+        }
+
+        /**
+         * Rate converting 1 unit of {@code from} into {@code to} at {@code at}, or null when no rate was known by then.
+         */
+        public BigDecimal rate(String from, String to, Instant at) {
+            String f = normalize(from);
+            String t = normalize(to);
+            if (f == null || t == null) return null;
+            if (f.equals(t)) return BigDecimal.ONE;
+            BigDecimal r = pairRate(f, t, at);
+            if (r != null || pivot == null || f.equals(pivot) || t.equals(pivot)) return r;
+            BigDecimal toPivot = pairRate(f, pivot, at);
+            BigDecimal fromPivot = toPivot == null ? null : pairRate(pivot, t, at);
+            return fromPivot == null ? null : toPivot.multiply(fromPivot, RATE_CONTEXT);
+        }
+
+        public BigDecimal convert(BigDecimal amount, String from, String to, Instant at) {
+            if (amount == null) return null;
+            BigDecimal r = rate(from, to, at);
+            return r == null ? null : scale(amount.multiply(r));
+        }
+
+        private BigDecimal pairRate(String from, String to, Instant at) {
+            Series direct = series.get(pairKey(from, to));
+            BigDecimal r = direct == null ? null : direct.at(at);
+            if (r != null) return r;
+            Series inverse = series.get(pairKey(to, from));
+            BigDecimal inv = inverse == null ? null : inverse.at(at);
+            return inv == null ? null : BigDecimal.ONE.divide(inv, RATE_CONTEXT);
+        }
+
+        private static String pairKey(String base, String quote) {
+            return base + '/' + quote;
+        }
+    }
+
+    private static final class Series {
+        private final long[] asOfMillis;
+        private final BigDecimal[] rates;
+
+        private Series(long[] asOfMillis, BigDecimal[] rates) {
+            this.asOfMillis = asOfMillis;
+            this.rates = rates;
+        }
+
+        private static Series of(List<FxRate> rows) {
+            long[] at = new long[rows.size()];
+            BigDecimal[] rates = new BigDecimal[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                at[i] = rows.get(i).getAsOf().toEpochMilli();
+                rates[i] = rows.get(i).getRate();
+            }
+            return new Series(at, rates);
+        }
+
+        /**
+         * Newest rate observed at or before {@code at}.
+         */
+        private BigDecimal at(Instant at) {
+            int i = Arrays.binarySearch(asOfMillis, at.toEpochMilli());
+            if (i < 0) i = -i - 2;
+            else while (i + 1 < asOfMillis.length && asOfMillis[i + 1] == asOfMillis[i]) i++;
+            return i < 0 ? null : rates[i];
+        }
+    }
+}
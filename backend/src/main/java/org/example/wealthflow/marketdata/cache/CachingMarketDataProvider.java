@@ -0,0 +1,125 @@
+package org.example.wealthflow.marketdata.cache;
+
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.models.RecordedResponse;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps a provider with the response store.
+ * READ_THROUGH: history ranges are served from the store when present, otherwise fetched and stored;
+ * live quotes always go to the provider and are recorded so the session can be replayed later.
+ * A stored range is served for good, so only complete ones are stored: a range that ended too recently
+ * to have settled, or whose quotes stop well short of either end, is fetched again next time.
+ * REPLAY: the provider is never called; history comes from the store only and quotes are the
+ * latest recorded ones, which makes runs deterministic.
+ */
+public class CachingMarketDataProvider implements MarketDataProvider {
+
+    private final MarketDataProvider delegate;
+    private final ProviderResponseStore store;
+    private final MarketDataConfig.Cache.Mode mode;
+    private final Duration settle;
+    private final Duration maxGap;
+    private volatile Map<String, Quote> latestRecorded;
+
+    public CachingMarketDataProvider(MarketDataProvider delegate, ProviderResponseStore store, MarketDataConfig.Cache cache) {
+        this.delegate = delegate;
+        this.store = store;
+        this.mode = cache.getMode();
+        this.settle = Duration.ofHours(Math.max(0, cache.getHistorySettleHours()));
+        this.maxGap = Duration.ofHours(Math.max(0, cache.getHistoryMaxGapHours()));
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return delegate.getMaxBatchSize();
+    }
+
+    @Override
+    public boolean supportsHistory() {
+        return delegate.supportsHistory();
+    }
+
+    @Override
+    public Duration getMaxHistoryChunk() {
+        return delegate.getMaxHistoryChunk();
+    }
+
+    @Override
+    public List<Quote> fetchQuotes(List<String> externalIds) {
+        if (mode == MarketDataConfig.Cache.Mode.REPLAY) {
+            Map<String, Quote> recorded = latestRecorded();
+            List<Quote> quotes = new ArrayList<>(externalIds.size());
+            for (String id : externalIds) {
+                Quote quote = recorded.get(id);
+                if (quote != null) quotes.add(quote);
+            }
+            return quotes;
+        }
+
+        List<Quote> quotes = delegate.fetchQuotes(externalIds);
+        if (!quotes.isEmpty()) {
+            Instant at = Instant.now();
+            store.append(new RecordedResponse(RecordedResponse.Kind.QUOTE, getName(), "*", at, at, quotes));
+        }
+        return quotes;
+    }
+
+    @Override
+    public List<Quote> fetchHistory(String externalId, Instant from, Instant to) {
+        var cached = store.findHistory(getName(), externalId, from, to);
+        if (cached.isPresent() || mode == MarketDataConfig.Cache.Mode.REPLAY) {
+            return cached.orElse(List.of());
+        }
+
+        List<Quote> quotes = delegate.fetchHistory(externalId, from, to);
+        if (isComplete(quotes, from, to)) {
+            store.append(new RecordedResponse(RecordedResponse.Kind.HISTORY, getName(), externalId, from, to, quotes));
+        }
+        return quotes;
+    }
+
+    /**
+     * Whether the range has settled and its quotes reach to within the allowed gap of both ends; an empty
+     * result counts as one gap over the whole range, so a weekend may come back empty but a month may not.
+     */
+    private boolean isComplete(List<Quote> quotes, Instant from, Instant to) {
+        if (to.isAfter(Instant.now().minus(settle))) return false;
+        Instant first = to;
+        Instant last = from;
+        for (Quote quote : quotes) {
+            if (quote.getAt() == null) continue;
+            if (quote.getAt().isBefore(first)) first = quote.getAt();
+            if (quote.getAt().isAfter(last)) last = quote.getAt();
+        }
+        return Duration.between(from, first).compareTo(maxGap) <= 0 && Duration.between(last, to).compareTo(maxGap) <= 0;
+    }
+
+    private Map<String, Quote> latestRecorded() {
+        Map<String, Quote> current = latestRecorded;
+        if (current == null) {
+            Map<String, Quote> built = new HashMap<>();
+            store.scan(response -> {
+                if (response.getKind() != RecordedResponse.Kind.QUOTE || !response.getProvider().equals(getName())) return;
+                for (Quote quote : response.getQuotes()) {
+                    built.merge(quote.getExternalId(), quote, (a, b) -> b.getAt().isAfter(a.getAt()) ? b : a);
+                }
+            });
+            latestRecorded = current = built;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,408 @@
+package org.example.wealthflow.marketdata.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.models.RecordedResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped store of provider responses. Records go into segment files that roll
+ * over once they reach {@code segmentSizeMb} or {@code segmentMaxAgeHours}; in read-through mode,
+ * segments whose last write is older than {@code retentionDays} are deleted. Reads are served from
+ * read-only mappings: when a segment grows, only the new bytes are mapped, and the extents are
+ * merged into one mapping once there are too many of them.
+ * History ranges are indexed in memory by (provider, symbol, from, to); the index is rebuilt
+ * by scanning the segments on startup, and a torn record at the tail of the last segment is cut off.
+ * Segment files are named {@code responses-<number>-<createdEpochSecond>.log}.
+ * Record layout: {@code int length | byte kind | utf provider | utf symbol | long from | long to |
+ * int n | n * (utf externalId | long atMillis | utf price)}.
+ */
+@Component
+@Slf4j
+public class ProviderResponseStore {
+
+    private static final String SEGMENT_PREFIX = "responses-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long MAX_SEGMENT_MB = 1024;
+    private static final int MAX_EXTENTS = 32;
+
+    private final MarketDataConfig marketDataConfig;
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Location> historyIndex = new ConcurrentHashMap<>();
+    private Path directory;
+    private long segmentSizeBytes;
+
+    public ProviderResponseStore(MarketDataConfig marketDataConfig) {
+        this.marketDataConfig = marketDataConfig;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        MarketDataConfig.Cache cache = marketDataConfig.getCache();
+        if (cache.getMode() == MarketDataConfig.Cache.Mode.OFF) return;
+
+        this.directory = Paths.get(cache.getDirectory());
+        // offsets inside a mapping are ints, so a segment must stay below 2 GB
+        this.segmentSizeBytes = Math.min(MAX_SEGMENT_MB, Math.max(1, cache.getSegmentSizeMb())) * 1024 * 1024;
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            segments.put(segment.number, segment);
+        }
+        if (segments.isEmpty()) {
+            Segment first = Segment.create(directory, 0);
+            segments.put(first.number, first);
+        }
+
+        long records = 0;
+        Segment tail = segments.lastEntry().getValue();
+        for (Segment segment : segments.values()) {
+            records += recover(segment, segment == tail);
+        }
+        log.info("Provider response store opened at {}: {} segments, {} records, {} history ranges indexed",
+                directory.toAbsolutePath(), segments.size(), records, historyIndex.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    public boolean isOpen() {
+        return !segments.isEmpty();
+    }
+
+    public synchronized void append(RecordedResponse response) {
+        if (!isOpen()) return;
+        byte[] bytes = encode(response);
+        try {
+            Segment tail = segments.lastEntry().getValue();
+            if (tail.size > 0 && (tail.size + bytes.length > segmentSizeBytes || tail.isOlderThan(maxSegmentAge()))) {
+                tail = Segment.create(directory, tail.number + 1);
+                segments.put(tail.number, tail);
+            }
+            long offset = tail.append(bytes);
+            if (response.getKind() == RecordedResponse.Kind.HISTORY) {
+                historyIndex.put(historyKey(response.getProvider(), response.getSymbol(), response.getFrom(), response.getTo()),
+                        new Location(tail.number, offset));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to append to provider response store", ex);
+        }
+    }
+
+    public Optional<List<Quote>> findHistory(String provider, String symbol, Instant from, Instant to) {
+        Location location = historyIndex.get(historyKey(provider, symbol, from, to));
+        if (location == null) return Optional.empty();
+        Segment segment = segments.get(location.segment);
+        if (segment == null) return Optional.empty();
+        try {
+            return Optional.of(segment.read(location.offset).getQuotes());
+        } catch (UncheckedIOException ex) {
+            // the segment was dropped by retention between the lookup and the read
+            if (!segments.containsKey(location.segment)) return Optional.empty();
+            throw ex;
+        }
+    }
+
+    /**
+     * Visits every stored record in write order, which for quote snapshots is time order.
+     */
+    public void scan(Consumer<RecordedResponse> visitor) {
+        for (Segment segment : segments.values()) {
+            segment.scan((offset, response) -> visitor.accept(response));
+        }
+    }
+
+    /**
+     * Deletes read-through segments, other than the one being written, whose last write is older
+     * than the retention period. Replay stores are never trimmed.
+     */
+    @Scheduled(fixedDelayString = "${marketdata.cache.retention-check-ms:3600000}",
+            initialDelayString = "${marketdata.cache.retention-check-ms:3600000}")
+    public synchronized void enforceRetention() {
+        MarketDataConfig.Cache cache = marketDataConfig.getCache();
+        if (!isOpen() || cache.getMode() != MarketDataConfig.Cache.Mode.READ_THROUGH || cache.getRetentionDays() <= 0) return;
+
+        Instant cutoff = Instant.now().minus(Duration.ofDays(cache.getRetentionDays()));
+        Segment tail = segments.lastEntry().getValue();
+        for (Segment segment : segments.values()) {
+            if (segment == tail || !segment.lastWriteAt.isBefore(cutoff)) continue;
+            segments.remove(segment.number);
+            historyIndex.values().removeIf(location -> location.segment == segment.number);
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.file);
+                log.info("Deleted provider response segment {} (last written {})", segment.file.getFileName(), segment.lastWriteAt);
+            } catch (IOException ex) {
+                log.warn("Failed to delete provider response segment {}: {}", segment.file, ex.getMessage());
+            }
+        }
+    }
+
+    private Duration maxSegmentAge() {
+        long hours = marketDataConfig.getCache().getSegmentMaxAgeHours();
+        return hours > 0 ? Duration.ofHours(hours) : null;
+    }
+
+    private static String historyKey(String provider, String symbol, Instant from, Instant to) {
+        return provider + '|' + symbol + '|' + from.toEpochMilli() + '|' + to.toEpochMilli();
+    }
+
+    /**
+     * Indexes the segment; on the tail segment a record cut short by a crash is truncated away.
+     */
+    private long recover(Segment segment, boolean tail) throws IOException {
+        long records = 0;
+        long offset = 0;
+        long size = segment.size;
+        while (offset + Integer.BYTES <= size) {
+            int length = segment.lengthAt(offset);
+            if (length <= 0 || offset + Integer.BYTES + length > size) break;
+            RecordedResponse response = segment.read(offset);
+            if (response.getKind() == RecordedResponse.Kind.HISTORY) {
+                historyIndex.put(historyKey(response.getProvider(), response.getSymbol(), response.getFrom(), response.getTo()),
+                        new Location(segment.number, offset));
+            }
+            records++;
+            offset += Integer.BYTES + length;
+        }
+        if (offset < size) {
+            if (!tail) throw new IOException("Corrupt provider response segment " + segment.number + " at offset " + offset);
+            log.warn("Truncating torn record at offset {} of segment {}", offset, segment.number);
+            segment.truncate(offset);
+        }
+        return records;
+    }
+
+    /* ENCODING */
+
+    private static byte[] encode(RecordedResponse response) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + response.getQuotes().size() * 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(response.getKind().ordinal());
+            out.writeUTF(response.getProvider());
+            out.writeUTF(response.getSymbol());
+            out.writeLong(response.getFrom().toEpochMilli());
+            out.writeLong(response.getTo().toEpochMilli());
+            out.writeInt(response.getQuotes().size());
+            for (Quote quote : response.getQuotes()) {
+                out.writeUTF(quote.getExternalId());
+                out.writeLong(quote.getAt().toEpochMilli());
+                out.writeUTF(quote.getPrice().toPlainString());
+            }
+            out.flush();
+            byte[] record = bytes.toByteArray();
+            ByteBuffer.wrap(record).putInt(0, record.length - Integer.BYTES);
+            return record;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static RecordedResponse decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        RecordedResponse.Kind kind = RecordedResponse.Kind.values()[in.readByte()];
+        String provider = in.readUTF();
+        String symbol = in.readUTF();
+        Instant from = Instant.ofEpochMilli(in.readLong());
+        Instant to = Instant.ofEpochMilli(in.readLong());
+        int n = in.readInt();
+        List<Quote> quotes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String externalId = in.readUTF();
+            Instant at = Instant.ofEpochMilli(in.readLong());
+            quotes.add(new Quote(externalId, new BigDecimal(in.readUTF()), at));
+        }
+        return new RecordedResponse(kind, provider, symbol, from, to, quotes);
+    }
+
+    private record Location(int segment, long offset) {
+    }
+
+    private record Extent(long start, ByteBuffer buffer) {
+        long end() {
+            return start + buffer.capacity();
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(long offset, RecordedResponse response);
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private final Instant createdAt;
+        private final FileChannel channel;
+        private volatile Extent[] extents = new Extent[0];
+        private volatile long size;
+        private volatile Instant lastWriteAt;
+
+        private Segment(int number, Path file, Instant createdAt) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.createdAt = createdAt;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+            this.lastWriteAt = size > 0 ? Files.getLastModifiedTime(file).toInstant() : createdAt;
+        }
+
+        private static Segment create(Path directory, int number) throws IOException {
+            Instant now = Instant.now();
+            String name = String.format("%s%05d-%d%s", SEGMENT_PREFIX, number, now.getEpochSecond(), SEGMENT_SUFFIX);
+            return new Segment(number, directory.resolve(name), now);
+        }
+
+        /**
+         * Opens an existing file; files from before creation times were part of the name count as created at their last write.
+         */
+        private static Segment open(Path file) throws IOException {
+            String name = file.getFileName().toString();
+            String[] parts = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()).split("-");
+            Instant createdAt = parts.length > 1
+                    ? Instant.ofEpochSecond(Long.parseLong(parts[1]))
+                    : Files.getLastModifiedTime(file).toInstant();
+            return new Segment(Integer.parseInt(parts[0]), file, createdAt);
+        }
+
+        private boolean isOlderThan(Duration age) {
+            return age != null && createdAt.plus(age).isBefore(Instant.now());
+        }
+
+        private long append(byte[] record) throws IOException {
+            long offset = size;
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            size = offset + record.length;
+            lastWriteAt = Instant.now();
+            return offset;
+        }
+
+        private synchronized void truncate(long newSize) throws IOException {
+            channel.truncate(newSize);
+            size = newSize;
+            extents = new Extent[0];
+        }
+
+        private int lengthAt(long offset) {
+            return ByteBuffer.wrap(bytes(offset, Integer.BYTES)).getInt();
+        }
+
+        private RecordedResponse read(long offset) {
+            try {
+                return decode(bytes(offset + Integer.BYTES, lengthAt(offset)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Corrupt record in provider response store", ex);
+            }
+        }
+
+        private void scan(RecordVisitor visitor) {
+            long end = size;
+            long offset = 0;
+            while (offset < end) {
+                RecordedResponse response = read(offset);
+                visitor.visit(offset, response);
+                offset += Integer.BYTES + lengthAt(offset);
+            }
+        }
+
+        /**
+         * Copies {@code length} bytes at {@code offset}, which may straddle two mapped extents.
+         */
+        private byte[] bytes(long offset, int length) {
+            byte[] out = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                Extent extent = extentAt(offset + copied);
+                int position = (int) (offset + copied - extent.start);
+                int n = (int) Math.min(length - copied, extent.end() - (offset + copied));
+                extent.buffer.get(position, out, copied, n);
+                copied += n;
+            }
+            return out;
+        }
+
+        private Extent extentAt(long offset) {
+            Extent[] current = extents;
+            if (current.length == 0 || offset >= current[current.length - 1].end()) {
+                current = mapThrough(offset);
+            }
+            int lo = 0;
+            int hi = current.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (current[mid].start <= offset) lo = mid;
+                else hi = mid - 1;
+            }
+            return current[lo];
+        }
+
+        /**
+         * Maps the bytes written since the last mapping; past {@link #MAX_EXTENTS} the whole segment is mapped once instead.
+         */
+        private synchronized Extent[] mapThrough(long offset) {
+            Extent[] current = extents;
+            long mappedEnd = current.length == 0 ? 0 : current[current.length - 1].end();
+            if (offset < mappedEnd) return current;
+            long wanted = size;
+            if (offset >= wanted) {
+                throw new UncheckedIOException(new IOException("Offset " + offset + " is past the end of segment " + number));
+            }
+            try {
+                Extent[] next;
+                if (current.length >= MAX_EXTENTS) {
+                    next = new Extent[]{new Extent(0, channel.map(FileChannel.MapMode.READ_ONLY, 0, wanted))};
+                } else {
+                    next = Arrays.copyOf(current, current.length + 1);
+                    next[current.length] = new Extent(mappedEnd, channel.map(FileChannel.MapMode.READ_ONLY, mappedEnd, wanted - mappedEnd));
+                }
+                extents = next;
+                return next;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to map provider response segment " + number, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.wealthflow.marketdata.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillJobResponseDto {
+    private Long id;
+    private Long assetId;
+    private Instant rangeFrom;
+    private Instant rangeTo;
+    private String status;
+    private int chunksTotal;
+    private int chunksDone;
+    private long rowsWritten;
+    private int attempts;
+    private Instant createdAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,21 @@
+package org.example.wealthflow.marketdata.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReplayResultDto {
+    private long snapshots;
+    private long quotes;
+    private long priceRows;
+    private long assetsUpdated;
+    private long durationMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,12 @@
+package org.example.wealthflow.marketdata.mappers;
+
+import org.example.wealthflow.marketdata.dtos.BackfillJobResponseDto;
+import org.example.wealthflow.marketdata.models.BackfillJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface BackfillJobMapper {
+
+    BackfillJobResponseDto toResponse(BackfillJob job);
+}
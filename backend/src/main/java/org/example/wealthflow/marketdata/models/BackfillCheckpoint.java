@@ -0,0 +1,50 @@
+package org.example.wealthflow.marketdata.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One fully written history chunk. Written in the same transaction as the chunk's price rows,
+ * so its presence means the rows are there.
+ */
+@Entity
+@Table(name = "backfill_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"asset_id", "chunk_start", "chunk_end"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "asset_id", nullable = false)
+    private Long assetId;
+
+    @Column(name = "chunk_start", nullable = false)
+    private Instant chunkStart;
+
+    @Column(name = "chunk_end", nullable = false)
+    private Instant chunkEnd;
+
+    @Column(name = "rows_written", nullable = false)
+    private int rowsWritten;
+
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+}
@@ -0,0 +1,70 @@
+package org.example.wealthflow.marketdata.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "backfill_jobs", indexes = {
+        @Index(columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillJob {
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "asset_id", nullable = false)
+    private Long assetId;
+
+    @Column(name = "range_from", nullable = false)
+    private Instant rangeFrom;
+
+    @Column(name = "range_to", nullable = false)
+    private Instant rangeTo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "chunks_total", nullable = false)
+    private int chunksTotal;
+
+    @Column(name = "chunks_done", nullable = false)
+    private int chunksDone;
+
+    @Column(name = "rows_written", nullable = false)
+    private long rowsWritten;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /** the node running the job holds it until then; a RUNNING job past it was abandoned */
+    @Column(name = "leased_until")
+    private Instant leasedUntil;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
@@ -0,0 +1,15 @@
+package org.example.wealthflow.marketdata.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class Quote {
+    private final String externalId;
+    private final BigDecimal price;
+    private final Instant at;
+}
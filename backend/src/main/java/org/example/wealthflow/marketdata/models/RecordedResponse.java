@@ -0,0 +1,24 @@
+package org.example.wealthflow.marketdata.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One provider answer as stored in the response cache: either a live quote snapshot
+ * ({@code from == to == fetch time}) or a history range [from, to).
+ */
+@Getter
+@AllArgsConstructor
+public class RecordedResponse {
+    public enum Kind { QUOTE, HISTORY }
+
+    private final Kind kind;
+    private final String provider;
+    private final String symbol;
+    private final Instant from;
+    private final Instant to;
+    private final List<Quote> quotes;
+}
@@ -0,0 +1,94 @@
+package org.example.wealthflow.marketdata.providers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alpha Vantage {@code GLOBAL_QUOTE}: the API takes one symbol per request, so batches are of size one.
+ * The quote carries only its latest trading day, so it is stamped with that day's close, or with the
+ * fetch time while that day's session is still open; polling a closed market therefore yields the same
+ * instant every time and adds no new price_history row.
+ */
+@Component
+@ConditionalOnProperty(prefix = "marketdata.providers.alphavantage", name = "enabled", havingValue = "true")
+public class AlphaVantageMarketDataProvider implements MarketDataProvider {
+
+    public static final String NAME = "alphavantage";
+    private static final ZoneId EXCHANGE_ZONE = ZoneId.of("America/New_York");
+    private static final LocalTime SESSION_CLOSE = LocalTime.of(16, 0);
+    private static final String DEFAULT_BASE_URL = "https://www.alphavantage.co";
+
+    private final MarketDataConfig.Provider properties;
+    private final RestClient restClient;
+
+    public AlphaVantageMarketDataProvider(MarketDataConfig marketDataConfig) {
+        this.properties = marketDataConfig.provider(NAME);
+        if (properties.getApiKey() == null || properties.getApiKey().isBlank()) {
+            throw new IllegalStateException("Alpha Vantage API key is not configured");
+        }
+        String baseUrl = properties.getBaseUrl() == null ? DEFAULT_BASE_URL : properties.getBaseUrl();
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory(properties.getTimeoutMs()))
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return 1;
+    }
+
+    @Override
+    public List<Quote> fetchQuotes(List<String> externalIds) {
+        List<Quote> quotes = new ArrayList<>(externalIds.size());
+        for (String symbol : externalIds) {
+            JsonNode body = restClient.get()
+                    .uri(uri -> uri.path("/query")
+                            .queryParam("function", "GLOBAL_QUOTE")
+                            .queryParam("symbol", symbol)
+                            .queryParam("apikey", properties.getApiKey())
+                            .build())
+                    .retrieve()
+                    .body(JsonNode.class);
+
+            JsonNode quote = body == null ? null : body.get("Global Quote");
+            if (quote == null || !quote.hasNonNull("05. price") || !quote.hasNonNull("07. latest trading day")) continue;
+            Instant at = quoteTime(LocalDate.parse(quote.get("07. latest trading day").asText()), Instant.now());
+            quotes.add(new Quote(symbol, new BigDecimal(quote.get("05. price").asText()), at));
+        }
+        return quotes;
+    }
+
+    /**
+     * Close of the trading day, or {@code now} if that close has not happened yet.
+     */
+    static Instant quoteTime(LocalDate tradingDay, Instant now) {
+        Instant close = tradingDay.atTime(SESSION_CLOSE).atZone(EXCHANGE_ZONE).toInstant();
+        return close.isAfter(now) ? now : close;
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(long timeoutMs) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout((int) timeoutMs);
+        factory.setReadTimeout((int) timeoutMs);
+        return factory;
+    }
+}
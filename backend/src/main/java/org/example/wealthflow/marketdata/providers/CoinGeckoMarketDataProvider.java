@@ -0,0 +1,117 @@
+package org.example.wealthflow.marketdata.providers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CoinGecko {@code /simple/price}: many coin ids per request, prices in USD.
+ */
+@Component
+@ConditionalOnProperty(prefix = "marketdata.providers.coingecko", name = "enabled", havingValue = "true")
+public class CoinGeckoMarketDataProvider implements MarketDataProvider {
+
+    public static final String NAME = "coingecko";
+    private static final String DEFAULT_BASE_URL = "https://api.coingecko.com/api/v3";
+    private static final String VS_CURRENCY = "usd";
+
+    private final MarketDataConfig.Provider properties;
+    private final RestClient restClient;
+
+    public CoinGeckoMarketDataProvider(MarketDataConfig marketDataConfig) {
+        this.properties = marketDataConfig.provider(NAME);
+        String baseUrl = properties.getBaseUrl() == null ? DEFAULT_BASE_URL : properties.getBaseUrl();
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory(properties.getTimeoutMs()));
+        if (properties.getApiKey() != null && !properties.getApiKey().isBlank()) {
+            builder.defaultHeader("x-cg-demo-api-key", properties.getApiKey());
+        }
+        this.restClient = builder.build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return properties.getMaxBatchSize();
+    }
+
+    @Override
+    public List<Quote> fetchQuotes(List<String> externalIds) {
+        JsonNode body = restClient.get()
+                .uri(uri -> uri.path("/simple/price")
+                        .queryParam("ids", String.join(",", externalIds))
+                        .queryParam("vs_currencies", VS_CURRENCY)
+                        .queryParam("include_last_updated_at", true)
+                        .build())
+                .retrieve()
+                .body(JsonNode.class);
+
+        List<Quote> quotes = new ArrayList<>(externalIds.size());
+        if (body == null) return quotes;
+        for (String id : externalIds) {
+            JsonNode node = body.get(id);
+            if (node == null || !node.hasNonNull(VS_CURRENCY)) continue;
+            Instant at = node.hasNonNull("last_updated_at")
+                    ? Instant.ofEpochSecond(node.get("last_updated_at").asLong())
+                    : Instant.now();
+            quotes.add(new Quote(id, node.get(VS_CURRENCY).decimalValue(), at));
+        }
+        return quotes;
+    }
+
+    /**
+     * CoinGecko returns hourly points for ranges up to 90 days and daily points beyond that.
+     */
+    @Override
+    public Duration getMaxHistoryChunk() {
+        return Duration.ofDays(90);
+    }
+
+    @Override
+    public boolean supportsHistory() {
+        return true;
+    }
+
+    @Override
+    public List<Quote> fetchHistory(String externalId, Instant from, Instant to) {
+        JsonNode body = restClient.get()
+                .uri(uri -> uri.path("/coins/{id}/market_chart/range")
+                        .queryParam("vs_currency", VS_CURRENCY)
+                        .queryParam("from", from.getEpochSecond())
+                        .queryParam("to", to.getEpochSecond())
+                        .build(externalId))
+                .retrieve()
+                .body(JsonNode.class);
+
+        List<Quote> quotes = new ArrayList<>();
+        JsonNode prices = body == null ? null : body.get("prices");
+        if (prices == null || !prices.isArray()) return quotes;
+        for (JsonNode point : prices) {
+            Instant at = Instant.ofEpochMilli(point.get(0).asLong());
+            if (at.isBefore(from) || !at.isBefore(to)) continue;
+            quotes.add(new Quote(externalId, point.get(1).decimalValue(), at));
+        }
+        return quotes;
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(long timeoutMs) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout((int) timeoutMs);
+        factory.setReadTimeout((int) timeoutMs);
+        return factory;
+    }
+}
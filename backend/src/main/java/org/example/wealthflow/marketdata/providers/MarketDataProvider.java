@@ -0,0 +1,48 @@
+package org.example.wealthflow.marketdata.providers;
+
+import org.example.wealthflow.marketdata.models.Quote;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Source of quotes for assets whose {@code source} column equals {@link #getName()}.
+ * Implementations are plain Spring beans; the ingestion pipeline handles batching and rate limiting.
+ */
+public interface MarketDataProvider {
+
+    String getName();
+
+    /**
+     * Largest number of external ids a single {@link #fetchQuotes} call may receive.
+     */
+    int getMaxBatchSize();
+
+    /**
+     * Fetches the latest quote for each external id. Ids the provider does not know are simply absent from the result.
+     */
+    List<Quote> fetchQuotes(List<String> externalIds);
+
+    /**
+     * Whether {@link #fetchHistory} serves anything; backfills are refused for providers that do not.
+     */
+    default boolean supportsHistory() {
+        return false;
+    }
+
+    /**
+     * Longest time range a single {@link #fetchHistory} call should cover.
+     */
+    default Duration getMaxHistoryChunk() {
+        return Duration.ofDays(30);
+    }
+
+    /**
+     * Historical prices for one external id in [from, to), oldest first.
+     * Empty for providers that do not {@link #supportsHistory() support history}.
+     */
+    default List<Quote> fetchHistory(String externalId, Instant from, Instant to) {
+        return List.of();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.wealthflow.marketdata.providers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local provider for tests and development: a deterministic price per external id
+ * that drifts slowly with time. Never leaves the process. Optional simulated latency
+ * with a slow tail makes it usable for exercising deadlines and hedging.
+ */
+@Component
+@ConditionalOnProperty(prefix = "marketdata.providers.stub", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class StubMarketDataProvider implements MarketDataProvider {
+
+    public static final String NAME = "stub";
+    private static final Duration HISTORY_STEP = Duration.ofHours(1);
+
+    private final MarketDataConfig marketDataConfig;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return marketDataConfig.provider(NAME).getMaxBatchSize();
+    }
+
+    @Override
+    public List<Quote> fetchQuotes(List<String> externalIds) {
+        simulateLatency();
+        Instant now = Instant.now();
+        List<Quote> quotes = new ArrayList<>(externalIds.size());
+        for (String id : externalIds) {
+            quotes.add(new Quote(id, priceAt(id, now), now));
+        }
+        return quotes;
+    }
+
+    @Override
+    public boolean supportsHistory() {
+        return true;
+    }
+
+    @Override
+    public List<Quote> fetchHistory(String externalId, Instant from, Instant to) {
+        simulateLatency();
+        List<Quote> quotes = new ArrayList<>();
+        Instant at = Instant.ofEpochSecond(Math.floorDiv(from.getEpochSecond() + 3599, 3600) * 3600);
+        for (; at.isBefore(to); at = at.plus(HISTORY_STEP)) {
+            quotes.add(new Quote(externalId, priceAt(externalId, at), at));
+        }
+        return quotes;
+    }
+
+    private BigDecimal priceAt(String id, Instant at) {
+        long minute = at.getEpochSecond() / 60;
+        double base = 10 + Math.floorMod(id.hashCode(), 990);
+        double drift = Math.sin((minute + id.hashCode()) / 30.0) * base * 0.02;
+        return BigDecimal.valueOf(base + drift).setScale(8, RoundingMode.HALF_UP);
+    }
+
+    private void simulateLatency() {
+        MarketDataConfig.Provider props = marketDataConfig.provider(NAME);
+        long delay = props.getSimulatedLatencyMs();
+        if (props.getSimulatedTailRatio() > 0 && ThreadLocalRandom.current().nextDouble() < props.getSimulatedTailRatio()) {
+            delay += props.getSimulatedTailLatencyMs();
+        }
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated latency", ex);
+        }
+    }
+}
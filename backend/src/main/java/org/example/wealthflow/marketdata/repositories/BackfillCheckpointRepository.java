@@ -0,0 +1,53 @@
+package org.example.wealthflow.marketdata.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class BackfillCheckpointRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> CHECKPOINTS = table("backfill_checkpoints");
+    private final Field<Long> ASSET_ID = field("asset_id", Long.class);
+    private final Field<Instant> CHUNK_START = field("chunk_start", Instant.class);
+    private final Field<Instant> CHUNK_END = field("chunk_end", Instant.class);
+    private final Field<Integer> ROWS_WRITTEN = field("rows_written", Integer.class);
+    private final Field<Instant> COMPLETED_AT = field("completed_at", Instant.class);
+
+    /**
+     * Completed chunks of an asset overlapping [from, to), as {start, end} pairs.
+     */
+    public List<Instant[]> findCompletedChunks(Long assetId, Instant from, Instant to) {
+        return dslContext.select(CHUNK_START, CHUNK_END)
+                .from(CHECKPOINTS)
+                .where(ASSET_ID.eq(assetId))
+                .and(CHUNK_START.lt(to))
+                .and(CHUNK_END.gt(from))
+                .fetch(r -> new Instant[]{r.value1(), r.value2()});
+    }
+
+    /**
+     * @return false if the chunk was already checkpointed by someone else
+     */
+    public boolean markCompleted(Long assetId, Instant chunkStart, Instant chunkEnd, int rowsWritten) {
+        return dslContext.insertInto(CHECKPOINTS)
+                .set(ASSET_ID, assetId)
+                .set(CHUNK_START, chunkStart)
+                .set(CHUNK_END, chunkEnd)
+                .set(ROWS_WRITTEN, rowsWritten)
+                .set(COMPLETED_AT, Instant.now())
+                .onConflictDoNothing()
+                .execute() > 0;
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.wealthflow.marketdata.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.marketdata.models.BackfillJob;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class BackfillJobRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> BACKFILL_JOBS = table("backfill_jobs");
+    private final Field<Long> ID = field("id", Long.class);
+    private final Field<Long> ASSET_ID = field("asset_id", Long.class);
+    private final Field<Instant> RANGE_FROM = field("range_from", Instant.class);
+    private final Field<Instant> RANGE_TO = field("range_to", Instant.class);
+    private final Field<String> STATUS = field("status", String.class);
+    private final Field<Integer> CHUNKS_TOTAL = field("chunks_total", Integer.class);
+    private final Field<Integer> CHUNKS_DONE = field("chunks_done", Integer.class);
+    private final Field<Long> ROWS_WRITTEN = field("rows_written", Long.class);
+    private final Field<Integer> ATTEMPTS = field("attempts", Integer.class);
+    private final Field<Instant> LEASED_UNTIL = field("leased_until", Instant.class);
+    private final Field<Instant> CREATED_AT = field("created_at", Instant.class);
+    private final Field<Instant> FINISHED_AT = field("finished_at", Instant.class);
+
+    public Optional<BackfillJob> findById(Long id) {
+        return dslContext.selectFrom(BACKFILL_JOBS)
+                .where(ID.eq(id))
+                .fetchOptional(this::mapRecordToJob);
+    }
+
+    /**
+     * Ids of jobs a node may take: pending ones, failed ones with attempts left and running ones whose lease lapsed.
+     */
+    public List<Long> findClaimableIds(Instant now, int maxAttempts) {
+        return dslContext.select(ID)
+                .from(BACKFILL_JOBS)
+                .where(claimable(now, maxAttempts))
+                .orderBy(ID.asc())
+                .fetch(ID);
+    }
+
+    /**
+     * Marks the job RUNNING under a lease and counts the attempt, unless another node holds it or it has
+     * no attempts left. The check and the update are one statement, so only one node wins a job.
+     */
+    public Optional<BackfillJob> claim(Long id, Instant now, Instant leasedUntil, int maxAttempts) {
+        return dslContext.update(BACKFILL_JOBS)
+                .set(STATUS, BackfillJob.Status.RUNNING.name())
+                .set(ATTEMPTS, ATTEMPTS.plus(1))
+                .set(LEASED_UNTIL, leasedUntil)
+                .set(FINISHED_AT, (Instant) null)
+                .where(ID.eq(id))
+                .and(claimable(now, maxAttempts))
+                .returning(ID, ASSET_ID, RANGE_FROM, RANGE_TO, STATUS, CHUNKS_TOTAL, CHUNKS_DONE, ROWS_WRITTEN,
+                        ATTEMPTS, LEASED_UNTIL, CREATED_AT, FINISHED_AT)
+                .fetchOptional()
+                .map(this::mapRecordToJob);
+    }
+
+    public void renewLease(Long id, Instant leasedUntil) {
+        dslContext.update(BACKFILL_JOBS)
+                .set(LEASED_UNTIL, leasedUntil)
+                .where(ID.eq(id))
+                .and(STATUS.eq(BackfillJob.Status.RUNNING.name()))
+                .execute();
+    }
+
+    public BackfillJob insert(BackfillJob job) {
+        Long id = dslContext.insertInto(BACKFILL_JOBS)
+                .set(ASSET_ID, job.getAssetId())
+                .set(RANGE_FROM, job.getRangeFrom())
+                .set(RANGE_TO, job.getRangeTo())
+                .set(STATUS, job.getStatus().name())
+                .set(CHUNKS_TOTAL, job.getChunksTotal())
+                .set(CHUNKS_DONE, job.getChunksDone())
+                .set(ROWS_WRITTEN, job.getRowsWritten())
+                .set(ATTEMPTS, job.getAttempts())
+                .set(CREATED_AT, job.getCreatedAt() == null ? Instant.now() : job.getCreatedAt())
+                .returning(ID)
+                .fetchOne(ID);
+        job.setId(id);
+        return job;
+    }
+
+    public void updateProgress(BackfillJob job) {
+        dslContext.update(BACKFILL_JOBS)
+                .set(STATUS, job.getStatus().name())
+                .set(CHUNKS_TOTAL, job.getChunksTotal())
+                .set(CHUNKS_DONE, job.getChunksDone())
+                .set(ROWS_WRITTEN, job.getRowsWritten())
+                .set(FINISHED_AT, job.getFinishedAt())
+                .where(ID.eq(job.getId()))
+                .execute();
+    }
+
+    /* HELPER */
+
+    private Condition claimable(Instant now, int maxAttempts) {
+        return STATUS.eq(BackfillJob.Status.PENDING.name())
+                .or(STATUS.eq(BackfillJob.Status.FAILED.name()).and(ATTEMPTS.lt(maxAttempts)))
+                .or(STATUS.eq(BackfillJob.Status.RUNNING.name()).and(LEASED_UNTIL.isNull().or(LEASED_UNTIL.lt(now))));
+    }
+
+    private BackfillJob mapRecordToJob(Record r) {
+        if (r == null) return null;
+        return BackfillJob.builder()
+                .id(r.get(ID))
+                .assetId(r.get(ASSET_ID))
+                .rangeFrom(r.get(RANGE_FROM))
+                .rangeTo(r.get(RANGE_TO))
+                .status(BackfillJob.Status.valueOf(r.get(STATUS)))
+                .chunksTotal(r.get(CHUNKS_TOTAL))
+                .chunksDone(r.get(CHUNKS_DONE))
+                .rowsWritten(r.get(ROWS_WRITTEN))
+                .attempts(r.get(ATTEMPTS))
+                .leasedUntil(r.get(LEASED_UNTIL))
+                .createdAt(r.get(CREATED_AT))
+                .finishedAt(r.get(FINISHED_AT))
+                .build();
+    }
+}
@@ -0,0 +1,281 @@
+package org.example.wealthflow.marketdata.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.dtos.BackfillJobResponseDto;
+import org.example.wealthflow.marketdata.mappers.BackfillJobMapper;
+import org.example.wealthflow.marketdata.models.BackfillJob;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.example.wealthflow.marketdata.repositories.BackfillCheckpointRepository;
+import org.example.wealthflow.marketdata.repositories.BackfillJobRepository;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Historical price backfill. A job's range is split into chunks aligned to multiples of the
+ * provider's maximum history window, so re-running a range always produces the same chunks.
+ * Chunks are fetched in parallel under the provider's rate limit; each chunk's rows and its
+ * checkpoint are written in one transaction. A chunk is skipped when a completed checkpoint covers
+ * all of it, so a chunk clipped by an earlier, shorter range is fetched again in full; rows that
+ * already exist are left alone by the price_history unique key.
+ * A node runs a job only after claiming it, which marks it RUNNING under a lease renewed with every
+ * finished chunk. At startup and then every {@code marketdata.backfill-retry-interval-ms} each node
+ * claims the pending jobs, the failed jobs with attempts left and the running jobs whose lease lapsed
+ * with their node; the checkpoints make a rerun pick up where the last attempt stopped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BackfillService {
+
+    private final AssetRepository assetRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final BackfillJobRepository backfillJobRepository;
+    private final BackfillCheckpointRepository checkpointRepository;
+    private final MarketDataProviderRegistry providerRegistry;
+    private final MarketDataConfig marketDataConfig;
+    private final BackfillJobMapper backfillJobMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+
+    /** ids handed to the job executor and not yet finished here, so a sweep does not queue them twice */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private ExecutorService jobExecutor;
+    private ExecutorService chunkExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger jobThreadNo = new AtomicInteger();
+        this.jobExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "backfill-job-" + jobThreadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger chunkThreadNo = new AtomicInteger();
+        this.chunkExecutor = Executors.newFixedThreadPool(Math.max(1, marketDataConfig.getBackfillParallelism()), r -> {
+            Thread t = new Thread(r, "backfill-chunk-" + chunkThreadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        chunkExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        claimAvailable();
+    }
+
+    @Scheduled(fixedDelayString = "${marketdata.backfill-retry-interval-ms:300000}",
+            initialDelayString = "${marketdata.backfill-retry-interval-ms:300000}")
+    public void retryUnfinished() {
+        claimAvailable();
+    }
+
+    /* SUBMIT */
+
+    public BackfillJobResponseDto submit(Long assetId, Instant from, Instant to) {
+        if (assetId == null) throw new BadRequestException("Asset id required");
+        if (from == null || to == null || !from.isBefore(to)) throw new BadRequestException("Range start must be before range end");
+
+        Asset asset = assetRepository.findById(assetId)
+                .orElseThrow(() -> new NotFoundException("Asset not found with id " + assetId));
+        MarketDataProvider provider = providerRegistry.find(asset.getSource()).orElse(null);
+        if (provider == null || asset.getExternalId() == null) {
+            throw new BadRequestException("Asset id=" + assetId + " has no market data provider");
+        }
+        if (!provider.supportsHistory()) {
+            throw new BadRequestException("Provider " + provider.getName() + " does not serve price history");
+        }
+
+        BackfillJob job = backfillJobRepository.insert(BackfillJob.builder()
+                .assetId(assetId)
+                .rangeFrom(from)
+                .rangeTo(to)
+                .status(BackfillJob.Status.PENDING)
+                .createdAt(Instant.now())
+                .build());
+        enqueue(job.getId());
+        log.info("Backfill job id={} submitted for asset={} range=[{}, {})", job.getId(), assetId, from, to);
+        return backfillJobMapper.toResponse(job);
+    }
+
+    public BackfillJobResponseDto getJob(Long jobId) {
+        return backfillJobRepository.findById(jobId)
+                .map(backfillJobMapper::toResponse)
+                .orElseThrow(() -> new NotFoundException("Backfill job not found: " + jobId));
+    }
+
+    /* CLAIM */
+
+    private void claimAvailable() {
+        for (Long id : backfillJobRepository.findClaimableIds(Instant.now(), marketDataConfig.getBackfillMaxAttempts())) {
+            enqueue(id);
+        }
+    }
+
+    /**
+     * Claims the job only once an executor thread is free for it, so the lease does not run down in the queue.
+     */
+    private void enqueue(Long jobId) {
+        if (!queued.add(jobId)) return;
+        jobExecutor.submit(() -> {
+            try {
+                Instant now = Instant.now();
+                backfillJobRepository.claim(jobId, now, now.plusMillis(marketDataConfig.getBackfillLeaseMs()),
+                        marketDataConfig.getBackfillMaxAttempts()).ifPresent(job -> {
+                    if (job.getAttempts() > 1) {
+                        log.info("Resuming backfill job id={} asset={} (attempt {}, {} of {} chunks done)",
+                                job.getId(), job.getAssetId(), job.getAttempts(), job.getChunksDone(), job.getChunksTotal());
+                    }
+                    runJob(job);
+                });
+            } finally {
+                queued.remove(jobId);
+            }
+        });
+    }
+
+    /* RUN */
+
+    private void runJob(BackfillJob job) {
+        try {
+            Asset asset = assetRepository.findById(job.getAssetId())
+                    .orElseThrow(() -> new NotFoundException("Asset not found with id " + job.getAssetId()));
+            MarketDataProvider provider = providerRegistry.find(asset.getSource())
+                    .orElseThrow(() -> new IllegalStateException("No market data provider for source '" + asset.getSource() + "'"));
+            if (!provider.supportsHistory()) {
+                throw new IllegalStateException("Provider " + provider.getName() + " does not serve price history");
+            }
+
+            List<Instant[]> chunks = split(job.getRangeFrom(), job.getRangeTo(), provider.getMaxHistoryChunk());
+            List<Instant[]> completed = checkpointRepository.findCompletedChunks(asset.getId(), job.getRangeFrom(), job.getRangeTo());
+
+            List<Instant[]> remaining = chunks.stream().filter(c -> !isCovered(c, completed)).toList();
+
+            job.setStatus(BackfillJob.Status.RUNNING);
+            job.setChunksTotal(chunks.size());
+            job.setChunksDone(chunks.size() - remaining.size());
+            backfillJobRepository.updateProgress(job);
+
+            AtomicInteger done = new AtomicInteger(job.getChunksDone());
+            AtomicInteger failed = new AtomicInteger();
+            AtomicLong rows = new AtomicLong(job.getRowsWritten());
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (Instant[] chunk : remaining) {
+                pending.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        rows.addAndGet(runChunk(asset, provider, chunk[0], chunk[1]));
+                        done.incrementAndGet();
+                        backfillJobRepository.renewLease(job.getId(), Instant.now().plusMillis(marketDataConfig.getBackfillLeaseMs()));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        failed.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        failed.incrementAndGet();
+                        log.warn("Backfill chunk [{}, {}) for asset={} failed: {}", chunk[0], chunk[1], asset.getId(), ex.getMessage());
+                    }
+                }, chunkExecutor));
+            }
+
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+
+            job.setChunksDone(done.get());
+            job.setRowsWritten(rows.get());
+            job.setStatus(failed.get() == 0 ? BackfillJob.Status.COMPLETED : BackfillJob.Status.FAILED);
+            job.setFinishedAt(Instant.now());
+            backfillJobRepository.updateProgress(job);
+            log.info("Backfill job id={} finished with status {}: {}/{} chunks, {} rows",
+                    job.getId(), job.getStatus(), job.getChunksDone(), job.getChunksTotal(), job.getRowsWritten());
+        } catch (RuntimeException ex) {
+            log.error("Backfill job id={} aborted on attempt {}: {}", job.getId(), job.getAttempts(), ex.getMessage());
+            job.setStatus(BackfillJob.Status.FAILED);
+            job.setFinishedAt(Instant.now());
+            backfillJobRepository.updateProgress(job);
+        }
+    }
+
+    private int runChunk(Asset asset, MarketDataProvider provider, Instant start, Instant end) throws InterruptedException {
+        providerRegistry.acquire(provider);
+        List<Quote> quotes = provider.fetchHistory(asset.getExternalId(), start, end);
+
+        List<PriceHistory> rows = new ArrayList<>(quotes.size());
+        for (Quote quote : quotes) {
+            if (quote.getPrice() == null) continue;
+            rows.add(PriceHistory.builder()
+                    .asset(asset)
+                    .recordedAt(quote.getAt())
+                    .price(quote.getPrice())
+                    .source(provider.getName())
+                    .build());
+        }
+
+        Integer written = transactionTemplate.execute(status -> {
+            // checkpoint first: a concurrent node working on the same chunk blocks here and then backs off
+            if (!checkpointRepository.markCompleted(asset.getId(), start, end, rows.size())) return 0;
+            int inserted = priceHistoryRepository.saveAll(rows);
+            // historical rows change closed days that caches may already hold
+            if (inserted > 0) outboxService.append(AssetPricesUpdatedEvent.of(rows));
+            return inserted;
+        });
+        return written == null ? 0 : written;
+    }
+
+    /**
+     * True when one completed chunk spans all of {@code chunk}.
+     */
+    static boolean isCovered(Instant[] chunk, List<Instant[]> completed) {
+        for (Instant[] done : completed) {
+            if (!done[0].isAfter(chunk[0]) && !done[1].isBefore(chunk[1])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Splits [from, to) at multiples of {@code chunk} since the epoch, clipping the first and last chunk to the range.
+     */
+    static List<Instant[]> split(Instant from, Instant to, Duration chunk) {
+        long step = Math.max(1, chunk.getSeconds());
+        List<Instant[]> out = new ArrayList<>();
+        Instant start = from;
+        while (start.isBefore(to)) {
+            long nextBoundary = (Math.floorDiv(start.getEpochSecond(), step) + 1) * step;
+            Instant end = Instant.ofEpochSecond(nextBoundary);
+            if (end.isAfter(to)) end = to;
+            out.add(new Instant[]{start, end});
+            start = end;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,260 @@
+package org.example.wealthflow.marketdata.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.metrics.LatencyHistogram;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deadline-bound, optionally hedged provider calls. Every call is abandoned after the provider's
+ * {@code timeoutMs}. When a provider has {@code hedgeTo} configured and the primary has not answered
+ * within its recent p95 latency, the same request is also sent to the hedge provider, split to the
+ * hedge provider's batch size, and the first successful answer wins. Hedges only fire if the hedge
+ * provider has rate-limit budget left for every batch.
+ * <p>
+ * Attempts run on a bounded pool; when it is saturated an attempt fails instead of queueing without
+ * limit. Once a call is settled or abandoned, its remaining attempts and pending hedge are cancelled
+ * so a slow provider does not keep holding pool threads.
+ */
+@Component
+@Slf4j
+public class MarketDataClient {
+
+    private static final double HEDGE_QUANTILE = 0.95;
+    private static final long HISTOGRAM_WINDOW = 1_000;
+
+    private final MarketDataProviderRegistry providerRegistry;
+    private final MarketDataConfig marketDataConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor callExecutor;
+    private final ScheduledThreadPoolExecutor hedgeTimer;
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter deadlinesExceeded;
+    private final Counter callsRejected;
+
+    public MarketDataClient(MarketDataProviderRegistry providerRegistry,
+                            MarketDataConfig marketDataConfig,
+                            MeterRegistry meterRegistry) {
+        this.providerRegistry = providerRegistry;
+        this.marketDataConfig = marketDataConfig;
+        this.meterRegistry = meterRegistry;
+        int threads = Math.max(1, marketDataConfig.getCallThreads());
+        this.callExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, marketDataConfig.getCallQueueCapacity())),
+                daemonThreads("marketdata-call-"));
+        this.callExecutor.allowCoreThreadTimeOut(true);
+        this.hedgeTimer = new ScheduledThreadPoolExecutor(1, daemonThreads("marketdata-hedge-"));
+        this.hedgeTimer.setRemoveOnCancelPolicy(true);
+        this.hedgesFired = meterRegistry.counter("wealthflow.marketdata.hedges", "outcome", "fired");
+        this.hedgesWon = meterRegistry.counter("wealthflow.marketdata.hedges", "outcome", "won");
+        this.deadlinesExceeded = meterRegistry.counter("wealthflow.marketdata.deadline.exceeded");
+        this.callsRejected = meterRegistry.counter("wealthflow.marketdata.calls.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hedgeTimer.shutdownNow();
+        callExecutor.shutdownNow();
+    }
+
+    /**
+     * Waits for the primary provider's rate limit, then fetches under its deadline, hedging if configured.
+     *
+     * @throws IllegalStateException when the deadline passes or every attempt fails
+     */
+    public List<Quote> fetchQuotes(MarketDataProvider primary, List<String> externalIds) throws InterruptedException {
+        providerRegistry.acquire(primary);
+        return call(primary, externalIds);
+    }
+
+    /**
+     * Fetches under the deadline only if the primary provider's rate limit admits the request right now;
+     * meant for callers that must not wait behind the budget, such as request threads.
+     *
+     * @return empty when the provider has no budget left
+     * @throws IllegalStateException when the deadline passes or every attempt fails
+     */
+    public Optional<List<Quote>> tryFetchQuotes(MarketDataProvider primary, List<String> externalIds) {
+        if (!providerRegistry.tryAcquire(primary)) return Optional.empty();
+        return Optional.of(call(primary, externalIds));
+    }
+
+    private List<Quote> call(MarketDataProvider primary, List<String> externalIds) {
+        MarketDataConfig.Provider props = marketDataConfig.provider(primary.getName());
+        Call call = new Call();
+        call.result.whenComplete((quotes, ex) -> call.cancelRemaining());
+        attempt(call, primary, externalIds).whenComplete((quotes, ex) -> settle(call, quotes, ex, false));
+
+        Optional<MarketDataProvider> hedge = providerRegistry.find(props.getHedgeTo());
+        if (hedge.isPresent()) {
+            long delay = Math.max(props.getHedgeMinDelayMs(),
+                    histogram(primary).percentile(HEDGE_QUANTILE, props.getTimeoutMs()));
+            if (delay < props.getTimeoutMs()) {
+                call.track(hedgeTimer.schedule(() -> fireHedge(call, hedge.get(), externalIds), delay, TimeUnit.MILLISECONDS));
+            }
+        }
+
+        try {
+            return call.result.orTimeout(props.getTimeoutMs(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof TimeoutException) {
+                deadlinesExceeded.increment();
+                throw new IllegalStateException("Provider " + primary.getName() + " exceeded deadline of "
+                        + props.getTimeoutMs() + " ms");
+            }
+            throw new IllegalStateException("Provider " + primary.getName() + " failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    private void fireHedge(Call call, MarketDataProvider hedge, List<String> externalIds) {
+        if (call.result.isDone()) return;
+        int batchSize = Math.max(1, hedge.getMaxBatchSize());
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < externalIds.size(); from += batchSize) {
+            batches.add(externalIds.subList(from, Math.min(externalIds.size(), from + batchSize)));
+        }
+        if (!providerRegistry.tryAcquire(hedge, batches.size())) return;
+        hedgesFired.increment();
+        call.pendingAttempts.incrementAndGet();
+
+        List<CompletableFuture<List<Quote>>> parts = new ArrayList<>(batches.size());
+        for (List<String> batch : batches) {
+            parts.add(attempt(call, hedge, batch));
+        }
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    List<Quote> quotes = new ArrayList<>(externalIds.size());
+                    for (CompletableFuture<List<Quote>> part : parts) {
+                        quotes.addAll(part.join());
+                    }
+                    return quotes;
+                })
+                .whenComplete((quotes, ex) -> settle(call, quotes, ex, true));
+    }
+
+    private CompletableFuture<List<Quote>> attempt(Call call, MarketDataProvider provider, List<String> externalIds) {
+        CompletableFuture<List<Quote>> attempt = new CompletableFuture<>();
+        try {
+            call.track(callExecutor.submit(() -> {
+                try {
+                    attempt.complete(timedFetch(call, provider, externalIds));
+                } catch (Throwable ex) {
+                    attempt.completeExceptionally(ex);
+                }
+            }));
+        } catch (RejectedExecutionException ex) {
+            callsRejected.increment();
+            attempt.completeExceptionally(new IllegalStateException("Market data call pool is saturated"));
+        }
+        return attempt;
+    }
+
+    /**
+     * Feeds the hedge delay only with samples that say how long the provider really takes: completed
+     * calls, and calls abandoned because the call was already settled or timed out, whose elapsed time is
+     * a lower bound. Fast failures would pull the percentile down and make hedges fire ever earlier.
+     */
+    private List<Quote> timedFetch(Call call, MarketDataProvider provider, List<String> externalIds) {
+        long started = System.nanoTime();
+        String outcome = "failed";
+        try {
+            List<Quote> quotes = provider.fetchQuotes(externalIds);
+            outcome = "success";
+            return quotes;
+        } catch (RuntimeException ex) {
+            if (call.result.isDone()) outcome = "abandoned";
+            throw ex;
+        } finally {
+            long elapsedNanos = System.nanoTime() - started;
+            if (!outcome.equals("failed")) histogram(provider).record(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            Timer.builder("wealthflow.marketdata.provider.latency")
+                    .tag("provider", provider.getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void settle(Call call, List<Quote> quotes, Throwable ex, boolean hedge) {
+        if (ex == null) {
+            // the winner is counted before the result is published, so the caller never sees it uncounted
+            if (call.answered.compareAndSet(false, true)) {
+                if (hedge) hedgesWon.increment();
+                call.result.complete(quotes);
+            }
+        } else if (call.pendingAttempts.decrementAndGet() == 0) {
+            call.result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+        } else {
+            log.debug("Market data attempt failed while another is pending: {}", ex.getMessage());
+        }
+    }
+
+    private LatencyHistogram histogram(MarketDataProvider provider) {
+        return histograms.computeIfAbsent(provider.getName(), name -> new LatencyHistogram(HISTOGRAM_WINDOW));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNo = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * One logical fetch: its outcome, the attempts still able to produce it, and every task started
+     * on its behalf. Tasks tracked after the call is settled are cancelled straight away.
+     */
+    private static final class Call {
+
+        final CompletableFuture<List<Quote>> result = new CompletableFuture<>();
+        final AtomicInteger pendingAttempts = new AtomicInteger(1);
+        final AtomicBoolean answered = new AtomicBoolean();
+        private final List<Future<?>> tasks = new ArrayList<>();
+        private boolean settled;
+
+        synchronized void track(Future<?> task) {
+            if (settled) {
+                task.cancel(true);
+            } else {
+                tasks.add(task);
+            }
+        }
+
+        synchronized void cancelRemaining() {
+            settled = true;
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+            tasks.clear();
+        }
+    }
+}
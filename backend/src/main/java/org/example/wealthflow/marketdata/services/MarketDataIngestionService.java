@@ -0,0 +1,226 @@
+package org.example.wealthflow.marketdata.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.models.AssetPriceUpdate;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodic quote refresh. One fetcher per provider walks its assets in provider-sized batches
+ * under the provider's rate limit and hands results to a bounded queue; a single writer drains
+ * the queue into bulk price_history inserts and batched last-price updates. A full queue blocks
+ * the fetchers, so a slow database throttles fetching instead of growing memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketDataIngestionService {
+
+    private final AssetRepository assetRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final MarketDataProviderRegistry providerRegistry;
+    private final MarketDataClient marketDataClient;
+    private final MarketDataConfig marketDataConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private BlockingQueue<List<PriceHistory>> queue;
+    private ExecutorService fetchers;
+    private ExecutorService refresher;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, marketDataConfig.getQueueCapacity()));
+        AtomicInteger threadNo = new AtomicInteger();
+        this.fetchers = Executors.newFixedThreadPool(Math.max(1, providerRegistry.all().size()), r -> {
+            Thread t = new Thread(r, "marketdata-fetch-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "marketdata-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.running = true;
+        this.writer = new Thread(this::writeLoop, "marketdata-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        refresher.shutdownNow();
+        fetchers.shutdownNow();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Starts a refresh on its own thread: a run waits on rate-limited providers and can take far
+     * longer than the interval, so it must not hold a scheduler thread. A tick that finds the
+     * previous run still going is skipped by {@link #refreshAll()}.
+     */
+    @Scheduled(fixedDelayString = "${marketdata.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (!marketDataConfig.isEnabled() || providerRegistry.isEmpty() || refreshing.get()) return;
+        refresher.execute(this::refreshAll);
+    }
+
+    /**
+     * Fetches quotes for every asset with a known provider and enqueues them for writing.
+     *
+     * @return number of quotes enqueued, or -1 if a refresh is already running
+     */
+    public long refreshAll() {
+        if (!refreshing.compareAndSet(false, true)) {
+            log.debug("Market data refresh already running, skipping");
+            return -1;
+        }
+        try {
+            long started = System.nanoTime();
+            Map<MarketDataProvider, Map<String, List<Long>>> byProvider = groupByProvider(assetRepository.findAllWithPriceSource());
+
+            AtomicLong enqueued = new AtomicLong();
+            List<CompletableFuture<Void>> jobs = new ArrayList<>();
+            byProvider.forEach((provider, assetIdsByExternalId) -> jobs.add(CompletableFuture.runAsync(
+                    () -> enqueued.addAndGet(fetchProvider(provider, assetIdsByExternalId)), fetchers)));
+            CompletableFuture.allOf(jobs.toArray(new CompletableFuture[0])).join();
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Market data refresh fetched {} quotes from {} providers in {} ms",
+                    enqueued.get(), byProvider.size(), elapsedMs);
+            return enqueued.get();
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Map<MarketDataProvider, Map<String, List<Long>>> groupByProvider(List<Asset> assets) {
+        Map<MarketDataProvider, Map<String, List<Long>>> grouped = new HashMap<>();
+        for (Asset asset : assets) {
+            providerRegistry.find(asset.getSource()).ifPresent(provider -> grouped
+                    .computeIfAbsent(provider, p -> new HashMap<>())
+                    .computeIfAbsent(asset.getExternalId(), id -> new ArrayList<>(1))
+                    .add(asset.getId()));
+        }
+        return grouped;
+    }
+
+    private long fetchProvider(MarketDataProvider provider, Map<String, List<Long>> assetIdsByExternalId) {
+        List<String> externalIds = new ArrayList<>(assetIdsByExternalId.keySet());
+        int batchSize = Math.max(1, provider.getMaxBatchSize());
+        long enqueued = 0;
+
+        for (int from = 0; from < externalIds.size(); from += batchSize) {
+            List<String> batch = externalIds.subList(from, Math.min(externalIds.size(), from + batchSize));
+            try {
+                List<Quote> quotes = marketDataClient.fetchQuotes(provider, batch);
+                List<PriceHistory> rows = toRows(provider, quotes, assetIdsByExternalId);
+                if (!rows.isEmpty()) {
+                    queue.put(rows);
+                    enqueued += rows.size();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                log.warn("Provider {} failed for batch of {} symbols: {}", provider.getName(), batch.size(), ex.getMessage());
+            }
+        }
+        return enqueued;
+    }
+
+    private List<PriceHistory> toRows(MarketDataProvider provider, List<Quote> quotes, Map<String, List<Long>> assetIdsByExternalId) {
+        List<PriceHistory> rows = new ArrayList<>(quotes.size());
+        for (Quote quote : quotes) {
+            List<Long> assetIds = assetIdsByExternalId.get(quote.getExternalId());
+            if (assetIds == null || quote.getPrice() == null) continue;
+            for (Long assetId : assetIds) {
+                Asset asset = new Asset();
+                asset.setId(assetId);
+                rows.add(PriceHistory.builder()
+                        .asset(asset)
+                        .recordedAt(quote.getAt())
+                        .price(quote.getPrice())
+                        .source(provider.getName())
+                        .build());
+            }
+        }
+        return rows;
+    }
+
+    /* WRITER */
+
+    private void writeLoop() {
+        int batchLimit = Math.max(1, marketDataConfig.getWriterBatchSize());
+        List<List<PriceHistory>> drained = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                List<PriceHistory> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                List<PriceHistory> buffer = new ArrayList<>(first);
+                while (buffer.size() < batchLimit && queue.drainTo(drained, 1) > 0) {
+                    buffer.addAll(drained.get(0));
+                    drained.clear();
+                }
+                write(buffer);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Price rows, last prices and the outbox event for the batch commit together; a batch whose rows were
+     * all stored already (a closed market polled again) changes nothing and publishes nothing.
+     */
+    private void write(List<PriceHistory> rows) {
+        try {
+            List<AssetPriceUpdate> updates = new ArrayList<>(rows.size());
+            for (PriceHistory ph : rows) {
+                updates.add(new AssetPriceUpdate(ph.getAsset().getId(), ph.getPrice(), ph.getRecordedAt()));
+            }
+            Integer updated = transactionTemplate.execute(status -> {
+                if (priceHistoryRepository.saveAll(rows) == 0) return 0;
+                outboxService.append(AssetPricesUpdatedEvent.of(rows));
+                return assetRepository.updateLastPrices(updates);
+            });
+            log.debug("Market data writer stored {} price rows, updated {} assets", rows.size(), updated);
+        } catch (RuntimeException ex) {
+            log.error("Market data writer failed to store {} price rows: {}", rows.size(), ex.getMessage());
+        }
+    }
+}
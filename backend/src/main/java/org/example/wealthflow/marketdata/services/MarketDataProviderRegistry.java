@@ -0,0 +1,84 @@
+package org.example.wealthflow.marketdata.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.ratelimit.TokenBucket;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.cache.CachingMarketDataProvider;
+import org.example.wealthflow.marketdata.cache.ProviderResponseStore;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves providers by {@code Asset.source} and owns one token bucket per provider,
+ * shared by every caller so a provider's quota is respected process-wide.
+ * When the response cache is enabled every provider is wrapped in a {@link CachingMarketDataProvider}.
+ */
+@Component
+@Slf4j
+public class MarketDataProviderRegistry {
+
+    private final Map<String, MarketDataProvider> providers = new HashMap<>();
+    private final Map<String, TokenBucket> rateLimits = new HashMap<>();
+
+    public MarketDataProviderRegistry(List<MarketDataProvider> providers,
+                                      MarketDataConfig marketDataConfig,
+                                      ProviderResponseStore responseStore) {
+        MarketDataConfig.Cache cache = marketDataConfig.getCache();
+        for (MarketDataProvider registered : providers) {
+            MarketDataProvider provider = cache.getMode() == MarketDataConfig.Cache.Mode.OFF
+                    ? registered
+                    : new CachingMarketDataProvider(registered, responseStore, cache);
+            String key = normalize(provider.getName());
+            MarketDataConfig.Provider props = marketDataConfig.provider(provider.getName());
+            this.providers.put(key, provider);
+            this.rateLimits.put(key, new TokenBucket(props.getRequestsPerSecond(), props.getBurst()));
+            log.info("Market data provider registered: {} ({} req/s, burst {}, batch {})",
+                    provider.getName(), props.getRequestsPerSecond(), props.getBurst(), provider.getMaxBatchSize());
+        }
+    }
+
+    public Optional<MarketDataProvider> find(String source) {
+        if (source == null) return Optional.empty();
+        return Optional.ofNullable(providers.get(normalize(source)));
+    }
+
+    public Collection<MarketDataProvider> all() {
+        return providers.values();
+    }
+
+    public boolean isEmpty() {
+        return providers.isEmpty();
+    }
+
+    /**
+     * Blocks until the provider's rate limit admits one more request.
+     */
+    public void acquire(MarketDataProvider provider) throws InterruptedException {
+        rateLimits.get(normalize(provider.getName())).acquire(1);
+    }
+
+    /**
+     * Takes one request from the provider's budget only if it is available right now.
+     */
+    public boolean tryAcquire(MarketDataProvider provider) {
+        return rateLimits.get(normalize(provider.getName())).tryAcquire();
+    }
+
+    /**
+     * Takes {@code permits} requests from the provider's budget only if all of them are available right now.
+     */
+    public boolean tryAcquire(MarketDataProvider provider, int permits) {
+        return rateLimits.get(normalize(provider.getName())).tryAcquire(permits);
+    }
+
+    private String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.wealthflow.marketdata.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.models.AssetPriceUpdate;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.cache.ProviderResponseStore;
+import org.example.wealthflow.marketdata.dtos.ReplayResultDto;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.models.RecordedResponse;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Replays recorded quote snapshots from the response store into price_history and assets,
+ * either at recorded pace scaled by {@code speed} or, with {@code speed <= 0}, as fast as the
+ * database accepts them. Used to load-test ingestion with a real market day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketDataReplayService {
+
+    private final ProviderResponseStore responseStore;
+    private final AssetRepository assetRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final MarketDataConfig marketDataConfig;
+
+    public ReplayResultDto replay(Instant from, Instant to, double speed) {
+        if (!responseStore.isOpen()) throw new BadRequestException("Provider response cache is not enabled");
+        if (from == null || to == null || !from.isBefore(to)) throw new BadRequestException("Range start must be before range end");
+
+        Map<String, List<Long>> assetIds = new HashMap<>();
+        for (Asset asset : assetRepository.findAllWithPriceSource()) {
+            assetIds.computeIfAbsent(key(asset.getSource(), asset.getExternalId()), k -> new ArrayList<>(1)).add(asset.getId());
+        }
+
+        ReplayState state = new ReplayState(speed, Math.max(1, marketDataConfig.getWriterBatchSize()));
+        long started = System.nanoTime();
+        responseStore.scan(response -> {
+            if (response.getKind() != RecordedResponse.Kind.QUOTE) return;
+            if (response.getFrom().isBefore(from) || !response.getFrom().isBefore(to)) return;
+            state.pace(response.getFrom());
+            state.snapshots++;
+            for (Quote quote : response.getQuotes()) {
+                state.quotes++;
+                List<Long> ids = assetIds.get(key(response.getProvider(), quote.getExternalId()));
+                if (ids == null) continue;
+                for (Long id : ids) {
+                    Asset asset = new Asset();
+                    asset.setId(id);
+                    state.buffer.add(PriceHistory.builder()
+                            .asset(asset)
+                            .recordedAt(quote.getAt())
+                            .price(quote.getPrice())
+                            .source(response.getProvider())
+                            .build());
+                }
+            }
+            if (state.buffer.size() >= state.batchSize) flush(state);
+        });
+        flush(state);
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        double rowsPerSecond = state.rows * 1_000_000_000d / elapsedNanos;
+        log.info("Replayed {} snapshots ({} quotes, {} rows) in {} ms, {} rows/s",
+                state.snapshots, state.quotes, state.rows, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+
+        return ReplayResultDto.builder()
+                .snapshots(state.snapshots)
+                .quotes(state.quotes)
+                .priceRows(state.rows)
+                .assetsUpdated(state.assetsUpdated)
+                .durationMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+    private void flush(ReplayState state) {
+        if (state.buffer.isEmpty()) return;
+        state.rows += priceHistoryRepository.saveAll(state.buffer);
+        List<AssetPriceUpdate> updates = new ArrayList<>(state.buffer.size());
+        for (PriceHistory ph : state.buffer) {
+            updates.add(new AssetPriceUpdate(ph.getAsset().getId(), ph.getPrice(), ph.getRecordedAt()));
+        }
+        state.assetsUpdated += assetRepository.updateLastPrices(updates);
+        state.buffer.clear();
+    }
+
+    private static String key(String provider, String externalId) {
+        return provider.trim().toLowerCase(Locale.ROOT) + '|' + externalId;
+    }
+
+    private final class ReplayState {
+        private final double speed;
+        private final int batchSize;
+        private final List<PriceHistory> buffer = new ArrayList<>();
+        private Instant firstRecorded;
+        private long wallStartNanos;
+        private long snapshots;
+        private long quotes;
+        private long rows;
+        private long assetsUpdated;
+
+        private ReplayState(double speed, int batchSize) {
+            this.speed = speed;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Sleeps until the recorded instant is due on the scaled replay clock, flushing what is buffered first.
+         */
+        private void pace(Instant recorded) {
+            if (speed <= 0) return;
+            if (firstRecorded == null) {
+                firstRecorded = recorded;
+                wallStartNanos = System.nanoTime();
+                return;
+            }
+            long dueNanos = (long) (Duration.between(firstRecorded, recorded).toNanos() / speed);
+            long waitNanos = dueNanos - (System.nanoTime() - wallStartNanos);
+            if (waitNanos <= 0) return;
+            flush(this);
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Replay interrupted", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.wealthflow.marketdata.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.dtos.AssetResponseDto;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.mappers.AssetMapper;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.models.AssetPriceUpdate;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.common.exceptions.TooManyRequestsException;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-demand quote refresh with single-flight semantics: concurrent refreshes of the same asset
+ * share one provider call and one database write. Assets fetched within the freshness window, or
+ * whose stored price is that recent, are returned as stored without calling the provider at all.
+ * Fetch times are kept per node, so a provider whose quotes are older than the window (a closed
+ * market, a slow feed) is still asked at most once per window; a quote that is not newer than the
+ * stored price adds no price_history row.
+ * Refreshes run on request threads, so they never wait for the provider's rate limit: without budget
+ * left the stored (stale) price is returned, or 429 if the asset has none yet.
+ */
+@Service
+@Slf4j
+public class QuoteRefreshService {
+
+    private static final int MAX_TRACKED_FETCHES = 10_000;
+
+    private final AssetRepository assetRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final MarketDataProviderRegistry providerRegistry;
+    private final MarketDataClient marketDataClient;
+    private final MarketDataConfig marketDataConfig;
+    private final AssetMapper assetMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+
+    private final ConcurrentHashMap<Long, CompletableFuture<Asset>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> fetchedAt = new ConcurrentHashMap<>();
+    private final Counter freshHits;
+    private final Counter fetches;
+    private final Counter coalesced;
+    private final Counter failures;
+    private final Counter throttled;
+
+    public QuoteRefreshService(AssetRepository assetRepository,
+                               PriceHistoryRepository priceHistoryRepository,
+                               MarketDataProviderRegistry providerRegistry,
+                               MarketDataClient marketDataClient,
+                               MarketDataConfig marketDataConfig,
+                               AssetMapper assetMapper,
+                               TransactionTemplate transactionTemplate,
+                               OutboxService outboxService,
+                               MeterRegistry meterRegistry) {
+        this.assetRepository = assetRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.providerRegistry = providerRegistry;
+        this.marketDataClient = marketDataClient;
+        this.marketDataConfig = marketDataConfig;
+        this.assetMapper = assetMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.freshHits = meterRegistry.counter("wealthflow.quotes.refresh", "outcome", "fresh");
+        this.fetches = meterRegistry.counter("wealthflow.quotes.refresh", "outcome", "fetched");
+        this.coalesced = meterRegistry.counter("wealthflow.quotes.refresh", "outcome", "coalesced");
+        this.failures = meterRegistry.counter("wealthflow.quotes.refresh", "outcome", "failed");
+        this.throttled = meterRegistry.counter("wealthflow.quotes.refresh", "outcome", "throttled");
+        meterRegistry.gauge("wealthflow.quotes.refresh.inflight", inFlight, ConcurrentHashMap::size);
+    }
+
+    public AssetResponseDto refreshQuote(Long assetId) {
+        if (assetId == null) throw new BadRequestException("Asset id required");
+
+        Asset asset = assetRepository.findById(assetId)
+                .orElseThrow(() -> new NotFoundException("Asset not found with id " + assetId));
+        if (isFresh(asset)) {
+            freshHits.increment();
+            return assetMapper.toResponse(asset);
+        }
+
+        CompletableFuture<Asset> mine = new CompletableFuture<>();
+        CompletableFuture<Asset> existing = inFlight.putIfAbsent(assetId, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return assetMapper.toResponse(await(existing));
+        }
+
+        try {
+            Asset refreshed = fetchAndStore(assetId);
+            mine.complete(refreshed);
+            return assetMapper.toResponse(refreshed);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(assetId, mine);
+        }
+    }
+
+    private Asset fetchAndStore(Long assetId) {
+        // re-read: a flight that finished between our first read and putIfAbsent may have refreshed it already
+        Asset asset = assetRepository.findById(assetId)
+                .orElseThrow(() -> new NotFoundException("Asset not found with id " + assetId));
+        if (isFresh(asset)) {
+            freshHits.increment();
+            return asset;
+        }
+
+        MarketDataProvider provider = providerRegistry.find(asset.getSource())
+                .orElseThrow(() -> new BadRequestException("No market data provider for source '" + asset.getSource() + "'"));
+        if (asset.getExternalId() == null) {
+            throw new BadRequestException("Asset id=" + assetId + " has no external id");
+        }
+
+        Optional<List<Quote>> fetched = marketDataClient.tryFetchQuotes(provider, List.of(asset.getExternalId()));
+        if (fetched.isEmpty()) {
+            if (asset.getLastPrice() == null) {
+                throw new TooManyRequestsException("Market data provider " + provider.getName() + " is rate limited, please retry later");
+            }
+            throttled.increment();
+            log.debug("Provider {} rate limited; serving stored price of asset id={}", provider.getName(), assetId);
+            return asset;
+        }
+        List<Quote> quotes = fetched.get();
+        fetches.increment();
+        markFetched(assetId);
+
+        if (quotes.isEmpty() || quotes.get(0).getPrice() == null) {
+            log.warn("Provider {} returned no quote for asset id={} externalId={}", provider.getName(), assetId, asset.getExternalId());
+            return asset;
+        }
+
+        Quote quote = quotes.get(0);
+        if (asset.getLastPriceAt() != null && quote.getAt() != null && !quote.getAt().isAfter(asset.getLastPriceAt())) {
+            return asset;
+        }
+        List<PriceHistory> rows = List.of(PriceHistory.builder()
+                .asset(asset)
+                .recordedAt(quote.getAt())
+                .price(quote.getPrice())
+                .source(provider.getName())
+                .build());
+        Integer updated = transactionTemplate.execute(status -> {
+            if (priceHistoryRepository.saveAll(rows) == 0) return 0;
+            outboxService.append(AssetPricesUpdatedEvent.of(rows));
+            return assetRepository.updateLastPrices(List.of(new AssetPriceUpdate(assetId, quote.getPrice(), quote.getAt())));
+        });
+        if (updated != null && updated > 0) {
+            asset.setLastPrice(quote.getPrice());
+            asset.setLastPriceAt(quote.getAt());
+        }
+        return asset;
+    }
+
+    private boolean isFresh(Asset asset) {
+        long window = marketDataConfig.getQuoteFreshnessMs();
+        Long fetched = fetchedAt.get(asset.getId());
+        if (fetched != null && System.currentTimeMillis() - fetched < window) return true;
+        Instant at = asset.getLastPriceAt();
+        return at != null && Duration.between(at, Instant.now()).toMillis() < window;
+    }
+
+    private void markFetched(Long assetId) {
+        long now = System.currentTimeMillis();
+        fetchedAt.put(assetId, now);
+        if (fetchedAt.size() > MAX_TRACKED_FETCHES) {
+            long window = marketDataConfig.getQuoteFreshnessMs();
+            fetchedAt.values().removeIf(at -> now - at >= window);
+        }
+    }
+
+    private Asset await(CompletableFuture<Asset> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+}
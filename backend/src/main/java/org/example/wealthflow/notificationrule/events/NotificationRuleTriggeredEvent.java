@@ -0,0 +1,17 @@
+package org.example.wealthflow.notificationrule.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRuleTriggeredEvent {
+    private Long ruleId;
+    private Long userId;
+    private Long assetId;
+    private Instant triggeredAt;
+}
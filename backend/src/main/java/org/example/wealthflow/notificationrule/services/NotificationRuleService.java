@@ -7,12 +7,16 @@ import org.example.wealthflow.common.exceptions.NotFoundException;
 import org.example.wealthflow.notificationrule.dtos.NotificationRuleRequestDto;
 import org.example.wealthflow.notificationrule.dtos.NotificationRuleResponseDto;
 import org.example.wealthflow.notificationrule.mappers.NotificationRuleMapper;
+import org.example.wealthflow.notificationrule.events.NotificationRuleTriggeredEvent;
 import org.example.wealthflow.notificationrule.models.NotificationRule;
 import org.example.wealthflow.notificationrule.repositories.NotificationRuleRepository;
-import org.example.wealthflow.user.repositories.UserRepository;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.user.models.User;
+import org.example.wealthflow.user.services.UserStatusCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,14 +27,15 @@ public class NotificationRuleService {
 
     private final NotificationRuleRepository notificationRuleRepository;
     private final AssetRepository assetRepository;
-    private final UserRepository userRepository;
+    private final UserStatusCache userStatusCache;
+    private final OutboxService outboxService;
     private final NotificationRuleMapper mapper;
 
     /* CREATE */
 
     public NotificationRuleResponseDto create(NotificationRuleRequestDto dto) {
-        var user = userRepository.findById(dto.getUserId())
-                .orElseThrow(() -> new NotFoundException("User not found: " + dto.getUserId()));
+        if (!userStatusCache.isActive(dto.getUserId())) throw new NotFoundException("User not found: " + dto.getUserId());
+        var user = User.builder().id(dto.getUserId()).build();
 
         var asset = assetRepository.findById(dto.getAssetId())
                 .orElseThrow(() -> new NotFoundException("Asset not found: " + dto.getAssetId()));
@@ -52,8 +57,7 @@ public class NotificationRuleService {
 
     @Transactional(readOnly = true)
     public PagedResultDto<NotificationRuleResponseDto> getForUser(Long userId, int limit, int offset) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found: " + userId));
+        if (!userStatusCache.isActive(userId)) throw new NotFoundException("User not found: " + userId);
 
         PagedResultDto<NotificationRule> page = notificationRuleRepository.findByUserIdOrderByCreatedAtDesc(userId, limit, offset);
         List<NotificationRuleResponseDto> dtos = page
@@ -81,9 +85,8 @@ public class NotificationRuleService {
         NotificationRule existing = notificationRuleRepository.findById(id).orElseThrow(() -> new NotFoundException("NotificationRule not found: " + id));
 
         if (dto.getUserId() != null && !dto.getUserId().equals(existing.getUser().getId())) {
-            var user = userRepository.findById(dto.getUserId())
-                    .orElseThrow(() -> new NotFoundException("User not found: " + dto.getUserId()));
-            existing.setUser(user);
+            if (!userStatusCache.isActive(dto.getUserId())) throw new NotFoundException("User not found: " + dto.getUserId());
+            existing.setUser(User.builder().id(dto.getUserId()).build());
         }
 
         if (dto.getAssetId() != null && !dto.getAssetId().equals(existing.getAsset().getId())) {
@@ -92,9 +95,14 @@ public class NotificationRuleService {
             existing.setAsset(asset);
         }
 
+        Instant previouslyTriggered = existing.getLastTriggered();
         mapper.updateFromDto(dto, existing);
 
         NotificationRule saved = notificationRuleRepository.save(existing);
+        if (saved.getLastTriggered() != null && !saved.getLastTriggered().equals(previouslyTriggered)) {
+            outboxService.append(new NotificationRuleTriggeredEvent(saved.getId(), saved.getUser().getId(),
+                    saved.getAsset().getId(), saved.getLastTriggered()));
+        }
         return mapper.toResponse(saved);
     }
 
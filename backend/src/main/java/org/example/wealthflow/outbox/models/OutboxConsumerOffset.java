@@ -0,0 +1,54 @@
+package org.example.wealthflow.outbox.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Delivery position of one outbox consumer, the lease of the node currently delivering to it, and
+ * the retry state of the event it is stuck on, if any.
+ */
+@Entity
+@Table(name = "outbox_consumer_offsets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxConsumerOffset {
+    @Id
+    @Column(name = "consumer", length = 100)
+    private String consumer;
+
+    /** id of the last event the consumer handled */
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /** event the consumer last failed on; cleared when the offset moves past it */
+    @Column(name = "failed_event_id")
+    private Long failedEventId;
+
+    @Column(name = "failed_attempts", nullable = false)
+    private int failedAttempts;
+
+    /** earliest time the failed event may be retried */
+    @Column(name = "retry_at")
+    private Instant retryAt;
+}
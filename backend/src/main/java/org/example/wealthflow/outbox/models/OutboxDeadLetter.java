@@ -0,0 +1,57 @@
+package org.example.wealthflow.outbox.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An event a consumer kept failing on, parked so delivery can move past it. The event itself is
+ * copied here because delivered events are deleted after the retention period.
+ */
+@Entity
+@Table(name = "outbox_dead_letters", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"consumer", "event_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "consumer", nullable = false, length = 100)
+    private String consumer;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "event_type", nullable = false, length = 200)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /** message of the last failure */
+    @Column(name = "error", columnDefinition = "text")
+    private String error;
+
+    @Column(name = "parked_at", nullable = false)
+    private Instant parkedAt;
+}
@@ -0,0 +1,46 @@
+package org.example.wealthflow.outbox.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A domain event written in the transaction that caused it, delivered to consumers after commit.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** fully qualified class name of the event */
+    @Column(name = "event_type", nullable = false, length = 200)
+    private String eventType;
+
+    /** event serialized as JSON */
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    /** database clock at insert, not at transaction start */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,208 @@
+package org.example.wealthflow.outbox.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.outbox.models.OutboxConsumerOffset;
+import org.example.wealthflow.outbox.models.OutboxEvent;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.impl.DSL.coalesce;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Outbox events and consumer offsets. Event timestamps come from {@code clock_timestamp()}, the time
+ * of the insert itself, so they can be compared with the database clock to tell how long ago an id
+ * was taken; leases use the database clock too, so nodes with skewed clocks agree on expiry.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> EVENTS = table("outbox_events");
+    private final Field<Long> ID = field("id", Long.class);
+    private final Field<String> EVENT_TYPE = field("event_type", String.class);
+    private final Field<String> PAYLOAD = field("payload", String.class);
+    private final Field<Instant> CREATED_AT = field("created_at", Instant.class);
+
+    private final Table<?> OFFSETS = table("outbox_consumer_offsets");
+    private final Field<String> CONSUMER = field("consumer", String.class);
+    private final Field<Long> LAST_EVENT_ID = field("last_event_id", Long.class);
+    private final Field<String> LEASE_OWNER = field("lease_owner", String.class);
+    private final Field<Instant> LEASE_UNTIL = field("lease_until", Instant.class);
+    private final Field<Instant> UPDATED_AT = field("updated_at", Instant.class);
+    private final Field<Long> FAILED_EVENT_ID = field("failed_event_id", Long.class);
+    private final Field<Integer> FAILED_ATTEMPTS = field("failed_attempts", Integer.class);
+    private final Field<Instant> RETRY_AT = field("retry_at", Instant.class);
+
+    private final Table<?> DEAD_LETTERS = table("outbox_dead_letters");
+    private final Field<Long> EVENT_ID = field("event_id", Long.class);
+    private final Field<Integer> ATTEMPTS = field("attempts", Integer.class);
+    private final Field<String> ERROR = field("error", String.class);
+    private final Field<Instant> PARKED_AT = field("parked_at", Instant.class);
+
+    private final Field<Instant> DB_NOW = field("now()", Instant.class);
+    private final Field<Instant> DB_CLOCK = field("clock_timestamp()", Instant.class);
+
+    /* EVENTS */
+
+    public long append(String eventType, String payload) {
+        return dslContext.insertInto(EVENTS)
+                .set(EVENT_TYPE, eventType)
+                .set(PAYLOAD, payload)
+                .set(CREATED_AT, DB_CLOCK)
+                .returning(ID)
+                .fetchOne(ID);
+    }
+
+    /**
+     * Committed events with id above {@code afterId}, in id order.
+     */
+    public List<OutboxEvent> findAfter(long afterId, int limit) {
+        return dslContext.select(ID, EVENT_TYPE, PAYLOAD, CREATED_AT)
+                .from(EVENTS)
+                .where(ID.gt(afterId))
+                .orderBy(ID.asc())
+                .limit(limit)
+                .fetch(r -> OutboxEvent.builder()
+                        .id(r.value1())
+                        .eventType(r.value2())
+                        .payload(r.value3())
+                        .createdAt(r.value4())
+                        .build());
+    }
+
+    public long maxId() {
+        return dslContext.select(coalesce(max(ID), inline(0L))).from(EVENTS).fetchOne().value1();
+    }
+
+    public Instant now() {
+        return dslContext.select(DB_CLOCK).fetchOne(DB_CLOCK);
+    }
+
+    /**
+     * Deletes events every consumer has handled ({@code id <= deliveredId}) once older than {@code before}.
+     *
+     * @return rows deleted
+     */
+    public int deleteDelivered(long deliveredId, Instant before) {
+        return dslContext.deleteFrom(EVENTS)
+                .where(ID.le(deliveredId).and(CREATED_AT.lt(before)))
+                .execute();
+    }
+
+    /* OFFSETS */
+
+    /**
+     * Registers the consumer at {@code startAfterId} unless it already has an offset.
+     */
+    public void createOffsetIfAbsent(String consumer, long startAfterId) {
+        dslContext.insertInto(OFFSETS)
+                .set(CONSUMER, consumer)
+                .set(LAST_EVENT_ID, startAfterId)
+                .set(FAILED_ATTEMPTS, 0)
+                .set(UPDATED_AT, DB_NOW)
+                .onConflict(CONSUMER)
+                .doNothing()
+                .execute();
+    }
+
+    /**
+     * Takes or renews the consumer's lease for {@code owner}. A pending retry whose time has not come
+     * yet is reported as {@code retryAt}; otherwise {@code retryAt} is null.
+     *
+     * @return the consumer's offset and retry state, or null when another owner holds an unexpired lease
+     */
+    public OutboxConsumerOffset claim(String consumer, String owner, long leaseMillis) {
+        Field<Instant> pendingRetryAt = field("case when {0} > now() then {0} end", Instant.class, RETRY_AT).as("pending_retry_at");
+        return dslContext.update(OFFSETS)
+                .set(LEASE_OWNER, owner)
+                .set(LEASE_UNTIL, field("now() + {0} * interval '1 millisecond'", Instant.class, inline(leaseMillis)))
+                .where(CONSUMER.eq(consumer)
+                        .and(LEASE_UNTIL.isNull().or(LEASE_UNTIL.lt(DB_NOW)).or(LEASE_OWNER.eq(owner))))
+                .returning(LAST_EVENT_ID, FAILED_EVENT_ID, FAILED_ATTEMPTS, pendingRetryAt)
+                .fetchOptional()
+                .map(r -> OutboxConsumerOffset.builder()
+                        .consumer(consumer)
+                        .lastEventId(r.get(LAST_EVENT_ID))
+                        .failedEventId(r.get(FAILED_EVENT_ID))
+                        .failedAttempts(r.get(FAILED_ATTEMPTS) == null ? 0 : r.get(FAILED_ATTEMPTS))
+                        .retryAt(r.get(pendingRetryAt))
+                        .build())
+                .orElse(null);
+    }
+
+    /**
+     * Records a failed delivery of {@code eventId} and when it may be retried, while {@code owner} holds the lease.
+     */
+    public void recordFailure(String consumer, String owner, long eventId, int attempts, long backoffMillis) {
+        dslContext.update(OFFSETS)
+                .set(FAILED_EVENT_ID, eventId)
+                .set(FAILED_ATTEMPTS, attempts)
+                .set(RETRY_AT, field("now() + {0} * interval '1 millisecond'", Instant.class, inline(backoffMillis)))
+                .set(UPDATED_AT, DB_NOW)
+                .where(CONSUMER.eq(consumer).and(LEASE_OWNER.eq(owner)))
+                .execute();
+    }
+
+    /**
+     * Copies an event to the dead letters of {@code consumer}; parking the same event twice keeps the first copy.
+     */
+    public void park(String consumer, OutboxEvent event, int attempts, String error) {
+        dslContext.insertInto(DEAD_LETTERS)
+                .set(CONSUMER, consumer)
+                .set(EVENT_ID, event.getId())
+                .set(EVENT_TYPE, event.getEventType())
+                .set(PAYLOAD, event.getPayload())
+                .set(ATTEMPTS, attempts)
+                .set(ERROR, error)
+                .set(PARKED_AT, DB_NOW)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    /**
+     * Moves the offset forward while {@code owner} still holds the lease, clearing any retry state
+     * of an event at or below the new offset.
+     *
+     * @return false if the lease was lost, in which case the new owner redelivers
+     */
+    public boolean advance(String consumer, String owner, long lastEventId) {
+        return dslContext.update(OFFSETS)
+                .set(LAST_EVENT_ID, lastEventId)
+                .set(FAILED_EVENT_ID, field("case when {0} <= {1} then null else {0} end", Long.class, FAILED_EVENT_ID, inline(lastEventId)))
+                .set(FAILED_ATTEMPTS, field("case when {0} <= {1} then 0 else {2} end", Integer.class, FAILED_EVENT_ID, inline(lastEventId), FAILED_ATTEMPTS))
+                .set(RETRY_AT, field("case when {0} <= {1} then null else {2} end", Instant.class, FAILED_EVENT_ID, inline(lastEventId), RETRY_AT))
+                .set(UPDATED_AT, DB_NOW)
+                .where(CONSUMER.eq(consumer)
+                        .and(LEASE_OWNER.eq(owner))
+                        .and(LAST_EVENT_ID.lt(lastEventId)))
+                .execute() > 0;
+    }
+
+    public void release(String consumer, String owner) {
+        dslContext.update(OFFSETS)
+                .setNull(LEASE_UNTIL)
+                .where(CONSUMER.eq(consumer).and(LEASE_OWNER.eq(owner)))
+                .execute();
+    }
+
+    public Map<String, Long> findOffsets() {
+        Map<String, Long> offsets = new HashMap<>();
+        dslContext.select(CONSUMER, LAST_EVENT_ID)
+                .from(OFFSETS)
+                .forEach(r -> offsets.put(r.value1(), r.value2()));
+        return offsets;
+    }
+}
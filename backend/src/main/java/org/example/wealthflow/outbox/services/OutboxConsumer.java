@@ -0,0 +1,39 @@
+package org.example.wealthflow.outbox.services;
+
+/**
+ * Receives outbox events in id order, at least once each. Implementations are Spring beans; each
+ * has its own offset, so a slow or failing consumer does not hold back the others. A consumer
+ * registered for the first time starts after the newest event at that moment.
+ * <p>
+ * A regular consumer runs on one node at a time and its offset is stored. A {@link #broadcast()}
+ * consumer runs on every node from an in-memory offset that starts after the newest event when the
+ * node starts; it is how node-local caches learn about changes made on other nodes.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Stable name the offset is stored under; renaming a consumer starts it over.
+     */
+    String name();
+
+    /**
+     * Event types this consumer handles; other events are passed over and count as handled.
+     */
+    default boolean accepts(Class<?> eventType) {
+        return true;
+    }
+
+    /**
+     * Whether every node receives the events rather than the one holding the consumer's lease.
+     */
+    default boolean broadcast() {
+        return false;
+    }
+
+    /**
+     * Throwing stops delivery to this consumer and retries the event with growing backoff. After
+     * {@code outbox.max-attempts} failures a regular consumer's event is dead-lettered and a broadcast
+     * consumer's event is skipped, and delivery moves on.
+     */
+    void handle(OutboxMessage message);
+}
@@ -0,0 +1,369 @@
+package org.example.wealthflow.outbox.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.configs.OutboxConfig;
+import org.example.wealthflow.outbox.models.OutboxConsumerOffset;
+import org.example.wealthflow.outbox.models.OutboxEvent;
+import org.example.wealthflow.outbox.repositories.OutboxRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to every {@link OutboxConsumer} on one background thread. A round reads a
+ * batch after the consumer's offset, hands the events over in id order and stores the new offset,
+ * repeating while full batches come back. Commits that happen during a round coalesce into one
+ * follow-up round, so a burst of writes is delivered in batches rather than one round per event.
+ * <p>
+ * Each consumer is owned by one node at a time through a lease on its offset row. Ids come from a
+ * sequence and are taken before commit, so a lower id can become visible after a higher one;
+ * delivery stops at such a gap until it is older than {@code gapTimeoutMs}, after which it is taken
+ * to be a rolled-back insert. Delivery is at least once: a crash or a lost lease between handling
+ * and storing the offset repeats events.
+ * <p>
+ * A failing event is retried with exponential backoff, the retry state stored next to the offset so
+ * it survives a change of owner. After {@code maxAttempts} failures the event is copied to
+ * {@code outbox_dead_letters} and delivery moves past it. Broadcast consumers are delivered to on
+ * every node from an in-memory offset and retry state; they skip an event that keeps failing.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectProvider<OutboxConsumer> consumerProvider;
+    private final ObjectMapper objectMapper;
+    private final OutboxConfig config;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+
+    private final Map<String, ConsumerState> states = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>> types = new ConcurrentHashMap<>();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Counter undecodable;
+    private final ExecutorService executor;
+    private volatile List<OutboxConsumer> consumers = List.of();
+    private volatile boolean started;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository,
+                            ObjectProvider<OutboxConsumer> consumerProvider,
+                            ObjectMapper objectMapper,
+                            OutboxConfig config,
+                            MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.consumerProvider = consumerProvider;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.owner = UUID.randomUUID().toString();
+        this.undecodable = meterRegistry.counter("wealthflow.outbox.undecodable");
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "outbox-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Runs before other startup listeners, so broadcast offsets are fixed before node-local caches
+     * load their snapshots; changes committed while a cache loads are then delivered, not lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        if (!config.isEnabled()) {
+            log.info("Outbox dispatcher disabled");
+            return;
+        }
+        try {
+            long latest = outboxRepository.maxId();
+            List<OutboxConsumer> found = consumerProvider.orderedStream().toList();
+            for (OutboxConsumer consumer : found) {
+                ConsumerState state = new ConsumerState(consumer.name(), meterRegistry);
+                if (consumer.broadcast()) {
+                    state.localOffset = latest;
+                } else {
+                    outboxRepository.createOffsetIfAbsent(consumer.name(), latest);
+                }
+                states.put(consumer.name(), state);
+            }
+            consumers = found;
+            started = true;
+            log.info("Outbox dispatcher started with consumers {}", found.stream().map(OutboxConsumer::name).toList());
+            wakeUp();
+        } catch (RuntimeException ex) {
+            log.error("Failed to start outbox dispatcher: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        started = false;
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        for (OutboxConsumer consumer : consumers) {
+            if (consumer.broadcast()) continue;
+            try {
+                outboxRepository.release(consumer.name(), owner);
+            } catch (RuntimeException ex) {
+                log.debug("Failed to release outbox lease of {}: {}", consumer.name(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Schedules a round unless one is already waiting to start.
+     */
+    public void wakeUp() {
+        if (!started || consumers.isEmpty()) return;
+        if (pending.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::dispatchAll);
+            } catch (RuntimeException ex) {
+                pending.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}", initialDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Deletes events every known consumer has handled once they are older than the retention.
+     * Broadcast consumers keep no stored offset and rely on the retention alone.
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}", initialDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        if (!started) return;
+        try {
+            long delivered = outboxRepository.findOffsets().values().stream()
+                    .mapToLong(Long::longValue)
+                    .min()
+                    .orElseGet(outboxRepository::maxId);
+            int deleted = outboxRepository.deleteDelivered(delivered, Instant.now().minusMillis(config.getRetentionMs()));
+            if (deleted > 0) log.info("Deleted {} delivered outbox events", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to clean up outbox: {}", ex.getMessage());
+        }
+    }
+
+    /* DELIVERY */
+
+    private void dispatchAll() {
+        pending.set(false);
+        long latest;
+        try {
+            latest = outboxRepository.maxId();
+        } catch (RuntimeException ex) {
+            log.warn("Outbox dispatch skipped: {}", ex.getMessage());
+            return;
+        }
+        for (OutboxConsumer consumer : consumers) {
+            ConsumerState state = states.get(consumer.name());
+            try {
+                while (started && deliverBatch(consumer, state, latest)) {
+                    // full batch delivered, more may follow
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Outbox delivery to {} failed: {}", consumer.name(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return true when a full batch was delivered and another should be read
+     */
+    private boolean deliverBatch(OutboxConsumer consumer, ConsumerState state, long latest) {
+        Position position = consumer.broadcast() ? state.localPosition() : claim(consumer, state);
+        if (position == null) return false;
+
+        long offset = position.offset();
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<OutboxEvent> events = outboxRepository.findAfter(offset, batchSize);
+
+        long last = offset;
+        Instant dbNow = null;
+        boolean stopped = false;
+        for (OutboxEvent e : events) {
+            if (e.getId() != last + 1) {
+                if (dbNow == null) dbNow = outboxRepository.now();
+                if (Duration.between(e.getCreatedAt(), dbNow).toMillis() < config.getGapTimeoutMs()) {
+                    stopped = true;
+                    break;
+                }
+            }
+            Object event = decode(e);
+            if (event != null && consumer.accepts(event.getClass())) {
+                try {
+                    consumer.handle(new OutboxMessage(e.getId(), event, e.getCreatedAt()));
+                    state.delivered.increment();
+                } catch (RuntimeException ex) {
+                    state.failed.increment();
+                    int attempts = (position.failedEventId() == e.getId() ? position.failedAttempts() : 0) + 1;
+                    if (attempts < Math.max(1, config.getMaxAttempts())) {
+                        long backoff = backoffMillis(attempts);
+                        log.warn("Outbox consumer {} failed on event id={} ({}), attempt {}, retrying in {} ms: {}",
+                                consumer.name(), e.getId(), e.getEventType(), attempts, backoff, ex.getMessage());
+                        recordFailure(consumer, state, e.getId(), attempts, backoff);
+                        stopped = true;
+                        break;
+                    }
+                    abandon(consumer, state, e, attempts, ex);
+                }
+            }
+            last = e.getId();
+        }
+
+        if (consumer.broadcast()) {
+            state.advanceLocal(last);
+        } else if (last > offset && !outboxRepository.advance(consumer.name(), owner, last)) {
+            log.warn("Outbox consumer {} lost its lease; events after id={} will be redelivered", consumer.name(), offset);
+            return false;
+        }
+        state.lag.set(Math.max(0, Math.max(latest, last) - last));
+        state.oldestPendingAt.set(firstPendingAt(events, last));
+        return !stopped && events.size() == batchSize;
+    }
+
+    /**
+     * Takes the consumer's lease; null while another node owns it or a retry is not due yet.
+     */
+    private Position claim(OutboxConsumer consumer, ConsumerState state) {
+        OutboxConsumerOffset claimed = outboxRepository.claim(consumer.name(), owner, config.getLeaseMs());
+        if (claimed == null) {
+            state.lag.set(-1);
+            return null;
+        }
+        if (claimed.getRetryAt() != null) return null;
+        return new Position(claimed.getLastEventId(),
+                claimed.getFailedEventId() == null ? 0 : claimed.getFailedEventId(), claimed.getFailedAttempts());
+    }
+
+    private void recordFailure(OutboxConsumer consumer, ConsumerState state, long eventId, int attempts, long backoff) {
+        if (consumer.broadcast()) {
+            state.failedEventId = eventId;
+            state.failedAttempts = attempts;
+            state.retryAt = System.currentTimeMillis() + backoff;
+        } else {
+            outboxRepository.recordFailure(consumer.name(), owner, eventId, attempts, backoff);
+        }
+    }
+
+    /**
+     * Gives up on an event: a regular consumer parks it as a dead letter, a broadcast consumer only logs it.
+     */
+    private void abandon(OutboxConsumer consumer, ConsumerState state, OutboxEvent e, int attempts, RuntimeException ex) {
+        state.abandoned.increment();
+        if (consumer.broadcast()) {
+            log.error("Outbox consumer {} skipped event id={} ({}) after {} attempts: {}",
+                    consumer.name(), e.getId(), e.getEventType(), attempts, ex.getMessage());
+            return;
+        }
+        outboxRepository.park(consumer.name(), e, attempts, ex.getMessage());
+        log.error("Outbox consumer {} dead-lettered event id={} ({}) after {} attempts: {}",
+                consumer.name(), e.getId(), e.getEventType(), attempts, ex.getMessage());
+    }
+
+    private long backoffMillis(int attempts) {
+        long base = Math.max(1, config.getRetryBackoffMs());
+        long backoff = base << Math.min(30, attempts - 1);
+        return Math.min(Math.max(base, config.getMaxRetryBackoffMs()), backoff);
+    }
+
+    private Object decode(OutboxEvent e) {
+        try {
+            Class<?> type = types.computeIfAbsent(e.getEventType(), name -> {
+                try {
+                    return Class.forName(name);
+                } catch (ClassNotFoundException ex) {
+                    throw new IllegalStateException("Unknown event type " + name, ex);
+                }
+            });
+            return objectMapper.readValue(e.getPayload(), type);
+        } catch (Exception ex) {
+            // an event that cannot be read now never will be; skip it rather than block the consumer
+            undecodable.increment();
+            log.error("Skipping undecodable outbox event id={} type={}: {}", e.getId(), e.getEventType(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private static long firstPendingAt(List<OutboxEvent> events, long last) {
+        for (OutboxEvent e : events) {
+            if (e.getId() > last) return e.getCreatedAt().toEpochMilli();
+        }
+        return 0;
+    }
+
+    /**
+     * Where delivery to a consumer resumes, and the event it last failed on (0 if none) with its failure count.
+     */
+    private record Position(long offset, long failedEventId, int failedAttempts) {
+    }
+
+    /**
+     * Per-consumer meters, plus the offset and retry state of a broadcast consumer on this node.
+     * Lag is in events (-1 while another node owns the consumer); the pending age is how long the
+     * oldest undelivered event read in the last round has been waiting. Only the dispatcher thread
+     * touches the broadcast fields.
+     */
+    private static final class ConsumerState {
+        final Counter delivered;
+        final Counter failed;
+        final Counter abandoned;
+        final AtomicLong lag = new AtomicLong();
+        final AtomicLong oldestPendingAt = new AtomicLong();
+        long localOffset;
+        long failedEventId;
+        int failedAttempts;
+        long retryAt;
+
+        ConsumerState(String name, MeterRegistry meterRegistry) {
+            Tags tags = Tags.of(Tag.of("consumer", name));
+            this.delivered = meterRegistry.counter("wealthflow.outbox.delivered", tags);
+            this.failed = meterRegistry.counter("wealthflow.outbox.failed", tags);
+            this.abandoned = meterRegistry.counter("wealthflow.outbox.abandoned", tags);
+            meterRegistry.gauge("wealthflow.outbox.lag", tags, lag, AtomicLong::get);
+            meterRegistry.gauge("wealthflow.outbox.lag.seconds", tags, oldestPendingAt,
+                    at -> at.get() == 0 ? 0 : Math.max(0, System.currentTimeMillis() - at.get()) / 1000.0);
+        }
+
+        Position localPosition() {
+            if (retryAt > System.currentTimeMillis()) return null;
+            return new Position(localOffset, failedEventId, failedAttempts);
+        }
+
+        void advanceLocal(long last) {
+            localOffset = Math.max(localOffset, last);
+            if (failedEventId != 0 && failedEventId <= localOffset) {
+                failedEventId = 0;
+                failedAttempts = 0;
+                retryAt = 0;
+            }
+        }
+    }
+}
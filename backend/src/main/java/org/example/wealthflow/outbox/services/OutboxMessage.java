@@ -0,0 +1,13 @@
+package org.example.wealthflow.outbox.services;
+
+import java.time.Instant;
+
+/**
+ * A delivered outbox event; {@code id} is unique and increasing, so consumers can deduplicate redeliveries by it.
+ */
+public record OutboxMessage(long id, Object event, Instant createdAt) {
+
+    public <T> T eventAs(Class<T> type) {
+        return type.cast(event);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.wealthflow.outbox.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.outbox.repositories.OutboxRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Entry point for domain events. {@link #append} writes the event with the caller's connection, so
+ * it commits or rolls back with the change it describes, and wakes the dispatcher once the
+ * transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    public long append(Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Cannot serialize event " + event.getClass().getName(), ex);
+        }
+        long id = outboxRepository.append(event.getClass().getName(), payload);
+        AfterCommit.run(dispatcher::wakeUp);
+        log.debug("Outbox event id={} type={}", id, event.getClass().getSimpleName());
+        return id;
+    }
+}
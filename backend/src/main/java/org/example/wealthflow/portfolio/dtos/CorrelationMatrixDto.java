@@ -0,0 +1,31 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CorrelationMatrixDto {
+    private Long userId;
+    private CorrelationScopeDto scope;
+    private LocalDate from;
+    private LocalDate to;
+    /** daily returns in the window, including the current day's provisional one */
+    private int observations;
+    /** row and column order of {@code matrix} */
+    private List<Long> assetIds;
+    private List<String> tickers;
+    /** Pearson correlation of daily log returns; null where an asset did not move in the window */
+    private Double[][] matrix;
+    /** requested assets left out for lack of price history in the window */
+    private List<Long> excludedAssetIds;
+}
@@ -0,0 +1,26 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum CorrelationScopeDto {
+    FAVOURITES, HOLDINGS;
+
+    @JsonCreator
+    public static CorrelationScopeDto fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return CorrelationScopeDto.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Scope value must be one of "
+                    + java.util.Arrays.toString(CorrelationScopeDto.values()));
+        }
+    }
+
+    @JsonValue
+    public String toValue() {
+        return name();
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioReturnsDto {
+    private Long userId;
+    private LocalDate from;
+    private LocalDate to;
+    /** currency all values and flows are expressed in */
+    private String currency;
+    private double startValue;
+    private double endValue;
+    private double netFlows;
+    /** time-weighted return over the range, daily sub-periods chain-linked */
+    private double timeWeightedReturn;
+    /** annualized money-weighted return (IRR of the range's cash flows); null if it has no solution */
+    private Double moneyWeightedReturn;
+    private List<ReturnPointDto> points;
+}
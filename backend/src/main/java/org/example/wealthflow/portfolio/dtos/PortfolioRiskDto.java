@@ -0,0 +1,31 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioRiskDto {
+    private Long userId;
+    private String currency;
+    /** value of the positions the simulation covers */
+    private double portfolioValue;
+    private int horizonDays;
+    private int paths;
+    /** daily returns the distribution was estimated from */
+    private int observations;
+    private int modelledPositions;
+    /** open positions left out for lack of a price, an FX rate or enough history */
+    private int unmodelledPositions;
+    private List<RiskLevelDto> levels;
+    private Instant computedAt;
+}
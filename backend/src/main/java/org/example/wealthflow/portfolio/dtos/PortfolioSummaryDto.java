@@ -0,0 +1,27 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioSummaryDto {
+    private Long userId;
+    private String baseCurrency;
+    private List<PositionResponseDto> positions;
+    private BigDecimal totalCostBasis;
+    private BigDecimal totalMarketValue;
+    private BigDecimal totalUnrealizedPnl;
+    private BigDecimal totalRealizedPnl;
+    private int unpricedPositions;
+    private int unconvertedPositions;
+}
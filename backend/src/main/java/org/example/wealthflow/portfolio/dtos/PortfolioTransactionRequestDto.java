@@ -0,0 +1,38 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioTransactionRequestDto {
+    @NotNull(message = "Asset ID is required")
+    private Long assetId;
+
+    @NotNull(message = "Side is required")
+    private TransactionSideDto side;
+
+    @NotNull(message = "Quantity is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Quantity must be greater than 0")
+    private BigDecimal quantity;
+
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.0", message = "Price must not be negative")
+    private BigDecimal price;
+
+    @DecimalMin(value = "0.0", message = "Fee must not be negative")
+    private BigDecimal fee;
+
+    private Instant executedAt;
+}
@@ -0,0 +1,28 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioTransactionResponseDto {
+    private Long id;
+    private Long userId;
+    private Long assetId;
+    private TransactionSideDto side;
+    private BigDecimal quantity;
+    private BigDecimal price;
+    private BigDecimal fee;
+    private BigDecimal realizedPnl;
+    private Instant executedAt;
+    private Instant createdAt;
+}
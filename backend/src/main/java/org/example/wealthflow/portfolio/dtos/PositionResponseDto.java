@@ -0,0 +1,33 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PositionResponseDto {
+    private Long assetId;
+    private String tickerSymbol;
+    private String assetName;
+    private String currency;
+    private BigDecimal quantity;
+    private BigDecimal averageCost;
+    private BigDecimal costBasis;
+    private BigDecimal lastPrice;
+    private Instant lastPriceAt;
+    private BigDecimal marketValue;
+    private BigDecimal unrealizedPnl;
+    private BigDecimal realizedPnl;
+    private long transactionCount;
+    private BigDecimal fxRate;
+    private BigDecimal marketValueInBase;
+}
@@ -0,0 +1,22 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReturnPointDto {
+    private LocalDate date;
+    private double value;
+    private double netFlow;
+    private double dailyReturn;
+    private double cumulativeReturn;
+}
@@ -0,0 +1,20 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RiskLevelDto {
+    private double confidence;
+    /** loss not exceeded with the given confidence over the horizon, as a positive amount */
+    private double valueAtRisk;
+    /** mean loss in the tail beyond the value at risk */
+    private double conditionalValueAtRisk;
+}
@@ -0,0 +1,26 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum TransactionSideDto {
+    BUY, SELL;
+
+    @JsonCreator
+    public static TransactionSideDto fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return TransactionSideDto.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Side value must be one of "
+                    + java.util.Arrays.toString(TransactionSideDto.values()));
+        }
+    }
+
+    @JsonValue
+    public String toValue() {
+        return name();
+    }
+}
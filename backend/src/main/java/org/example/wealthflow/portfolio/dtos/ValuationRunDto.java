@@ -0,0 +1,25 @@
+package org.example.wealthflow.portfolio.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValuationRunDto {
+    private Instant takenAt;
+    private long users;
+    private long positions;
+    private long snapshotsWritten;
+    private int partitions;
+    private int failedPartitions;
+    private long durationMillis;
+    private double usersPerSecond;
+}
@@ -0,0 +1,15 @@
+package org.example.wealthflow.portfolio.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioTransactionRecordedEvent {
+    private Long userId;
+    private Instant executedAt;
+}
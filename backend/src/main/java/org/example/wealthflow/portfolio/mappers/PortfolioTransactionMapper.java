@@ -0,0 +1,15 @@
+package org.example.wealthflow.portfolio.mappers;
+
+import org.example.wealthflow.portfolio.dtos.PortfolioTransactionResponseDto;
+import org.example.wealthflow.portfolio.models.PortfolioTransaction;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface PortfolioTransactionMapper {
+
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "assetId", source = "asset.id")
+    PortfolioTransactionResponseDto toResponse(PortfolioTransaction transaction);
+}
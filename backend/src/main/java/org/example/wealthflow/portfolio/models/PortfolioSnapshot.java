@@ -0,0 +1,62 @@
+package org.example.wealthflow.portfolio.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Value of one user's portfolio at a snapshot bucket, written in bulk by the valuation engine.
+ */
+@Entity
+@Table(name = "portfolio_snapshots", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "taken_at"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    @Column(name = "currency", length = 10)
+    private String currency;
+
+    @Column(name = "market_value", precision = 28, scale = 8, nullable = false)
+    private BigDecimal marketValue;
+
+    @Column(name = "cost_basis", precision = 28, scale = 8, nullable = false)
+    private BigDecimal costBasis;
+
+    @Column(name = "unrealized_pnl", precision = 28, scale = 8, nullable = false)
+    private BigDecimal unrealizedPnl;
+
+    @Column(name = "realized_pnl", precision = 28, scale = 8, nullable = false)
+    private BigDecimal realizedPnl;
+
+    @Column(name = "positions", nullable = false)
+    private int positions;
+
+    @Column(name = "unpriced_positions", nullable = false)
+    private int unpricedPositions;
+}
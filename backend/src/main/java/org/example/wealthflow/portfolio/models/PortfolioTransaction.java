@@ -0,0 +1,81 @@
+package org.example.wealthflow.portfolio.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.user.models.User;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One buy or sell in a user's ledger. {@code realizedPnl} is what a sell realized against the
+ * position's average cost at the time it was applied; it is zero for buys.
+ */
+@Entity
+@Table(name = "portfolio_transactions", indexes = {
+        @Index(columnList = "user_id, executed_at"),
+        @Index(columnList = "user_id, asset_id, executed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioTransaction {
+    public enum Side { BUY, SELL }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "asset_id", nullable = false)
+    private Asset asset;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "side", nullable = false, length = 10)
+    private Side side;
+
+    @Column(name = "quantity", precision = 28, scale = 10, nullable = false)
+    private BigDecimal quantity;
+
+    @Column(name = "price", precision = 18, scale = 8, nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "fee", precision = 18, scale = 8, nullable = false)
+    private BigDecimal fee;
+
+    @Column(name = "realized_pnl", precision = 28, scale = 8, nullable = false)
+    private BigDecimal realizedPnl;
+
+    @Column(name = "executed_at", nullable = false)
+    private Instant executedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = Instant.now();
+    }
+}
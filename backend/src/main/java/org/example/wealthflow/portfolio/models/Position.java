@@ -0,0 +1,66 @@
+package org.example.wealthflow.portfolio.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.user.models.User;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Running state of a user's holding in one asset, folded incrementally from the ledger:
+ * quantity, average cost per unit (fees on buys included) and P&L realized by sells so far.
+ */
+@Entity
+@Table(name = "positions", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "asset_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Position {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "asset_id", nullable = false)
+    private Asset asset;
+
+    @Column(name = "quantity", precision = 28, scale = 10, nullable = false)
+    private BigDecimal quantity;
+
+    @Column(name = "average_cost", precision = 18, scale = 8, nullable = false)
+    private BigDecimal averageCost;
+
+    @Column(name = "realized_pnl", precision = 28, scale = 8, nullable = false)
+    private BigDecimal realizedPnl;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "last_executed_at")
+    private Instant lastExecutedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
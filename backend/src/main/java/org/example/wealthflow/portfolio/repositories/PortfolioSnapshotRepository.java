@@ -0,0 +1,82 @@
+package org.example.wealthflow.portfolio.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.portfolio.models.PortfolioSnapshot;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class PortfolioSnapshotRepository {
+
+    private static final int INSERT_CHUNK = 5_000;
+
+    private final DSLContext dslContext;
+
+    private final Table<?> SNAPSHOTS = table("portfolio_snapshots");
+    private final Field<Long> USER_ID = field("user_id", Long.class);
+    private final Field<Instant> TAKEN_AT = field("taken_at", Instant.class);
+    private final Field<String> CURRENCY = field("currency", String.class);
+    private final Field<BigDecimal> MARKET_VALUE = field("market_value", BigDecimal.class);
+    private final Field<BigDecimal> COST_BASIS = field("cost_basis", BigDecimal.class);
+    private final Field<BigDecimal> UNREALIZED_PNL = field("unrealized_pnl", BigDecimal.class);
+    private final Field<BigDecimal> REALIZED_PNL = field("realized_pnl", BigDecimal.class);
+    private final Field<Integer> POSITIONS = field("positions", Integer.class);
+    private final Field<Integer> UNPRICED_POSITIONS = field("unpriced_positions", Integer.class);
+
+    /**
+     * Multi-row upsert on (user_id, taken_at), so re-running a bucket replaces its values.
+     */
+    public int saveAll(List<PortfolioSnapshot> snapshots) {
+        if (snapshots == null || snapshots.isEmpty()) return 0;
+
+        int written = 0;
+        for (int from = 0; from < snapshots.size(); from += INSERT_CHUNK) {
+            List<PortfolioSnapshot> chunk = snapshots.subList(from, Math.min(snapshots.size(), from + INSERT_CHUNK));
+            var insert = dslContext.insertInto(SNAPSHOTS, USER_ID, TAKEN_AT, CURRENCY, MARKET_VALUE, COST_BASIS,
+                    UNREALIZED_PNL, REALIZED_PNL, POSITIONS, UNPRICED_POSITIONS);
+            for (PortfolioSnapshot s : chunk) {
+                insert = insert.values(s.getUserId(), s.getTakenAt(), s.getCurrency(), s.getMarketValue(), s.getCostBasis(),
+                        s.getUnrealizedPnl(), s.getRealizedPnl(), s.getPositions(), s.getUnpricedPositions());
+            }
+            written += insert.onConflict(USER_ID, TAKEN_AT)
+                    .doUpdate()
+                    .set(CURRENCY, DSL.excluded(CURRENCY))
+                    .set(MARKET_VALUE, DSL.excluded(MARKET_VALUE))
+                    .set(COST_BASIS, DSL.excluded(COST_BASIS))
+                    .set(UNREALIZED_PNL, DSL.excluded(UNREALIZED_PNL))
+                    .set(REALIZED_PNL, DSL.excluded(REALIZED_PNL))
+                    .set(POSITIONS, DSL.excluded(POSITIONS))
+                    .set(UNPRICED_POSITIONS, DSL.excluded(UNPRICED_POSITIONS))
+                    .execute();
+        }
+        return written;
+    }
+
+    public List<PortfolioSnapshot> findByUserBetween(Long userId, Instant from, Instant to) {
+        return dslContext.selectFrom(SNAPSHOTS)
+                .where(USER_ID.eq(userId).and(TAKEN_AT.ge(from)).and(TAKEN_AT.lt(to)))
+                .orderBy(TAKEN_AT.asc())
+                .fetch(r -> PortfolioSnapshot.builder()
+                        .userId(r.get(USER_ID))
+                        .takenAt(r.get(TAKEN_AT))
+                        .currency(r.get(CURRENCY))
+                        .marketValue(r.get(MARKET_VALUE))
+                        .costBasis(r.get(COST_BASIS))
+                        .unrealizedPnl(r.get(UNREALIZED_PNL))
+                        .realizedPnl(r.get(REALIZED_PNL))
+                        .positions(r.get(POSITIONS))
+                        .unpricedPositions(r.get(UNPRICED_POSITIONS))
+                        .build());
+    }
+}
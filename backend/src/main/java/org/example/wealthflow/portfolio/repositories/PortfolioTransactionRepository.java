@@ -0,0 +1,158 @@
+package org.example.wealthflow.portfolio.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.common.dtos.PagedResultDto;
+import org.example.wealthflow.portfolio.models.PortfolioTransaction;
+import org.example.wealthflow.user.models.User;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class PortfolioTransactionRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> TX = table("portfolio_transactions");
+    private final Field<Long> ID = field("id", Long.class);
+    private final Field<Long> USER_ID = field("user_id", Long.class);
+    private final Field<Long> ASSET_ID = field("asset_id", Long.class);
+    private final Field<String> SIDE = field("side", String.class);
+    private final Field<BigDecimal> QUANTITY = field("quantity", BigDecimal.class);
+    private final Field<BigDecimal> PRICE = field("price", BigDecimal.class);
+    private final Field<BigDecimal> FEE = field("fee", BigDecimal.class);
+    private final Field<BigDecimal> REALIZED_PNL = field("realized_pnl", BigDecimal.class);
+    private final Field<Instant> EXECUTED_AT = field("executed_at", Instant.class);
+    private final Field<Instant> CREATED_AT = field("created_at", Instant.class);
+
+    public PortfolioTransaction insert(PortfolioTransaction tx) {
+        Instant now = Instant.now();
+        Long id = dslContext.insertInto(TX)
+                .set(USER_ID, tx.getUser().getId())
+                .set(ASSET_ID, tx.getAsset().getId())
+                .set(SIDE, tx.getSide().name())
+                .set(QUANTITY, tx.getQuantity())
+                .set(PRICE, tx.getPrice())
+                .set(FEE, tx.getFee())
+                .set(REALIZED_PNL, tx.getRealizedPnl())
+                .set(EXECUTED_AT, tx.getExecutedAt())
+                .set(CREATED_AT, now)
+                .returningResult(ID)
+                .fetchOne(ID);
+        tx.setId(id);
+        tx.setCreatedAt(now);
+        return tx;
+    }
+
+    /**
+     * Rewrites realized P&L of already stored transactions, used when a position is replayed.
+     */
+    public void updateRealizedPnl(List<PortfolioTransaction> txs) {
+        if (txs.isEmpty()) return;
+        dslContext.batch(txs.stream()
+                .map(tx -> dslContext.update(TX).set(REALIZED_PNL, tx.getRealizedPnl()).where(ID.eq(tx.getId())))
+                .toList()).execute();
+    }
+
+    /**
+     * A user's ledger for one asset in execution order, for replaying the position.
+     */
+    public List<PortfolioTransaction> findByUserAndAssetOrdered(Long userId, Long assetId) {
+        return dslContext.selectFrom(TX)
+                .where(USER_ID.eq(userId).and(ASSET_ID.eq(assetId)))
+                .orderBy(EXECUTED_AT.asc(), ID.asc())
+                .fetch(this::mapRecordToTransaction);
+    }
+
+    /**
+     * A user's transactions in [from, to) in execution order, read lazily through a server-side cursor.
+     * The stream must be closed and consumed inside a transaction.
+     */
+    public Stream<PortfolioTransaction> streamByUserBetween(Long userId, Instant from, Instant to) {
+        return dslContext.selectFrom(TX)
+                .where(USER_ID.eq(userId))
+                .and(EXECUTED_AT.ge(from))
+                .and(EXECUTED_AT.lt(to))
+                .orderBy(EXECUTED_AT.asc(), ID.asc())
+                .fetchSize(1000)
+                .fetchStream()
+                .map(this::mapRecordToTransaction);
+    }
+
+    public Optional<Instant> findFirstExecutedAt(Long userId) {
+        return dslContext.select(DSL.min(EXECUTED_AT))
+                .from(TX)
+                .where(USER_ID.eq(userId))
+                .fetchOptional(0, Instant.class);
+    }
+
+    public PagedResultDto<PortfolioTransaction> findByUserIdWithTotal(Long userId, Long assetId, int limit, int offset) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+
+        var cond = USER_ID.eq(userId);
+        if (assetId != null) cond = cond.and(ASSET_ID.eq(assetId));
+
+        Field<Integer> totalField = DSL.count().over().as("total_count");
+
+        Result<Record> result = dslContext.select(TX.asterisk())
+                .select(totalField)
+                .from(TX)
+                .where(cond)
+                .orderBy(EXECUTED_AT.desc(), ID.desc())
+                .limit(limit)
+                .offset(offset)
+                .fetch();
+
+        List<PortfolioTransaction> items = new ArrayList<>();
+        long total = 0;
+        for (Record r : result) {
+            items.add(mapRecordToTransaction(r));
+            if (total == 0) {
+                Number n = r.get("total_count", Number.class);
+                if (n != null) total = n.longValue();
+            }
+        }
+
+        return PagedResultDto.<PortfolioTransaction>builder()
+                .items(items)
+                .total(total)
+                .page(offset / Math.max(1, limit))
+                .size(limit)
+                .build();
+    }
+
+    private PortfolioTransaction mapRecordToTransaction(Record r) {
+        User user = new User();
+        user.setId(r.get(USER_ID));
+        Asset asset = new Asset();
+        asset.setId(r.get(ASSET_ID));
+        return PortfolioTransaction.builder()
+                .id(r.get(ID))
+                .user(user)
+                .asset(asset)
+                .side(PortfolioTransaction.Side.valueOf(r.get(SIDE)))
+                .quantity(r.get(QUANTITY))
+                .price(r.get(PRICE))
+                .fee(r.get(FEE))
+                .realizedPnl(r.get(REALIZED_PNL))
+                .executedAt(r.get(EXECUTED_AT))
+                .createdAt(r.get(CREATED_AT))
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.wealthflow.portfolio.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.user.models.User;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+@Repository
+@RequiredArgsConstructor
+public class PositionRepository {
+
+    private final DSLContext dslContext;
+
+    private final Table<?> POSITIONS = table("positions");
+    private final Field<Long> ID = field("id", Long.class);
+    private final Field<Long> USER_ID = field("user_id", Long.class);
+    private final Field<Long> ASSET_ID = field("asset_id", Long.class);
+    private final Field<BigDecimal> QUANTITY = field("quantity", BigDecimal.class);
+    private final Field<BigDecimal> AVERAGE_COST = field("average_cost", BigDecimal.class);
+    private final Field<BigDecimal> REALIZED_PNL = field("realized_pnl", BigDecimal.class);
+    private final Field<Long> TRANSACTION_COUNT = field("transaction_count", Long.class);
+    private final Field<Instant> LAST_EXECUTED_AT = field("last_executed_at", Instant.class);
+    private final Field<Instant> UPDATED_AT = field("updated_at", Instant.class);
+
+    /**
+     * Returns the user's position in the asset locked with {@code SELECT ... FOR UPDATE}, creating an
+     * empty one first if needed, so concurrent transactions on the same position apply one after another.
+     * Must run inside a transaction.
+     */
+    public Position lockOrCreate(Long userId, Long assetId) {
+        Optional<Position> existing = lock(userId, assetId);
+        if (existing.isPresent()) return existing.get();
+
+        dslContext.insertInto(POSITIONS)
+                .set(USER_ID, userId)
+                .set(ASSET_ID, assetId)
+                .set(QUANTITY, BigDecimal.ZERO)
+                .set(AVERAGE_COST, BigDecimal.ZERO)
+                .set(REALIZED_PNL, BigDecimal.ZERO)
+                .set(TRANSACTION_COUNT, 0L)
+                .set(UPDATED_AT, Instant.now())
+                .onConflict(USER_ID, ASSET_ID)
+                .doNothing()
+                .execute();
+        return lock(userId, assetId).orElseThrow(() ->
+                new IllegalStateException("Position for user " + userId + " asset " + assetId + " vanished after insert"));
+    }
+
+    public void update(Position position) {
+        dslContext.update(POSITIONS)
+                .set(QUANTITY, position.getQuantity())
+                .set(AVERAGE_COST, position.getAverageCost())
+                .set(REALIZED_PNL, position.getRealizedPnl())
+                .set(TRANSACTION_COUNT, position.getTransactionCount())
+                .set(LAST_EXECUTED_AT, position.getLastExecutedAt())
+                .set(UPDATED_AT, Instant.now())
+                .where(ID.eq(position.getId()))
+                .execute();
+    }
+
+    /**
+     * A user's positions with their assets' descriptive columns and last price joined in.
+     *
+     * @param includeClosed also return positions sold down to zero, which still carry realized P&L
+     */
+    public List<Position> findByUserWithAssets(Long userId, boolean includeClosed) {
+        if (userId == null) throw new IllegalArgumentException("userId required");
+
+        Field<Long> pUserId = field(name("p", "user_id"), Long.class);
+        Field<Long> pAssetId = field(name("p", "asset_id"), Long.class);
+        Field<BigDecimal> pQuantity = field(name("p", "quantity"), BigDecimal.class);
+        Field<Long> aId = field(name("a", "id"), Long.class);
+
+        Condition cond = pUserId.eq(userId);
+        if (!includeClosed) cond = cond.and(pQuantity.gt(BigDecimal.ZERO));
+
+        return dslContext.select(
+                        field(name("p", "id"), Long.class).as("id"),
+                        pUserId.as("user_id"),
+                        pAssetId.as("asset_id"),
+                        pQuantity.as("quantity"),
+                        field(name("p", "average_cost"), BigDecimal.class).as("average_cost"),
+                        field(name("p", "realized_pnl"), BigDecimal.class).as("realized_pnl"),
+                        field(name("p", "transaction_count"), Long.class).as("transaction_count"),
+                        field(name("p", "last_executed_at"), Instant.class).as("last_executed_at"),
+                        field(name("p", "updated_at"), Instant.class).as("updated_at"),
+                        field(name("a", "ticker_symbol"), String.class).as("ticker_symbol"),
+                        field(name("a", "name"), String.class).as("asset_name"),
+                        field(name("a", "currency"), String.class).as("currency"),
+                        field(name("a", "last_price"), BigDecimal.class).as("last_price"),
+                        field(name("a", "last_price_at"), Instant.class).as("last_price_at"))
+                .from(POSITIONS.as("p"))
+                .join(table(name("assets")).as("a")).on(aId.eq(pAssetId))
+                .where(cond)
+                .orderBy(field(name("a", "ticker_symbol")).asc())
+                .fetch(r -> {
+                    Position position = mapRecordToPosition(r);
+                    Asset asset = position.getAsset();
+                    asset.setTickerSymbol(r.get("ticker_symbol", String.class));
+                    asset.setName(r.get("asset_name", String.class));
+                    asset.setCurrency(r.get("currency", String.class));
+                    asset.setLastPrice(r.get("last_price", BigDecimal.class));
+                    asset.setLastPriceAt(r.get("last_price_at", Instant.class));
+                    return position;
+                });
+    }
+
+    public List<Long> findAssetIdsByUser(Long userId) {
+        return dslContext.select(ASSET_ID)
+                .from(POSITIONS)
+                .where(USER_ID.eq(userId))
+                .fetch(ASSET_ID);
+    }
+
+    public List<Long> findOpenAssetIdsByUser(Long userId) {
+        return dslContext.select(ASSET_ID)
+                .from(POSITIONS)
+                .where(USER_ID.eq(userId).and(QUANTITY.gt(BigDecimal.ZERO)))
+                .orderBy(ASSET_ID.asc())
+                .fetch(ASSET_ID);
+    }
+
+    /**
+     * Ids of every user holding or having held a position, ascending.
+     */
+    public List<Long> findUserIds() {
+        return dslContext.selectDistinct(USER_ID)
+                .from(POSITIONS)
+                .orderBy(USER_ID.asc())
+                .fetch(USER_ID);
+    }
+
+    /**
+     * All positions of users with ids in [fromUserId, toUserId], ordered by user, in one range scan.
+     */
+    public List<Position> findByUserIdRange(Long fromUserId, Long toUserId) {
+        return dslContext.selectFrom(POSITIONS)
+                .where(USER_ID.between(fromUserId, toUserId))
+                .orderBy(USER_ID.asc())
+                .fetch(this::mapRecordToPosition);
+    }
+
+    private Optional<Position> lock(Long userId, Long assetId) {
+        return dslContext.selectFrom(POSITIONS)
+                .where(USER_ID.eq(userId).and(ASSET_ID.eq(assetId)))
+                .forUpdate()
+                .fetchOptional(this::mapRecordToPosition);
+    }
+
+    private Position mapRecordToPosition(Record r) {
+        User user = new User();
+        user.setId(r.get(USER_ID));
+        Asset asset = new Asset();
+        asset.setId(r.get(ASSET_ID));
+        return Position.builder()
+                .id(r.get(ID))
+                .user(user)
+                .asset(asset)
+                .quantity(r.get(QUANTITY))
+                .averageCost(r.get(AVERAGE_COST))
+                .realizedPnl(r.get(REALIZED_PNL))
+                .transactionCount(r.get(TRANSACTION_COUNT) == null ? 0 : r.get(TRANSACTION_COUNT))
+                .lastExecutedAt(r.get(LAST_EXECUTED_AT))
+                .updatedAt(r.get(UPDATED_AT))
+                .build();
+    }
+}
@@ -0,0 +1,456 @@
+package org.example.wealthflow.portfolio.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.favourite.repositories.FavouriteRepository;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.portfolio.dtos.CorrelationMatrixDto;
+import org.example.wealthflow.portfolio.dtos.CorrelationScopeDto;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Correlation matrix of the daily log returns of a user's favourites or holdings over a rolling
+ * window. The prices of all assets are read in one batched query of daily closes and aligned on the
+ * days any of them traded, carrying an asset's last close over its own gaps.
+ * The window is kept per user and scope as running sums (per-asset sums and the lower triangle of
+ * cross products): the first build computes them in parallel from an asset-major copy of the
+ * returns, so every dot product walks two contiguous arrays; later requests only read the days
+ * closed since, add their rows and subtract the rows that left the window, which is O(n²) per day
+ * instead of O(n² · days). The current day enters as a provisional row that is never folded in.
+ * Sums are recomputed from the retained rows once a window's worth of days has been folded, so
+ * rounding error does not accumulate.
+ * Every advance first rewinds the last {@code portfolio.correlation.overlap-days} days and folds them
+ * again, which picks up late ticks for recent days. Prices written on any node for older days reach
+ * every node through a broadcast outbox consumer and drop the windows holding that asset. Windows are
+ * also rebuilt after {@code portfolio.correlation.cache-ttl-ms}.
+ */
+@Service
+@Slf4j
+public class AssetCorrelationService implements OutboxConsumer {
+
+    /** below this many multiply-adds a sequential pass is faster than forking */
+    private static final long PARALLEL_THRESHOLD = 1L << 18;
+
+    private final FavouriteRepository favouriteRepository;
+    private final PositionRepository positionRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final AssetRepository assetRepository;
+    private final int windowDays;
+    private final int minObservations;
+    private final int maxAssets;
+    private final int overlapDays;
+    private final Duration cacheTtl;
+    private final Map<String, Window> cache;
+
+    public AssetCorrelationService(FavouriteRepository favouriteRepository,
+                                   PositionRepository positionRepository,
+                                   PriceHistoryRepository priceHistoryRepository,
+                                   AssetRepository assetRepository,
+                                   @Value("${portfolio.correlation.window-days:90}") int windowDays,
+                                   @Value("${portfolio.correlation.min-observations:20}") int minObservations,
+                                   @Value("${portfolio.correlation.max-assets:500}") int maxAssets,
+                                   @Value("${portfolio.correlation.max-cached:1000}") int maxCached,
+                                   @Value("${portfolio.correlation.overlap-days:5}") int overlapDays,
+                                   @Value("${portfolio.correlation.cache-ttl-ms:3600000}") long cacheTtlMs) {
+        this.favouriteRepository = favouriteRepository;
+        this.positionRepository = positionRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.assetRepository = assetRepository;
+        this.windowDays = Math.max(2, windowDays);
+        this.minObservations = Math.max(2, minObservations);
+        this.maxAssets = Math.max(2, maxAssets);
+        this.overlapDays = Math.max(0, overlapDays);
+        this.cacheTtl = Duration.ofMillis(Math.max(0, cacheTtlMs));
+        int capacity = Math.max(1, maxCached);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /* READ */
+
+    public CorrelationMatrixDto getCorrelation(Long userId, CorrelationScopeDto scope) {
+        if (userId == null) throw new BadRequestException("userId required");
+        CorrelationScopeDto s = scope == null ? CorrelationScopeDto.FAVOURITES : scope;
+        List<Long> requested = s == CorrelationScopeDto.HOLDINGS
+                ? positionRepository.findOpenAssetIdsByUser(userId)
+                : favouriteRepository.findAssetIdsByUser(userId);
+        if (requested.size() > maxAssets) {
+            throw new BadRequestException("Correlation is limited to " + maxAssets + " assets, got " + requested.size());
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        String key = userId + ":" + s.name();
+        Window window = cache.get(key);
+        if (window == null || !window.requested.equals(requested)) {
+            window = new Window(requested);
+            cache.put(key, window);
+        }
+
+        long started = System.nanoTime();
+        double[] provisional;
+        Double[][] matrix;
+        int observations;
+        List<Long> kept;
+        List<Long> excluded;
+        synchronized (window) {
+            if (!window.built || window.builtAt.plus(cacheTtl).isBefore(Instant.now())) {
+                build(window, today);
+            } else {
+                advance(window, today);
+            }
+            provisional = window.provisional;
+            matrix = correlations(window, provisional);
+            observations = window.rows.size() + (provisional == null ? 0 : 1);
+            kept = new ArrayList<>(window.kept.length);
+            for (long id : window.kept) kept.add(id);
+            excluded = window.excluded;
+        }
+        log.debug("Correlation for user={} scope={}: {} assets, {} observations in {} ms",
+                userId, s, kept.size(), observations, (System.nanoTime() - started) / 1_000_000);
+
+        Map<Long, String> tickers = assetRepository.findTickersByIds(kept);
+        return CorrelationMatrixDto.builder()
+                .userId(userId)
+                .scope(s)
+                .from(today.minusDays(windowDays))
+                .to(today)
+                .observations(observations)
+                .assetIds(kept)
+                .tickers(kept.stream().map(tickers::get).toList())
+                .matrix(matrix)
+                .excludedAssetIds(excluded)
+                .build();
+    }
+
+    /* INVALIDATION */
+
+    /**
+     * Drops the windows over one of the assets when the prices reach further back than the overlap
+     * the next advance re-reads anyway.
+     */
+    public void onPricesRecorded(AssetPricesUpdatedEvent event) {
+        if (event.getEarliestAt() == null || event.getAssetIds() == null || event.getAssetIds().isEmpty()) return;
+        long overlapStart = LocalDate.now(ZoneOffset.UTC).toEpochDay() - overlapDays;
+        if (!event.getEarliestAt().isBefore(LocalDate.ofEpochDay(overlapStart).atStartOfDay(ZoneOffset.UTC).toInstant())) return;
+        Set<Long> assetIds = new HashSet<>(event.getAssetIds());
+        synchronized (cache) {
+            cache.values().removeIf(window -> window.requested.stream().anyMatch(assetIds::contains));
+        }
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "asset-correlation-cache";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == AssetPricesUpdatedEvent.class;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        onPricesRecorded(message.eventAs(AssetPricesUpdatedEvent.class));
+    }
+
+    /* WINDOW */
+
+    /**
+     * Loads the window's closes, picks the assets with enough history and computes the running sums from scratch.
+     */
+    private void build(Window window, LocalDate today) {
+        long firstDay = today.toEpochDay() - windowDays;
+        int all = window.requested.size();
+        Map<Long, Integer> column = new HashMap<>(all * 2);
+        for (int i = 0; i < all; i++) column.put(window.requested.get(i), i);
+
+        TreeMap<Long, double[]> closes = loadCloses(window.requested, column, all, firstDay, today);
+        int[] counts = new int[all];
+        for (double[] day : closes.values()) {
+            for (int i = 0; i < all; i++) if (!Double.isNaN(day[i])) counts[i]++;
+        }
+
+        int[] keep = new int[all];
+        int n = 0;
+        List<Long> excluded = new ArrayList<>();
+        for (int i = 0; i < all; i++) {
+            if (counts[i] > minObservations) keep[n++] = i;
+            else excluded.add(window.requested.get(i));
+        }
+        window.kept = new long[n];
+        for (int k = 0; k < n; k++) window.kept[k] = window.requested.get(keep[k]);
+        window.excluded = List.copyOf(excluded);
+        window.n = n;
+        window.sum = new double[n];
+        window.cross = new double[n * n];
+        window.lastClose = new double[n];
+        Arrays.fill(window.lastClose, Double.NaN);
+        window.rows.clear();
+        window.foldedSinceRebuild = 0;
+        window.lastDay = firstDay - 1;
+        window.builtAt = Instant.now();
+        window.built = true;
+
+        // project onto the kept columns, then fold all closed days as rows without updating sums
+        TreeMap<Long, double[]> projected = new TreeMap<>();
+        for (Map.Entry<Long, double[]> e : closes.entrySet()) {
+            double[] row = new double[n];
+            for (int k = 0; k < n; k++) row[k] = e.getValue()[keep[k]];
+            projected.put(e.getKey(), row);
+        }
+        fold(window, projected, today, false);
+        recomputeSums(window);
+    }
+
+    /**
+     * Rewinds the overlap, reads closes from the day after the last folded one through today and folds
+     * the closed days in.
+     */
+    private void advance(Window window, LocalDate today) {
+        if (window.n == 0 || !rewind(window, today.toEpochDay() - overlapDays)) {
+            build(window, today);
+            return;
+        }
+        Map<Long, Integer> column = new HashMap<>(window.n * 2);
+        List<Long> ids = new ArrayList<>(window.n);
+        for (int k = 0; k < window.n; k++) {
+            column.put(window.kept[k], k);
+            ids.add(window.kept[k]);
+        }
+        TreeMap<Long, double[]> closes = loadCloses(ids, column, window.n, window.lastDay + 1, today);
+        fold(window, closes, today, true);
+        if (window.foldedSinceRebuild >= windowDays) {
+            // a full build also re-checks whether excluded assets have gathered enough history
+            if (window.excluded.isEmpty()) recomputeSums(window);
+            else build(window, today);
+        }
+    }
+
+    /**
+     * Turns closes of days before today into return rows and appends them, evicting rows that fell out
+     * of the window; today's closes become the provisional row. A row is only produced once every asset
+     * has a close to compare with, so the window starts on the first day all of them have one.
+     */
+    private void fold(Window window, TreeMap<Long, double[]> closes, LocalDate today, boolean updateSums) {
+        int n = window.n;
+        long todayDay = today.toEpochDay();
+        window.provisional = null;
+        for (Map.Entry<Long, double[]> e : closes.entrySet()) {
+            long day = e.getKey();
+            double[] close = e.getValue();
+            boolean complete = true;
+            for (int k = 0; k < n && complete; k++) complete = !Double.isNaN(window.lastClose[k]);
+
+            double[] row = complete ? new double[n] : null;
+            for (int k = 0; k < n; k++) {
+                if (Double.isNaN(close[k])) continue;
+                if (row != null) row[k] = Math.log(close[k] / window.lastClose[k]);
+                if (day < todayDay) window.lastClose[k] = close[k];
+            }
+            if (day >= todayDay) {
+                window.provisional = row;
+                continue;
+            }
+            window.lastDay = day;
+            if (row == null) continue;
+            window.rows.addLast(new Row(day, row, window.lastClose.clone()));
+            window.foldedSinceRebuild++;
+            if (updateSums) add(window, row, 1);
+        }
+
+        long firstDay = todayDay - windowDays;
+        while (!window.rows.isEmpty() && window.rows.peekFirst().day < firstDay) {
+            Row old = window.rows.removeFirst();
+            if (updateSums) add(window, old.returns, -1);
+        }
+    }
+
+    /**
+     * Takes the rows of {@code fromDay} and later back out of the window, so they are folded again from
+     * fresh closes.
+     *
+     * @return false when nothing would be left to continue from and the window needs a full build
+     */
+    private static boolean rewind(Window window, long fromDay) {
+        if (window.lastDay < fromDay) return true;
+        while (!window.rows.isEmpty() && window.rows.peekLast().day >= fromDay) {
+            add(window, window.rows.removeLast().returns, -1);
+            window.foldedSinceRebuild = Math.max(0, window.foldedSinceRebuild - 1);
+        }
+        if (window.rows.isEmpty()) return false;
+        window.lastClose = window.rows.peekLast().closes.clone();
+        window.lastDay = fromDay - 1;
+        return true;
+    }
+
+    private TreeMap<Long, double[]> loadCloses(List<Long> assetIds, Map<Long, Integer> column, int width,
+                                               long fromDay, LocalDate today) {
+        TreeMap<Long, double[]> closes = new TreeMap<>();
+        priceHistoryRepository.forEachDailyClose(assetIds,
+                LocalDate.ofEpochDay(fromDay).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                today.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                (assetId, day, price) -> {
+                    Integer col = column.get(assetId);
+                    if (col == null || !(price > 0)) return;
+                    closes.computeIfAbsent(day.toEpochDay(), d -> {
+                        double[] row = new double[width];
+                        Arrays.fill(row, Double.NaN);
+                        return row;
+                    })[col] = price;
+                });
+        return closes;
+    }
+
+    /* SUMS */
+
+    private static void add(Window window, double[] row, int sign) {
+        int n = window.n;
+        for (int i = 0; i < n; i++) {
+            double ri = sign * row[i];
+            window.sum[i] += ri;
+            int base = i * n;
+            for (int j = 0; j <= i; j++) window.cross[base + j] += ri * row[j];
+        }
+    }
+
+    /**
+     * Recomputes the sums from the retained rows. The rows are copied asset-major so that each cross
+     * product is a dot product of two contiguous arrays, and the lower-triangle rows are spread over
+     * the common pool when the work is large enough.
+     */
+    private static void recomputeSums(Window window) {
+        int n = window.n;
+        int t = window.rows.size();
+        double[] columns = new double[n * t];
+        int r = 0;
+        for (Row row : window.rows) {
+            for (int i = 0; i < n; i++) columns[i * t + r] = row.returns[i];
+            r++;
+        }
+
+        double[] sum = new double[n];
+        double[] cross = new double[n * n];
+        IntStream rows = IntStream.range(0, n);
+        if ((long) n * n * t / 2 >= PARALLEL_THRESHOLD) rows = rows.parallel();
+        rows.forEach(i -> {
+            int a = i * t;
+            double s = 0;
+            for (int k = 0; k < t; k++) s += columns[a + k];
+            sum[i] = s;
+            for (int j = 0; j <= i; j++) {
+                int b = j * t;
+                double dot = 0;
+                for (int k = 0; k < t; k++) dot += columns[a + k] * columns[b + k];
+                cross[i * n + j] = dot;
+            }
+        });
+        window.sum = sum;
+        window.cross = cross;
+        window.foldedSinceRebuild = 0;
+    }
+
+    /**
+     * Pearson correlations from the running sums plus the provisional row, if any.
+     */
+    private static Double[][] correlations(Window window, double[] provisional) {
+        int n = window.n;
+        int m = window.rows.size() + (provisional == null ? 0 : 1);
+        Double[][] matrix = new Double[n][n];
+        if (m < 2) return matrix;
+
+        double[] sum = window.sum.clone();
+        if (provisional != null) for (int i = 0; i < n; i++) sum[i] += provisional[i];
+        double[] sd = new double[n];
+        for (int i = 0; i < n; i++) {
+            double variance = covariance(window, provisional, sum, m, i, i);
+            sd[i] = variance > 0 ? Math.sqrt(variance) : 0;
+        }
+
+        IntStream rows = IntStream.range(0, n);
+        if ((long) n * n >= PARALLEL_THRESHOLD) rows = rows.parallel();
+        rows.forEach(i -> {
+            for (int j = 0; j <= i; j++) {
+                Double c = null;
+                if (sd[i] > 0 && sd[j] > 0) {
+                    double v = covariance(window, provisional, sum, m, i, j) / (sd[i] * sd[j]);
+                    c = i == j ? 1.0 : Math.max(-1, Math.min(1, v));
+                }
+                matrix[i][j] = c;
+                matrix[j][i] = c;
+            }
+        });
+        return matrix;
+    }
+
+    private static double covariance(Window window, double[] provisional, double[] sum, int m, int i, int j) {
+        double cross = window.cross[i * window.n + j];
+        if (provisional != null) cross += provisional[i] * provisional[j];
+        return (cross - sum[i] * sum[j] / m) / (m - 1);
+    }
+
+    /* STATE */
+
+    /**
+     * One closed day: its returns and every asset's last close at the end of it, which a rewind restores.
+     */
+    private record Row(long day, double[] returns, double[] closes) {
+    }
+
+    /**
+     * Rolling window of one user's asset set. {@code lastDay} is the last day closes were read through;
+     * {@code lastClose} holds each asset's close at the end of it.
+     */
+    private static final class Window {
+        private final List<Long> requested;
+        private boolean built;
+        private Instant builtAt;
+        private long[] kept;
+        private List<Long> excluded;
+        private int n;
+        private long lastDay;
+        private double[] lastClose;
+        private double[] sum;
+        private double[] cross;
+        private double[] provisional;
+        private int foldedSinceRebuild;
+        private final ArrayDeque<Row> rows = new ArrayDeque<>();
+
+        private Window(List<Long> requested) {
+            this.requested = List.copyOf(requested);
+        }
+    }
+}
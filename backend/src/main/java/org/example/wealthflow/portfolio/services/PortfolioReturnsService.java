@@ -0,0 +1,462 @@
+package org.example.wealthflow.portfolio.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.fx.events.FxRatesRecordedEvent;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.portfolio.dtos.PortfolioReturnsDto;
+import org.example.wealthflow.portfolio.dtos.ReturnPointDto;
+import org.example.wealthflow.portfolio.events.PortfolioTransactionRecordedEvent;
+import org.example.wealthflow.portfolio.models.PortfolioTransaction;
+import org.example.wealthflow.portfolio.repositories.PortfolioTransactionRepository;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.pricehistory.models.PriceHistory;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Time-weighted and money-weighted returns from one streaming pass over a user's transactions
+ * merged with the prices of the assets they hold, both read through server-side cursors in time
+ * order. The pass folds events into holdings and closes one sub-period per UTC day, chain-linking
+ * daily returns (cash flows counted at the start of the day they happen).
+ * Closed days are cached per user together with the holdings at the end of the last one, so a
+ * later request only streams the days after it; a transaction dated before that point drops the entry.
+ * Transactions, FX rates and prices recorded on any node reach every node's cache through a broadcast
+ * outbox consumer: a price dated before an entry's open day drops the entries of users who traded that
+ * asset. Entries also expire after {@code portfolio.returns.cache-ttl-ms}, which bounds how long a
+ * skipped event can stay hidden.
+ * The current day is never cached: it is computed on a scratch copy of the cached state.
+ * Values are in the user's base currency: prices are kept in the asset's currency and converted at
+ * the FX rate in force at the end of each day, flows at the rate in force when the trade executed.
+ */
+@Service
+@Slf4j
+public class PortfolioReturnsService implements OutboxConsumer {
+
+    private static final double DAYS_PER_YEAR = 365.25;
+
+    private final PortfolioTransactionRepository transactionRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PositionRepository positionRepository;
+    private final AssetRepository assetRepository;
+    private final UserRepository userRepository;
+    private final FxRateService fxRateService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration cacheTtl;
+    private final Map<Long, Series> cache;
+
+    public PortfolioReturnsService(PortfolioTransactionRepository transactionRepository,
+                                   PriceHistoryRepository priceHistoryRepository,
+                                   PositionRepository positionRepository,
+                                   AssetRepository assetRepository,
+                                   UserRepository userRepository,
+                                   FxRateService fxRateService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${portfolio.returns.max-cached-users:10000}") int maxCachedUsers,
+                                   @Value("${portfolio.returns.cache-ttl-ms:3600000}") long cacheTtlMs) {
+        this.transactionRepository = transactionRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.positionRepository = positionRepository;
+        this.assetRepository = assetRepository;
+        this.userRepository = userRepository;
+        this.fxRateService = fxRateService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cacheTtl = Duration.ofMillis(Math.max(0, cacheTtlMs));
+        int capacity = Math.max(1, maxCachedUsers);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Series> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /* READ */
+
+    /**
+     * @param from first day of the range, or null for the user's first transaction
+     * @param to   last day of the range, or null for today
+     */
+    public PortfolioReturnsDto getReturns(Long userId, LocalDate from, LocalDate to) {
+        if (userId == null) throw new BadRequestException("userId required");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate end = (to == null || to.isAfter(today)) ? today : to;
+        if (from != null && from.isAfter(end)) throw new BadRequestException("Range start must not be after range end");
+        String currency = fxRateService.baseCurrencyOf(userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"))
+                .getBaseCurrency());
+
+        Instant now = Instant.now();
+        Series series = cache.compute(userId, (id, cached) ->
+                cached == null || !cached.currency.equals(currency) || cached.isExpired(now, cacheTtl)
+                        ? new Series(currency, now) : cached);
+        List<DailyPoint> points = new ArrayList<>();
+        synchronized (series) {
+            if (series.nextDay == null) {
+                Optional<Instant> first = transactionRepository.findFirstExecutedAt(userId);
+                if (first.isEmpty()) {
+                    cache.remove(userId, series);
+                    return empty(userId, currency, from == null ? end : from, end);
+                }
+                series.nextDay = first.get().atZone(ZoneOffset.UTC).toLocalDate();
+            }
+
+            LocalDate lastClosed = end.isBefore(today) ? end : today.minusDays(1);
+            if (!series.nextDay.isAfter(lastClosed)) {
+                advance(userId, series, lastClosed);
+            }
+            points.addAll(series.points);
+
+            if (!end.isBefore(today) && !series.nextDay.isAfter(today)) {
+                Series scratch = series.copyState();
+                advance(userId, scratch, today);
+                points.addAll(scratch.points);
+            }
+        }
+
+        return summarize(userId, currency, points, from == null ? points.isEmpty() ? end : points.get(0).date : from, end);
+    }
+
+    /* INVALIDATION */
+
+    /**
+     * Drops the cached series if the transaction falls into a day it already closed.
+     */
+    public void onTransaction(Long userId, Instant executedAt) {
+        Series series = cache.get(userId);
+        if (series == null) return;
+        synchronized (series) {
+            if (series.nextDay == null || executedAt.isBefore(series.nextDay.atStartOfDay(ZoneOffset.UTC).toInstant())) {
+                cache.remove(userId, series);
+            }
+        }
+    }
+
+    public void invalidate(Long userId) {
+        cache.remove(userId);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Rates recorded for an instant before today can change days that are already closed.
+     */
+    public void onFxRatesRecorded(FxRatesRecordedEvent event) {
+        if (event.getEarliestAsOf().isBefore(LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant())) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drops the series of users who traded one of the assets if the prices reach into a day they already closed.
+     */
+    public void onPricesRecorded(AssetPricesUpdatedEvent event) {
+        if (event.getEarliestAt() == null || event.getAssetIds().isEmpty()) return;
+        List<Map.Entry<Long, Series>> entries;
+        synchronized (cache) {
+            entries = new ArrayList<>(cache.entrySet());
+        }
+        for (Map.Entry<Long, Series> entry : entries) {
+            Series series = entry.getValue();
+            synchronized (series) {
+                if (series.nextDay == null || !event.getEarliestAt().isBefore(series.nextDay.atStartOfDay(ZoneOffset.UTC).toInstant())) continue;
+                for (Long assetId : event.getAssetIds()) {
+                    if (series.quantities.containsKey(assetId)) {
+                        cache.remove(entry.getKey(), series);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "portfolio-returns-cache";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == PortfolioTransactionRecordedEvent.class || eventType == FxRatesRecordedEvent.class
+                || eventType == AssetPricesUpdatedEvent.class;
+    }
+
+    /**
+     * This node's own transactions come back here too; by then the entry was already dropped or rebuilt
+     * past them, so applying them again is a no-op.
+     */
+    @Override
+    public void handle(OutboxMessage message) {
+        if (message.event() instanceof FxRatesRecordedEvent event) {
+            onFxRatesRecorded(event);
+        } else if (message.event() instanceof AssetPricesUpdatedEvent event) {
+            onPricesRecorded(event);
+        } else {
+            PortfolioTransactionRecordedEvent event = message.eventAs(PortfolioTransactionRecordedEvent.class);
+            onTransaction(event.getUserId(), event.getExecutedAt());
+        }
+    }
+
+    /* STREAMING PASS */
+
+    /**
+     * Streams events from the series' open day through the end of {@code lastDay} and closes every day in between.
+     */
+    private void advance(Long userId, Series series, LocalDate lastDay) {
+        Instant start = series.nextDay.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant end = lastDay.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        List<Long> assetIds = positionRepository.findAssetIdsByUser(userId);
+        series.currencies.putAll(assetRepository.findCurrenciesByIds(assetIds));
+        series.rates = fxRateService.asOf(start, end);
+
+        long[] events = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PortfolioTransaction> txs = transactionRepository.streamByUserBetween(userId, start, end);
+                 Stream<PriceHistory> prices = priceHistoryRepository.streamByAssetsBetween(assetIds, start, end)) {
+                Iterator<PortfolioTransaction> txIt = txs.iterator();
+                Iterator<PriceHistory> priceIt = prices.iterator();
+                PortfolioTransaction tx = txIt.hasNext() ? txIt.next() : null;
+                PriceHistory price = priceIt.hasNext() ? priceIt.next() : null;
+
+                while (tx != null || price != null) {
+                    // on equal timestamps the trade goes first, so its own price does not override the tick
+                    boolean takeTx = price == null || (tx != null && !tx.getExecutedAt().isAfter(price.getRecordedAt()));
+                    Instant at = takeTx ? tx.getExecutedAt() : price.getRecordedAt();
+                    series.closeDaysBefore(at.atZone(ZoneOffset.UTC).toLocalDate());
+                    if (takeTx) {
+                        series.apply(tx);
+                        tx = txIt.hasNext() ? txIt.next() : null;
+                    } else {
+                        series.price(price.getAsset().getId(), price.getPrice().doubleValue());
+                        price = priceIt.hasNext() ? priceIt.next() : null;
+                    }
+                    events[0]++;
+                }
+            }
+        });
+        series.closeDaysBefore(lastDay.plusDays(1));
+        series.rates = null;
+        log.debug("Returns for user={} advanced through {}: {} events", userId, lastDay, events[0]);
+    }
+
+    /* RESULT */
+
+    static PortfolioReturnsDto summarize(Long userId, String currency, List<DailyPoint> all, LocalDate from, LocalDate to) {
+        double startValue = 0;
+        List<DailyPoint> range = new ArrayList<>();
+        for (DailyPoint p : all) {
+            if (p.date.isBefore(from)) startValue = p.value;
+            else if (!p.date.isAfter(to)) range.add(p);
+        }
+        if (range.isEmpty()) return empty(userId, currency, from, to);
+
+        double growth = 1;
+        double netFlows = 0;
+        List<ReturnPointDto> points = new ArrayList<>(range.size());
+        for (DailyPoint p : range) {
+            growth *= 1 + p.dailyReturn;
+            netFlows += p.netFlow;
+            points.add(new ReturnPointDto(p.date, p.value, p.netFlow, p.dailyReturn, growth - 1));
+        }
+        double endValue = range.get(range.size() - 1).value;
+
+        return PortfolioReturnsDto.builder()
+                .userId(userId)
+                .from(from)
+                .to(to)
+                .currency(currency)
+                .startValue(startValue)
+                .endValue(endValue)
+                .netFlows(netFlows)
+                .timeWeightedReturn(growth - 1)
+                .moneyWeightedReturn(moneyWeightedReturn(from, startValue, range, endValue))
+                .points(points)
+                .build();
+    }
+
+    private static PortfolioReturnsDto empty(Long userId, String currency, LocalDate from, LocalDate to) {
+        return PortfolioReturnsDto.builder()
+                .userId(userId)
+                .from(from)
+                .to(to)
+                .currency(currency)
+                .points(List.of())
+                .build();
+    }
+
+    /**
+     * Annualized IRR of: the starting value invested at the start, each day's net flow invested at the
+     * start of that day, and the final value withdrawn at the end. Solved by bisection.
+     */
+    private static Double moneyWeightedReturn(LocalDate from, double startValue, List<DailyPoint> range, double endValue) {
+        int n = range.size() + 2;
+        double[] amounts = new double[n];
+        double[] years = new double[n];
+        amounts[0] = -startValue;
+        for (int i = 0; i < range.size(); i++) {
+            DailyPoint p = range.get(i);
+            amounts[i + 1] = -p.netFlow;
+            years[i + 1] = ChronoUnit.DAYS.between(from, p.date) / DAYS_PER_YEAR;
+        }
+        amounts[n - 1] = endValue;
+        years[n - 1] = (ChronoUnit.DAYS.between(from, range.get(range.size() - 1).date) + 1) / DAYS_PER_YEAR;
+
+        double lo = -0.999999;
+        double hi = 1_000;
+        double npvLo = npv(amounts, years, lo);
+        double npvHi = npv(amounts, years, hi);
+        if (Double.isNaN(npvLo) || Double.isNaN(npvHi) || Math.signum(npvLo) == Math.signum(npvHi)) return null;
+        for (int i = 0; i < 200 && hi - lo > 1e-10; i++) {
+            double mid = (lo + hi) / 2;
+            double npvMid = npv(amounts, years, mid);
+            if (Math.signum(npvMid) == Math.signum(npvLo)) {
+                lo = mid;
+                npvLo = npvMid;
+            } else {
+                hi = mid;
+            }
+        }
+        return (lo + hi) / 2;
+    }
+
+    private static double npv(double[] amounts, double[] years, double rate) {
+        double sum = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            if (amounts[i] != 0) sum += amounts[i] / Math.pow(1 + rate, years[i]);
+        }
+        return sum;
+    }
+
+    /* STATE */
+
+    record DailyPoint(LocalDate date, double value, double netFlow, double dailyReturn) {
+    }
+
+    /**
+     * Holdings and prices (in each asset's currency) at the start of {@code nextDay}, plus every day closed so far.
+     * {@code rates} is only set while a streaming pass is running.
+     */
+    private static final class Series {
+        private final String currency;
+        private final Instant loadedAt;
+        private LocalDate nextDay;
+        private final Map<Long, Double> quantities = new HashMap<>();
+        private final Map<Long, Double> prices = new HashMap<>();
+        private final Map<Long, String> currencies = new HashMap<>();
+        private FxRateService.AsOfRates rates;
+        private double previousValue;
+        private double dayFlow;
+        private final List<DailyPoint> points = new ArrayList<>();
+
+        private Series(String currency, Instant loadedAt) {
+            this.currency = currency;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isExpired(Instant now, Duration ttl) {
+            return loadedAt.plus(ttl).isBefore(now);
+        }
+
+        private void apply(PortfolioTransaction tx) {
+            Long assetId = tx.getAsset().getId();
+            double quantity = tx.getQuantity().doubleValue();
+            double price = tx.getPrice().doubleValue();
+            double fee = tx.getFee().doubleValue();
+            double fx = fx(assetId, tx.getExecutedAt());
+            if (tx.getSide() == PortfolioTransaction.Side.BUY) {
+                quantities.merge(assetId, quantity, Double::sum);
+                dayFlow += (quantity * price + fee) * fx;
+            } else {
+                quantities.merge(assetId, -quantity, Double::sum);
+                dayFlow -= (quantity * price - fee) * fx;
+            }
+            prices.put(assetId, price);
+        }
+
+        private void price(Long assetId, double price) {
+            prices.put(assetId, price);
+        }
+
+        private void closeDaysBefore(LocalDate day) {
+            while (nextDay.isBefore(day)) {
+                // FX moves change the value even on days without a price tick, so every day is revalued
+                double value = value(nextDay.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusMillis(1));
+                double invested = previousValue + dayFlow;
+                double dailyReturn = invested > 0 ? (value - invested) / invested : 0;
+                points.add(new DailyPoint(nextDay, value, dayFlow, dailyReturn));
+                previousValue = value;
+                dayFlow = 0;
+                nextDay = nextDay.plusDays(1);
+            }
+        }
+
+        private double value(Instant at) {
+            double total = 0;
+            for (Map.Entry<Long, Double> e : quantities.entrySet()) {
+                Double price = prices.get(e.getKey());
+                if (price != null) total += e.getValue() * price * fx(e.getKey(), at);
+            }
+            return total;
+        }
+
+        /**
+         * Rate from the asset's currency into the series currency at {@code at}. An asset without a
+         * currency is taken to be quoted in the series currency; a missing rate values the holding at zero.
+         */
+        private double fx(Long assetId, Instant at) {
+            String assetCurrency = currencies.get(assetId);
+            if (assetCurrency == null || assetCurrency.equalsIgnoreCase(currency)) return 1;
+            BigDecimal rate = rates == null ? null : rates.rate(assetCurrency, currency, at);
+            return rate == null ? 0 : rate.doubleValue();
+        }
+
+        /**
+         * Same holdings and open day, no closed days.
+         */
+        private Series copyState() {
+            Series copy = new Series(currency, loadedAt);
+            copy.nextDay = nextDay;
+            copy.quantities.putAll(quantities);
+            copy.prices.putAll(prices);
+            copy.currencies.putAll(currencies);
+            copy.previousValue = previousValue;
+            copy.dayFlow = dayFlow;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package org.example.wealthflow.portfolio.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.configs.PortfolioRiskConfig;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.portfolio.dtos.PortfolioRiskDto;
+import org.example.wealthflow.portfolio.dtos.RiskLevelDto;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo Value-at-Risk and CVaR of a user's open positions. Daily log returns of the held
+ * assets are estimated from price_history closes (mean vector and covariance matrix), the covariance
+ * is Cholesky-factored once, and correlated multivariate normal returns over the horizon are
+ * simulated on a fork-join pool. Every task draws from its own {@link SplittableRandom} split off its
+ * parent, and all model state lives in flat {@code double[]} arrays, so the inner loop neither
+ * allocates nor synchronizes. The RNG is seeded from the inputs, so the same inputs give the same estimate.
+ * Results are cached per user and reused until a held asset gets a new price or the positions or their
+ * values in the base currency change. A price written on any node for an earlier day (a backfill or a
+ * late tick, which leaves the latest price alone) reaches every node through a broadcast outbox consumer
+ * and drops the entries holding that asset.
+ */
+@Service
+@Slf4j
+public class PortfolioRiskService implements OutboxConsumer {
+
+    private static final int LEAF_PATHS = 2_048;
+    private static final double MIN_JITTER = 1e-12;
+
+    private final PositionRepository positionRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final UserRepository userRepository;
+    private final FxRateService fxRateService;
+    private final PortfolioRiskConfig config;
+    private final ForkJoinPool pool;
+    private final Map<Long, CachedRisk> cache;
+
+    public PortfolioRiskService(PositionRepository positionRepository,
+                                PriceHistoryRepository priceHistoryRepository,
+                                UserRepository userRepository,
+                                FxRateService fxRateService,
+                                PortfolioRiskConfig config) {
+        this.positionRepository = positionRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.userRepository = userRepository;
+        this.fxRateService = fxRateService;
+        this.config = config;
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        int capacity = Math.max(1, config.getMaxCachedUsers());
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedRisk> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /* READ */
+
+    public PortfolioRiskDto getRisk(Long userId) {
+        if (userId == null) throw new BadRequestException("userId required");
+        String currency = fxRateService.baseCurrencyOf(userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"))
+                .getBaseCurrency());
+        FxRateService.LatestRates rates = fxRateService.latest();
+
+        List<Position> positions = positionRepository.findByUserWithAssets(userId, false);
+        List<Long> assetIds = new ArrayList<>(positions.size());
+        double[] values = new double[positions.size()];
+        Instant lastPriceAt = Instant.EPOCH;
+        for (Position p : positions) {
+            BigDecimal price = p.getAsset().getLastPrice();
+            String assetCurrency = p.getAsset().getCurrency();
+            BigDecimal fx = assetCurrency == null ? BigDecimal.ONE : rates.rate(assetCurrency, currency);
+            if (price == null || fx == null) continue;
+            values[assetIds.size()] = p.getQuantity().multiply(price).multiply(fx).doubleValue();
+            assetIds.add(p.getAsset().getId());
+            if (p.getAsset().getLastPriceAt() != null && p.getAsset().getLastPriceAt().isAfter(lastPriceAt)) {
+                lastPriceAt = p.getAsset().getLastPriceAt();
+            }
+        }
+        values = Arrays.copyOf(values, assetIds.size());
+
+        long fingerprint = fingerprint(currency, assetIds, values, lastPriceAt);
+        CachedRisk cached = cache.get(userId);
+        if (cached != null && cached.fingerprint == fingerprint) return cached.result;
+
+        long started = System.nanoTime();
+        PortfolioRiskDto result = compute(userId, currency, assetIds, values, positions.size(), fingerprint);
+        cache.put(userId, new CachedRisk(fingerprint, List.copyOf(assetIds), result));
+        log.debug("Risk for user={} over {} assets, {} observations, {} paths in {} ms", userId,
+                result.getModelledPositions(), result.getObservations(), result.getPaths(), (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    /* INVALIDATION */
+
+    /**
+     * Drops the entries that modelled one of the assets; their return sample may have changed.
+     */
+    public void onPricesRecorded(AssetPricesUpdatedEvent event) {
+        if (event.getAssetIds() == null || event.getAssetIds().isEmpty()) return;
+        Set<Long> assetIds = new HashSet<>(event.getAssetIds());
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached.assetIds.stream().anyMatch(assetIds::contains));
+        }
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "portfolio-risk-cache";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == AssetPricesUpdatedEvent.class;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        onPricesRecorded(message.eventAs(AssetPricesUpdatedEvent.class));
+    }
+
+    /* ESTIMATION */
+
+    private PortfolioRiskDto compute(Long userId, String currency, List<Long> assetIds, double[] values,
+                                     int openPositions, long seed) {
+        int horizon = Math.max(1, config.getHorizonDays());
+        int paths = Math.max(1, config.getPaths());
+        PortfolioRiskDto.PortfolioRiskDtoBuilder result = PortfolioRiskDto.builder()
+                .userId(userId)
+                .currency(currency)
+                .horizonDays(horizon)
+                .computedAt(Instant.now());
+
+        ReturnSample sample = loadReturns(assetIds, values);
+        if (sample == null) {
+            return result.paths(0)
+                    .unmodelledPositions(openPositions)
+                    .levels(List.of())
+                    .build();
+        }
+
+        int n = sample.values.length;
+        double[] mean = new double[n];
+        double[] covariance = covariance(sample.returns, sample.observations, n, mean);
+        double[] cholesky = cholesky(covariance, n);
+
+        double[] drift = new double[n];
+        double scale = Math.sqrt(horizon);
+        for (int i = 0; i < n; i++) drift[i] = mean[i] * horizon;
+        for (int i = 0; i < cholesky.length; i++) cholesky[i] *= scale;
+
+        double[] losses = simulate(pool, drift, cholesky, sample.values, paths, seed);
+
+        List<RiskLevelDto> levels = new ArrayList<>(config.getConfidenceLevels().size());
+        for (double confidence : config.getConfidenceLevels()) {
+            if (!(confidence > 0 && confidence < 1)) continue;
+            int index = Math.min(paths - 1, Math.max(0, (int) Math.ceil(confidence * paths) - 1));
+            double tail = 0;
+            for (int i = index; i < paths; i++) tail += losses[i];
+            levels.add(new RiskLevelDto(confidence, Math.max(0, losses[index]), Math.max(0, tail / (paths - index))));
+        }
+
+        double total = 0;
+        for (double v : sample.values) total += v;
+        return result.portfolioValue(total)
+                .paths(paths)
+                .observations(sample.observations)
+                .modelledPositions(n)
+                .unmodelledPositions(openPositions - n)
+                .levels(levels)
+                .build();
+    }
+
+    /**
+     * Aligns daily closes of the assets on the days any of them traded (carrying the last close
+     * forward over another asset's gaps) from the first day all have a price, and turns them into a
+     * row-major {@code observations x assets} matrix of log returns. Assets with too little history are dropped.
+     *
+     * @return null when no asset has enough history
+     */
+    private ReturnSample loadReturns(List<Long> assetIds, double[] values) {
+        if (assetIds.isEmpty()) return null;
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate first = today.minusDays(Math.max(1, config.getLookbackDays()));
+        int span = (int) (today.toEpochDay() - first.toEpochDay()) + 1;
+        int minObservations = Math.max(2, config.getMinObservations());
+
+        Map<Long, Integer> column = new HashMap<>(assetIds.size() * 2);
+        for (int i = 0; i < assetIds.size(); i++) column.put(assetIds.get(i), i);
+        double[][] closes = new double[assetIds.size()][span];
+        for (double[] c : closes) Arrays.fill(c, Double.NaN);
+        boolean[] traded = new boolean[span];
+        int[] counts = new int[assetIds.size()];
+
+        priceHistoryRepository.forEachDailyClose(assetIds,
+                first.atStartOfDay(ZoneOffset.UTC).toInstant(),
+                today.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                (assetId, day, price) -> {
+                    Integer col = column.get(assetId);
+                    if (col == null || !(price > 0)) return;
+                    int d = (int) (day.toEpochDay() - first.toEpochDay());
+                    closes[col][d] = price;
+                    traded[d] = true;
+                    counts[col]++;
+                });
+
+        int[] kept = new int[assetIds.size()];
+        int n = 0;
+        int start = 0;
+        for (int i = 0; i < assetIds.size(); i++) {
+            if (counts[i] <= minObservations) continue;
+            kept[n++] = i;
+            int d = 0;
+            while (Double.isNaN(closes[i][d])) d++;
+            start = Math.max(start, d);
+        }
+        if (n == 0) return null;
+
+        int[] days = new int[span];
+        int dayCount = 0;
+        for (int d = start; d < span; d++) {
+            if (traded[d]) days[dayCount++] = d;
+        }
+        int observations = dayCount - 1;
+        if (observations < minObservations) return null;
+
+        double[] returns = new double[observations * n];
+        double[] keptValues = new double[n];
+        for (int k = 0; k < n; k++) {
+            double[] c = closes[kept[k]];
+            keptValues[k] = values[kept[k]];
+            int d0 = days[0];
+            while (Double.isNaN(c[d0])) d0--;
+            double previous = c[d0];
+            for (int t = 1; t < dayCount; t++) {
+                double close = c[days[t]];
+                if (Double.isNaN(close)) close = previous;
+                returns[(t - 1) * n + k] = Math.log(close / previous);
+                previous = close;
+            }
+        }
+        return new ReturnSample(returns, observations, keptValues);
+    }
+
+    /**
+     * Sample covariance of the row-major return matrix; fills {@code mean} as a side result.
+     */
+    static double[] covariance(double[] returns, int observations, int n, double[] mean) {
+        for (int t = 0; t < observations; t++) {
+            int row = t * n;
+            for (int i = 0; i < n; i++) mean[i] += returns[row + i];
+        }
+        for (int i = 0; i < n; i++) mean[i] /= observations;
+
+        double[] covariance = new double[n * n];
+        double[] centered = new double[n];
+        for (int t = 0; t < observations; t++) {
+            int row = t * n;
+            for (int i = 0; i < n; i++) centered[i] = returns[row + i] - mean[i];
+            for (int i = 0; i < n; i++) {
+                double ci = centered[i];
+                int base = i * n;
+                for (int j = 0; j <= i; j++) covariance[base + j] += ci * centered[j];
+            }
+        }
+        double divisor = Math.max(1, observations - 1);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double c = covariance[i * n + j] / divisor;
+                covariance[i * n + j] = c;
+                covariance[j * n + i] = c;
+            }
+        }
+        return covariance;
+    }
+
+    /**
+     * Lower-triangular Cholesky factor, row-major. Collinear or constant assets make the sample covariance
+     * only semi-definite, so a growing ridge is added to the diagonal until the factorization succeeds.
+     */
+    static double[] cholesky(double[] covariance, int n) {
+        double trace = 0;
+        for (int i = 0; i < n; i++) trace += covariance[i * n + i];
+        double jitter = 0;
+        while (true) {
+            double[] l = new double[n * n];
+            boolean ok = true;
+            for (int i = 0; i < n && ok; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double sum = covariance[i * n + j] + (i == j ? jitter : 0);
+                    for (int k = 0; k < j; k++) sum -= l[i * n + k] * l[j * n + k];
+                    if (i == j) {
+                        if (sum <= 0) {
+                            ok = false;
+                            break;
+                        }
+                        l[i * n + i] = Math.sqrt(sum);
+                    } else {
+                        l[i * n + j] = sum / l[j * n + j];
+                    }
+                }
+            }
+            if (ok) return l;
+            jitter = jitter == 0 ? Math.max(MIN_JITTER, trace / n * 1e-10) : jitter * 10;
+        }
+    }
+
+    /**
+     * Simulated horizon losses of {@code paths} correlated paths, sorted ascending.
+     */
+    static double[] simulate(ForkJoinPool pool, double[] drift, double[] cholesky, double[] values, int paths, long seed) {
+        double[] losses = new double[paths];
+        pool.invoke(new SimulationTask(drift, cholesky, values, losses, 0, paths, new SplittableRandom(seed)));
+        Arrays.parallelSort(losses);
+        return losses;
+    }
+
+    /* HELPER */
+
+    private static long fingerprint(String currency, List<Long> assetIds, double[] values, Instant lastPriceAt) {
+        long h = currency.hashCode();
+        for (int i = 0; i < values.length; i++) {
+            h = h * 31 + assetIds.get(i);
+            h = h * 31 + Double.doubleToLongBits(values[i]);
+        }
+        h = h * 31 + lastPriceAt.getEpochSecond();
+        return h * 31 + lastPriceAt.getNano();
+    }
+
+    private record ReturnSample(double[] returns, int observations, double[] values) {
+    }
+
+    private record CachedRisk(long fingerprint, List<Long> assetIds, PortfolioRiskDto result) {
+    }
+
+    /**
+     * Simulates paths [from, to) into {@code losses}. Halves until a range is at most {@link #LEAF_PATHS}
+     * paths, handing the left half a split of this task's generator.
+     */
+    private static final class SimulationTask extends RecursiveAction {
+        private final double[] drift;
+        private final double[] cholesky;
+        private final double[] values;
+        private final double[] losses;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        private SimulationTask(double[] drift, double[] cholesky, double[] values, double[] losses,
+                               int from, int to, SplittableRandom random) {
+            this.drift = drift;
+            this.cholesky = cholesky;
+            this.values = values;
+            this.losses = losses;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_PATHS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SimulationTask(drift, cholesky, values, losses, from, mid, random.split()),
+                        new SimulationTask(drift, cholesky, values, losses, mid, to, random));
+                return;
+            }
+            int n = values.length;
+            double[] z = new double[n];
+            for (int path = from; path < to; path++) {
+                for (int i = 0; i < n; i++) z[i] = random.nextGaussian();
+                double pnl = 0;
+                for (int i = 0; i < n; i++) {
+                    double x = drift[i];
+                    int row = i * n;
+                    for (int k = 0; k <= i; k++) x += cholesky[row + k] * z[k];
+                    pnl += values[i] * Math.expm1(x);
+                }
+                losses[path] = -pnl;
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.example.wealthflow.portfolio.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.dtos.PagedResultDto;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.portfolio.dtos.PortfolioSummaryDto;
+import org.example.wealthflow.portfolio.events.PortfolioTransactionRecordedEvent;
+import org.example.wealthflow.portfolio.dtos.PortfolioTransactionRequestDto;
+import org.example.wealthflow.portfolio.dtos.PortfolioTransactionResponseDto;
+import org.example.wealthflow.portfolio.dtos.PositionResponseDto;
+import org.example.wealthflow.portfolio.mappers.PortfolioTransactionMapper;
+import org.example.wealthflow.portfolio.models.PortfolioTransaction;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.portfolio.repositories.PortfolioTransactionRepository;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.user.models.User;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.example.wealthflow.user.services.UserStatusCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Buy/sell ledger and positions. Each transaction is folded into its position as it is recorded
+ * (average cost method, buy fees capitalized, sell fees charged to realized P&L) under a row lock
+ * on the position, so reading a portfolio never touches the ledger. A transaction dated before
+ * the position's latest one changes the cost history, so that position alone is replayed from its ledger.
+ * Position amounts stay in the asset's currency; portfolio totals are in the user's base currency at the latest FX rates.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioService {
+
+    private static final int QUANTITY_SCALE = 10;
+    private static final int PRICE_SCALE = 8;
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final PortfolioTransactionRepository transactionRepository;
+    private final PositionRepository positionRepository;
+    private final UserRepository userRepository;
+    private final UserStatusCache userStatusCache;
+    private final AssetRepository assetRepository;
+    private final PortfolioTransactionMapper transactionMapper;
+    private final PortfolioReturnsService returnsService;
+    private final FxRateService fxRateService;
+    private final OutboxService outboxService;
+
+    private static final int DEFAULT_PAGE = 0;
+    private static final int DEFAULT_SIZE = 20;
+    private static final int MAX_SIZE = 200;
+
+    /* CREATE */
+
+    @Transactional
+    public PortfolioTransactionResponseDto recordTransaction(Long userId, PortfolioTransactionRequestDto request) {
+        if (userId == null) throw new BadRequestException("userId required");
+        if (request == null || request.getAssetId() == null || request.getSide() == null) {
+            throw new BadRequestException("assetId and side required");
+        }
+        if (request.getQuantity() == null || request.getQuantity().signum() <= 0) {
+            throw new BadRequestException("Quantity must be greater than 0");
+        }
+        if (request.getPrice() == null || request.getPrice().signum() < 0) {
+            throw new BadRequestException("Price must not be negative");
+        }
+        BigDecimal fee = request.getFee() == null ? BigDecimal.ZERO : request.getFee();
+        if (fee.signum() < 0) throw new BadRequestException("Fee must not be negative");
+
+        Instant executedAt = request.getExecutedAt() == null ? Instant.now() : request.getExecutedAt();
+        if (executedAt.isAfter(Instant.now().plus(MAX_CLOCK_SKEW))) {
+            throw new BadRequestException("Transaction cannot be executed in the future");
+        }
+
+        Long assetId = request.getAssetId();
+        userStatusCache.requireActive(userId);
+        if (assetRepository.findById(assetId).isEmpty()) {
+            throw new NotFoundException("Asset not found with id " + assetId);
+        }
+
+        User user = new User();
+        user.setId(userId);
+        Asset asset = new Asset();
+        asset.setId(assetId);
+        PortfolioTransaction tx = PortfolioTransaction.builder()
+                .user(user)
+                .asset(asset)
+                .side(PortfolioTransaction.Side.valueOf(request.getSide().name()))
+                .quantity(request.getQuantity().setScale(QUANTITY_SCALE, RoundingMode.HALF_EVEN))
+                .price(request.getPrice().setScale(PRICE_SCALE, RoundingMode.HALF_EVEN))
+                .fee(fee.setScale(PRICE_SCALE, RoundingMode.HALF_EVEN))
+                .realizedPnl(BigDecimal.ZERO)
+                .executedAt(executedAt)
+                .build();
+
+        Position position = positionRepository.lockOrCreate(userId, assetId);
+        boolean backdated = position.getLastExecutedAt() != null && executedAt.isBefore(position.getLastExecutedAt());
+        if (backdated) {
+            transactionRepository.insert(tx);
+            tx.setRealizedPnl(replay(position, tx.getId()));
+        } else {
+            apply(position, tx);
+            transactionRepository.insert(tx);
+        }
+        positionRepository.update(position);
+        outboxService.append(new PortfolioTransactionRecordedEvent(userId, executedAt));
+        AfterCommit.run(() -> returnsService.onTransaction(userId, executedAt));
+
+        log.info("Portfolio transaction id={} user={} asset={} {} {} @ {}{}", tx.getId(), userId, assetId,
+                tx.getSide(), tx.getQuantity(), tx.getPrice(), backdated ? " (backdated, position replayed)" : "");
+        return transactionMapper.toResponse(tx);
+    }
+
+    /* READ */
+
+    @Transactional(readOnly = true)
+    public PortfolioSummaryDto getPortfolio(Long userId, boolean includeClosed) {
+        if (userId == null) throw new BadRequestException("userId required");
+
+        User owner = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
+        String baseCurrency = fxRateService.baseCurrencyOf(owner.getBaseCurrency());
+        FxRateService.LatestRates rates = fxRateService.latest();
+        List<Position> positions = positionRepository.findByUserWithAssets(userId, includeClosed);
+
+        List<PositionResponseDto> items = new ArrayList<>(positions.size());
+        BigDecimal totalCost = BigDecimal.ZERO;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalUnrealized = BigDecimal.ZERO;
+        BigDecimal totalRealized = BigDecimal.ZERO;
+        int unpriced = 0;
+        int unconverted = 0;
+
+        for (Position p : positions) {
+            String currency = p.getAsset().getCurrency();
+            BigDecimal fxRate = currency == null ? BigDecimal.ONE : rates.rate(currency, baseCurrency);
+            BigDecimal costBasis = p.getQuantity().multiply(p.getAverageCost()).setScale(PRICE_SCALE, RoundingMode.HALF_EVEN);
+            BigDecimal lastPrice = p.getAsset().getLastPrice();
+            BigDecimal marketValue = null;
+            BigDecimal unrealized = null;
+            BigDecimal marketValueInBase = null;
+            if (lastPrice != null) {
+                marketValue = p.getQuantity().multiply(lastPrice).setScale(PRICE_SCALE, RoundingMode.HALF_EVEN);
+                unrealized = marketValue.subtract(costBasis);
+            } else if (p.getQuantity().signum() > 0) {
+                unpriced++;
+            }
+
+            if (fxRate == null) {
+                if (p.getQuantity().signum() > 0 || p.getRealizedPnl().signum() != 0) unconverted++;
+            } else {
+                totalCost = totalCost.add(inBase(costBasis, fxRate));
+                totalRealized = totalRealized.add(inBase(p.getRealizedPnl(), fxRate));
+                if (marketValue != null) {
+                    marketValueInBase = inBase(marketValue, fxRate);
+                    totalValue = totalValue.add(marketValueInBase);
+                    totalUnrealized = totalUnrealized.add(inBase(unrealized, fxRate));
+                }
+            }
+
+            items.add(PositionResponseDto.builder()
+                    .assetId(p.getAsset().getId())
+                    .tickerSymbol(p.getAsset().getTickerSymbol())
+                    .assetName(p.getAsset().getName())
+                    .currency(currency)
+                    .quantity(p.getQuantity())
+                    .averageCost(p.getAverageCost())
+                    .costBasis(costBasis)
+                    .lastPrice(lastPrice)
+                    .lastPriceAt(p.getAsset().getLastPriceAt())
+                    .marketValue(marketValue)
+                    .unrealizedPnl(unrealized)
+                    .realizedPnl(p.getRealizedPnl())
+                    .transactionCount(p.getTransactionCount())
+                    .fxRate(fxRate)
+                    .marketValueInBase(marketValueInBase)
+                    .build());
+        }
+
+        return PortfolioSummaryDto.builder()
+                .userId(userId)
+                .baseCurrency(baseCurrency)
+                .positions(items)
+                .totalCostBasis(totalCost)
+                .totalMarketValue(totalValue)
+                .totalUnrealizedPnl(totalUnrealized)
+                .totalRealizedPnl(totalRealized)
+                .unpricedPositions(unpriced)
+                .unconvertedPositions(unconverted)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResultDto<PortfolioTransactionResponseDto> listTransactions(Long userId, Long assetId, Integer page, Integer size) {
+        if (userId == null) throw new BadRequestException("userId required");
+
+        int p = (page == null || page < 0) ? DEFAULT_PAGE : page;
+        int s = (size == null || size <= 0) ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
+
+        var paged = transactionRepository.findByUserIdWithTotal(userId, assetId, s, p * s);
+        List<PortfolioTransactionResponseDto> dtos = paged.getItems().stream()
+                .map(transactionMapper::toResponse)
+                .collect(Collectors.toList());
+
+        return PagedResultDto.<PortfolioTransactionResponseDto>builder()
+                .items(dtos)
+                .total(paged.getTotal())
+                .page(p)
+                .size(s)
+                .build();
+    }
+
+    /* HELPER */
+
+    private static BigDecimal inBase(BigDecimal amount, BigDecimal fxRate) {
+        return amount.multiply(fxRate).setScale(PRICE_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Folds one transaction into the position and sets the transaction's realized P&L.
+     */
+    private void apply(Position position, PortfolioTransaction tx) {
+        BigDecimal quantity = position.getQuantity();
+        BigDecimal averageCost = position.getAverageCost();
+
+        if (tx.getSide() == PortfolioTransaction.Side.BUY) {
+            BigDecimal newQuantity = quantity.add(tx.getQuantity());
+            BigDecimal totalCost = quantity.multiply(averageCost)
+                    .add(tx.getQuantity().multiply(tx.getPrice()))
+                    .add(tx.getFee());
+            position.setQuantity(newQuantity);
+            position.setAverageCost(totalCost.divide(newQuantity, PRICE_SCALE, RoundingMode.HALF_EVEN));
+            tx.setRealizedPnl(BigDecimal.ZERO);
+        } else {
+            if (tx.getQuantity().compareTo(quantity) > 0) {
+                throw new BadRequestException("Cannot sell " + tx.getQuantity().stripTrailingZeros().toPlainString()
+                        + " of asset " + tx.getAsset().getId() + " at " + tx.getExecutedAt()
+                        + ": position holds " + quantity.stripTrailingZeros().toPlainString());
+            }
+            BigDecimal realized = tx.getQuantity().multiply(tx.getPrice().subtract(averageCost))
+                    .subtract(tx.getFee())
+                    .setScale(PRICE_SCALE, RoundingMode.HALF_EVEN);
+            BigDecimal newQuantity = quantity.subtract(tx.getQuantity());
+            position.setQuantity(newQuantity);
+            if (newQuantity.signum() == 0) position.setAverageCost(BigDecimal.ZERO);
+            position.setRealizedPnl(position.getRealizedPnl().add(realized));
+            tx.setRealizedPnl(realized);
+        }
+
+        position.setTransactionCount(position.getTransactionCount() + 1);
+        if (position.getLastExecutedAt() == null || tx.getExecutedAt().isAfter(position.getLastExecutedAt())) {
+            position.setLastExecutedAt(tx.getExecutedAt());
+        }
+    }
+
+    /**
+     * Recomputes the position from its full ledger in execution order and rewrites the realized P&L
+     * of the sells whose value changed. A sell that the new order leaves uncovered rejects the whole write.
+     *
+     * @return realized P&L of the transaction {@code txId} after the replay
+     */
+    private BigDecimal replay(Position position, Long txId) {
+        List<PortfolioTransaction> ledger = transactionRepository.findByUserAndAssetOrdered(
+                position.getUser().getId(), position.getAsset().getId());
+
+        position.setQuantity(BigDecimal.ZERO);
+        position.setAverageCost(BigDecimal.ZERO);
+        position.setRealizedPnl(BigDecimal.ZERO);
+        position.setTransactionCount(0);
+        position.setLastExecutedAt(null);
+
+        List<PortfolioTransaction> changed = new ArrayList<>();
+        BigDecimal realized = BigDecimal.ZERO;
+        for (PortfolioTransaction tx : ledger) {
+            BigDecimal before = tx.getRealizedPnl();
+            apply(position, tx);
+            if (before == null || before.compareTo(tx.getRealizedPnl()) != 0) changed.add(tx);
+            if (tx.getId().equals(txId)) realized = tx.getRealizedPnl();
+        }
+        transactionRepository.updateRealizedPnl(changed);
+        return realized;
+    }
+}
@@ -0,0 +1,228 @@
+package org.example.wealthflow.portfolio.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.configs.PortfolioValuationConfig;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.portfolio.dtos.ValuationRunDto;
+import org.example.wealthflow.portfolio.models.PortfolioSnapshot;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.portfolio.repositories.PortfolioSnapshotRepository;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Values every portfolio and stores one snapshot per user per bucket. All last prices are read
+ * once into an immutable map before the run; users are split into contiguous id ranges and each
+ * range is handled by a worker of a bounded pool with one position range scan and one bulk
+ * snapshot upsert, so the database sees three statements per partition regardless of portfolio size.
+ * Values are converted into each user's base currency with the FX matrix taken at the start of the
+ * run; a position whose currency cannot be converted is counted as unpriced.
+ */
+@Service
+@Slf4j
+public class PortfolioValuationService {
+
+    private static final int SCALE = 8;
+
+    private final PositionRepository positionRepository;
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final AssetRepository assetRepository;
+    private final UserRepository userRepository;
+    private final FxRateService fxRateService;
+    private final PortfolioValuationConfig config;
+    private final Timer runTimer;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExecutorService workers;
+    private ExecutorService runner;
+
+    public PortfolioValuationService(PositionRepository positionRepository,
+                                     PortfolioSnapshotRepository snapshotRepository,
+                                     AssetRepository assetRepository,
+                                     UserRepository userRepository,
+                                     FxRateService fxRateService,
+                                     PortfolioValuationConfig config,
+                                     MeterRegistry meterRegistry) {
+        this.positionRepository = positionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.assetRepository = assetRepository;
+        this.userRepository = userRepository;
+        this.fxRateService = fxRateService;
+        this.config = config;
+        this.runTimer = meterRegistry.timer("wealthflow.portfolio.valuation.run");
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, config.getParallelism()), r -> {
+            Thread t = new Thread(r, "valuation-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "valuation-run");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.valuation.snapshot-interval-ms:3600000}",
+            initialDelayString = "${portfolio.valuation.snapshot-interval-ms:3600000}")
+    public void scheduledValuation() {
+        if (!config.isEnabled() || running.get()) return;
+        // the run waits for all partitions; keep that wait off the shared scheduler threads
+        runner.execute(this::valueAll);
+    }
+
+    /**
+     * Values all portfolios into the current snapshot bucket.
+     *
+     * @return run statistics, or null if a run is already in progress
+     */
+    public ValuationRunDto valueAll() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Portfolio valuation already running, skipping");
+            return null;
+        }
+        try {
+            return runTimer.record(this::run);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ValuationRunDto run() {
+        long started = System.nanoTime();
+        long bucket = Math.max(1, config.getSnapshotIntervalMs());
+        Instant takenAt = Instant.ofEpochMilli(Math.floorDiv(System.currentTimeMillis(), bucket) * bucket);
+
+        Map<Long, BigDecimal> prices = Map.copyOf(assetRepository.findLastPrices());
+        Map<Long, String> currencies = Map.copyOf(assetRepository.findCurrencies());
+        Pricing pricing = new Pricing(prices, currencies, fxRateService.latest());
+        List<Long> userIds = positionRepository.findUserIds();
+
+        int partitionSize = Math.max(1, config.getPartitionSize());
+        AtomicLong positions = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += partitionSize) {
+            Long first = userIds.get(from);
+            Long last = userIds.get(Math.min(userIds.size(), from + partitionSize) - 1);
+            pending.add(CompletableFuture.runAsync(() -> {
+                try {
+                    List<Position> rows = positionRepository.findByUserIdRange(first, last);
+                    Map<Long, String> baseCurrencies = userRepository.findBaseCurrenciesByIdRange(first, last);
+                    positions.addAndGet(rows.size());
+                    written.addAndGet(snapshotRepository.saveAll(value(rows, baseCurrencies, pricing, takenAt)));
+                } catch (RuntimeException ex) {
+                    failed.incrementAndGet();
+                    log.warn("Valuation of users [{}, {}] failed: {}", first, last, ex.getMessage());
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        double usersPerSecond = userIds.size() * 1_000_000_000d / elapsedNanos;
+        log.info("Portfolio valuation at {}: {} users, {} positions, {} prices, {} partitions ({} failed) in {} ms, {} users/s",
+                takenAt, userIds.size(), positions.get(), prices.size(), pending.size(), failed.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(usersPerSecond));
+
+        return ValuationRunDto.builder()
+                .takenAt(takenAt)
+                .users(userIds.size())
+                .positions(positions.get())
+                .snapshotsWritten(written.get())
+                .partitions(pending.size())
+                .failedPartitions(failed.get())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .usersPerSecond(usersPerSecond)
+                .build();
+    }
+
+    /**
+     * Folds positions, ordered by user, into one snapshot per user in that user's base currency.
+     */
+    private List<PortfolioSnapshot> value(List<Position> rows, Map<Long, String> baseCurrencies, Pricing pricing, Instant takenAt) {
+        List<PortfolioSnapshot> snapshots = new ArrayList<>();
+        PortfolioSnapshot current = null;
+        for (Position p : rows) {
+            Long userId = p.getUser().getId();
+            if (current == null || !current.getUserId().equals(userId)) {
+                current = PortfolioSnapshot.builder()
+                        .userId(userId)
+                        .takenAt(takenAt)
+                        .currency(fxRateService.baseCurrencyOf(baseCurrencies.get(userId)))
+                        .marketValue(BigDecimal.ZERO)
+                        .costBasis(BigDecimal.ZERO)
+                        .unrealizedPnl(BigDecimal.ZERO)
+                        .realizedPnl(BigDecimal.ZERO)
+                        .build();
+                snapshots.add(current);
+            }
+
+            String assetCurrency = pricing.currencies().get(p.getAsset().getId());
+            BigDecimal rate = assetCurrency == null ? BigDecimal.ONE : pricing.rates().rate(assetCurrency, current.getCurrency());
+            boolean open = p.getQuantity().signum() != 0;
+            if (open) current.setPositions(current.getPositions() + 1);
+            if (rate == null) {
+                if (open) current.setUnpricedPositions(current.getUnpricedPositions() + 1);
+                continue;
+            }
+
+            current.setRealizedPnl(current.getRealizedPnl().add(inBase(p.getRealizedPnl(), rate)));
+            if (!open) continue;
+
+            BigDecimal costBasis = inBase(p.getQuantity().multiply(p.getAverageCost()), rate);
+            current.setCostBasis(current.getCostBasis().add(costBasis));
+            BigDecimal price = pricing.prices().get(p.getAsset().getId());
+            if (price == null) {
+                current.setUnpricedPositions(current.getUnpricedPositions() + 1);
+                continue;
+            }
+            BigDecimal marketValue = inBase(p.getQuantity().multiply(price), rate);
+            current.setMarketValue(current.getMarketValue().add(marketValue));
+            current.setUnrealizedPnl(current.getUnrealizedPnl().add(marketValue.subtract(costBasis)));
+        }
+        return snapshots;
+    }
+
+    private static BigDecimal inBase(BigDecimal amount, BigDecimal rate) {
+        return amount.multiply(rate).setScale(SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Prices, asset currencies and FX rates read once per run and shared read-only by all partitions.
+     */
+    private record Pricing(Map<Long, BigDecimal> prices, Map<Long, String> currencies, FxRateService.LatestRates rates) {
+    }
+}
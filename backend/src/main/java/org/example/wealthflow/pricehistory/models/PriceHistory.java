@@ -9,6 +9,7 @@ import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -23,6 +24,8 @@ import java.time.Instant;
 @Table(name = "price_history", indexes = {
         @Index(columnList = "asset_id"),
         @Index(columnList = "recorded_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"asset_id", "recorded_at"})
 })
 @Getter
 @Setter
@@ -8,6 +8,7 @@ import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record3;
 import org.jooq.Result;
 import org.jooq.Table;
 import org.jooq.impl.DSL;
@@ -15,9 +16,12 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.table;
@@ -35,6 +39,9 @@ public class PriceHistoryRepository {
     private final Field<BigDecimal> PRICE = field("price", BigDecimal.class);
     private final Field<String> SOURCE = field("source", String.class);
 
+    private static final int INSERT_CHUNK = 5000;
+    private static final int STREAM_FETCH_SIZE = 2000;
+
     public PagedResultDto<PriceHistory> findByAssetIdOrderByRecordedAtDesc(Long assetId, int limit, int offset) {
         Condition cond = ASSET_ID.eq(assetId);
 
@@ -105,6 +112,67 @@ public class PriceHistoryRepository {
         }
     }
 
+    /**
+     * Inserts rows with one multi-row INSERT per chunk; generated ids are not read back.
+     * Rows whose (asset, recorded_at) already exists are skipped and not counted.
+     */
+    public int saveAll(List<PriceHistory> rows) {
+        if (rows == null || rows.isEmpty()) return 0;
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK) {
+            List<PriceHistory> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_CHUNK));
+            var insert = dsl.insertInto(PRICE_HISTORY, ASSET_ID, RECORDED_AT, PRICE, SOURCE);
+            for (PriceHistory ph : chunk) {
+                insert = insert.values(ph.getAsset().getId(), ph.getRecordedAt(), ph.getPrice(), ph.getSource());
+            }
+            inserted += insert.onConflictDoNothing().execute();
+        }
+        return inserted;
+    }
+
+    /**
+     * Prices of the given assets in [from, to) in time order, read lazily through a server-side cursor.
+     * The stream must be closed and consumed inside a transaction.
+     */
+    public Stream<PriceHistory> streamByAssetsBetween(Collection<Long> assetIds, Instant from, Instant to) {
+        if (assetIds == null || assetIds.isEmpty()) return Stream.empty();
+        return dsl.select(ID, ASSET_ID, RECORDED_AT, PRICE, SOURCE)
+                .from(PRICE_HISTORY)
+                .where(ASSET_ID.eq(DSL.any(assetIds.toArray(new Long[0]))))
+                .and(RECORDED_AT.ge(from))
+                .and(RECORDED_AT.lt(to))
+                .orderBy(RECORDED_AT.asc(), ID.asc())
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchStream()
+                .map(this::mapRecordToPriceHistory);
+    }
+
+    /**
+     * Last price of each UTC day in [from, to) for the given assets, ordered by asset then day,
+     * handed to {@code handler} as primitives while the rows are fetched.
+     */
+    public void forEachDailyClose(Collection<Long> assetIds, Instant from, Instant to, DailyCloseHandler handler) {
+        if (assetIds == null || assetIds.isEmpty()) return;
+        Field<LocalDate> day = field("cast({0} at time zone 'UTC' as date)", LocalDate.class, RECORDED_AT).as("day");
+        try (Stream<Record3<Long, LocalDate, BigDecimal>> rows = dsl.select(ASSET_ID, day, PRICE)
+                .distinctOn(ASSET_ID, day)
+                .from(PRICE_HISTORY)
+                .where(ASSET_ID.eq(DSL.any(assetIds.toArray(new Long[0]))))
+                .and(RECORDED_AT.ge(from))
+                .and(RECORDED_AT.lt(to))
+                .orderBy(ASSET_ID.asc(), day.asc(), RECORDED_AT.desc())
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchStream()) {
+            rows.forEach(r -> handler.accept(r.value1(), r.value2(), r.value3().doubleValue()));
+        }
+    }
+
+    @FunctionalInterface
+    public interface DailyCloseHandler {
+        void accept(long assetId, LocalDate day, double price);
+    }
+
     public boolean deleteById(Long id) {
         int deleted = dsl.deleteFrom(PRICE_HISTORY)
                 .where(ID.eq(id))
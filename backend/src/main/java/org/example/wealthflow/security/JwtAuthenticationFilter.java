@@ -1,5 +1,6 @@
 package org.example.wealthflow.security;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,10 +35,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (auth != null && auth.startsWith(prefix)) {
             String token = auth.substring(prefix.length());
             try {
-                if (jwtTokenService.validateToken(token)) {
-                    var authn = jwtTokenService.getAuthentication(token);
-                    SecurityContextHolder.getContext().setAuthentication(authn);
-                }
+                var authn = jwtTokenService.authenticate(token);
+                SecurityContextHolder.getContext().setAuthentication(authn);
+            } catch (JwtException | IllegalArgumentException ex) {
+                // same as before: a token that does not verify leaves the request anonymous
+                log.debug("JWT rejected: {}", ex.getMessage());
             } catch (Exception ex) {
                 SecurityContextHolder.clearContext();
                 log.debug("JWT authentication failed: {}", ex.getMessage());
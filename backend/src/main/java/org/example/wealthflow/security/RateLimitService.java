@@ -0,0 +1,119 @@
+package org.example.wealthflow.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.exceptions.TooManyRequestsException;
+import org.example.wealthflow.common.ratelimit.StripedBuckets;
+import org.example.wealthflow.configs.RateLimitConfig;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-IP limits for route groups and a per-login limit for failed sign-ins, both on lock-free
+ * token buckets. Route groups are resolved by longest path prefix, so a check is a few
+ * {@code startsWith} calls, a map lookup and a CAS. A login only gets a bucket once a password
+ * check for an existing account fails, so made-up logins cannot fill the buckets and push real
+ * accounts onto the shared overflow; they are left to the per-IP limit of the auth routes.
+ */
+@Component
+@Slf4j
+public class RateLimitService {
+
+    private final boolean enabled;
+    private final Prefix[] prefixes;
+    private final List<Route> routes = new ArrayList<>();
+    private final StripedBuckets loginBuckets;
+    private final Counter loginRejected;
+
+    public RateLimitService(RateLimitConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        List<Prefix> all = new ArrayList<>();
+        for (Map.Entry<String, RateLimitConfig.Group> e : config.getGroups().entrySet()) {
+            RateLimitConfig.Group g = e.getValue();
+            if (g.getPermitsPerSecond() <= 0 || g.getPaths().isEmpty()) continue;
+            Route route = new Route(e.getKey(),
+                    new StripedBuckets(g.getPermitsPerSecond(), g.getBurst(), config.getStripes(), config.getMaxKeys()),
+                    meterRegistry.counter("wealthflow.ratelimit.rejected", "group", e.getKey(), "key", "ip"));
+            routes.add(route);
+            g.getPaths().forEach(p -> all.add(new Prefix(p, route)));
+            meterRegistry.gauge("wealthflow.ratelimit.keys", List.of(Tag.of("group", e.getKey())),
+                    route.buckets(), StripedBuckets::size);
+        }
+        all.sort(Comparator.comparingInt((Prefix p) -> p.path().length()).reversed());
+        this.prefixes = all.toArray(new Prefix[0]);
+
+        RateLimitConfig.Limit login = config.getLogin();
+        this.loginBuckets = login.getPermitsPerSecond() > 0
+                ? new StripedBuckets(login.getPermitsPerSecond(), login.getBurst(), config.getStripes(), config.getMaxKeys())
+                : null;
+        this.loginRejected = meterRegistry.counter("wealthflow.ratelimit.rejected", "group", "login", "key", "login");
+        if (loginBuckets != null) meterRegistry.gauge("wealthflow.ratelimit.keys", List.of(Tag.of("group", "login")),
+                loginBuckets, StripedBuckets::size);
+
+        log.info("Rate limiting {}: groups {}, login limit {}", enabled ? "enabled" : "disabled",
+                routes.stream().map(Route::name).toList(), loginBuckets != null);
+    }
+
+    /* CHECK */
+
+    /**
+     * Route group of the path, or {@code null} if it is not limited.
+     */
+    public Route match(String path) {
+        if (!enabled || path == null) return null;
+        for (Prefix p : prefixes) {
+            if (path.startsWith(p.path())) return p.route();
+        }
+        return null;
+    }
+
+    public boolean tryAcquire(Route route, String clientIp) {
+        if (route.buckets().tryAcquire(clientIp == null ? "" : clientIp)) return true;
+        route.rejected().increment();
+        return false;
+    }
+
+    /**
+     * Checks, without counting it, that the login has failed attempts left, whoever sends it.
+     *
+     * @throws TooManyRequestsException if the login has used up its attempts
+     */
+    public void checkLogin(String login) {
+        if (!enabled || loginBuckets == null || login == null) return;
+        if (loginBuckets.permits(login.toLowerCase(Locale.ROOT))) return;
+        loginRejected.increment();
+        throw new TooManyRequestsException("Too many sign-in attempts, please retry later");
+    }
+
+    /**
+     * Counts a wrong password for an existing login against its attempts.
+     */
+    public void recordLoginFailure(String login) {
+        if (!enabled || loginBuckets == null || login == null) return;
+        loginBuckets.charge(login.toLowerCase(Locale.ROOT));
+    }
+
+    /* MAINTENANCE */
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:10000}")
+    public void evictIdle() {
+        int evicted = 0;
+        for (Route route : routes) evicted += route.buckets().evictIdle();
+        if (loginBuckets != null) evicted += loginBuckets.evictIdle();
+        if (evicted > 0) log.debug("Evicted {} idle rate limit buckets", evicted);
+    }
+
+    public record Route(String name, StripedBuckets buckets, Counter rejected) {
+    }
+
+    private record Prefix(String path, Route route) {
+    }
+}
@@ -18,4 +18,5 @@ public class UserResponseDto {
     private String fullName;
     private UserRoleDto role;
     private boolean deleted;
+    private String baseCurrency;
 }
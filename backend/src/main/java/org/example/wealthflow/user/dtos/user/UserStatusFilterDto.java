@@ -0,0 +1,16 @@
+package org.example.wealthflow.user.dtos.user;
+
+public enum UserStatusFilterDto {
+    ACTIVE, DELETED, ALL;
+
+    /**
+     * Value of {@code is_deleted} to match, or null for any.
+     */
+    public Boolean deleted() {
+        return switch (this) {
+            case ACTIVE -> false;
+            case DELETED -> true;
+            case ALL -> null;
+        };
+    }
+}
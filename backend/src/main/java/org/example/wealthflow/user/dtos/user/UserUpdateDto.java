@@ -1,6 +1,7 @@
 package org.example.wealthflow.user.dtos.user;
 
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,4 +22,6 @@ public class UserUpdateDto {
 
     @Size(max = 255, message = "Full name must be at most 255 characters")
     private String fullName;
+    @Pattern(regexp = "[A-Za-z0-9]{3,10}", message = "Base currency must be a 3-10 character currency code")
+    private String baseCurrency;
 }
@@ -0,0 +1,15 @@
+package org.example.wealthflow.user.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdentifiersTakenEvent {
+    /** null when only the email was taken */
+    private String login;
+    /** null when only the login was taken */
+    private String email;
+}
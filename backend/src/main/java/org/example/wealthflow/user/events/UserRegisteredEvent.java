@@ -2,10 +2,12 @@ package org.example.wealthflow.user.events;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 @Getter
+@NoArgsConstructor
 @AllArgsConstructor
 public class UserRegisteredEvent {
-    private final Long userId;
-    private final String email;
+    private Long userId;
+    private String email;
 }
@@ -0,0 +1,15 @@
+package org.example.wealthflow.user.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user was deleted, hard-deleted or restored; nodes drop what they cached about the user.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatusChangedEvent {
+    private Long userId;
+}
@@ -64,4 +64,7 @@ public class User {
 
     @Column(name = "is_deleted", nullable = false)
     private boolean deleted;
+
+    @Column(name = "base_currency", length = 10)
+    private String baseCurrency;
 }
@@ -2,20 +2,36 @@ package org.example.wealthflow.user.repositories;
 
 import lombok.RequiredArgsConstructor;
 import org.example.wealthflow.user.models.User;
+import org.jooq.CommonTableExpression;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.SQLDialect;
 import org.jooq.Table;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+import static org.jooq.impl.DSL.exists;
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.list;
 import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.noCondition;
 import static org.jooq.impl.DSL.notExists;
+import static org.jooq.impl.DSL.select;
 import static org.jooq.impl.DSL.selectOne;
 import static org.jooq.impl.DSL.table;
 import org.jooq.Record;
+import org.jooq.Record3;
 
 @Repository
 @RequiredArgsConstructor
@@ -31,6 +47,15 @@ public class UserRepository {
     private final Field<String> EMAIL = field("email", String.class);
     private final Field<String> FULL_NAME = field("full_name", String.class);
     private final Field<Boolean> IS_DELETED = field("is_deleted", Boolean.class);
+    private final Field<String> BASE_CURRENCY = field("base_currency", String.class);
+    private final List<Field<?>> LISTED_FIELDS = List.of(ID, ROLE, LOGIN, EMAIL, FULL_NAME, IS_DELETED, BASE_CURRENCY);
+    // predicates inlined to match listingCondition, or the planner cannot use the partial indexes
+    private final List<ListingIndex> LISTING_INDEXES = List.of(
+            new ListingIndex("users_active_id_idx", List.of(ID), IS_DELETED.eq(inline(false))),
+            new ListingIndex("users_active_role_id_idx", List.of(ROLE, ID), IS_DELETED.eq(inline(false))),
+            new ListingIndex("users_deleted_id_idx", List.of(ID), IS_DELETED.eq(inline(true))));
+    /** arbitrary constant naming the advisory lock held while the listing indexes are built */
+    private static final long LISTING_INDEX_LOCK = 0x757365726c6973L;
 
     public Optional<User> findById(Long id) {
         return dslContext.selectFrom(USERS)
@@ -38,6 +63,32 @@ public class UserRepository {
                 .fetchOptional(this::mapRecordToUser);
     }
 
+    /**
+     * Role and deleted flag of the user, nothing else.
+     */
+    public Optional<User> findStatusById(Long id) {
+        return dslContext.select(ID, ROLE, IS_DELETED)
+                .from(USERS)
+                .where(ID.eq(id))
+                .fetchOptional(r -> User.builder()
+                        .id(r.value1())
+                        .role(User.Role.valueOf(r.value2()))
+                        .deleted(r.value3())
+                        .build());
+    }
+
+    /**
+     * Chosen base currency of the users in [fromId, toId] that have one.
+     */
+    public Map<Long, String> findBaseCurrenciesByIdRange(Long fromId, Long toId) {
+        Map<Long, String> currencies = new HashMap<>();
+        dslContext.select(ID, BASE_CURRENCY)
+                .from(USERS)
+                .where(ID.between(fromId, toId).and(BASE_CURRENCY.isNotNull()))
+                .forEach(r -> currencies.put(r.value1(), r.value2()));
+        return currencies;
+    }
+
     public Optional<User> findByLogin(String login) {
         return dslContext.selectFrom(USERS)
                 .where(LOGIN.eq(login))
@@ -52,16 +103,63 @@ public class UserRepository {
 
     public boolean existsByLogin(String login) {
         return dslContext.fetchExists(
-                dslContext.selectFrom(USERS).where(LOGIN.eq(login))
+                selectOne().from(USERS).where(LOGIN.eq(login))
         );
     }
 
     public boolean existsByEmail(String email) {
         return dslContext.fetchExists(
-                dslContext.selectFrom(USERS).where(EMAIL.eq(email))
+                selectOne().from(USERS).where(EMAIL.eq(email))
         );
     }
 
+    /**
+     * Streams login and email of users with id above {@code afterId} through a server-side cursor
+     * (call it inside a transaction) and returns the highest id seen, or {@code afterId} if none.
+     */
+    public long forEachLoginAndEmail(long afterId, BiConsumer<String, String> loginAndEmail) {
+        long maxId = afterId;
+        try (Cursor<Record3<Long, String, String>> cursor = dslContext.select(ID, LOGIN, EMAIL)
+                .from(USERS)
+                .where(ID.gt(afterId))
+                .fetchSize(10_000)
+                .fetchLazy()) {
+            for (Record3<Long, String, String> r : cursor) {
+                loginAndEmail.accept(r.value2(), r.value3());
+                maxId = Math.max(maxId, r.value1());
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * Inserts the user unless its login or email is taken, in one statement. The existence checks
+     * run against the statement's snapshot, i.e. without the new row, so on a conflict they tell
+     * which value collided; both are false when the colliding row was committed concurrently.
+     */
+    public InsertResult insertIfAbsent(User user) {
+        CommonTableExpression<?> inserted = name("inserted").as(dslContext.insertInto(USERS)
+                .set(ROLE, user.getRole().name())
+                .set(LOGIN, user.getLogin())
+                .set(PASSWORD_HASH, user.getPasswordHash())
+                .set(SALT, user.getSalt())
+                .set(EMAIL, user.getEmail())
+                .set(FULL_NAME, user.getFullName())
+                .set(IS_DELETED, false)
+                .set(BASE_CURRENCY, user.getBaseCurrency())
+                .onConflictDoNothing()
+                .returning(ID));
+        Record3<Long, Boolean, Boolean> r = dslContext.with(inserted)
+                .select(
+                        field(select(inserted.field(ID)).from(inserted)).as("id"),
+                        field(exists(selectOne().from(USERS).where(LOGIN.eq(user.getLogin())))).as("login_taken"),
+                        field(exists(selectOne().from(USERS).where(EMAIL.eq(user.getEmail())))).as("email_taken"))
+                .fetchOne();
+        Long id = r == null ? null : r.value1();
+        if (id != null) user.setId(id);
+        return new InsertResult(id, r != null && Boolean.TRUE.equals(r.value2()), r != null && Boolean.TRUE.equals(r.value3()));
+    }
+
     public User save(User user) {
         if (user.getId() == null) {
             Long id = dslContext.insertInto(USERS)
@@ -72,6 +170,7 @@ public class UserRepository {
                     .set(EMAIL, user.getEmail())
                     .set(FULL_NAME, user.getFullName())
                     .set(IS_DELETED, false)
+                    .set(BASE_CURRENCY, user.getBaseCurrency())
                     .returning(ID)
                     .fetchOne(ID);
             user.setId(id);
@@ -84,12 +183,23 @@ public class UserRepository {
                     .set(EMAIL, user.getEmail())
                     .set(FULL_NAME, user.getFullName())
                     .set(IS_DELETED, user.isDeleted())
+                    .set(BASE_CURRENCY, user.getBaseCurrency())
                     .where(ID.eq(user.getId()))
                     .execute();
         }
         return user;
     }
 
+    /**
+     * Replaces the password hash only if it is still {@code expectedHash}, so a rehash never overwrites a password change.
+     */
+    public boolean updatePasswordHashIfUnchanged(Long id, String expectedHash, String newHash) {
+        return dslContext.update(USERS)
+                .set(PASSWORD_HASH, newHash)
+                .where(ID.eq(id).and(PASSWORD_HASH.eq(expectedHash)))
+                .execute() > 0;
+    }
+
     public boolean deleteById(Long id) {
         int deletedRows = dslContext.deleteFrom(USERS)
                 .where(ID.eq(id))
@@ -129,15 +239,74 @@ public class UserRepository {
         return rows > 0;
     }
 
-    public List<User> findAll() {
-        return dslContext.selectFrom(USERS)
-                .fetch(this::mapRecordToUser);
+    /**
+     * One page of users by id, with only the listed columns (no password hash or salt) and
+     * {@code role}/{@code deleted} filters where non-null. Keyset pagination on {@code id}: pass the
+     * last id of the previous page, or null for the first page. Returns up to {@code limit + 1} rows
+     * so the caller can tell whether more follow.
+     */
+    public List<User> findListedPage(User.Role role, Boolean deleted, Long afterId, int limit) {
+        Condition cond = listingCondition(role, deleted);
+        if (afterId != null) cond = cond.and(ID.gt(afterId));
+        return dslContext.select(LISTED_FIELDS)
+                .from(USERS)
+                .where(cond)
+                .orderBy(ID.asc())
+                .limit(limit + 1)
+                .fetch(this::mapRecordToListedUser);
     }
 
-    public List<User> findAllActive() {
-        return dslContext.selectFrom(USERS)
-                .where(IS_DELETED.eq(false))
-                .fetch(this::mapRecordToUser);
+    /**
+     * Same rows as {@link #findListedPage} without a limit, streamed through a server-side cursor;
+     * call it inside a transaction to keep memory flat.
+     */
+    public void forEachListed(User.Role role, Boolean deleted, Consumer<User> consumer) {
+        try (Cursor<Record> cursor = dslContext.select(LISTED_FIELDS)
+                .from(USERS)
+                .where(listingCondition(role, deleted))
+                .orderBy(ID.asc())
+                .fetchSize(1_000)
+                .fetchLazy()) {
+            for (Record r : cursor) {
+                consumer.accept(mapRecordToListedUser(r));
+            }
+        }
+    }
+
+    /**
+     * Partial indexes behind the listing: active users by id and by (role, id), and the (few)
+     * deleted users by id. Listing all users walks the primary key.
+     * <p>
+     * Built with CREATE INDEX CONCURRENTLY so writes to users are not blocked meanwhile; it cannot
+     * run inside a transaction block, so this must be called without one. A build that failed leaves
+     * an invalid index behind, which is dropped and built again. Everything runs on one connection
+     * holding a session advisory lock, so nodes starting together never drop each other's build in progress.
+     *
+     * @return names of the indexes built, empty if they all existed or another node holds the lock
+     */
+    public List<String> createListingIndexes() {
+        return dslContext.connectionResult(connection -> {
+            DSLContext session = DSL.using(connection, SQLDialect.POSTGRES);
+            if (!Boolean.TRUE.equals(session.select(field("pg_try_advisory_lock({0})", Boolean.class, inline(LISTING_INDEX_LOCK)))
+                    .fetchOne(0, Boolean.class))) {
+                return List.of();
+            }
+            try {
+                List<String> built = new ArrayList<>();
+                for (ListingIndex index : LISTING_INDEXES) {
+                    Boolean valid = session.resultQuery("select i.indisvalid from pg_index i join pg_class c on c.oid = i.indexrelid "
+                            + "where c.relname = {0} and pg_table_is_visible(c.oid)", inline(index.name())).fetchOne(0, Boolean.class);
+                    if (Boolean.TRUE.equals(valid)) continue;
+                    if (valid != null) session.execute("drop index concurrently if exists {0}", name(index.name()));
+                    session.execute("create index concurrently if not exists {0} on {1} ({2}) where {3}",
+                            name(index.name()), USERS, list(index.columns()), index.where());
+                    built.add(index.name());
+                }
+                return built;
+            } finally {
+                session.select(field("pg_advisory_unlock({0})", Boolean.class, inline(LISTING_INDEX_LOCK))).fetch();
+            }
+        });
     }
 
     public boolean updateLoginIfAvailable(Long userId, String newLogin) {
@@ -151,6 +320,29 @@ public class UserRepository {
 
     }
 
+    /**
+     * Filters are inlined rather than bound: the planner can only match a partial index's
+     * predicate against a literal, and a generic plan for a bound parameter would ignore it.
+     */
+    private Condition listingCondition(User.Role role, Boolean deleted) {
+        Condition cond = noCondition();
+        if (deleted != null) cond = cond.and(IS_DELETED.eq(inline(deleted)));
+        if (role != null) cond = cond.and(ROLE.eq(inline(role.name())));
+        return cond;
+    }
+
+    private User mapRecordToListedUser(Record record) {
+        return User.builder()
+                .id(record.get(ID))
+                .role(User.Role.valueOf(record.get(ROLE)))
+                .login(record.get(LOGIN))
+                .email(record.get(EMAIL))
+                .fullName(record.get(FULL_NAME))
+                .deleted(record.get(IS_DELETED))
+                .baseCurrency(record.get(BASE_CURRENCY))
+                .build();
+    }
+
     private User mapRecordToUser(Record record) {
         return User.builder()
                 .id(record.get(ID))
@@ -161,6 +353,16 @@ public class UserRepository {
                 .email(record.get(EMAIL))
                 .fullName(record.get(FULL_NAME))
                 .deleted(record.get(IS_DELETED))
+                .baseCurrency(record.get(BASE_CURRENCY))
                 .build();
     }
+
+    /**
+     * Outcome of {@link #insertIfAbsent}: {@code id} is null when nothing was inserted.
+     */
+    public record InsertResult(Long id, boolean loginTaken, boolean emailTaken) {
+    }
+
+    private record ListingIndex(String name, List<Field<?>> columns, Condition where) {
+    }
 }
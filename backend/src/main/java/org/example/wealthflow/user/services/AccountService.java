@@ -2,6 +2,7 @@ package org.example.wealthflow.user.services;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.wealthflow.auth.services.PasswordService;
+import org.example.wealthflow.auth.services.TokenRevocationService;
 import org.example.wealthflow.user.dtos.account.AccountResponseDto;
 import org.example.wealthflow.user.dtos.account.ChangeLoginRequestDto;
 import org.example.wealthflow.user.dtos.account.ChangePasswordRequestDto;
@@ -25,11 +26,20 @@ public class AccountService {
 
     private final UserRepository userRepository;
     private final PasswordService passwordService;
+    private final TokenRevocationService revocationService;
+    private final UserAvailabilityService availabilityService;
+    private final UserStatusCache userStatusCache;
 
     @Autowired
-    public AccountService(UserRepository userRepository, PasswordService passwordService) {
+    public AccountService(UserRepository userRepository, PasswordService passwordService,
+                          TokenRevocationService revocationService,
+                          UserAvailabilityService availabilityService,
+                          UserStatusCache userStatusCache) {
         this.userRepository = userRepository;
         this.passwordService = passwordService;
+        this.revocationService = revocationService;
+        this.availabilityService = availabilityService;
+        this.userStatusCache = userStatusCache;
     }
 
     @Transactional
@@ -40,6 +50,7 @@ public class AccountService {
 
         String newLogin = dto.getNewLogin().trim();
 
+        userStatusCache.requireActive(userId);
         User user = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
 
         if (Objects.equals(user.getLogin(), newLogin)) {
@@ -56,6 +67,7 @@ public class AccountService {
             if (!updated) {
                 throw new AlreadyExistsException("Login already exists");
             }
+            availabilityService.markTaken(newLogin, null);
             log.info("User id={} changed login to {}", userId, newLogin);
             return AccountResponseDto.builder()
                     .message("Login changed successfully")
@@ -76,6 +88,7 @@ public class AccountService {
         if (dto.getNewPassword().equals(dto.getCurrentPassword()))
             throw new BadRequestException("New password must be different from current password");
 
+        userStatusCache.requireActive(userId);
         User user = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
 
         boolean ok = passwordService.verifyPassword(dto.getCurrentPassword(), user.getSalt(), user.getPasswordHash());
@@ -89,6 +102,7 @@ public class AccountService {
         user.setPasswordHash(newHash);
 
         userRepository.save(user);
+        revocationService.revokeAllIssuedBefore(userId, Instant.now());
         log.info("User id={} changed password", userId);
 
         return AccountResponseDto.builder()
@@ -0,0 +1,156 @@
+package org.example.wealthflow.user.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.utils.BloomFilter;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.user.events.UserIdentifiersTakenEvent;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Answers "is this login / email free?" from Bloom filters of the taken values, so most free values
+ * (the usual case while someone types a new login) are confirmed without a query; a possible hit is
+ * checked against the database. Values taken on this node are added as they are written; each write
+ * also appends a {@link UserIdentifiersTakenEvent} to the outbox, which a broadcast consumer adds on
+ * every node, so registrations and login/email changes made elsewhere are seen however their ids
+ * and commits interleave. The filters are rebuilt periodically so values freed by deletes stop
+ * costing a query. The answer is advisory: registration itself relies on the unique constraints.
+ */
+@Service
+@Slf4j
+public class UserAvailabilityService implements OutboxConsumer {
+
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Counter filteredOut;
+    private final Counter queried;
+
+    private volatile Filters filters;
+    /** filters being rebuilt; values taken meanwhile go into both, as the rebuild's snapshot may miss them */
+    private volatile Filters building;
+    private volatile long maxSeenId;
+
+    public UserAvailabilityService(UserRepository userRepository,
+                                   OutboxService outboxService,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${user.availability.expected-users:1000000}") long expectedUsers,
+                                   @Value("${user.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedUsers = Math.max(1, expectedUsers);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filteredOut = meterRegistry.counter("wealthflow.user.availability.checks", "source", "filter");
+        this.queried = meterRegistry.counter("wealthflow.user.availability.checks", "source", "database");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${user.availability.rebuild-interval-ms:3600000}",
+            initialDelayString = "${user.availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        try {
+            long started = System.nanoTime();
+            long size = Math.max(expectedUsers, (long) (maxSeenId * 1.5));
+            Filters next = new Filters(BloomFilter.create(size, falsePositiveRate), BloomFilter.create(size, falsePositiveRate));
+            building = next;
+            Long maxId = transactionTemplate.execute(status -> userRepository.forEachLoginAndEmail(0, next::add));
+            Filters previous = filters;
+            filters = next;
+            maxSeenId = maxId == null ? 0 : maxId;
+            if (previous == null) {
+                log.info("User availability filters built up to id {} in {} ms", maxSeenId, (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to build user availability filters: {}", ex.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    /* READ */
+
+    public boolean isLoginAvailable(String login) {
+        if (login == null || login.isBlank()) return false;
+        Filters current = filters;
+        if (current != null && !current.logins().mightContain(login)) {
+            filteredOut.increment();
+            return true;
+        }
+        queried.increment();
+        return !userRepository.existsByLogin(login);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (email == null || email.isBlank()) return false;
+        Filters current = filters;
+        if (current != null && !current.emails().mightContain(email)) {
+            filteredOut.increment();
+            return true;
+        }
+        queried.increment();
+        return !userRepository.existsByEmail(email);
+    }
+
+    /* UPDATE */
+
+    /**
+     * Marks values as taken here at once and, through the outbox, on every node once the caller's
+     * transaction commits; must be called inside the transaction that writes them. A value that
+     * ends up free only costs a query until the next rebuild.
+     */
+    public void markTaken(String login, String email) {
+        if (login == null && email == null) return;
+        add(login, email);
+        outboxService.append(new UserIdentifiersTakenEvent(login, email));
+    }
+
+    private void add(String login, String email) {
+        Filters current = filters;
+        if (current != null) current.add(login, email);
+        Filters next = building;
+        if (next != null && next != current) next.add(login, email);
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "user-availability-filters";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == UserIdentifiersTakenEvent.class;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        UserIdentifiersTakenEvent event = message.eventAs(UserIdentifiersTakenEvent.class);
+        add(event.getLogin(), event.getEmail());
+    }
+
+    private record Filters(BloomFilter logins, BloomFilter emails) {
+        void add(String login, String email) {
+            if (login != null) logins.add(login);
+            if (email != null) emails.add(email);
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package org.example.wealthflow.user.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.example.wealthflow.auth.services.PasswordService;
+import org.example.wealthflow.auth.services.TokenRevocationService;
 import org.example.wealthflow.user.dtos.user.UserRequestDto;
+import org.example.wealthflow.common.dtos.CursorPageDto;
+import org.example.wealthflow.common.utils.KeysetCursor;
 import org.example.wealthflow.user.dtos.user.UserResponseDto;
+import org.example.wealthflow.user.dtos.user.UserRoleDto;
+import org.example.wealthflow.user.dtos.user.UserStatusFilterDto;
 import org.example.wealthflow.user.dtos.user.UserUpdateDto;
 import org.example.wealthflow.common.exceptions.AlreadyExistsException;
 import org.example.wealthflow.common.exceptions.BadRequestException;
@@ -12,9 +19,16 @@ import org.example.wealthflow.user.mappers.UserMapper;
 import org.example.wealthflow.user.models.User;
 import org.example.wealthflow.user.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,29 +36,49 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordService passwordService;
+    private final TokenRevocationService revocationService;
+    private final UserAvailabilityService availabilityService;
+    private final ObjectMapper objectMapper;
+    private final UserStatusCache userStatusCache;
 
     @Autowired
     public UserService(UserRepository userRepository,
                        UserMapper userMapper,
-                       PasswordService passwordService) {
+                       PasswordService passwordService,
+                       TokenRevocationService revocationService,
+                       UserAvailabilityService availabilityService,
+                       ObjectMapper objectMapper,
+                       UserStatusCache userStatusCache) {
         this.passwordService = passwordService;
+        this.revocationService = revocationService;
+        this.availabilityService = availabilityService;
+        this.objectMapper = objectMapper;
+        this.userStatusCache = userStatusCache;
         this.userMapper = userMapper;
         this.userRepository = userRepository;
     }
 
     /* CREATE */
 
+    /**
+     * Inserts the user in one statement that also reports a login/email collision. Values already
+     * known to be taken are rejected before the password is hashed; that check usually answers
+     * from memory.
+     */
     @Transactional
     public UserResponseDto create(UserRequestDto dto) {
         if (dto == null) throw new BadRequestException("Registration data is required");
 
-        if (userRepository.existsByLogin(dto.getLogin())) {
+        if (!availabilityService.isLoginAvailable(dto.getLogin())) {
             throw new AlreadyExistsException("Login already taken");
         }
-        if (userRepository.existsByEmail(dto.getEmail())) {
+        if (!availabilityService.isEmailAvailable(dto.getEmail())) {
             throw new AlreadyExistsException("Email already registered");
         }
 
@@ -56,9 +90,15 @@ public class UserService {
         user.setPasswordHash(hash);
         user.setDeleted(false);
 
-        User savedUser = userRepository.save(user);
-        log.info("Registered {}: id={}, login={}", savedUser.getRole().toString(), savedUser.getId(), savedUser.getLogin());
-        return userMapper.toResponse(savedUser);
+        UserRepository.InsertResult result = userRepository.insertIfAbsent(user);
+        if (result.id() == null) {
+            if (result.loginTaken()) throw new AlreadyExistsException("Login already taken");
+            if (result.emailTaken()) throw new AlreadyExistsException("Email already registered");
+            throw new AlreadyExistsException("Login or email already exists");
+        }
+        availabilityService.markTaken(user.getLogin(), user.getEmail());
+        log.info("Registered {}: id={}, login={}", user.getRole().toString(), user.getId(), user.getLogin());
+        return userMapper.toResponse(user);
     }
 
     /* READ */
@@ -75,15 +115,61 @@ public class UserService {
         return userMapper.toResponse(user);
     }
 
+    /**
+     * Every user in one list. Unbounded: prefer {@link #listPage} or {@link #exportUsers} on large tables.
+     */
     @Transactional(readOnly = true)
     public List<UserResponseDto> listAll(boolean includeSoftDeleted) {
-        List<User> users;
-        if(includeSoftDeleted) {
-            users = userRepository.findAll();
-        } else {
-            users = userRepository.findAllActive();
+        List<UserResponseDto> users = new ArrayList<>();
+        userRepository.forEachListed(null, includeSoftDeleted ? null : false, u -> users.add(userMapper.toResponse(u)));
+        return users;
+    }
+
+    /**
+     * Page of users ordered by id, optionally filtered by role and status. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserResponseDto> listPage(UserRoleDto role, UserStatusFilterDto status, String cursor, Integer size) {
+        int s = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        Long afterId = KeysetCursor.decodeId(cursor);
+
+        List<User> rows = userRepository.findListedPage(toRole(role), statusOrActive(status).deleted(), afterId, s);
+        boolean hasMore = rows.size() > s;
+        List<UserResponseDto> items = (hasMore ? rows.subList(0, s) : rows).stream()
+                .map(userMapper::toResponse)
+                .collect(Collectors.toList());
+
+        return CursorPageDto.<UserResponseDto>builder()
+                .items(items)
+                .size(s)
+                .nextCursor(hasMore ? KeysetCursor.encodeId(items.get(items.size() - 1).getId()) : null)
+                .build();
+    }
+
+    /**
+     * Writes matching users to {@code out} as a JSON array while they are read from the database,
+     * so memory does not grow with the number of users. Meant to back a streaming response body.
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(UserRoleDto role, UserStatusFilterDto status, OutputStream out) {
+        long[] written = new long[1];
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            userRepository.forEachListed(toRole(role), statusOrActive(status).deleted(), u -> {
+                try {
+                    json.writeObject(userMapper.toResponse(u));
+                    written[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            json.writeEndArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        return users.stream().map(userMapper::toResponse).collect(Collectors.toList());
+        log.info("Exported {} users (role={}, status={})", written[0], role, statusOrActive(status));
+        return written[0];
     }
 
     /* UPDATE */
@@ -93,13 +179,17 @@ public class UserService {
         User user = loadById(userId);
 
         if (dto.getEmail() != null && !dto.getEmail().equalsIgnoreCase(user.getEmail())) {
-            if (userRepository.existsByEmail(dto.getEmail())) {
+            if (!availabilityService.isEmailAvailable(dto.getEmail())) {
                 throw new AlreadyExistsException("Email already registered");
             }
         }
 
+        if (dto.getBaseCurrency() != null) {
+            dto.setBaseCurrency(dto.getBaseCurrency().trim().toUpperCase());
+        }
         userMapper.updateFromDto(dto, user);
         User savedUser = userRepository.save(user);
+        availabilityService.markTaken(null, savedUser.getEmail());
         log.info("Updated profile for user id={}", userId);
         return userMapper.toResponse(savedUser);
     }
@@ -109,7 +199,11 @@ public class UserService {
     @Transactional
     public boolean softDelete(Long id) {
         boolean softDeleted = userRepository.softDeleteById(id);
-        if (softDeleted) log.info("Soft deleted user id={}", id);
+        if (softDeleted) {
+            userStatusCache.invalidate(id);
+            revocationService.revokeAllIssuedBefore(id, Instant.now());
+            log.info("Soft deleted user id={}", id);
+        }
         return softDeleted;
     }
 
@@ -117,14 +211,46 @@ public class UserService {
     @Transactional
     public boolean hardDelete(Long id) {
         boolean hardDeleted = userRepository.deleteById(id);
-        if (hardDeleted) log.info("Hard deleted user id={}", id);
+        if (hardDeleted) {
+            userStatusCache.invalidate(id);
+            revocationService.revokeAllIssuedBefore(id, Instant.now());
+            log.info("Hard deleted user id={}", id);
+        }
         return hardDeleted;
     }
 
     @Transactional
     public boolean restore(Long id) {
         boolean restored = userRepository.restoreById(id);
-        if (restored) log.info("Restored user id={}", id);
+        if (restored) {
+            userStatusCache.invalidate(id);
+            log.info("Restored user id={}", id);
+        }
         return restored;
     }
+
+    /* HELPER */
+
+    /**
+     * Not transactional: the indexes are built concurrently, which PostgreSQL refuses inside a transaction.
+     * A failure does not stop the application, the listing only falls back to slower plans until the
+     * next start builds the missing indexes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createListingIndexes() {
+        try {
+            List<String> built = userRepository.createListingIndexes();
+            if (!built.isEmpty()) log.info("Built user listing indexes {}", built);
+        } catch (RuntimeException ex) {
+            log.error("Failed to build user listing indexes; listings run without them until the next start", ex);
+        }
+    }
+
+    private static User.Role toRole(UserRoleDto role) {
+        return role == null ? null : User.Role.valueOf(role.name());
+    }
+
+    private static UserStatusFilterDto statusOrActive(UserStatusFilterDto status) {
+        return status == null ? UserStatusFilterDto.ACTIVE : status;
+    }
 }
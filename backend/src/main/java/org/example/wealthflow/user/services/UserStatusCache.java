@@ -0,0 +1,152 @@
+package org.example.wealthflow.user.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.wealthflow.common.exceptions.NotFoundException;
+import org.example.wealthflow.common.utils.AfterCommit;
+import org.example.wealthflow.outbox.services.OutboxConsumer;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.user.events.UserStatusChangedEvent;
+import org.example.wealthflow.user.models.User;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Role and deleted flag by user id, for the many places that only need to know a user exists and
+ * is active. Entries are loaded on first use and dropped when a node deletes or restores the user:
+ * at once on that node, and on every other one when the {@link UserStatusChangedEvent} reaches it
+ * through a broadcast outbox consumer. Entries also expire after {@code ttl}, which bounds how long
+ * a missed event can go unnoticed. A load that overlaps an invalidation is not cached, so a stale
+ * row read before a delete committed cannot outlive it.
+ * Missing users are not cached: their id may be assigned later. Token cutoffs are not repeated
+ * here; {@link org.example.wealthflow.auth.services.TokenRevocationService} keeps them in memory.
+ */
+@Component
+@Slf4j
+public class UserStatusCache implements OutboxConsumer {
+
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserStatusCache(UserRepository userRepository,
+                           OutboxService outboxService,
+                           MeterRegistry meterRegistry,
+                           @Value("${user.status-cache.max-size:100000}") int maxSize,
+                           @Value("${user.status-cache.ttl-ms:60000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.hits = meterRegistry.counter("wealthflow.user.status.cache", "result", "hit");
+        this.misses = meterRegistry.counter("wealthflow.user.status.cache", "result", "miss");
+        meterRegistry.gauge("wealthflow.user.status.cache.size", entries, Map::size);
+    }
+
+    /* READ */
+
+    public Optional<UserStatus> get(Long userId) {
+        if (userId == null) return Optional.empty();
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(userId);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            hits.increment();
+            return Optional.of(cached.status());
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<UserStatus> loaded = userRepository.findStatusById(userId)
+                .map(u -> new UserStatus(u.getRole(), u.isDeleted()));
+        if (loaded.isEmpty()) {
+            entries.remove(userId);
+        } else if (generation.get() == loadedAt) {
+            if (entries.size() >= maxSize) makeRoom(now);
+            entries.put(userId, new Entry(loaded.get(), now + ttlMillis));
+        }
+        return loaded;
+    }
+
+    public boolean isActive(Long userId) {
+        return get(userId).map(s -> !s.deleted()).orElse(false);
+    }
+
+    /**
+     * @throws NotFoundException if the user does not exist or is deleted
+     */
+    public void requireActive(Long userId) {
+        if (!isActive(userId)) throw new NotFoundException("User not found");
+    }
+
+    /* UPDATE */
+
+    /**
+     * Forgets the user now and again once the current transaction commits, so neither a concurrent
+     * load nor a read before the commit leaves the old status behind. Other nodes forget it once the
+     * transaction's outbox event reaches them; call inside the transaction that changes the user.
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        forget(userId);
+        AfterCommit.run(() -> forget(userId));
+        outboxService.append(new UserStatusChangedEvent(userId));
+    }
+
+    /* OUTBOX */
+
+    @Override
+    public String name() {
+        return "user-status-cache";
+    }
+
+    @Override
+    public boolean broadcast() {
+        return true;
+    }
+
+    @Override
+    public boolean accepts(Class<?> eventType) {
+        return eventType == UserStatusChangedEvent.class;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        forget(message.eventAs(UserStatusChangedEvent.class).getUserId());
+    }
+
+    /* HELPER */
+
+    private void forget(Long userId) {
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(e -> e.expiresAtMillis() <= now);
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 8);
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public record UserStatus(User.Role role, boolean deleted) {
+    }
+
+    private record Entry(UserStatus status, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.wealthflow.asset.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.wealthflow.asset.dtos.AssetImportRejectionDto;
+import org.example.wealthflow.asset.dtos.AssetImportResultDto;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AssetImportServiceTest {
+
+    private static final String HEADER = "ticker_symbol,name,type,currency\n";
+
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private final List<Asset> written = new ArrayList<>();
+    private AssetImportService service;
+
+    @BeforeEach
+    void setUp() {
+        when(assetRepository.upsertBatchByTicker(anyList())).thenAnswer(invocation -> {
+            List<Asset> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+        service = new AssetImportService(assetRepository, new ObjectMapper());
+    }
+
+    @Test
+    void quotedFieldsMayHoldLineBreaksCommasAndQuotes() {
+        AssetImportResultDto result = importCsv(HEADER
+                + "AAPL,\"Apple Inc.\r\nCommon Stock\",STOCK,usd\r\n"
+                + "BRK,\"Berkshire, \"\"B\"\" shares\",STOCK,USD\n");
+
+        assertThat(result.getTotalRows()).isEqualTo(2);
+        assertThat(result.getRejected()).isZero();
+        assertThat(written).extracting(Asset::getName)
+                .containsExactly("Apple Inc.\nCommon Stock", "Berkshire, \"B\" shares");
+        assertThat(written.get(0).getCurrency()).isEqualTo("USD");
+    }
+
+    @Test
+    void rejectionsReportTheLineTheRecordStartsOn() {
+        AssetImportResultDto result = importCsv(HEADER
+                + "AAPL,\"Apple\n\nInc.\",STOCK,USD\n"
+                + "\n"
+                + "BAD,Bad Type,BOND,USD\n");
+
+        assertThat(result.getTotalRows()).isEqualTo(2);
+        assertThat(result.getRejections()).extracting(AssetImportRejectionDto::getLine).containsExactly(6L);
+        assertThat(written).extracting(Asset::getTickerSymbol).containsExactly("AAPL");
+    }
+
+    @Test
+    void quoteLeftOpenAtTheEndRejectsOnlyItsRow() {
+        AssetImportResultDto result = importCsv(HEADER
+                + "AAPL,Apple,STOCK,USD\n"
+                + "MSFT,\"Microsoft,STOCK,USD\n"
+                + "NVDA,Nvidia,STOCK,USD\n");
+
+        assertThat(result.getTotalRows()).isEqualTo(2);
+        assertThat(result.getRejections()).singleElement().satisfies(r -> {
+            assertThat(r.getLine()).isEqualTo(3);
+            assertThat(r.getReason()).contains("not closed");
+        });
+        assertThat(written).extracting(Asset::getTickerSymbol).containsExactly("AAPL");
+    }
+
+    @Test
+    void runawayQuoteIsGivenUpAndReadingResumes() {
+        StringBuilder csv = new StringBuilder(HEADER).append("MSFT,\"Microsoft,STOCK,USD\n");
+        String filler = "x".repeat(99) + "\n";
+        for (int i = 0; i < 200; i++) csv.append(filler);
+        csv.append("NVDA,Nvidia,STOCK,USD\n");
+
+        AssetImportResultDto result = importCsv(csv.toString());
+
+        assertThat(result.getRejections()).extracting(AssetImportRejectionDto::getLine).first().isEqualTo(2L);
+        assertThat(written).extracting(Asset::getTickerSymbol).containsExactly("NVDA");
+    }
+
+    private AssetImportResultDto importCsv(String csv) {
+        return service.importAssets(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), AssetImportService.Format.CSV);
+    }
+}
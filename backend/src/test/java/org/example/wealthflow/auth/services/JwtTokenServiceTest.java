@@ -0,0 +1,82 @@
+package org.example.wealthflow.auth.services;
+
+import io.jsonwebtoken.JwtException;
+import org.example.wealthflow.configs.JwtTokenConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtTokenServiceTest {
+
+    private final TokenRevocationService revocationService = mock(TokenRevocationService.class);
+    private JwtTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(3_600);
+    }
+
+    @Test
+    void cachedTokenIsStillCheckedForRevocation() {
+        String token = service.generateToken(42L, "USER");
+        assertThat(service.verify(token).userId()).isEqualTo(42L);
+
+        when(revocationService.isRevoked(anyLong(), anyString(), any())).thenReturn(true);
+
+        assertThatThrownBy(() -> service.verify(token)).isInstanceOf(JwtException.class);
+        assertThat(service.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void cachedTokenCarriesItsPrincipal() {
+        String token = service.generateToken(7L, "ADMIN");
+        service.verify(token);
+
+        JwtTokenService.VerifiedToken cached = service.verify(token);
+
+        assertThat(cached.userId()).isEqualTo(7L);
+        assertThat(cached.authorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(cached.tokenId()).isNotBlank();
+    }
+
+    @Test
+    void alteredTokenIsRejectedAfterTheOriginalWasCached() {
+        String token = service.generateToken(42L, "USER");
+        service.verify(token);
+        int last = token.length() - 1;
+
+        String tampered = token.substring(0, last) + (token.charAt(last) == 'A' ? 'B' : 'A');
+        // both would encode to the same US-ASCII bytes
+        String nonAscii = token.substring(0, last) + 'é';
+        String otherNonAscii = token.substring(0, last) + 'ü';
+
+        assertThat(service.validateToken(tampered)).isFalse();
+        assertThat(service.validateToken(nonAscii)).isFalse();
+        assertThat(service.validateToken(otherNonAscii)).isFalse();
+        assertThat(service.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = service(-60).generateToken(42L, "USER");
+
+        assertThat(service.validateToken(token)).isFalse();
+    }
+
+    private JwtTokenService service(long expirationSeconds) {
+        JwtTokenConfig config = new JwtTokenConfig();
+        config.setSecret("AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=");
+        config.setExpirationSeconds(expirationSeconds);
+        config.setVerifiedCacheSize(16);
+        JwtTokenService jwt = new JwtTokenService(config, revocationService);
+        jwt.init();
+        return jwt;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.wealthflow.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.configs.PasswordHashingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordServiceTest {
+
+    private PasswordService lower;
+    private PasswordService higher;
+
+    @AfterEach
+    void tearDown() {
+        if (lower != null) lower.shutdown();
+        if (higher != null) higher.shutdown();
+    }
+
+    @Test
+    void rehashesOnlyUpToTheConfiguredCost() {
+        lower = service(4);
+        higher = service(5);
+        String salt = lower.generateSalt();
+        String weak = lower.hashPassword("secret-password", salt);
+        String strong = higher.hashPassword("secret-password", salt);
+
+        PasswordService.Verification upgraded = higher.verify("secret-password", salt, weak);
+        assertThat(upgraded.matches()).isTrue();
+        assertThat(PasswordService.costOf(upgraded.rehash())).isEqualTo(5);
+
+        PasswordService.Verification kept = lower.verify("secret-password", salt, strong);
+        assertThat(kept.matches()).isTrue();
+        assertThat(kept.rehash()).isNull();
+
+        assertThat(higher.verify("wrong-password", salt, weak).rehash()).isNull();
+    }
+
+    private static PasswordService service(int strength) {
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setStrength(strength);
+        config.setThreads(1);
+        PasswordService service = new PasswordService(config, new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.wealthflow.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.auth.models.RevokedToken;
+import org.example.wealthflow.auth.models.TokenRevocationCutoff;
+import org.example.wealthflow.auth.repositories.TokenRevocationRepository;
+import org.example.wealthflow.configs.JwtTokenConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationRepository repository = mock(TokenRevocationRepository.class);
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.now()).thenAnswer(invocation -> Instant.now());
+        when(repository.findRevokedSince(any())).thenReturn(List.of());
+        when(repository.findCutoffsSince(any(), any())).thenReturn(List.of());
+        JwtTokenConfig config = new JwtTokenConfig();
+        config.setExpirationSeconds(3_600);
+        config.setClockSkewSeconds(60);
+        // a filter sized far below the revoked set, so its rebuild is exercised
+        service = new TokenRevocationService(repository, config, new SimpleMeterRegistry(), 16, 0.01);
+        service.init();
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndOthersAreNot() {
+        service.revokeToken("jti-1", 1L, Instant.now().plusSeconds(600));
+
+        assertThat(service.isRevoked(1L, "jti-1", Instant.now())).isTrue();
+        assertThat(service.isRevoked(1L, "jti-2", Instant.now())).isFalse();
+        assertThat(service.isRevoked(1L, null, Instant.now())).isFalse();
+    }
+
+    @Test
+    void alreadyExpiredTokenIsNotStored() {
+        service.revokeToken("jti-1", 1L, Instant.now().minusSeconds(1));
+
+        verify(repository, never()).revokeToken(anyString(), any(), any());
+        assertThat(service.isRevoked(1L, "jti-1", Instant.now())).isFalse();
+    }
+
+    @Test
+    void cutoffIsTruncatedToTheSecond() {
+        Instant at = Instant.parse("2024-06-01T12:00:00.700Z");
+
+        service.revokeAllIssuedBefore(5L, at);
+
+        verify(repository).raiseCutoff(5L, Instant.parse("2024-06-01T12:00:00Z"));
+        assertThat(service.isRevoked(5L, "a", Instant.parse("2024-06-01T11:59:59Z"))).isTrue();
+        // iat has second precision: a token issued in the same second, e.g. on re-login, stays valid
+        assertThat(service.isRevoked(5L, "b", Instant.parse("2024-06-01T12:00:00Z"))).isFalse();
+        assertThat(service.isRevoked(5L, "c", null)).isTrue();
+        assertThat(service.isRevoked(6L, "d", Instant.parse("2024-06-01T11:00:00Z"))).isFalse();
+    }
+
+    @Test
+    void cutoffOnlyMovesForward() {
+        service.revokeAllIssuedBefore(5L, Instant.parse("2024-06-01T12:00:00Z"));
+        service.revokeAllIssuedBefore(5L, Instant.parse("2024-06-01T10:00:00Z"));
+
+        assertThat(service.isRevoked(5L, "a", Instant.parse("2024-06-01T11:00:00Z"))).isTrue();
+    }
+
+    @Test
+    void revocationsFromOtherNodesArriveByPolling() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        Instant cutoff = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        when(repository.findRevokedSince(any())).thenReturn(List.of(
+                RevokedToken.builder().jti("remote").userId(2L).expiresAt(expiresAt).build()));
+        when(repository.findCutoffsSince(any(), any())).thenReturn(List.of(
+                TokenRevocationCutoff.builder().userId(3L).notBefore(cutoff).build()));
+
+        service.poll();
+
+        assertThat(service.isRevoked(2L, "remote", Instant.now())).isTrue();
+        assertThat(service.isRevoked(3L, "x", cutoff.minusSeconds(1))).isTrue();
+    }
+
+    @Test
+    void sweepRebuildsTheFilterWithoutLosingLiveRevocations() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        List<String> revoked = IntStream.range(0, 500).mapToObj(i -> "live-" + i).toList();
+        revoked.forEach(jti -> service.revokeToken(jti, 1L, expiresAt));
+        when(repository.findRevokedSince(any())).thenReturn(List.of(
+                RevokedToken.builder().jti("expired").userId(1L).expiresAt(Instant.now().minusSeconds(1)).build()));
+        service.poll();
+        assertThat(service.isRevoked(1L, "expired", Instant.now())).isTrue();
+
+        service.sweep();
+
+        assertThat(revoked).allMatch(jti -> service.isRevoked(1L, jti, Instant.now()));
+        assertThat(service.isRevoked(1L, "expired", Instant.now())).isFalse();
+        assertThat(IntStream.range(0, 500).filter(i -> service.isRevoked(1L, "other-" + i, Instant.now()))).isEmpty();
+        verify(repository).deleteObsolete(any());
+    }
+
+    @Test
+    void startupLoadsStoredRevocations() {
+        when(repository.findRevokedSince(eq(Instant.EPOCH))).thenReturn(List.of(
+                RevokedToken.builder().jti("stored").userId(4L).expiresAt(Instant.now().plusSeconds(60)).build()));
+        JwtTokenConfig config = new JwtTokenConfig();
+        config.setExpirationSeconds(3_600);
+        TokenRevocationService restarted = new TokenRevocationService(repository, config, new SimpleMeterRegistry(), 16, 0.01);
+
+        restarted.init();
+
+        assertThat(restarted.isRevoked(4L, "stored", Instant.now())).isTrue();
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.wealthflow.common.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedBucketsTest {
+
+    @Test
+    void checkingNeverCreatesBuckets() {
+        StripedBuckets buckets = new StripedBuckets(0.001, 3, 4, 16);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(buckets.permits("nobody-" + i)).isTrue();
+        }
+        assertThat(buckets.size()).isZero();
+    }
+
+    @Test
+    void chargesUseUpTheKeyAndGoIntoDebt() {
+        StripedBuckets buckets = new StripedBuckets(0.001, 3, 4, 16);
+
+        for (int i = 0; i < 5; i++) buckets.charge("alice");
+
+        assertThat(buckets.permits("alice")).isFalse();
+        assertThat(buckets.permits("bob")).isTrue();
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    void fullStripeDropsIdleBucketsBeforeFallingBackToOverflow() throws InterruptedException {
+        // two stripes of one bucket each; a bucket is idle again 50 ms after its charge
+        StripedBuckets buckets = new StripedBuckets(20, 1, 2, 2);
+        List<String> sameStripe = IntStream.range(0, 100).mapToObj(i -> "user-" + i)
+                .filter(key -> (key.hashCode() * 0x9E3779B9) >>> 31 == 0)
+                .limit(3)
+                .toList();
+
+        buckets.charge(sameStripe.get(0));
+        Thread.sleep(120);
+        buckets.charge(sameStripe.get(1));
+
+        assertThat(buckets.permits(sameStripe.get(1))).isFalse();
+        // the idle bucket made room, so the overflow bucket shared by the stripe was never charged
+        assertThat(buckets.permits(sameStripe.get(2))).isTrue();
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+}
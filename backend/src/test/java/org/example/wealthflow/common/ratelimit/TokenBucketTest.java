@@ -0,0 +1,88 @@
+package org.example.wealthflow.common.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsTheBurstThenRejects() {
+        TokenBucket bucket = new TokenBucket(0.001, 3);
+
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        assertThat(bucket.hasPermit()).isFalse();
+        assertThat(bucket.isFull()).isFalse();
+    }
+
+    @Test
+    void neverGrantsMoreThanTheBurstAtOnce() {
+        TokenBucket bucket = new TokenBucket(0.001, 3);
+
+        assertThat(bucket.tryAcquire(4)).isFalse();
+        assertThat(bucket.tryAcquire(3)).isTrue();
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(5, 1);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        Thread.sleep(250);
+        assertThat(bucket.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void reservationsGoIntoDebt() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+
+        assertThat(bucket.reserve(1)).isLessThanOrEqualTo(0);
+        long wait = bucket.reserve(2);
+
+        assertThat(wait).isBetween(1_500_000_000L, 2_000_000_000L);
+        assertThat(bucket.hasPermit()).isFalse();
+    }
+
+    @Test
+    void concurrentCallersShareTheBurstExactly() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.001, 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire()) granted.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertThat(granted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.wealthflow.common.utils;
+
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsTimestampWithNanosAndId() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2024-03-01T10:15:30.000000123Z"), 42L);
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+        assertThat(KeysetCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsTimestampsBeforeTheEpoch() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("1969-12-31T23:59:59.500Z"), 7L);
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode(" ")).isNull();
+        assertThat(KeysetCursor.decodeId(null)).isNull();
+        assertThat(KeysetCursor.decodeId("")).isNull();
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        String noTimestamp = Base64.getUrlEncoder().encodeToString("42".getBytes(StandardCharsets.UTF_8));
+        String swapped = Base64.getUrlEncoder().encodeToString("42:1.0".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(noTimestamp)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(swapped)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decodeId("not base64!")).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void roundTripsIdCursors() {
+        assertThat(KeysetCursor.decodeId(KeysetCursor.encodeId(9_007_199_254_740_993L))).isEqualTo(9_007_199_254_740_993L);
+    }
+}
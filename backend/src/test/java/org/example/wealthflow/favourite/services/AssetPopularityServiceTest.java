@@ -0,0 +1,97 @@
+package org.example.wealthflow.favourite.services;
+
+import org.example.wealthflow.favourite.dtos.AssetPopularityDto;
+import org.example.wealthflow.favourite.events.FollowerCountsChangedEvent;
+import org.example.wealthflow.favourite.events.FollowerCountsChangedEvent.Count;
+import org.example.wealthflow.favourite.repositories.AssetFollowerCountRepository;
+import org.example.wealthflow.outbox.services.OutboxMessage;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetPopularityServiceTest {
+
+    private final AssetFollowerCountRepository repository = mock(AssetFollowerCountRepository.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private AssetPopularityService service;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repository.tryLockRebuild()).thenReturn(false);
+        when(repository.loadAll()).thenReturn(new AssetFollowerCountRepository.Snapshot(1,
+                List.of(new Count(10L, 5, 3), new Count(11L, 7, 1), new Count(12L, 5, 2))));
+        when(repository.lockGeneration()).thenReturn(1L);
+        when(repository.applyDeltas(anyMap())).thenReturn(List.of());
+        service = new AssetPopularityService(repository, transactionTemplate, outboxService, 100, false);
+        service.rebuild();
+    }
+
+    @Test
+    void mostFollowedIsSortedByCountThenAssetId() {
+        assertThat(service.mostFollowed(10)).extracting(AssetPopularityDto::getAssetId).containsExactly(11L, 10L, 12L);
+        assertThat(service.mostFollowed(1)).extracting(AssetPopularityDto::getAssetId).containsExactly(11L);
+    }
+
+    @Test
+    void countsFromOtherNodesMoveTheRankingAndOlderVersionsAreIgnored() {
+        receive(new FollowerCountsChangedEvent(1, List.of(new Count(12L, 9, 3))));
+        // an older write of asset 10 arriving late changes nothing
+        receive(new FollowerCountsChangedEvent(1, List.of(new Count(10L, 50, 2))));
+        receive(new FollowerCountsChangedEvent(1, List.of(new Count(11L, 0, 2))));
+
+        assertThat(service.mostFollowed(10)).extracting(AssetPopularityDto::getAssetId).containsExactly(12L, 10L);
+        assertThat(service.followerCount(10L)).isEqualTo(5);
+        assertThat(service.followerCount(11L)).isZero();
+    }
+
+    @Test
+    void followerCountIncludesUnflushedDeltas() {
+        service.followed(10L);
+        service.followed(10L);
+        service.unfollowed(12L);
+
+        assertThat(service.followerCount(10L)).isEqualTo(7);
+        assertThat(service.followerCount(12L)).isEqualTo(4);
+    }
+
+    @Test
+    void deltasFromBeforeARebuildAreDroppedAtFlush() {
+        service.followed(10L);
+        when(repository.lockGeneration()).thenReturn(2L);
+        service.followed(11L);
+
+        service.flush();
+
+        verify(repository).applyDeltas(Map.of(11L, 1L));
+    }
+
+    @Test
+    void aNewerGenerationReloadsEverything() {
+        when(repository.loadAll()).thenReturn(new AssetFollowerCountRepository.Snapshot(2, List.of(new Count(12L, 4, 0))));
+
+        receive(new FollowerCountsChangedEvent(2, List.of()));
+
+        assertThat(service.mostFollowed(10)).extracting(AssetPopularityDto::getAssetId).containsExactly(12L);
+        assertThat(service.followerCount(11L)).isZero();
+    }
+
+    private void receive(FollowerCountsChangedEvent event) {
+        service.handle(new OutboxMessage(1, event, Instant.now()));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.wealthflow.fx.services;
+
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.configs.FxConfig;
+import org.example.wealthflow.fx.models.FxRate;
+import org.example.wealthflow.fx.repositories.FxRateRepository;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FxRateServiceTest {
+
+    private static final MathContext PRECISION = new MathContext(20, RoundingMode.HALF_EVEN);
+    private static final BigDecimal TOLERANCE = new BigDecimal("1e-15");
+    private static final Instant T1 = Instant.parse("2024-05-01T00:00:00Z");
+    private static final Instant T2 = Instant.parse("2024-05-02T00:00:00Z");
+    private static final Instant T3 = Instant.parse("2024-05-03T00:00:00Z");
+
+    private final FxRateRepository repository = mock(FxRateRepository.class);
+    private final FxRateService service = new FxRateService(repository, new FxConfig(), mock(OutboxService.class));
+
+    @Test
+    void latestMatrixHasDirectInverseAndPivotCrossRates() {
+        when(repository.findLatest()).thenReturn(List.of(rate("EUR", "USD", "1.08", T1), rate("USD", "JPY", "150", T1)));
+        service.refresh();
+        FxRateService.LatestRates rates = service.latest();
+
+        assertThat(rates.rate("EUR", "USD")).isEqualByComparingTo("1.08");
+        assertThat(rates.rate("usd", " eur ")).isCloseTo(inverse("1.08"), within(TOLERANCE));
+        assertThat(rates.rate("EUR", "JPY")).isCloseTo(new BigDecimal("162"), within(TOLERANCE));
+        assertThat(rates.rate("JPY", "EUR")).isCloseTo(inverse("150").multiply(inverse("1.08")), within(TOLERANCE));
+        assertThat(rates.rate("GBP", "GBP")).isEqualByComparingTo("1");
+        assertThat(rates.rate("GBP", "USD")).isNull();
+        assertThat(service.convert(new BigDecimal("10"), "EUR", "JPY")).hasValueSatisfying(v -> {
+            assertThat(v.scale()).isEqualTo(8);
+            assertThat(v).isEqualByComparingTo("1620");
+        });
+    }
+
+    @Test
+    void newerInverseQuoteBeatsAnOlderDirectOne() {
+        when(repository.findLatest()).thenReturn(List.of(rate("EUR", "USD", "1.08", T1), rate("USD", "EUR", "0.95", T2)));
+        service.refresh();
+
+        assertThat(service.latest().rate("USD", "EUR")).isEqualByComparingTo("0.95");
+        assertThat(service.latest().rate("EUR", "USD")).isCloseTo(inverse("0.95"), within(TOLERANCE));
+    }
+
+    @Test
+    void olderInverseQuoteDoesNotOverrideADirectOne() {
+        when(repository.findLatest()).thenReturn(List.of(rate("EUR", "USD", "1.08", T2), rate("USD", "EUR", "0.95", T1)));
+        service.refresh();
+
+        assertThat(service.latest().rate("EUR", "USD")).isEqualByComparingTo("1.08");
+        assertThat(service.latest().rate("USD", "EUR")).isCloseTo(inverse("1.08"), within(TOLERANCE));
+    }
+
+    @Test
+    void failedRefreshKeepsThePreviousMatrix() {
+        when(repository.findLatest()).thenReturn(List.of(rate("EUR", "USD", "1.08", T1)));
+        service.refresh();
+        when(repository.findLatest()).thenThrow(new IllegalStateException("database down"));
+
+        service.refresh();
+
+        assertThat(service.rate("EUR", "USD")).hasValueSatisfying(r -> assertThat(r).isEqualByComparingTo("1.08"));
+    }
+
+    @Test
+    void asOfRatesTakeTheNewestObservationAtOrBeforeTheInstant() {
+        when(repository.findSeries(any(), any())).thenReturn(List.of(
+                rate("EUR", "USD", "1.10", T1),
+                rate("EUR", "USD", "1.05", T2),
+                rate("EUR", "USD", "1.06", T2),
+                rate("EUR", "USD", "1.08", T3)));
+        FxRateService.AsOfRates rates = service.asOf(T1, T3.plusSeconds(1));
+
+        assertThat(rates.rate("EUR", "USD", T1.minusMillis(1))).isNull();
+        assertThat(rates.rate("EUR", "USD", T1)).isEqualByComparingTo("1.10");
+        assertThat(rates.rate("EUR", "USD", T2.minusMillis(1))).isEqualByComparingTo("1.10");
+        // the last of several observations at the same instant wins
+        assertThat(rates.rate("EUR", "USD", T2)).isEqualByComparingTo("1.06");
+        assertThat(rates.rate("EUR", "USD", T3.plusSeconds(3600))).isEqualByComparingTo("1.08");
+        assertThat(rates.rate("USD", "EUR", T2.plusSeconds(60))).isCloseTo(inverse("1.06"), within(TOLERANCE));
+    }
+
+    @Test
+    void asOfRatesCrossThroughThePivotAtTheSameInstant() {
+        when(repository.findSeries(any(), any())).thenReturn(List.of(
+                rate("EUR", "USD", "1.10", T1),
+                rate("GBP", "USD", "1.25", T1),
+                rate("GBP", "USD", "1.30", T2),
+                rate("EUR", "USD", "1.04", T3)));
+        FxRateService.AsOfRates rates = service.asOf(T1, T3.plusSeconds(1));
+
+        assertThat(rates.rate("EUR", "GBP", T2)).isCloseTo(new BigDecimal("1.10").multiply(inverse("1.30")), within(TOLERANCE));
+        assertThat(rates.rate("GBP", "EUR", T3)).isCloseTo(new BigDecimal("1.30").multiply(inverse("1.04")), within(TOLERANCE));
+        assertThat(rates.rate("EUR", "JPY", T3)).isNull();
+    }
+
+    @Test
+    void asOfRejectsAnEmptyRange() {
+        assertThatThrownBy(() -> service.asOf(T2, T2)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.asOf(T2, T1)).isInstanceOf(BadRequestException.class);
+    }
+
+    private static FxRate rate(String base, String quote, String rate, Instant asOf) {
+        return FxRate.builder().baseCurrency(base).quoteCurrency(quote).rate(new BigDecimal(rate)).asOf(asOf).build();
+    }
+
+    private static BigDecimal inverse(String rate) {
+        return BigDecimal.ONE.divide(new BigDecimal(rate), PRECISION);
+    }
+}
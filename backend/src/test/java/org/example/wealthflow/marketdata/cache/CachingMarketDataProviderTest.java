@@ -0,0 +1,120 @@
+package org.example.wealthflow.marketdata.cache;
+
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingMarketDataProviderTest {
+
+    private static final String SYMBOL = "bitcoin";
+    private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-01-31T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final MarketDataProvider delegate = mock(MarketDataProvider.class);
+    private ProviderResponseStore store;
+    private CachingMarketDataProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MarketDataConfig config = new MarketDataConfig();
+        config.getCache().setMode(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        config.getCache().setDirectory(directory.toString());
+        config.getCache().setSegmentSizeMb(1);
+        store = new ProviderResponseStore(config);
+        store.open();
+        when(delegate.getName()).thenReturn("coingecko");
+        provider = new CachingMarketDataProvider(delegate, store, config.getCache());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void completeRangeIsServedFromTheStore() {
+        when(delegate.fetchHistory(SYMBOL, FROM, TO)).thenReturn(daily(FROM, TO));
+
+        provider.fetchHistory(SYMBOL, FROM, TO);
+        List<Quote> cached = provider.fetchHistory(SYMBOL, FROM, TO);
+
+        assertThat(cached).hasSize(30);
+        verify(delegate, times(1)).fetchHistory(any(), any(), any());
+    }
+
+    @Test
+    void rangeCutShortIsFetchedAgain() {
+        // the provider answered only the first half of the range
+        when(delegate.fetchHistory(SYMBOL, FROM, TO)).thenReturn(daily(FROM, FROM.plus(Duration.ofDays(15))));
+
+        provider.fetchHistory(SYMBOL, FROM, TO);
+        provider.fetchHistory(SYMBOL, FROM, TO);
+
+        verify(delegate, times(2)).fetchHistory(SYMBOL, FROM, TO);
+        assertThat(store.findHistory("coingecko", SYMBOL, FROM, TO)).isEmpty();
+    }
+
+    @Test
+    void rangeStartingLateIsFetchedAgain() {
+        when(delegate.fetchHistory(SYMBOL, FROM, TO)).thenReturn(daily(FROM.plus(Duration.ofDays(10)), TO));
+
+        provider.fetchHistory(SYMBOL, FROM, TO);
+
+        assertThat(store.findHistory("coingecko", SYMBOL, FROM, TO)).isEmpty();
+    }
+
+    @Test
+    void rangeThatHasNotSettledIsFetchedAgain() {
+        Instant to = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        Instant from = to.minus(Duration.ofDays(30));
+        when(delegate.fetchHistory(eq(SYMBOL), any(), any())).thenReturn(daily(from, to));
+
+        provider.fetchHistory(SYMBOL, from, to);
+
+        assertThat(store.findHistory("coingecko", SYMBOL, from, to)).isEmpty();
+    }
+
+    @Test
+    void emptyResultIsStoredOnlyForRangesWithinTheGap() {
+        Instant weekend = Instant.parse("2025-01-04T00:00:00Z");
+        when(delegate.fetchHistory(eq(SYMBOL), any(), any())).thenReturn(List.of());
+
+        provider.fetchHistory(SYMBOL, weekend, weekend.plus(Duration.ofDays(2)));
+        provider.fetchHistory(SYMBOL, FROM, TO);
+
+        assertThat(store.findHistory("coingecko", SYMBOL, weekend, weekend.plus(Duration.ofDays(2)))).hasValue(List.of());
+        assertThat(store.findHistory("coingecko", SYMBOL, FROM, TO)).isEmpty();
+    }
+
+    private static List<Quote> daily(Instant from, Instant to) {
+        List<Quote> quotes = new ArrayList<>();
+        for (Instant at = from; at.isBefore(to); at = at.plus(Duration.ofDays(1))) {
+            quotes.add(new Quote(SYMBOL, BigDecimal.TEN, at));
+        }
+        return quotes;
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.wealthflow.marketdata.cache;
+
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.models.RecordedResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderResponseStoreTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private ProviderResponseStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) store.close();
+    }
+
+    @Test
+    void replaysRecordsInWriteOrderAfterReopen() throws IOException {
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        store.append(quote(T0, "btc", "1.5"));
+        store.append(history("btc", T0, T0.plus(Duration.ofDays(1)), 24));
+        store.append(quote(T0.plusSeconds(60), "btc", "1.6"));
+        store.close();
+
+        store = open(MarketDataConfig.Cache.Mode.REPLAY);
+        List<RecordedResponse> replayed = scanAll();
+
+        assertThat(replayed).extracting(RecordedResponse::getKind).containsExactly(
+                RecordedResponse.Kind.QUOTE, RecordedResponse.Kind.HISTORY, RecordedResponse.Kind.QUOTE);
+        assertThat(replayed.get(2).getQuotes().get(0).getPrice()).isEqualByComparingTo("1.6");
+        assertThat(store.findHistory("stub", "btc", T0, T0.plus(Duration.ofDays(1)))).get()
+                .satisfies(quotes -> assertThat(quotes).hasSize(24));
+        assertThat(store.findHistory("stub", "btc", T0, T0.plus(Duration.ofDays(2)))).isEmpty();
+    }
+
+    @Test
+    void readsRecordsAppendedAfterEarlierReads() {
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        for (int i = 0; i < 100; i++) {
+            int points = i + 1;
+            Instant from = T0.plus(Duration.ofDays(i));
+            store.append(history("eth", from, from.plus(Duration.ofDays(1)), points));
+            assertThat(store.findHistory("stub", "eth", from, from.plus(Duration.ofDays(1)))).get()
+                    .satisfies(quotes -> assertThat(quotes).hasSize(points));
+        }
+        for (int i = 0; i < 100; i++) {
+            int points = i + 1;
+            Instant from = T0.plus(Duration.ofDays(i));
+            assertThat(store.findHistory("stub", "eth", from, from.plus(Duration.ofDays(1)))).get()
+                    .satisfies(quotes -> assertThat(quotes).hasSize(points));
+        }
+    }
+
+    @Test
+    void truncatesTornTailRecordOnReopen() throws IOException {
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        store.append(quote(T0, "btc", "1.5"));
+        store.close();
+        Path segment = segmentFiles().get(0);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 7, 7}, StandardOpenOption.APPEND);
+
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        store.append(quote(T0.plusSeconds(60), "btc", "1.6"));
+
+        assertThat(scanAll()).hasSize(2);
+    }
+
+    @Test
+    void rollsSegmentsWhenFullAndReplaysAcrossThem() throws IOException {
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        for (int i = 0; i < 12; i++) {
+            Instant from = T0.plus(Duration.ofDays(i));
+            store.append(history("sol", from, from.plus(Duration.ofDays(1)), 5_000));
+        }
+        store.close();
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        store = open(MarketDataConfig.Cache.Mode.REPLAY);
+        assertThat(scanAll()).hasSize(12);
+        assertThat(store.findHistory("stub", "sol", T0.plus(Duration.ofDays(11)), T0.plus(Duration.ofDays(12)))).isPresent();
+    }
+
+    @Test
+    void retentionDeletesOldSegmentsButKeepsTheTail() throws IOException {
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        for (int i = 0; i < 12; i++) {
+            Instant from = T0.plus(Duration.ofDays(i));
+            store.append(history("sol", from, from.plus(Duration.ofDays(1)), 5_000));
+        }
+        store.close();
+        List<Path> files = segmentFiles();
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(60)));
+        for (Path file : files) {
+            Files.setLastModifiedTime(file, old);
+        }
+
+        store = open(MarketDataConfig.Cache.Mode.READ_THROUGH);
+        store.enforceRetention();
+
+        assertThat(segmentFiles()).containsExactly(files.get(files.size() - 1));
+        assertThat(store.findHistory("stub", "sol", T0, T0.plus(Duration.ofDays(1)))).isEmpty();
+        assertThat(store.findHistory("stub", "sol", T0.plus(Duration.ofDays(11)), T0.plus(Duration.ofDays(12)))).isPresent();
+    }
+
+    private ProviderResponseStore open(MarketDataConfig.Cache.Mode mode) {
+        MarketDataConfig config = new MarketDataConfig();
+        config.getCache().setMode(mode);
+        config.getCache().setDirectory(directory.toString());
+        config.getCache().setSegmentSizeMb(1);
+        ProviderResponseStore opened = new ProviderResponseStore(config);
+        try {
+            opened.open();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return opened;
+    }
+
+    private List<RecordedResponse> scanAll() {
+        List<RecordedResponse> out = new ArrayList<>();
+        store.scan(out::add);
+        return out;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.sorted().toList();
+        }
+    }
+
+    private static RecordedResponse quote(Instant at, String id, String price) {
+        return new RecordedResponse(RecordedResponse.Kind.QUOTE, "stub", "*", at, at,
+                List.of(new Quote(id, new BigDecimal(price), at)));
+    }
+
+    private static RecordedResponse history(String id, Instant from, Instant to, int points) {
+        List<Quote> quotes = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            quotes.add(new Quote(id, BigDecimal.valueOf(100 + i, 2), from.plusSeconds(i)));
+        }
+        return new RecordedResponse(RecordedResponse.Kind.HISTORY, "stub", id, from, to, quotes);
+    }
+}
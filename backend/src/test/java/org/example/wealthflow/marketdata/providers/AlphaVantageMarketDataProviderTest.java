@@ -0,0 +1,34 @@
+package org.example.wealthflow.marketdata.providers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlphaVantageMarketDataProviderTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 1, 5);
+
+    @Test
+    void closedSessionIsStampedWithItsCloseHoweverLateItIsPolled() {
+        Instant close = Instant.parse("2024-01-05T21:00:00Z");
+
+        assertThat(AlphaVantageMarketDataProvider.quoteTime(FRIDAY, Instant.parse("2024-01-05T22:30:00Z"))).isEqualTo(close);
+        assertThat(AlphaVantageMarketDataProvider.quoteTime(FRIDAY, Instant.parse("2024-01-07T12:00:00Z"))).isEqualTo(close);
+    }
+
+    @Test
+    void openSessionIsStampedWithTheFetchTime() {
+        Instant now = Instant.parse("2024-01-05T18:00:00Z");
+
+        assertThat(AlphaVantageMarketDataProvider.quoteTime(FRIDAY, now)).isEqualTo(now);
+    }
+
+    @Test
+    void closeFollowsDaylightSavingTime() {
+        assertThat(AlphaVantageMarketDataProvider.quoteTime(LocalDate.of(2024, 7, 1), Instant.parse("2024-07-02T00:00:00Z")))
+                .isEqualTo(Instant.parse("2024-07-01T20:00:00Z"));
+    }
+}
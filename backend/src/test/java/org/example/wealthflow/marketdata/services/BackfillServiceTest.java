@@ -0,0 +1,77 @@
+package org.example.wealthflow.marketdata.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackfillServiceTest {
+
+    private static final Duration DAY = Duration.ofDays(1);
+
+    @Test
+    void splitsAtChunkBoundariesAndClipsTheEnds() {
+        List<Instant[]> chunks = BackfillService.split(at("2024-01-01T12:00:00Z"), at("2024-01-03T06:00:00Z"), DAY);
+
+        assertThat(chunks).containsExactly(
+                chunk("2024-01-01T12:00:00Z", "2024-01-02T00:00:00Z"),
+                chunk("2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z"),
+                chunk("2024-01-03T00:00:00Z", "2024-01-03T06:00:00Z"));
+    }
+
+    @Test
+    void overlappingRangesShareTheirInnerChunks() {
+        List<Instant[]> first = BackfillService.split(at("2024-01-01T12:00:00Z"), at("2024-01-05T00:00:00Z"), DAY);
+        List<Instant[]> second = BackfillService.split(at("2024-01-02T08:00:00Z"), at("2024-01-06T00:00:00Z"), DAY);
+
+        assertThat(first).contains(chunk("2024-01-03T00:00:00Z", "2024-01-04T00:00:00Z"));
+        assertThat(second).contains(chunk("2024-01-03T00:00:00Z", "2024-01-04T00:00:00Z"));
+    }
+
+    @Test
+    void emptyRangeHasNoChunks() {
+        assertThat(BackfillService.split(at("2024-01-01T00:00:00Z"), at("2024-01-01T00:00:00Z"), DAY)).isEmpty();
+        assertThat(BackfillService.split(at("2024-01-02T00:00:00Z"), at("2024-01-01T00:00:00Z"), DAY)).isEmpty();
+    }
+
+    @Test
+    void chunkIsCoveredOnlyByOneCompletedChunkSpanningIt() {
+        Instant[] chunk = chunk("2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z");
+
+        assertThat(BackfillService.isCovered(chunk, List.<Instant[]>of(chunk("2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z")))).isTrue();
+        assertThat(BackfillService.isCovered(chunk, List.<Instant[]>of(chunk("2024-01-01T00:00:00Z", "2024-01-04T00:00:00Z")))).isTrue();
+        assertThat(BackfillService.isCovered(chunk, List.<Instant[]>of(chunk("2024-01-02T12:00:00Z", "2024-01-03T00:00:00Z")))).isFalse();
+        // two halves written by separate jobs are not trusted to join up
+        assertThat(BackfillService.isCovered(chunk, List.of(
+                chunk("2024-01-02T00:00:00Z", "2024-01-02T12:00:00Z"),
+                chunk("2024-01-02T12:00:00Z", "2024-01-03T00:00:00Z")))).isFalse();
+        assertThat(BackfillService.isCovered(chunk, List.of())).isFalse();
+    }
+
+    @Test
+    void resumeSkipsCompletedChunksAndRedoesClippedOnes() {
+        List<Instant[]> chunks = BackfillService.split(at("2024-01-01T00:00:00Z"), at("2024-01-05T00:00:00Z"), DAY);
+        // an earlier job over [01-01 12:00, 01-03) completed a clipped first chunk and one full chunk
+        List<Instant[]> completed = List.of(
+                chunk("2024-01-01T12:00:00Z", "2024-01-02T00:00:00Z"),
+                chunk("2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z"));
+
+        List<Instant[]> remaining = chunks.stream().filter(c -> !BackfillService.isCovered(c, completed)).toList();
+
+        assertThat(remaining).containsExactly(
+                chunk("2024-01-01T00:00:00Z", "2024-01-02T00:00:00Z"),
+                chunk("2024-01-03T00:00:00Z", "2024-01-04T00:00:00Z"),
+                chunk("2024-01-04T00:00:00Z", "2024-01-05T00:00:00Z"));
+    }
+
+    private static Instant at(String instant) {
+        return Instant.parse(instant);
+    }
+
+    private static Instant[] chunk(String from, String to) {
+        return new Instant[]{at(from), at(to)};
+    }
+}
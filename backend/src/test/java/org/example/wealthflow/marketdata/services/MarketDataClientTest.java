@@ -0,0 +1,213 @@
+package org.example.wealthflow.marketdata.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MarketDataClientTest {
+
+    private static final List<String> IDS = List.of("a", "b", "c", "d", "e");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MarketDataClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.shutdown();
+    }
+
+    @Test
+    void slowPrimaryFailsAtDeadlineAndIsInterrupted() throws Exception {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 2_000);
+        client = client(config(provider(primary, 100, null)), primary);
+
+        assertThatThrownBy(() -> client.fetchQuotes(primary, IDS))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("exceeded deadline");
+        assertThat(primary.interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("wealthflow.marketdata.deadline.exceeded").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fastPrimaryNeverHedges() throws Exception {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 0);
+        DelayedProvider hedge = new DelayedProvider("hedge", 100, 0);
+        client = client(config(provider(primary, 1_000, "hedge"), provider(hedge, 1_000, null)), primary, hedge);
+
+        warmUp(primary);
+        List<Quote> quotes = client.fetchQuotes(primary, IDS);
+
+        assertThat(quotes).extracting(Quote::getExternalId).containsExactlyElementsOf(IDS);
+        assertThat(hedge.batches).isEmpty();
+        assertThat(meterRegistry.counter("wealthflow.marketdata.hedges", "outcome", "fired").count()).isZero();
+    }
+
+    @Test
+    void slowPrimaryLosesToHedgeSplitToHedgeBatchSize() throws Exception {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 0);
+        DelayedProvider hedge = new DelayedProvider("hedge", 2, 0);
+        client = client(config(provider(primary, 1_000, "hedge"), provider(hedge, 1_000, null)), primary, hedge);
+
+        warmUp(primary);
+        primary.delayMs = 5_000;
+        List<Quote> quotes = client.fetchQuotes(primary, IDS);
+
+        assertThat(quotes).extracting(Quote::getExternalId).containsExactlyElementsOf(IDS);
+        assertThat(quotes).allMatch(q -> q.getPrice().equals(BigDecimal.TEN));
+        assertThat(hedge.batches).hasSize(3).allMatch(batch -> batch.size() <= 2);
+        assertThat(primary.interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("wealthflow.marketdata.hedges", "outcome", "won").count()).isEqualTo(1);
+    }
+
+    @Test
+    void failingHedgeLeavesPrimaryToAnswer() throws Exception {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 0);
+        DelayedProvider hedge = new DelayedProvider("hedge", 100, 0);
+        client = client(config(provider(primary, 1_000, "hedge"), provider(hedge, 1_000, null)), primary, hedge);
+
+        warmUp(primary);
+        primary.delayMs = 200;
+        hedge.fail = true;
+        List<Quote> quotes = client.fetchQuotes(primary, IDS);
+
+        assertThat(quotes).allMatch(q -> q.getPrice().equals(BigDecimal.ONE));
+        assertThat(meterRegistry.counter("wealthflow.marketdata.hedges", "outcome", "won").count()).isZero();
+    }
+
+    @Test
+    void fastFailuresDoNotShortenTheHedgeDelay() throws Exception {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 150);
+        DelayedProvider hedge = new DelayedProvider("hedge", 100, 0);
+        client = client(config(provider(primary, 2_000, "hedge"), provider(hedge, 2_000, null)), primary, hedge);
+
+        warmUp(primary);
+        primary.delayMs = 0;
+        primary.fail = true;
+        for (int i = 0; i < 200; i++) {
+            assertThatThrownBy(() -> client.fetchQuotes(primary, IDS)).isInstanceOf(IllegalStateException.class);
+        }
+        primary.fail = false;
+        primary.delayMs = 5_000;
+        long started = System.nanoTime();
+        client.fetchQuotes(primary, IDS);
+
+        assertThat(hedge.firstCallNanos - started).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(meterRegistry.timer("wealthflow.marketdata.provider.latency", "provider", "primary", "outcome", "failed").count())
+                .isEqualTo(200);
+    }
+
+    @Test
+    void tryFetchReturnsNothingWithoutBudgetInsteadOfWaiting() {
+        DelayedProvider primary = new DelayedProvider("primary", 100, 0);
+        MarketDataConfig.Provider props = provider(primary, 1_000, null);
+        props.setRequestsPerSecond(0.001);
+        props.setBurst(1);
+        client = client(config(props), primary);
+
+        assertThat(client.tryFetchQuotes(primary, IDS)).hasValueSatisfying(quotes -> assertThat(quotes).hasSize(5));
+        long started = System.nanoTime();
+        assertThat(client.tryFetchQuotes(primary, IDS)).isEmpty();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(100);
+        assertThat(primary.batches).hasSize(1);
+    }
+
+    private void warmUp(DelayedProvider primary) throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            client.fetchQuotes(primary, IDS);
+        }
+        primary.batches.clear();
+    }
+
+    private MarketDataClient client(MarketDataConfig config, MarketDataProvider... providers) {
+        MarketDataProviderRegistry registry = new MarketDataProviderRegistry(List.of(providers), config, null);
+        return new MarketDataClient(registry, config, meterRegistry);
+    }
+
+    private static MarketDataConfig config(MarketDataConfig.Provider... providers) {
+        MarketDataConfig config = new MarketDataConfig();
+        String[] names = {"primary", "hedge"};
+        for (int i = 0; i < providers.length; i++) {
+            config.getProviders().put(names[i], providers[i]);
+        }
+        return config;
+    }
+
+    private static MarketDataConfig.Provider provider(DelayedProvider provider, long timeoutMs, String hedgeTo) {
+        MarketDataConfig.Provider props = new MarketDataConfig.Provider();
+        props.setEnabled(true);
+        props.setRequestsPerSecond(1_000);
+        props.setBurst(100);
+        props.setMaxBatchSize(provider.maxBatchSize);
+        props.setTimeoutMs(timeoutMs);
+        props.setHedgeTo(hedgeTo);
+        props.setHedgeMinDelayMs(20);
+        return props;
+    }
+
+    /**
+     * Provider whose latency is set per test; it answers with its own price so the winner is visible.
+     */
+    private static final class DelayedProvider implements MarketDataProvider {
+
+        private final String name;
+        private final int maxBatchSize;
+        private final BigDecimal price;
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private volatile long delayMs;
+        private volatile boolean fail;
+        private volatile long firstCallNanos;
+
+        DelayedProvider(String name, int maxBatchSize, long delayMs) {
+            this.name = name;
+            this.maxBatchSize = maxBatchSize;
+            this.delayMs = delayMs;
+            this.price = name.equals("primary") ? BigDecimal.ONE : BigDecimal.TEN;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public List<Quote> fetchQuotes(List<String> externalIds) {
+            if (batches.isEmpty()) firstCallNanos = System.nanoTime();
+            batches.add(List.copyOf(externalIds));
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted");
+                }
+            }
+            if (fail) throw new IllegalStateException(name + " unavailable");
+            List<Quote> quotes = new ArrayList<>(externalIds.size());
+            for (String id : externalIds) {
+                quotes.add(new Quote(id, price, Instant.now()));
+            }
+            return quotes;
+        }
+    }
+}
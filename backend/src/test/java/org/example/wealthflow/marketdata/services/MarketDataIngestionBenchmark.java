@@ -0,0 +1,163 @@
+package org.example.wealthflow.marketdata.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.models.AssetPriceUpdate;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.configs.MarketDataConfig;
+import org.example.wealthflow.marketdata.models.Quote;
+import org.example.wealthflow.marketdata.providers.MarketDataProvider;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * One full refresh cycle over 20k assets, from grouping by provider through rate-limited fetches and the
+ * writer thread to the last committed last-price update. The provider answers from memory, and both
+ * repositories render and bind their real SQL against a jOOQ mock connection that waits a simulated
+ * database round trip per statement. {@code perRow} replays the old one-UPDATE-per-asset last-price
+ * write for comparison with the batched {@code UPDATE ... FROM (VALUES ...)}.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main MarketDataIngestionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MarketDataIngestionBenchmark {
+
+    private static final int ASSETS = 20_000;
+    private static final String PROVIDER = "benchmark";
+
+    @Param({"batched", "perRow"})
+    private String lastPriceWrites;
+
+    @Param({"0", "200"})
+    private long roundTripMicros;
+
+    private final AtomicLong updatedAssets = new AtomicLong();
+    private MarketDataClient marketDataClient;
+    private MarketDataIngestionService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DSLContext dsl = DSL.using(new MockConnection(ctx -> {
+            if (roundTripMicros > 0) LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+            String sql = ctx.sql().toLowerCase();
+            int bindings = ctx.bindings().length;
+            // a last-price update binds updated_at once plus (id, price, at) per asset; a price insert four values per row
+            if (sql.startsWith("update")) {
+                int rows = (bindings - 1) / 3;
+                updatedAssets.addAndGet(rows);
+                return new MockResult[]{new MockResult(rows, null)};
+            }
+            return new MockResult[]{new MockResult(bindings / 4, null)};
+        }), SQLDialect.POSTGRES);
+
+        List<Asset> assets = new ArrayList<>(ASSETS);
+        for (long id = 1; id <= ASSETS; id++) {
+            assets.add(Asset.builder().id(id).source(PROVIDER).externalId("SYM" + id).build());
+        }
+        boolean perRow = "perRow".equals(lastPriceWrites);
+        AssetRepository assetRepository = new AssetRepository(dsl) {
+            @Override
+            public List<Asset> findAllWithPriceSource() {
+                return assets;
+            }
+
+            @Override
+            public int updateLastPrices(List<AssetPriceUpdate> updates) {
+                if (!perRow) return super.updateLastPrices(updates);
+                int updated = 0;
+                for (AssetPriceUpdate u : updates) {
+                    if (updateLastPriceById(u.getAssetId(), u.getPrice(), u.getAt())) updated++;
+                }
+                return updated;
+            }
+        };
+
+        MarketDataProvider provider = mock(MarketDataProvider.class, withSettings().stubOnly());
+        when(provider.getName()).thenReturn(PROVIDER);
+        when(provider.getMaxBatchSize()).thenReturn(100);
+        when(provider.fetchQuotes(any())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            Instant at = Instant.now();
+            List<Quote> quotes = new ArrayList<>(ids.size());
+            for (String id : ids) quotes.add(new Quote(id, new BigDecimal("101.25"), at));
+            return quotes;
+        });
+
+        MarketDataConfig config = new MarketDataConfig();
+        MarketDataConfig.Provider props = new MarketDataConfig.Provider();
+        props.setRequestsPerSecond(1_000_000);
+        props.setBurst(1_000);
+        config.getProviders().put(PROVIDER, props);
+        MarketDataProviderRegistry registry = new MarketDataProviderRegistry(List.of(provider), config, null);
+        marketDataClient = new MarketDataClient(registry, config, new SimpleMeterRegistry());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class, withSettings().stubOnly());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        service = new MarketDataIngestionService(assetRepository, new PriceHistoryRepository(dsl), registry,
+                marketDataClient, config, transactionTemplate, mock(OutboxService.class, withSettings().stubOnly()));
+        service.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        service.shutdown();
+        marketDataClient.shutdown();
+    }
+
+    /**
+     * Returns once the writer has applied every asset's last price, not when the fetchers are done.
+     */
+    @Benchmark
+    public long refreshAll() {
+        long target = updatedAssets.get() + ASSETS;
+        long enqueued = service.refreshAll();
+        while (updatedAssets.get() < target) LockSupport.parkNanos(50_000);
+        return enqueued;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MarketDataIngestionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.wealthflow.outbox.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.configs.OutboxConfig;
+import org.example.wealthflow.outbox.models.OutboxConsumerOffset;
+import org.example.wealthflow.outbox.models.OutboxEvent;
+import org.example.wealthflow.outbox.repositories.OutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private final FakeOutboxRepository repository = new FakeOutboxRepository();
+    private OutboxDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    void poisonEventIsDeadLetteredAndDeliveryMovesOn() {
+        RecordingConsumer consumer = new RecordingConsumer("audit", false, 1, Integer.MAX_VALUE);
+        start(consumer);
+        repository.add(1);
+        repository.add(2);
+
+        awaitUntil(() -> consumer.delivered.contains(2L));
+
+        assertThat(consumer.attempts.get(1L)).isEqualTo(3);
+        assertThat(repository.deadLetters).containsExactly(1L);
+        assertThat(repository.offset.getLastEventId()).isEqualTo(2);
+        assertThat(repository.offset.getFailedEventId()).isNull();
+    }
+
+    @Test
+    void transientFailureIsRetriedWithoutDeadLetter() {
+        RecordingConsumer consumer = new RecordingConsumer("audit", false, 1, 2);
+        start(consumer);
+        repository.add(1);
+
+        awaitUntil(() -> consumer.delivered.contains(1L));
+
+        assertThat(consumer.attempts.get(1L)).isEqualTo(3);
+        assertThat(repository.deadLetters).isEmpty();
+        assertThat(repository.offset.getLastEventId()).isEqualTo(1);
+        assertThat(repository.offset.getFailedAttempts()).isZero();
+    }
+
+    @Test
+    void broadcastConsumerSkipsPoisonEventWithoutStoredOffset() {
+        RecordingConsumer consumer = new RecordingConsumer("cache", true, 1, Integer.MAX_VALUE);
+        start(consumer);
+        repository.add(1);
+        repository.add(2);
+
+        awaitUntil(() -> consumer.delivered.contains(2L));
+
+        assertThat(consumer.attempts.get(1L)).isEqualTo(3);
+        assertThat(repository.deadLetters).isEmpty();
+        assertThat(repository.claims).isZero();
+    }
+
+    private void start(OutboxConsumer consumer) {
+        OutboxConfig config = new OutboxConfig();
+        config.setMaxAttempts(3);
+        config.setRetryBackoffMs(1);
+        config.setMaxRetryBackoffMs(1);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<OutboxConsumer> consumers = mock(ObjectProvider.class);
+        when(consumers.orderedStream()).thenAnswer(inv -> Stream.of(consumer));
+        dispatcher = new OutboxDispatcher(repository, consumers, new ObjectMapper(), config, new SimpleMeterRegistry());
+        dispatcher.start();
+    }
+
+    private void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            dispatcher.poll();
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    public static class Ping {
+        public long n;
+    }
+
+    /**
+     * Fails on {@code poisonId} for its first {@code failures} deliveries.
+     */
+    private static final class RecordingConsumer implements OutboxConsumer {
+        private final String name;
+        private final boolean broadcast;
+        private final long poisonId;
+        private final int failures;
+        final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+        final List<Long> delivered = new CopyOnWriteArrayList<>();
+
+        RecordingConsumer(String name, boolean broadcast, long poisonId, int failures) {
+            this.name = name;
+            this.broadcast = broadcast;
+            this.poisonId = poisonId;
+            this.failures = failures;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean broadcast() {
+            return broadcast;
+        }
+
+        @Override
+        public void handle(OutboxMessage message) {
+            int attempt = attempts.merge(message.id(), 1, Integer::sum);
+            if (message.id() == poisonId && attempt <= failures) throw new IllegalStateException("poison");
+            delivered.add(message.id());
+        }
+    }
+
+    /**
+     * In-memory outbox with a single consumer offset row; the database clock is the local clock.
+     */
+    private static final class FakeOutboxRepository extends OutboxRepository {
+        final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+        final List<Long> deadLetters = new CopyOnWriteArrayList<>();
+        final OutboxConsumerOffset offset = OutboxConsumerOffset.builder().lastEventId(0L).build();
+        int claims;
+
+        FakeOutboxRepository() {
+            super(null);
+        }
+
+        void add(long id) {
+            events.add(OutboxEvent.builder()
+                    .id(id)
+                    .eventType(Ping.class.getName())
+                    .payload("{\"n\":" + id + "}")
+                    .createdAt(Instant.now())
+                    .build());
+        }
+
+        @Override
+        public List<OutboxEvent> findAfter(long afterId, int limit) {
+            List<OutboxEvent> out = new ArrayList<>();
+            for (OutboxEvent e : events) {
+                if (e.getId() > afterId && out.size() < limit) out.add(e);
+            }
+            return out;
+        }
+
+        @Override
+        public long maxId() {
+            return 0;
+        }
+
+        @Override
+        public Instant now() {
+            return Instant.now();
+        }
+
+        @Override
+        public void createOffsetIfAbsent(String consumer, long startAfterId) {
+        }
+
+        @Override
+        public synchronized OutboxConsumerOffset claim(String consumer, String owner, long leaseMillis) {
+            claims++;
+            Instant retryAt = offset.getRetryAt() != null && offset.getRetryAt().isAfter(Instant.now()) ? offset.getRetryAt() : null;
+            return OutboxConsumerOffset.builder()
+                    .lastEventId(offset.getLastEventId())
+                    .failedEventId(offset.getFailedEventId())
+                    .failedAttempts(offset.getFailedAttempts())
+                    .retryAt(retryAt)
+                    .build();
+        }
+
+        @Override
+        public synchronized void recordFailure(String consumer, String owner, long eventId, int attempts, long backoffMillis) {
+            offset.setFailedEventId(eventId);
+            offset.setFailedAttempts(attempts);
+            offset.setRetryAt(Instant.now().plusMillis(backoffMillis));
+        }
+
+        @Override
+        public void park(String consumer, OutboxEvent event, int attempts, String error) {
+            deadLetters.add(event.getId());
+        }
+
+        @Override
+        public synchronized boolean advance(String consumer, String owner, long lastEventId) {
+            offset.setLastEventId(lastEventId);
+            if (offset.getFailedEventId() != null && offset.getFailedEventId() <= lastEventId) {
+                offset.setFailedEventId(null);
+                offset.setFailedAttempts(0);
+                offset.setRetryAt(null);
+            }
+            return true;
+        }
+
+        @Override
+        public void release(String consumer, String owner) {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.wealthflow.portfolio.services;
+
+import org.example.wealthflow.asset.events.AssetPricesUpdatedEvent;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.favourite.repositories.FavouriteRepository;
+import org.example.wealthflow.portfolio.dtos.CorrelationMatrixDto;
+import org.example.wealthflow.portfolio.dtos.CorrelationScopeDto;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.pricehistory.repositories.PriceHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AssetCorrelationServiceTest {
+
+    private static final Long USER = 7L;
+    private static final List<Long> ASSETS = List.of(1L, 2L, 3L);
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+    private final Map<Long, TreeMap<LocalDate, Double>> closes = new TreeMap<>();
+    private final FavouriteRepository favouriteRepository = mock(FavouriteRepository.class);
+    private final PriceHistoryRepository priceHistoryRepository = mock(PriceHistoryRepository.class);
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        when(favouriteRepository.findAssetIdsByUser(USER)).thenReturn(ASSETS);
+        when(assetRepository.findTickersByIds(any())).thenReturn(Map.of());
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            Instant from = invocation.getArgument(1);
+            Instant to = invocation.getArgument(2);
+            PriceHistoryRepository.DailyCloseHandler handler = invocation.getArgument(3);
+            for (Long id : ids) {
+                closes.getOrDefault(id, new TreeMap<>()).forEach((day, price) -> {
+                    Instant at = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+                    if (!at.isBefore(from) && at.isBefore(to)) handler.accept(id, day, price);
+                });
+            }
+            return null;
+        }).when(priceHistoryRepository).forEachDailyClose(anyCollection(), any(), any(), any());
+
+        SplittableRandom random = new SplittableRandom(11);
+        for (Long id : ASSETS) {
+            TreeMap<LocalDate, Double> series = new TreeMap<>();
+            double price = 100;
+            for (int d = 60; d >= 3; d--) {
+                price *= Math.exp(random.nextGaussian() * 0.02);
+                series.put(TODAY.minusDays(d), price);
+            }
+            closes.put(id, series);
+        }
+    }
+
+    @Test
+    void lateClosesForRecentDaysArePickedUpByTheNextRequest() {
+        AssetCorrelationService service = service();
+        service.getCorrelation(USER, CorrelationScopeDto.FAVOURITES);
+
+        // the closes of the last two days arrive after the window was built
+        closes.get(1L).put(TODAY.minusDays(2), 101.0);
+        closes.get(2L).put(TODAY.minusDays(2), 98.0);
+        closes.get(3L).put(TODAY.minusDays(1), 103.0);
+
+        CorrelationMatrixDto advanced = service.getCorrelation(USER, CorrelationScopeDto.FAVOURITES);
+
+        assertSameMatrix(advanced, service().getCorrelation(USER, CorrelationScopeDto.FAVOURITES));
+    }
+
+    @Test
+    void backfilledPricesDropTheWindow() {
+        AssetCorrelationService service = service();
+        service.getCorrelation(USER, CorrelationScopeDto.FAVOURITES);
+
+        LocalDate backfilled = TODAY.minusDays(30);
+        closes.get(2L).put(backfilled, closes.get(2L).get(backfilled) * 1.5);
+        Instant at = backfilled.atStartOfDay(ZoneOffset.UTC).toInstant();
+        service.onPricesRecorded(new AssetPricesUpdatedEvent(List.of(2L), at, at));
+
+        assertSameMatrix(service.getCorrelation(USER, CorrelationScopeDto.FAVOURITES),
+                service().getCorrelation(USER, CorrelationScopeDto.FAVOURITES));
+    }
+
+    private AssetCorrelationService service() {
+        return new AssetCorrelationService(favouriteRepository, mock(PositionRepository.class), priceHistoryRepository,
+                assetRepository, 90, 20, 500, 100, 5, 3_600_000);
+    }
+
+    private static void assertSameMatrix(CorrelationMatrixDto actual, CorrelationMatrixDto expected) {
+        assertThat(actual.getObservations()).isEqualTo(expected.getObservations());
+        assertThat(actual.getAssetIds()).isEqualTo(expected.getAssetIds());
+        for (int i = 0; i < expected.getMatrix().length; i++) {
+            for (int j = 0; j < expected.getMatrix().length; j++) {
+                assertThat(actual.getMatrix()[i][j]).isCloseTo(expected.getMatrix()[i][j], within(1e-9));
+            }
+        }
+    }
+}
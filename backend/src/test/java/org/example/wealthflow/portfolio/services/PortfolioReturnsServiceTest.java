@@ -0,0 +1,77 @@
+package org.example.wealthflow.portfolio.services;
+
+import org.example.wealthflow.portfolio.dtos.PortfolioReturnsDto;
+import org.example.wealthflow.portfolio.services.PortfolioReturnsService.DailyPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PortfolioReturnsServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void singleDepositEarnsTheSameTimeAndMoneyWeightedReturn() {
+        List<DailyPoint> points = List.of(
+                new DailyPoint(START, 1_000, 1_000, 0),
+                new DailyPoint(START.plusDays(364), 1_100, 0, 0.1));
+
+        PortfolioReturnsDto returns = PortfolioReturnsService.summarize(1L, "USD", points, START, START.plusDays(364));
+
+        assertThat(returns.getTimeWeightedReturn()).isCloseTo(0.1, within(1e-12));
+        // a full 365-day year is a little short of 365.25 days, so the annualized rate is a little higher
+        assertThat(returns.getMoneyWeightedReturn()).isCloseTo(Math.pow(1.1, 365.25 / 365) - 1, within(1e-8));
+        assertThat(returns.getNetFlows()).isEqualTo(1_000);
+        assertThat(returns.getEndValue()).isEqualTo(1_100);
+        assertThat(returns.getPoints()).last().satisfies(p -> assertThat(p.getCumulativeReturn()).isCloseTo(0.1, within(1e-12)));
+    }
+
+    @Test
+    void timeWeightedReturnIgnoresFlowsWhileMoneyWeightedCountsThem() {
+        // +10% on a small deposit, then -10% right after a large one
+        LocalDate second = START.plusDays(182);
+        List<DailyPoint> points = List.of(
+                new DailyPoint(START, 110, 100, 0.1),
+                new DailyPoint(second, 999, 1_000, -0.1));
+
+        PortfolioReturnsDto returns = PortfolioReturnsService.summarize(1L, "USD", points, START, second);
+
+        assertThat(returns.getTimeWeightedReturn()).isCloseTo(1.1 * 0.9 - 1, within(1e-12));
+        double mwr = returns.getMoneyWeightedReturn();
+        assertThat(mwr).isLessThan(returns.getTimeWeightedReturn());
+        double npv = -100 - 1_000 / Math.pow(1 + mwr, 182 / 365.25) + 999 / Math.pow(1 + mwr, 183 / 365.25);
+        assertThat(npv).isCloseTo(0, within(1e-6));
+    }
+
+    @Test
+    void rangeStartsFromTheValueClosedBeforeIt() {
+        List<DailyPoint> points = List.of(
+                new DailyPoint(START, 100, 100, 0),
+                new DailyPoint(START.plusDays(1), 150, 0, 0.5),
+                new DailyPoint(START.plusDays(2), 135, 0, -0.1));
+
+        PortfolioReturnsDto returns = PortfolioReturnsService.summarize(1L, "USD", points, START.plusDays(2), START.plusDays(2));
+
+        assertThat(returns.getStartValue()).isEqualTo(150);
+        assertThat(returns.getTimeWeightedReturn()).isCloseTo(-0.1, within(1e-12));
+        assertThat(returns.getNetFlows()).isZero();
+        assertThat(returns.getPoints()).hasSize(1);
+        // -10% in one day annualizes to practically -100%, past the solver's bracket
+        assertThat(returns.getMoneyWeightedReturn()).isNull();
+    }
+
+    @Test
+    void emptyRangeHasNoReturn() {
+        List<DailyPoint> points = List.of(new DailyPoint(START, 100, 100, 0));
+
+        PortfolioReturnsDto returns = PortfolioReturnsService.summarize(1L, "USD", points, START.plusDays(5), START.plusDays(6));
+
+        assertThat(returns.getPoints()).isEmpty();
+        assertThat(returns.getTimeWeightedReturn()).isZero();
+        assertThat(returns.getMoneyWeightedReturn()).isNull();
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.wealthflow.portfolio.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one risk estimate as the number of held assets grows: the covariance and Cholesky factor of a
+ * year of daily returns, and the Monte Carlo pass over the default 20k paths. Returns come from a
+ * one-factor model so the covariance is dense and positive definite, like a real portfolio's.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main PortfolioRiskBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PortfolioRiskBenchmark {
+
+    private static final int OBSERVATIONS = 250;
+    private static final int PATHS = 20_000;
+
+    @Param({"10", "50", "100", "250", "500"})
+    private int assets;
+
+    private double[] returns;
+    private double[] drift;
+    private double[] cholesky;
+    private double[] values;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] beta = new double[assets];
+        for (int i = 0; i < assets; i++) beta[i] = 0.5 + random.nextDouble();
+        returns = new double[OBSERVATIONS * assets];
+        for (int t = 0; t < OBSERVATIONS; t++) {
+            double market = random.nextGaussian() * 0.01;
+            for (int i = 0; i < assets; i++) {
+                returns[t * assets + i] = beta[i] * market + random.nextGaussian() * 0.015;
+            }
+        }
+        drift = new double[assets];
+        cholesky = PortfolioRiskService.cholesky(PortfolioRiskService.covariance(returns, OBSERVATIONS, assets, drift), assets);
+        values = new double[assets];
+        for (int i = 0; i < assets; i++) values[i] = 1_000 + random.nextDouble() * 9_000;
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public double[] estimate() {
+        double[] mean = new double[assets];
+        return PortfolioRiskService.cholesky(PortfolioRiskService.covariance(returns, OBSERVATIONS, assets, mean), assets);
+    }
+
+    @Benchmark
+    public double[] simulate() {
+        return PortfolioRiskService.simulate(pool, drift, cholesky, values, PATHS, 42);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PortfolioRiskBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.wealthflow.portfolio.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PortfolioRiskServiceTest {
+
+    @Test
+    void covarianceIsTheSymmetricSampleCovariance() {
+        // three observations of two assets, the second moving twice as much as the first
+        double[] returns = {0.01, 0.02, 0.02, 0.04, 0.03, 0.06};
+        double[] mean = new double[2];
+
+        double[] covariance = PortfolioRiskService.covariance(returns, 3, 2, mean);
+
+        assertThat(mean).containsExactly(new double[]{0.02, 0.04}, within(1e-12));
+        assertThat(covariance).containsExactly(new double[]{1e-4, 2e-4, 2e-4, 4e-4}, within(1e-12));
+    }
+
+    @Test
+    void choleskyFactorsAPositiveDefiniteMatrix() {
+        double[] covariance = {4, 2, 2, 3};
+
+        double[] l = PortfolioRiskService.cholesky(covariance, 2);
+
+        assertThat(l).containsExactly(new double[]{2, 0, 1, Math.sqrt(2)}, within(1e-12));
+    }
+
+    @Test
+    void choleskyOfASemiDefiniteMatrixAddsOnlyATinyRidge() {
+        // perfectly correlated assets: the matrix is singular
+        double[] covariance = {1e-4, 2e-4, 2e-4, 4e-4};
+
+        double[] l = PortfolioRiskService.cholesky(covariance, 2);
+
+        assertThat(l[1]).isZero();
+        double[] product = multiplyByTranspose(l, 2);
+        assertThat(product).containsExactly(covariance, within(1e-9));
+    }
+
+    @Test
+    void choleskyHandlesAConstantAsset() {
+        double[] covariance = {0, 0, 0, 1e-4};
+
+        double[] l = PortfolioRiskService.cholesky(covariance, 2);
+
+        assertThat(l).doesNotContain(Double.NaN);
+        assertThat(multiplyByTranspose(l, 2)).containsExactly(covariance, within(1e-9));
+    }
+
+    private static double[] multiplyByTranspose(double[] l, int n) {
+        double[] product = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = 0;
+                for (int k = 0; k < n; k++) sum += l[i * n + k] * l[j * n + k];
+                product[i * n + j] = sum;
+            }
+        }
+        return product;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.wealthflow.portfolio.services;
+
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.common.exceptions.BadRequestException;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.portfolio.dtos.PortfolioTransactionRequestDto;
+import org.example.wealthflow.portfolio.dtos.PortfolioTransactionResponseDto;
+import org.example.wealthflow.portfolio.dtos.TransactionSideDto;
+import org.example.wealthflow.portfolio.mappers.PortfolioTransactionMapperImpl;
+import org.example.wealthflow.portfolio.models.PortfolioTransaction;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.portfolio.repositories.PortfolioTransactionRepository;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.user.models.User;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.example.wealthflow.user.services.UserStatusCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioServiceTest {
+
+    private static final Long USER = 7L;
+    private static final Long ASSET = 3L;
+    private static final Instant T1 = Instant.parse("2024-03-01T10:00:00Z");
+    private static final Instant T2 = Instant.parse("2024-03-02T10:00:00Z");
+    private static final Instant T3 = Instant.parse("2024-03-03T10:00:00Z");
+
+    private final List<PortfolioTransaction> ledger = new ArrayList<>();
+    private final List<PortfolioTransaction> rewritten = new ArrayList<>();
+    private final PortfolioTransactionRepository transactionRepository = mock(PortfolioTransactionRepository.class);
+    private final PositionRepository positionRepository = mock(PositionRepository.class);
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private Position position;
+    private PortfolioService service;
+
+    @BeforeEach
+    void setUp() {
+        position = Position.builder()
+                .user(User.builder().id(USER).build())
+                .asset(Asset.builder().id(ASSET).build())
+                .quantity(BigDecimal.ZERO)
+                .averageCost(BigDecimal.ZERO)
+                .realizedPnl(BigDecimal.ZERO)
+                .build();
+        when(positionRepository.lockOrCreate(USER, ASSET)).thenAnswer(invocation -> position);
+        when(assetRepository.findById(ASSET)).thenReturn(Optional.of(Asset.builder().id(ASSET).build()));
+        when(transactionRepository.insert(any())).thenAnswer(invocation -> {
+            PortfolioTransaction tx = invocation.getArgument(0);
+            tx.setId((long) ledger.size() + 1);
+            ledger.add(tx);
+            return tx;
+        });
+        when(transactionRepository.findByUserAndAssetOrdered(USER, ASSET)).thenAnswer(invocation -> ledger.stream()
+                .sorted(Comparator.comparing(PortfolioTransaction::getExecutedAt).thenComparing(PortfolioTransaction::getId))
+                .toList());
+        doAnswer(invocation -> rewritten.addAll(invocation.getArgument(0)))
+                .when(transactionRepository).updateRealizedPnl(any());
+
+        service = new PortfolioService(transactionRepository, positionRepository, mock(UserRepository.class),
+                mock(UserStatusCache.class), assetRepository, new PortfolioTransactionMapperImpl(),
+                mock(PortfolioReturnsService.class), mock(FxRateService.class), mock(OutboxService.class));
+    }
+
+    @Test
+    void buysAverageTheCostWithFeesCapitalized() {
+        record(TransactionSideDto.BUY, "10", "100", "5", T1);
+        record(TransactionSideDto.BUY, "10", "110", "0", T2);
+
+        assertThat(position.getQuantity()).isEqualByComparingTo("20");
+        assertThat(position.getAverageCost()).isEqualByComparingTo("105.25");
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("0");
+        assertThat(position.getTransactionCount()).isEqualTo(2);
+        assertThat(position.getLastExecutedAt()).isEqualTo(T2);
+    }
+
+    @Test
+    void sellsRealizeAgainstTheAverageCostNetOfFees() {
+        record(TransactionSideDto.BUY, "10", "100", "5", T1);
+        record(TransactionSideDto.BUY, "10", "110", "0", T2);
+
+        PortfolioTransactionResponseDto sell = record(TransactionSideDto.SELL, "5", "120", "2", T3);
+
+        assertThat(sell.getRealizedPnl()).isEqualByComparingTo("71.75");
+        assertThat(position.getQuantity()).isEqualByComparingTo("15");
+        assertThat(position.getAverageCost()).isEqualByComparingTo("105.25");
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("71.75");
+    }
+
+    @Test
+    void closingThePositionResetsTheAverageCost() {
+        record(TransactionSideDto.BUY, "4", "50", "0", T1);
+        record(TransactionSideDto.SELL, "4", "40", "0", T2);
+
+        assertThat(position.getQuantity()).isEqualByComparingTo("0");
+        assertThat(position.getAverageCost()).isEqualByComparingTo("0");
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("-40");
+    }
+
+    @Test
+    void sellingMoreThanHeldIsRejected() {
+        record(TransactionSideDto.BUY, "2", "100", "0", T1);
+
+        assertThatThrownBy(() -> record(TransactionSideDto.SELL, "3", "100", "0", T2))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(position.getQuantity()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void backdatedBuyReplaysThePositionAndRewritesLaterSells() {
+        record(TransactionSideDto.BUY, "10", "100", "0", T1);
+        PortfolioTransactionResponseDto sell = record(TransactionSideDto.SELL, "5", "120", "0", T3);
+        assertThat(sell.getRealizedPnl()).isEqualByComparingTo("100");
+
+        PortfolioTransactionResponseDto backdated = record(TransactionSideDto.BUY, "10", "130", "0", T2);
+
+        assertThat(backdated.getRealizedPnl()).isEqualByComparingTo("0");
+        assertThat(position.getQuantity()).isEqualByComparingTo("15");
+        assertThat(position.getAverageCost()).isEqualByComparingTo("115");
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("25");
+        assertThat(position.getTransactionCount()).isEqualTo(3);
+        assertThat(position.getLastExecutedAt()).isEqualTo(T3);
+        assertThat(rewritten).extracting(PortfolioTransaction::getId).contains(sell.getId());
+        assertThat(ledger.get(1).getRealizedPnl()).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void backdatedSellThatUncoversALaterSellIsRejected() {
+        record(TransactionSideDto.BUY, "10", "100", "0", T1);
+        record(TransactionSideDto.SELL, "8", "120", "0", T3);
+
+        assertThatThrownBy(() -> record(TransactionSideDto.SELL, "5", "110", "0", T2))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private PortfolioTransactionResponseDto record(TransactionSideDto side, String quantity, String price, String fee, Instant at) {
+        return service.recordTransaction(USER, PortfolioTransactionRequestDto.builder()
+                .assetId(ASSET)
+                .side(side)
+                .quantity(new BigDecimal(quantity))
+                .price(new BigDecimal(price))
+                .fee(new BigDecimal(fee))
+                .executedAt(at)
+                .build());
+    }
+}
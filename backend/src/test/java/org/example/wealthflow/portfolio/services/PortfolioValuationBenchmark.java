@@ -0,0 +1,152 @@
+package org.example.wealthflow.portfolio.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.wealthflow.asset.models.Asset;
+import org.example.wealthflow.asset.repositories.AssetRepository;
+import org.example.wealthflow.configs.FxConfig;
+import org.example.wealthflow.configs.PortfolioValuationConfig;
+import org.example.wealthflow.fx.models.FxRate;
+import org.example.wealthflow.fx.repositories.FxRateRepository;
+import org.example.wealthflow.fx.services.FxRateService;
+import org.example.wealthflow.outbox.services.OutboxService;
+import org.example.wealthflow.portfolio.dtos.ValuationRunDto;
+import org.example.wealthflow.portfolio.models.Position;
+import org.example.wealthflow.portfolio.repositories.PortfolioSnapshotRepository;
+import org.example.wealthflow.portfolio.repositories.PositionRepository;
+import org.example.wealthflow.user.models.User;
+import org.example.wealthflow.user.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Throughput of one valuation run over 100k users holding 20 positions each, spread over 2,000
+ * assets in three currencies. The repositories answer from memory, building position rows per
+ * partition as a result mapper would, so the figure is the engine's own cost (partitioning, pricing,
+ * FX conversion, folding into snapshots) without database latency. The mocks are stub-only so
+ * recorded invocations do not pile up across iterations.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main PortfolioValuationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PortfolioValuationBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int POSITIONS_PER_USER = 20;
+    private static final int ASSETS = 2_000;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP"};
+
+    @Param({"1", "4", "8"})
+    private int parallelism;
+
+    private PortfolioValuationService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        Map<Long, String> currencies = new HashMap<>();
+        Asset[] assets = new Asset[ASSETS];
+        for (int i = 0; i < ASSETS; i++) {
+            long id = i + 1;
+            assets[i] = Asset.builder().id(id).build();
+            prices.put(id, BigDecimal.valueOf(10 + i % 490, 0).add(BigDecimal.valueOf(i % 100, 2)));
+            currencies.put(id, CURRENCIES[i % CURRENCIES.length]);
+        }
+
+        AssetRepository assetRepository = mock(AssetRepository.class, withSettings().stubOnly());
+        when(assetRepository.findLastPrices()).thenReturn(prices);
+        when(assetRepository.findCurrencies()).thenReturn(currencies);
+
+        PositionRepository positionRepository = mock(PositionRepository.class, withSettings().stubOnly());
+        when(positionRepository.findUserIds()).thenReturn(LongStream.rangeClosed(1, USERS).boxed().toList());
+        when(positionRepository.findByUserIdRange(any(), any())).thenAnswer(invocation -> {
+            long first = invocation.<Long>getArgument(0);
+            long last = invocation.<Long>getArgument(1);
+            List<Position> rows = new ArrayList<>((int) (last - first + 1) * POSITIONS_PER_USER);
+            for (long userId = first; userId <= last; userId++) {
+                User user = User.builder().id(userId).build();
+                for (int k = 0; k < POSITIONS_PER_USER; k++) {
+                    rows.add(Position.builder()
+                            .user(user)
+                            .asset(assets[(int) ((userId * 31 + k * 97) % ASSETS)])
+                            .quantity(BigDecimal.valueOf(1 + k))
+                            .averageCost(BigDecimal.valueOf(100))
+                            .realizedPnl(BigDecimal.ZERO)
+                            .build());
+                }
+            }
+            return rows;
+        });
+
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findBaseCurrenciesByIdRange(any(), any())).thenAnswer(invocation -> {
+            Map<Long, String> base = new HashMap<>();
+            for (long id = invocation.<Long>getArgument(0); id <= invocation.<Long>getArgument(1); id++) {
+                base.put(id, CURRENCIES[(int) (id % CURRENCIES.length)]);
+            }
+            return base;
+        });
+
+        PortfolioSnapshotRepository snapshotRepository = mock(PortfolioSnapshotRepository.class, withSettings().stubOnly());
+        when(snapshotRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        FxRateRepository fxRateRepository = mock(FxRateRepository.class, withSettings().stubOnly());
+        when(fxRateRepository.findLatest()).thenReturn(List.of(
+                FxRate.builder().baseCurrency("EUR").quoteCurrency("USD").rate(new BigDecimal("1.08")).asOf(Instant.now()).build(),
+                FxRate.builder().baseCurrency("GBP").quoteCurrency("USD").rate(new BigDecimal("1.27")).asOf(Instant.now()).build()));
+        FxRateService fxRateService = new FxRateService(fxRateRepository, new FxConfig(), mock(OutboxService.class, withSettings().stubOnly()));
+        fxRateService.refresh();
+
+        PortfolioValuationConfig config = new PortfolioValuationConfig();
+        config.setParallelism(parallelism);
+        service = new PortfolioValuationService(positionRepository, snapshotRepository, assetRepository, userRepository,
+                fxRateService, config, new SimpleMeterRegistry());
+        service.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public ValuationRunDto valueAll() {
+        return service.valueAll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PortfolioValuationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
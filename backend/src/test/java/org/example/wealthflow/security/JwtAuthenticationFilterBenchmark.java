@@ -0,0 +1,107 @@
+package org.example.wealthflow.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.example.wealthflow.auth.repositories.TokenRevocationRepository;
+import org.example.wealthflow.auth.services.JwtTokenService;
+import org.example.wealthflow.auth.services.TokenRevocationService;
+import org.example.wealthflow.configs.JwtTokenConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter}: a request without a token, a repeat token
+ * answered from the verified-token cache, and the same token with the cache disabled, which parses
+ * and checks the HMAC every time. Revocation is checked against an empty in-memory list.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main JwtAuthenticationFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+    @Param({"100000", "0"})
+    private int verifiedCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest withToken;
+    private MockHttpServletRequest withoutToken;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtTokenConfig config = new JwtTokenConfig();
+        config.setSecret(SECRET);
+        config.setExpirationSeconds(3_600);
+        config.setVerifiedCacheSize(verifiedCacheSize);
+
+        TokenRevocationRepository repository = mock(TokenRevocationRepository.class);
+        when(repository.now()).thenReturn(Instant.now());
+        when(repository.findRevokedSince(any())).thenReturn(List.of());
+        when(repository.findCutoffsSince(any(), any())).thenReturn(List.of());
+        TokenRevocationService revocationService = new TokenRevocationService(repository, config, new SimpleMeterRegistry(), 100_000, 0.001);
+        revocationService.init();
+
+        JwtTokenService tokenService = new JwtTokenService(config, revocationService);
+        tokenService.init();
+        filter = new JwtAuthenticationFilter(tokenService, (request, response, ex) -> { });
+
+        withToken = new MockHttpServletRequest("GET", "/portfolio");
+        withToken.addHeader("Authorization", "Bearer " + tokenService.generateToken(42L, "USER"));
+        withoutToken = new MockHttpServletRequest("GET", "/assets");
+    }
+
+    @Benchmark
+    public Authentication authenticated() throws Exception {
+        return run(withToken);
+    }
+
+    @Benchmark
+    public Authentication anonymous() throws Exception {
+        return run(withoutToken);
+    }
+
+    private Authentication run(MockHttpServletRequest request) throws Exception {
+        // OncePerRequestFilter marks the request as filtered; drop the mark so every call does the work
+        request.clearAttributes();
+        filter.doFilter(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticationFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}